@@ -0,0 +1,391 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * This class define a generator of synthetic FASTQ, FASTA, GTF and SAM files for the benchmarks.
+ * The generated files only depend on the seed of the generator, so two runs of a benchmark always
+ * use the same data.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public final class BenchmarkDataGenerator {
+
+  /** Default seed of the generator. */
+  public static final long DEFAULT_SEED = 20240101L;
+
+  private static final char[] BASES = {'A', 'C', 'G', 'T'};
+  private static final int SANGER_OFFSET = 33;
+  private static final int MAX_SPLICE_GAP = 500;
+  private static final String CHROMOSOME_PREFIX = "chr";
+
+  private final Random random;
+  private final int chromosomeCount;
+  private final int chromosomeLength;
+
+  //
+  // FASTQ
+  //
+
+  /**
+   * Write a FASTQ file in Sanger format.
+   *
+   * @param file the output file
+   * @param readCount the number of reads
+   * @param readLength the length of the reads
+   * @throws IOException if an error occurs while writing the file
+   */
+  public void writeFastq(final Path file, final int readCount, final int readLength)
+      throws IOException {
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+
+      for (int i = 0; i < readCount; i++) {
+
+        writer.write('@');
+        writer.write(readName(i));
+        writer.write('\n');
+        writer.write(randomSequence(readLength));
+        writer.write("\n+\n");
+        writer.write(randomQuality(readLength));
+        writer.write('\n');
+      }
+    }
+  }
+
+  //
+  // FASTA
+  //
+
+  /**
+   * Write the genome of the generator in a FASTA file.
+   *
+   * @param file the output file
+   * @throws IOException if an error occurs while writing the file
+   */
+  public void writeGenomeFasta(final Path file) throws IOException {
+
+    final int lineLength = 60;
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+
+      for (int i = 1; i <= this.chromosomeCount; i++) {
+
+        writer.write('>');
+        writer.write(CHROMOSOME_PREFIX + i);
+        writer.write('\n');
+
+        for (int pos = 0; pos < this.chromosomeLength; pos += lineLength) {
+          writer.write(randomSequence(Math.min(lineLength, this.chromosomeLength - pos)));
+          writer.write('\n');
+        }
+      }
+    }
+  }
+
+  //
+  // GTF
+  //
+
+  /**
+   * Write a GTF file with genes regularly spaced on the chromosomes. Each gene has between one and
+   * three exons.
+   *
+   * @param file the output file
+   * @param geneCount the number of genes
+   * @throws IOException if an error occurs while writing the file
+   */
+  public void writeGTF(final Path file, final int geneCount) throws IOException {
+
+    final int genesPerChromosome = Math.max(1, geneCount / this.chromosomeCount);
+    final int geneSpacing = this.chromosomeLength / genesPerChromosome;
+    int geneId = 0;
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+
+      for (int chr = 1; chr <= this.chromosomeCount && geneId < geneCount; chr++) {
+        for (int g = 0; g < genesPerChromosome && geneId < geneCount; g++) {
+
+          geneId++;
+          final String attributes =
+              "gene_id \"gene" + geneId + "\"; transcript_id \"gene" + geneId + ".1\";";
+          final char strand = this.random.nextBoolean() ? '+' : '-';
+          final int exonCount = 1 + this.random.nextInt(3);
+          final int exonLength = geneSpacing / (2 * exonCount);
+
+          for (int e = 0; e < exonCount; e++) {
+
+            final int start = g * geneSpacing + 2 * e * exonLength + 1;
+            final int end = start + exonLength - 1;
+
+            writer.write(
+                CHROMOSOME_PREFIX
+                    + chr
+                    + "\tbenchmark\texon\t"
+                    + start
+                    + '\t'
+                    + end
+                    + "\t.\t"
+                    + strand
+                    + "\t.\t"
+                    + attributes
+                    + '\n');
+          }
+        }
+      }
+    }
+  }
+
+  //
+  // SAM
+  //
+
+  /**
+   * Write a single-end SAM file. The alignments are grouped by read name like in the output of the
+   * mappers. 5% of the reads are unmapped, 10% of the reads have a secondary alignment and 5% of
+   * the alignments are spliced.
+   *
+   * @param file the output file
+   * @param readCount the number of reads
+   * @param readLength the length of the reads
+   * @return the number of alignments in the file
+   * @throws IOException if an error occurs while writing the file
+   */
+  public int writeSAM(final Path file, final int readCount, final int readLength)
+      throws IOException {
+
+    int alignmentCount = 0;
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+
+      writeSAMHeader(writer);
+
+      for (int i = 0; i < readCount; i++) {
+
+        final String name = readName(i);
+        final String sequence = randomSequence(readLength);
+        final String quality = randomQuality(readLength);
+        final int draw = this.random.nextInt(100);
+
+        if (draw < 5) {
+
+          // Unmapped read
+          writer.write(name + "\t4\t*\t0\t0\t*\t*\t0\t0\t" + sequence + '\t' + quality + '\n');
+          alignmentCount++;
+
+        } else {
+
+          final boolean multi = draw >= 90;
+          final int hits = multi ? 2 : 1;
+
+          for (int h = 0; h < hits; h++) {
+
+            final int flag = (h > 0 ? 256 : 0) | (this.random.nextBoolean() ? 16 : 0);
+            writeAlignment(writer, name, flag, multi ? 1 : 60, hits, sequence, quality);
+            alignmentCount++;
+          }
+        }
+      }
+    }
+
+    return alignmentCount;
+  }
+
+  /**
+   * Write the header of a SAM file.
+   *
+   * @param writer the writer
+   * @throws IOException if an error occurs while writing the header
+   */
+  private void writeSAMHeader(final BufferedWriter writer) throws IOException {
+
+    writer.write("@HD\tVN:1.4\tSO:unsorted\n");
+
+    for (int i = 1; i <= this.chromosomeCount; i++) {
+      writer.write("@SQ\tSN:" + CHROMOSOME_PREFIX + i + "\tLN:" + this.chromosomeLength + '\n');
+    }
+
+    writer.write("@PG\tID:benchmark\tPN:BenchmarkDataGenerator\n");
+  }
+
+  /**
+   * Write a mapped alignment.
+   *
+   * @param writer the writer
+   * @param name the name of the read
+   * @param flag the SAM flag
+   * @param mapq the mapping quality
+   * @param hits the number of alignments of the read
+   * @param sequence the sequence of the read
+   * @param quality the quality of the read
+   * @throws IOException if an error occurs while writing the alignment
+   */
+  private void writeAlignment(
+      final BufferedWriter writer,
+      final String name,
+      final int flag,
+      final int mapq,
+      final int hits,
+      final String sequence,
+      final String quality)
+      throws IOException {
+
+    final int readLength = sequence.length();
+    final String cigar;
+    final int refLength;
+
+    if (this.random.nextInt(100) < 5 && readLength > 1) {
+
+      // Spliced alignment
+      final int left = 1 + this.random.nextInt(readLength - 1);
+      final int gap = 1 + this.random.nextInt(MAX_SPLICE_GAP);
+      cigar = left + "M" + gap + "N" + (readLength - left) + "M";
+      refLength = readLength + gap;
+    } else {
+      cigar = readLength + "M";
+      refLength = readLength;
+    }
+
+    final int chr = 1 + this.random.nextInt(this.chromosomeCount);
+    final int pos = 1 + this.random.nextInt(Math.max(1, this.chromosomeLength - refLength));
+
+    writer.write(
+        name
+            + '\t'
+            + flag
+            + '\t'
+            + CHROMOSOME_PREFIX
+            + chr
+            + '\t'
+            + pos
+            + '\t'
+            + mapq
+            + '\t'
+            + cigar
+            + "\t*\t0\t0\t"
+            + sequence
+            + '\t'
+            + quality
+            + "\tNH:i:"
+            + hits
+            + '\n');
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Delete a directory created for a benchmark and its content.
+   *
+   * @param directory the directory to delete
+   * @throws IOException if an error occurs while deleting the directory
+   */
+  public static void deleteDirectory(final Path directory) throws IOException {
+
+    if (directory == null || !Files.exists(directory)) {
+      return;
+    }
+
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(p);
+      }
+    }
+  }
+
+  private static String readName(final int index) {
+
+    return "BENCH:1:FC1:1:" + (1 + index / 100000) + ':' + (index % 100000) + ":1";
+  }
+
+  private String randomSequence(final int length) {
+
+    final char[] result = new char[length];
+
+    for (int i = 0; i < length; i++) {
+      result[i] = BASES[this.random.nextInt(BASES.length)];
+    }
+
+    return new String(result);
+  }
+
+  private String randomQuality(final int length) {
+
+    final char[] result = new char[length];
+
+    for (int i = 0; i < length; i++) {
+
+      // Qualities decrease along the read like in real Illumina data
+      final int quality = 40 - i * 15 / length - this.random.nextInt(10);
+      result[i] = (char) (SANGER_OFFSET + Math.max(2, quality));
+    }
+
+    return new String(result);
+  }
+
+  //
+  // Constructors
+  //
+
+  /** Constructor with the default seed and a genome of 4 chromosomes of 1 Mb. */
+  public BenchmarkDataGenerator() {
+
+    this(DEFAULT_SEED, 4, 1_000_000);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param seed the seed of the random generator
+   * @param chromosomeCount the number of chromosomes of the genome
+   * @param chromosomeLength the length of the chromosomes of the genome
+   */
+  public BenchmarkDataGenerator(
+      final long seed, final int chromosomeCount, final int chromosomeLength) {
+
+    if (chromosomeCount < 1) {
+      throw new IllegalArgumentException("chromosomeCount must be greater than 0");
+    }
+
+    if (chromosomeLength < 1) {
+      throw new IllegalArgumentException("chromosomeLength must be greater than 0");
+    }
+
+    this.random = new Random(seed);
+    this.chromosomeCount = chromosomeCount;
+    this.chromosomeLength = chromosomeLength;
+  }
+}
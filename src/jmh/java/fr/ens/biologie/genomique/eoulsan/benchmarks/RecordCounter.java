@@ -0,0 +1,64 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class define a JMH counter of the processed records. As the counter is of type OPERATIONS,
+ * JMH reports the number of records processed per second in addition to the score of the
+ * benchmark.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RecordCounter {
+
+  /** Number of records processed. */
+  public long records;
+
+  /** Reset the counter before each iteration. */
+  @Setup(Level.Iteration)
+  public void reset() {
+
+    this.records = 0;
+  }
+
+  /**
+   * Add records to the counter.
+   *
+   * @param count the number of records to add
+   */
+  public void add(final long count) {
+
+    this.records += count;
+  }
+}
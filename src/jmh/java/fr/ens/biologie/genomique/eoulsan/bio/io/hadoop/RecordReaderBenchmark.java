@@ -0,0 +1,220 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.bio.io.hadoop;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+
+import fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.RecordCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the Hadoop record readers of the FASTQ and SAM files. The input
+ * file is read in one or several splits to also measure the cost of the split boundaries.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordReaderBenchmark {
+
+  /** Number of reads of the input files. */
+  @Param("100000")
+  public int records;
+
+  /** Length of the reads. */
+  @Param("100")
+  public int readLength;
+
+  /** Number of splits of the input files. */
+  @Param({"1", "4"})
+  public int splits;
+
+  private java.nio.file.Path directory;
+  private Path fastqFile;
+  private Path samFile;
+  private long fastqLength;
+  private long samLength;
+  private TaskAttemptContext context;
+
+  /** This class define a status reporter that only keep the counters. */
+  private static final class BenchmarkStatusReporter extends StatusReporter {
+
+    private final Counters counters = new Counters();
+
+    @Override
+    public Counter getCounter(final Enum<?> name) {
+      return this.counters.findCounter(name);
+    }
+
+    @Override
+    public Counter getCounter(final String group, final String name) {
+      return this.counters.findCounter(group, name);
+    }
+
+    @Override
+    public void progress() {}
+
+    @Override
+    public float getProgress() {
+      return 0;
+    }
+
+    @Override
+    public void setStatus(final String status) {}
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    final java.nio.file.Path fastqPath = this.directory.resolve("reads.fq");
+    final java.nio.file.Path samPath = this.directory.resolve("alignments.sam");
+
+    final BenchmarkDataGenerator generator = new BenchmarkDataGenerator();
+    generator.writeFastq(fastqPath, this.records, this.readLength);
+    generator.writeSAM(samPath, this.records, this.readLength);
+
+    this.fastqFile = new Path(fastqPath.toUri());
+    this.samFile = new Path(samPath.toUri());
+    this.fastqLength = Files.size(fastqPath);
+    this.samLength = Files.size(samPath);
+
+    this.context =
+        new TaskAttemptContextImpl(
+            new Configuration(), new TaskAttemptID(), new BenchmarkStatusReporter());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public long readFastq(final RecordCounter counter) throws IOException, InterruptedException {
+
+    long count = 0;
+
+    for (FileSplit split : createSplits(this.fastqFile, this.fastqLength)) {
+      count += readSplit(new FastqRecordReader(this.context), split);
+    }
+
+    counter.add(count);
+    return count;
+  }
+
+  @Benchmark
+  public long readSAM(final RecordCounter counter) throws IOException, InterruptedException {
+
+    long count = 0;
+
+    for (FileSplit split : createSplits(this.samFile, this.samLength)) {
+      count += readSplit(new SAMRecordReader(this.context), split);
+    }
+
+    counter.add(count);
+    return count;
+  }
+
+  /**
+   * Read all the records of a split.
+   *
+   * @param reader the record reader
+   * @param split the split
+   * @return the number of records read
+   * @throws IOException if an error occurs while reading the split
+   * @throws InterruptedException if the reading has been interrupted
+   */
+  private long readSplit(final RecordReader<?, ?> reader, final FileSplit split)
+      throws IOException, InterruptedException {
+
+    long count = 0;
+
+    try {
+      reader.initialize(split, this.context);
+
+      while (reader.nextKeyValue()) {
+        count++;
+      }
+    } finally {
+      reader.close();
+    }
+
+    return count;
+  }
+
+  /**
+   * Split a file in splits of the same length.
+   *
+   * @param file the file
+   * @param length the length of the file
+   * @return an array with the splits
+   */
+  private FileSplit[] createSplits(final Path file, final long length) {
+
+    final FileSplit[] result = new FileSplit[this.splits];
+    final long splitLength = length / this.splits;
+
+    for (int i = 0; i < this.splits; i++) {
+
+      final long start = i * splitLength;
+      final long end = i == this.splits - 1 ? length : start + splitLength;
+      result[i] = new FileSplit(file, start, end - start, new String[0]);
+    }
+
+    return result;
+  }
+}
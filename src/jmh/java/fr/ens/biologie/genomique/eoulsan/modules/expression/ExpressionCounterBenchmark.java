@@ -0,0 +1,154 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.expression;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+import static fr.ens.biologie.genomique.kenetre.bio.expressioncounter.HTSeqCounter.ATTRIBUTE_ID_PARAMETER_NAME;
+import static fr.ens.biologie.genomique.kenetre.bio.expressioncounter.HTSeqCounter.GENOMIC_TYPE_PARAMETER_NAME;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntimeDebug;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.RecordCounter;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
+import fr.ens.biologie.genomique.kenetre.KenetreException;
+import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
+import fr.ens.biologie.genomique.kenetre.bio.GenomeDescription;
+import fr.ens.biologie.genomique.kenetre.bio.expressioncounter.ExpressionCounter;
+import fr.ens.biologie.genomique.kenetre.bio.expressioncounter.HTSeqCounter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the counting of the alignments of a SAM file on the features of
+ * a GTF file by the HTSeq-count counter of the expression module.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionCounterBenchmark {
+
+  private static final String COUNTER_GROUP = "benchmark";
+
+  /** Number of reads of the SAM file. */
+  @Param("100000")
+  public int records;
+
+  /** Length of the reads. */
+  @Param("100")
+  public int readLength;
+
+  /** Number of genes of the GTF file. */
+  @Param("2000")
+  public int genes;
+
+  private Path directory;
+  private GenomeDescription genomeDescription;
+  private DataFile annotationFile;
+  private DataFile samFile;
+  private int alignmentCount;
+  private ExpressionCounter counter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, EoulsanException, BadBioEntryException {
+
+    EoulsanRuntimeDebug.initDebugEoulsanRuntime();
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    final Path genomePath = this.directory.resolve("genome.fasta");
+    final Path gtfPath = this.directory.resolve("annotation.gtf");
+    final Path samPath = this.directory.resolve("alignments.sam");
+
+    final BenchmarkDataGenerator generator = new BenchmarkDataGenerator();
+    generator.writeGenomeFasta(genomePath);
+    generator.writeGTF(gtfPath, this.genes);
+    this.alignmentCount = generator.writeSAM(samPath, this.records, this.readLength);
+
+    try (InputStream in = Files.newInputStream(genomePath)) {
+      this.genomeDescription =
+          GenomeDescription.createGenomeDescFromFasta(in, genomePath.getFileName().toString());
+    }
+
+    this.annotationFile = new DataFile(gtfPath);
+    this.samFile = new DataFile(samPath);
+  }
+
+  /**
+   * Create and initialize a new counter before each counting, the parsing of the annotation is not
+   * part of the benchmark.
+   */
+  @Setup(Level.Invocation)
+  public void createCounter() throws IOException, KenetreException {
+
+    this.counter = new HTSeqCounter();
+    this.counter.setParameter(GENOMIC_TYPE_PARAMETER_NAME, "exon");
+    this.counter.setParameter(ATTRIBUTE_ID_PARAMETER_NAME, "gene_id");
+    this.counter.checkConfiguration();
+
+    ExpressionCounterUtils.init(this.counter, this.genomeDescription, this.annotationFile, true);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public Map<String, Integer> count(final RecordCounter counter)
+      throws IOException, KenetreException {
+
+    final Map<String, Integer> result =
+        ExpressionCounterUtils.count(
+            this.counter, this.samFile, new LocalCounterReporter(), COUNTER_GROUP);
+    counter.add(this.alignmentCount);
+
+    return result;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.mapping.local;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntimeDebug;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.RecordCounter;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
+import fr.ens.biologie.genomique.kenetre.KenetreException;
+import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
+import fr.ens.biologie.genomique.kenetre.bio.readfilter.MultiReadFilterBuilder;
+import fr.ens.biologie.genomique.kenetre.bio.readfilter.ReadFilter;
+import fr.ens.biologie.genomique.kenetre.util.Reporter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the filtering of the reads of a FASTQ file by the
+ * ReadsFilterLocalModule.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadsFilterLocalModuleBenchmark {
+
+  private static final String COUNTER_GROUP = "benchmark";
+
+  /** Number of reads of the FASTQ file. */
+  @Param("100000")
+  public int records;
+
+  /** Length of the reads. */
+  @Param("100")
+  public int readLength;
+
+  private Path directory;
+  private DataFile inFile;
+  private DataFile outFile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, EoulsanException {
+
+    EoulsanRuntimeDebug.initDebugEoulsanRuntime();
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    final Path fastqFile = this.directory.resolve("reads.fq");
+    new BenchmarkDataGenerator().writeFastq(fastqFile, this.records, this.readLength);
+
+    this.inFile = new DataFile(fastqFile);
+    this.outFile = new DataFile(this.directory.resolve("filtered.fq"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public Reporter filterReads(final RecordCounter counter) throws IOException, KenetreException {
+
+    final Reporter reporter = new LocalCounterReporter();
+
+    // Use the filters of the default Eoulsan workflow
+    final MultiReadFilterBuilder builder = new MultiReadFilterBuilder();
+    builder.addParameter("trimpolynend", "");
+    builder.addParameter("length.minimal.length.threshold", "40");
+    builder.addParameter("quality.threshold", "30");
+    final ReadFilter filter = builder.getReadFilter(reporter, COUNTER_GROUP);
+
+    ReadsFilterLocalModule.filterFile(
+        this.inFile, this.outFile, reporter, filter, FastqFormat.FASTQ_SANGER);
+    counter.add(this.records);
+
+    return reporter;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.singlecell;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+
+import fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator;
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.Column;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the formats used to exchange single cell matrices with R. The
+ * dense TSV format previously used is compared to the binary and MatrixMarket formats.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatrixExchangeBenchmark {
+
+  /** Number of genes of the matrix. */
+  @Param("20000")
+  public int genes;
+
+  /** Number of cells of the matrix. */
+  @Param("1000")
+  public int cells;
+
+  /** Fraction of the non-zero values of the matrix. */
+  @Param("0.1")
+  public double density;
+
+  private Path directory;
+  private Path outputFile;
+  private ColumnarSparseMatrix matrix;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    this.outputFile = this.directory.resolve("matrix");
+
+    final String[] geneNames = new String[this.genes];
+    for (int i = 0; i < this.genes; i++) {
+      geneNames[i] = "ENSG" + String.format("%011d", i);
+    }
+
+    final List<Integer> cellIds = new ArrayList<>();
+    for (int i = 0; i < this.cells; i++) {
+      cellIds.add(i);
+    }
+
+    this.matrix =
+        ColumnarSparseMatrix.load(
+            cellIds,
+            Runtime.getRuntime().availableProcessors(),
+            cell -> {
+              final Random random = new Random(BenchmarkDataGenerator.DEFAULT_SEED + cell);
+              final double[] values = new double[geneNames.length];
+              for (int i = 0; i < values.length; i++) {
+                if (random.nextDouble() < this.density) {
+                  values[i] = 1 + random.nextInt(100);
+                }
+              }
+              return Collections.singletonList(new Column("cell" + cell, geneNames, values));
+            });
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public long denseTSV() throws IOException {
+
+    ColumnarSparseMatrixUtils.writeDenseTSV(this.matrix, Files.newOutputStream(this.outputFile));
+
+    return Files.size(this.outputFile);
+  }
+
+  @Benchmark
+  public long binary() throws IOException {
+
+    ColumnarSparseMatrixUtils.writeBinary(this.matrix, Files.newOutputStream(this.outputFile));
+
+    return Files.size(this.outputFile);
+  }
+
+  @Benchmark
+  public long matrixMarket() throws IOException {
+
+    ColumnarSparseMatrixUtils.writeMatrixMarket(
+        this.matrix, Files.newOutputStream(this.outputFile));
+
+    return Files.size(this.outputFile);
+  }
+}
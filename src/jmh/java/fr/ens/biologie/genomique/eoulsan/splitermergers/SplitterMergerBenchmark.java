@@ -0,0 +1,162 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.splitermergers;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntimeDebug;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator;
+import fr.ens.biologie.genomique.eoulsan.benchmarks.RecordCounter;
+import fr.ens.biologie.genomique.eoulsan.core.Parameter;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the FASTQ splitter and of the SAM merger.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SplitterMergerBenchmark {
+
+  private static final int SAM_FILES_TO_MERGE = 4;
+
+  /** Number of reads of the FASTQ file and of reads in all the SAM files to merge. */
+  @Param("100000")
+  public int records;
+
+  /** Length of the reads. */
+  @Param("100")
+  public int readLength;
+
+  /** Maximal number of entries in each split file. */
+  @Param("10000")
+  public int splitMaxEntries;
+
+  private Path directory;
+  private DataFile fastqFile;
+  private final List<DataFile> samFiles = new ArrayList<>();
+  private int alignmentCount;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, EoulsanException {
+
+    EoulsanRuntimeDebug.initDebugEoulsanRuntime();
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    final BenchmarkDataGenerator generator = new BenchmarkDataGenerator();
+
+    final Path fastqPath = this.directory.resolve("reads.fq");
+    generator.writeFastq(fastqPath, this.records, this.readLength);
+    this.fastqFile = new DataFile(fastqPath);
+
+    for (int i = 0; i < SAM_FILES_TO_MERGE; i++) {
+
+      final Path samPath = this.directory.resolve("alignments-" + i + ".sam");
+      this.alignmentCount +=
+          generator.writeSAM(samPath, this.records / SAM_FILES_TO_MERGE, this.readLength);
+      this.samFiles.add(new DataFile(samPath));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public void splitFastq(final RecordCounter counter) throws IOException, EoulsanException {
+
+    final Splitter splitter = new FastqSplitter();
+    splitter.configure(
+        Collections.singleton(new Parameter("max.entries", "" + this.splitMaxEntries)));
+
+    splitter.split(this.fastqFile, new SplitFileIterator(this.directory, "split-", ".fq"));
+    counter.add(this.records);
+  }
+
+  @Benchmark
+  public void mergeSAM(final RecordCounter counter) throws IOException, EoulsanException {
+
+    final Merger merger = new SAMMerger();
+    merger.configure(Collections.emptySet());
+
+    merger.merge(this.samFiles.iterator(), new DataFile(this.directory.resolve("merged.sam")));
+    counter.add(this.alignmentCount);
+  }
+
+  /** This class define an infinite iterator on the output files of a splitter. */
+  private static final class SplitFileIterator implements Iterator<DataFile> {
+
+    private final Path directory;
+    private final String prefix;
+    private final String suffix;
+    private int count;
+
+    @Override
+    public boolean hasNext() {
+      return true;
+    }
+
+    @Override
+    public DataFile next() {
+      return new DataFile(this.directory.resolve(this.prefix + this.count++ + this.suffix));
+    }
+
+    SplitFileIterator(final Path directory, final String prefix, final String suffix) {
+      this.directory = directory;
+      this.prefix = prefix;
+      this.suffix = suffix;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.locker;
+
+import static fr.ens.biologie.genomique.eoulsan.benchmarks.BenchmarkDataGenerator.deleteDirectory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class define a benchmark of the hand-off latency of the FileLocker between two processes.
+ * A partner process continuously takes and releases the lock, so each lock of the benchmark waits
+ * the release of the lock by the partner process.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileLockerBenchmark {
+
+  private static final String LOCK_NAME = "benchmark";
+  private static final String READY_MESSAGE = "ready";
+
+  private Path directory;
+  private Process partner;
+  private FileLocker locker;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+
+    this.directory = Files.createTempDirectory("eoulsan-benchmark-");
+    this.locker = new FileLocker(this.directory, LOCK_NAME);
+
+    // Launch the partner process with the class path of the benchmark
+    final String java =
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    this.partner =
+        new ProcessBuilder(
+                java,
+                "-cp",
+                System.getProperty("java.class.path"),
+                FileLockerBenchmark.class.getName(),
+                this.directory.toString())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+    // Wait the first lock of the partner process
+    final BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(this.partner.getInputStream(), StandardCharsets.UTF_8));
+    if (!READY_MESSAGE.equals(reader.readLine())) {
+      throw new IOException("The partner process of the benchmark has not started");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException, InterruptedException {
+
+    this.partner.destroy();
+    this.partner.waitFor();
+    deleteDirectory(this.directory);
+  }
+
+  @Benchmark
+  public void handOff() throws IOException {
+
+    this.locker.lock();
+    this.locker.unlock();
+  }
+
+  //
+  // Partner process
+  //
+
+  /**
+   * Main method of the partner process. Take and release the lock until the process is killed.
+   *
+   * @param args the directory of the lock
+   * @throws IOException if an error occurs while locking
+   */
+  public static void main(final String[] args) throws IOException {
+
+    final FileLocker locker = new FileLocker(Paths.get(args[0]), LOCK_NAME);
+
+    locker.lock();
+    System.out.println(READY_MESSAGE);
+    System.out.flush();
+    locker.unlock();
+
+    while (true) {
+      locker.lock();
+      locker.unlock();
+    }
+  }
+}
@@ -88,6 +88,8 @@ public final class Settings implements Serializable {
 
   public static final String GALAXY_TOOL_PATH_KEY = MAIN_PREFIX_KEY + "galaxy.tool.path";
 
+  private static final String REGISTRY_INDEX_PATH_KEY = MAIN_PREFIX_KEY + "registry.index.path";
+
   private static final String HADOOP_AWS_ACCESS_KEY = "hadoop.conf.fs.s3n.awsAccessKeyId";
   private static final String HADOOP_AWS_SECRET_KEY = "hadoop.conf.fs.s3n.awsSecretAccessKey";
 
@@ -97,6 +99,44 @@ public final class Settings implements Serializable {
   private static final String CLUSTER_DEFAULT_MEMORY_REQUIRED =
       MAIN_PREFIX_KEY + "cluster.memory.required";
 
+  private static final String CLUSTER_PILOT_JOBS_KEY = MAIN_PREFIX_KEY + "cluster.pilot.jobs";
+
+  private static final String CLUSTER_PILOT_IDLE_TIMEOUT_KEY =
+      MAIN_PREFIX_KEY + "cluster.pilot.idle.timeout";
+
+  private static final String CLUSTER_PILOT_MAX_TASKS_KEY =
+      MAIN_PREFIX_KEY + "cluster.pilot.max.tasks";
+
+  private static final String CLUSTER_PILOT_MEMORY_KEY = MAIN_PREFIX_KEY + "cluster.pilot.memory";
+
+  private static final String CLUSTER_PILOT_PROCESSORS_KEY =
+      MAIN_PREFIX_KEY + "cluster.pilot.processors";
+
+  private static final String TASK_STAGING_PATH_KEY = MAIN_PREFIX_KEY + "task.staging.path";
+
+  private static final String TASK_STAGING_MAX_INPUT_SIZE_KEY =
+      MAIN_PREFIX_KEY + "task.staging.max.input.size";
+
+  private static final String TASK_METRICS_ENABLED_KEY = MAIN_PREFIX_KEY + "task.metrics.enabled";
+
+  private static final String TASK_METRICS_PROMETHEUS_FILE_KEY =
+      MAIN_PREFIX_KEY + "task.metrics.prometheus.file";
+
+  private static final String CHECKER_READS_SAMPLE_SIZE_KEY =
+      MAIN_PREFIX_KEY + "checker.reads.sample.size";
+
+  private static final String DESIGN_FASTQ_PROBE_THREADS_KEY =
+      MAIN_PREFIX_KEY + "design.fastq.probe.threads";
+
+  private static final String DESIGN_FASTQ_PROBE_MAX_SIZE_KEY =
+      MAIN_PREFIX_KEY + "design.fastq.probe.max.size";
+
+  private static final String DESIGN_FASTQ_PROBE_CACHE_FILE_KEY =
+      MAIN_PREFIX_KEY + "design.fastq.probe.cache.file";
+
+  private static final String RSERVE_POOL_SIZE_KEY = MAIN_PREFIX_KEY + "rserve.pool.size";
+  private static final String R_EXPERIMENT_MEMORY_KEY = MAIN_PREFIX_KEY + "r.experiment.memory";
+
   private static final String HADOOP_LOG_LEVEL_KEY = MAIN_PREFIX_KEY + "hadoop.log.level";
 
   private static final String RSERVE_ENABLED_KEY = MAIN_PREFIX_KEY + "rserve.enable";
@@ -115,6 +155,12 @@ public final class Settings implements Serializable {
   private static final String GENOME_MAPPER_INDEX_STORAGE_KEY =
       MAIN_PREFIX_KEY + "genome.mapper.index.storage.path";
 
+  private static final String MAPPER_INDEX_CACHE_PATH_KEY =
+      MAIN_PREFIX_KEY + "mapper.index.cache.path";
+
+  private static final String MAPPER_INDEX_CACHE_MAX_SIZE_KEY =
+      MAIN_PREFIX_KEY + "mapper.index.cache.max.size";
+
   private static final String GENOME_DESC_STORAGE_KEY =
       MAIN_PREFIX_KEY + "genome.desc.storage.path";
 
@@ -277,6 +323,166 @@ public final class Settings implements Serializable {
     return Integer.parseInt(value);
   }
 
+  /**
+   * Get the number of pilot jobs to use in cluster mode.
+   *
+   * @return the number of pilot jobs to use in cluster mode, 0 if pilot jobs are disabled
+   */
+  public int getClusterPilotJobs() {
+
+    return Integer.parseInt(this.properties.getProperty(CLUSTER_PILOT_JOBS_KEY, "0").trim());
+  }
+
+  /**
+   * Get the time in seconds after which an idle pilot job exits.
+   *
+   * @return the idle timeout of the pilot jobs in seconds
+   */
+  public int getClusterPilotIdleTimeout() {
+
+    return Integer.parseInt(
+        this.properties.getProperty(CLUSTER_PILOT_IDLE_TIMEOUT_KEY, "300").trim());
+  }
+
+  /**
+   * Get the maximal number of tasks executed by a pilot job before exiting.
+   *
+   * @return the maximal number of tasks executed by a pilot job, 0 if there is no limit
+   */
+  public int getClusterPilotMaxTasks() {
+
+    return Integer.parseInt(this.properties.getProperty(CLUSTER_PILOT_MAX_TASKS_KEY, "0").trim());
+  }
+
+  /**
+   * Get the memory in MB required by the pilot jobs.
+   *
+   * @return the memory required by the pilot jobs or -1 if not set
+   */
+  public int getClusterPilotMemory() {
+
+    return Integer.parseInt(this.properties.getProperty(CLUSTER_PILOT_MEMORY_KEY, "-1").trim());
+  }
+
+  /**
+   * Get the number of processors required by the pilot jobs.
+   *
+   * @return the number of processors required by the pilot jobs
+   */
+  public int getClusterPilotProcessors() {
+
+    return Integer.parseInt(this.properties.getProperty(CLUSTER_PILOT_PROCESSORS_KEY, "1").trim());
+  }
+
+  /**
+   * Get the path of the node-local scratch directory where the files of the cluster tasks are
+   * staged.
+   *
+   * @return the path of the staging directory or null if staging is disabled
+   */
+  public String getTaskStagingPath() {
+
+    return this.properties.getProperty(TASK_STAGING_PATH_KEY);
+  }
+
+  /**
+   * Get the maximal size in MB of an input file to stage on the node-local scratch directory.
+   *
+   * @return the maximal size of an input file to stage
+   */
+  public long getTaskStagingMaxInputSize() {
+
+    return Long.parseLong(
+        this.properties.getProperty(TASK_STAGING_MAX_INPUT_SIZE_KEY, "10240").trim());
+  }
+
+  /**
+   * Test if the resources used by the tasks must be measured.
+   *
+   * @return true if the resources used by the tasks must be measured
+   */
+  public boolean isTaskMetricsEnabled() {
+
+    return Boolean.parseBoolean(
+        this.properties.getProperty(TASK_METRICS_ENABLED_KEY, Boolean.toString(true)));
+  }
+
+  /**
+   * Get the path of the file where the resources used by the tasks are written at the Prometheus
+   * text format.
+   *
+   * @return the path of the Prometheus metrics file or null if the file must not be written
+   */
+  public String getTaskMetricsPrometheusFile() {
+
+    return this.properties.getProperty(TASK_METRICS_PROMETHEUS_FILE_KEY);
+  }
+
+  /**
+   * Get the number of reads of each FASTQ file to check by the reads checker.
+   *
+   * @return the number of reads to check. A negative value means that all the reads of the files
+   *     must be checked
+   */
+  public int getCheckerReadsSampleSize() {
+
+    return Integer.parseInt(
+        this.properties.getProperty(CHECKER_READS_SAMPLE_SIZE_KEY, "1000").trim());
+  }
+
+  /**
+   * Get the number of threads to use to probe the FASTQ files when creating a design.
+   *
+   * @return the number of threads to use
+   */
+  public int getDesignFastqProbeThreads() {
+
+    return Integer.parseInt(
+        this.properties.getProperty(DESIGN_FASTQ_PROBE_THREADS_KEY, "8").trim());
+  }
+
+  /**
+   * Get the maximal size in KB to read in each FASTQ file when creating a design.
+   *
+   * @return the maximal size to read in KB
+   */
+  public long getDesignFastqProbeMaxSize() {
+
+    return Long.parseLong(
+        this.properties.getProperty(DESIGN_FASTQ_PROBE_MAX_SIZE_KEY, "4096").trim());
+  }
+
+  /**
+   * Get the path of the file where the results of the probes of the FASTQ files are saved when
+   * creating a design.
+   *
+   * @return the path of the cache file or null if the results must not be saved
+   */
+  public String getDesignFastqProbeCacheFile() {
+
+    return this.properties.getProperty(DESIGN_FASTQ_PROBE_CACHE_FILE_KEY);
+  }
+
+  /**
+   * Get the maximal number of idle Rserve sessions to keep for each Rserve server.
+   *
+   * @return the maximal number of idle Rserve sessions
+   */
+  public int getRServePoolSize() {
+
+    return Integer.parseInt(this.properties.getProperty(RSERVE_POOL_SIZE_KEY, "4").trim());
+  }
+
+  /**
+   * Get the memory required by the R analysis of an experiment.
+   *
+   * @return the memory required by the R analysis of an experiment in MB
+   */
+  public int getRExperimentMemory() {
+
+    return Integer.parseInt(this.properties.getProperty(R_EXPERIMENT_MEMORY_KEY, "2048").trim());
+  }
+
   /**
    * Test if RServe is enabled.
    *
@@ -446,6 +652,38 @@ public final class Settings implements Serializable {
     return this.properties.getProperty(GENOME_MAPPER_INDEX_STORAGE_KEY);
   }
 
+  /**
+   * Get the path of the cache of the unpacked mapper indexes in local mode.
+   *
+   * @return the path of the mapper index cache or null if the cache is disabled
+   */
+  public String getMapperIndexCachePath() {
+
+    return this.properties.getProperty(MAPPER_INDEX_CACHE_PATH_KEY);
+  }
+
+  /**
+   * Get the maximal size in megabytes of the cache of the unpacked mapper indexes.
+   *
+   * @return the maximal size of the mapper index cache in megabytes or -1 if not set
+   */
+  public long getMapperIndexCacheMaxSize() {
+
+    String value = this.properties.getProperty(MAPPER_INDEX_CACHE_MAX_SIZE_KEY);
+
+    if (value == null) {
+      return -1;
+    }
+
+    value = value.trim();
+
+    if (value.isEmpty()) {
+      return -1;
+    }
+
+    return Long.parseLong(value);
+  }
+
   /**
    * Get the genome description storage path.
    *
@@ -714,6 +952,25 @@ public final class Settings implements Serializable {
     return Collections.unmodifiableList(result);
   }
 
+  /**
+   * Get the path of the directory of the index of the module registry. By default, the index is
+   * stored in the cache directory of the user, so the index files of the other users are never
+   * used.
+   *
+   * @return the path of the directory of the index of the module registry
+   */
+  public String getRegistryIndexPath() {
+
+    return this.properties.getProperty(
+        REGISTRY_INDEX_PATH_KEY,
+        Path.of(
+                System.getProperty("user.home"),
+                ".cache",
+                Globals.APP_NAME_LOWER_CASE,
+                "registry-index")
+            .toString());
+  }
+
   /**
    * Get the Galaxy tool path.
    *
@@ -974,6 +1231,160 @@ public final class Settings implements Serializable {
     this.properties.setProperty(CLUSTER_DEFAULT_MEMORY_REQUIRED, "" + memory);
   }
 
+  /**
+   * Set the number of pilot jobs to use in cluster mode.
+   *
+   * @param pilotJobs the number of pilot jobs, 0 to disable pilot jobs
+   */
+  public void setClusterPilotJobs(final int pilotJobs) {
+
+    this.properties.setProperty(CLUSTER_PILOT_JOBS_KEY, Integer.toString(pilotJobs));
+  }
+
+  /**
+   * Set the time in seconds after which an idle pilot job exits.
+   *
+   * @param timeout the idle timeout in seconds
+   */
+  public void setClusterPilotIdleTimeout(final int timeout) {
+
+    this.properties.setProperty(CLUSTER_PILOT_IDLE_TIMEOUT_KEY, Integer.toString(timeout));
+  }
+
+  /**
+   * Set the maximal number of tasks executed by a pilot job before exiting.
+   *
+   * @param maxTasks the maximal number of tasks, 0 for no limit
+   */
+  public void setClusterPilotMaxTasks(final int maxTasks) {
+
+    this.properties.setProperty(CLUSTER_PILOT_MAX_TASKS_KEY, Integer.toString(maxTasks));
+  }
+
+  /**
+   * Set the memory in MB required by the pilot jobs.
+   *
+   * @param memory the memory required by the pilot jobs
+   */
+  public void setClusterPilotMemory(final int memory) {
+
+    this.properties.setProperty(CLUSTER_PILOT_MEMORY_KEY, Integer.toString(memory));
+  }
+
+  /**
+   * Set the number of processors required by the pilot jobs.
+   *
+   * @param processors the number of processors required by the pilot jobs
+   */
+  public void setClusterPilotProcessors(final int processors) {
+
+    this.properties.setProperty(CLUSTER_PILOT_PROCESSORS_KEY, Integer.toString(processors));
+  }
+
+  /**
+   * Set the path of the node-local scratch directory where the files of the cluster tasks are
+   * staged.
+   *
+   * @param path the path of the staging directory
+   */
+  public void setTaskStagingPath(final String path) {
+
+    this.properties.setProperty(TASK_STAGING_PATH_KEY, path);
+  }
+
+  /**
+   * Set the maximal size in MB of an input file to stage on the node-local scratch directory.
+   *
+   * @param maxSize the maximal size of an input file to stage
+   */
+  public void setTaskStagingMaxInputSize(final long maxSize) {
+
+    this.properties.setProperty(TASK_STAGING_MAX_INPUT_SIZE_KEY, Long.toString(maxSize));
+  }
+
+  /**
+   * Set if the resources used by the tasks must be measured.
+   *
+   * @param enabled true if the resources used by the tasks must be measured
+   */
+  public void setTaskMetricsEnabled(final boolean enabled) {
+
+    this.properties.setProperty(TASK_METRICS_ENABLED_KEY, Boolean.toString(enabled));
+  }
+
+  /**
+   * Set the path of the file where the resources used by the tasks are written at the Prometheus
+   * text format.
+   *
+   * @param path the path of the Prometheus metrics file
+   */
+  public void setTaskMetricsPrometheusFile(final String path) {
+
+    this.properties.setProperty(TASK_METRICS_PROMETHEUS_FILE_KEY, path);
+  }
+
+  /**
+   * Set the number of reads of each FASTQ file to check by the reads checker.
+   *
+   * @param sampleSize the number of reads to check. A negative value means that all the reads of
+   *     the files must be checked
+   */
+  public void setCheckerReadsSampleSize(final int sampleSize) {
+
+    this.properties.setProperty(CHECKER_READS_SAMPLE_SIZE_KEY, Integer.toString(sampleSize));
+  }
+
+  /**
+   * Set the number of threads to use to probe the FASTQ files when creating a design.
+   *
+   * @param threads the number of threads to use
+   */
+  public void setDesignFastqProbeThreads(final int threads) {
+
+    this.properties.setProperty(DESIGN_FASTQ_PROBE_THREADS_KEY, Integer.toString(threads));
+  }
+
+  /**
+   * Set the maximal size in KB to read in each FASTQ file when creating a design.
+   *
+   * @param maxSize the maximal size to read in KB
+   */
+  public void setDesignFastqProbeMaxSize(final long maxSize) {
+
+    this.properties.setProperty(DESIGN_FASTQ_PROBE_MAX_SIZE_KEY, Long.toString(maxSize));
+  }
+
+  /**
+   * Set the path of the file where the results of the probes of the FASTQ files are saved when
+   * creating a design.
+   *
+   * @param path the path of the cache file
+   */
+  public void setDesignFastqProbeCacheFile(final String path) {
+
+    this.properties.setProperty(DESIGN_FASTQ_PROBE_CACHE_FILE_KEY, path);
+  }
+
+  /**
+   * Set the maximal number of idle Rserve sessions to keep for each Rserve server.
+   *
+   * @param poolSize the maximal number of idle Rserve sessions
+   */
+  public void setRServePoolSize(final int poolSize) {
+
+    this.properties.setProperty(RSERVE_POOL_SIZE_KEY, Integer.toString(poolSize));
+  }
+
+  /**
+   * Set the memory required by the R analysis of an experiment.
+   *
+   * @param memory the memory required by the R analysis of an experiment in MB
+   */
+  public void setRExperimentMemory(final int memory) {
+
+    this.properties.setProperty(R_EXPERIMENT_MEMORY_KEY, Integer.toString(memory));
+  }
+
   /**
    * Set if RServe is enabled.
    *
@@ -1119,6 +1530,26 @@ public final class Settings implements Serializable {
     this.properties.setProperty(GENOME_MAPPER_INDEX_STORAGE_KEY, genomeMapperIndexStoragePath);
   }
 
+  /**
+   * Set the path of the cache of the unpacked mapper indexes in local mode.
+   *
+   * @param mapperIndexCachePath the path of the mapper index cache
+   */
+  public void setMapperIndexCachePath(final String mapperIndexCachePath) {
+
+    this.properties.setProperty(MAPPER_INDEX_CACHE_PATH_KEY, mapperIndexCachePath);
+  }
+
+  /**
+   * Set the maximal size in megabytes of the cache of the unpacked mapper indexes.
+   *
+   * @param maxSize the maximal size of the mapper index cache in megabytes
+   */
+  public void setMapperIndexCacheMaxSize(final long maxSize) {
+
+    this.properties.setProperty(MAPPER_INDEX_CACHE_MAX_SIZE_KEY, Long.toString(maxSize));
+  }
+
   /**
    * Set the genome description storage path.
    *
@@ -1358,6 +1789,16 @@ public final class Settings implements Serializable {
     setDataFormatPath(sb.toString());
   }
 
+  /**
+   * Set the path of the directory of the index of the module registry.
+   *
+   * @param path the path of the directory
+   */
+  public void setRegistryIndexPath(final String path) {
+
+    this.properties.setProperty(REGISTRY_INDEX_PATH_KEY, path);
+  }
+
   /**
    * Set the Galaxy tool path.
    *
@@ -0,0 +1,262 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.actions;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.AbstractEoulsanRuntime.EoulsanExecMode;
+import fr.ens.biologie.genomique.eoulsan.Common;
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import fr.ens.biologie.genomique.eoulsan.Globals;
+import fr.ens.biologie.genomique.eoulsan.LocalEoulsanRuntime;
+import fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters.PilotJobQueue;
+import fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters.PilotJobQueue.ClaimedTask;
+import fr.ens.biologie.genomique.eoulsan.core.workflow.TaskSerializationUtils;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.help.HelpFormatter;
+
+/**
+ * This class define an action that launch a pilot job on a cluster. A pilot job executes in the
+ * same JVM the tasks it pulls from a shared queue until the queue remains empty for a given time,
+ * a maximal number of tasks has been executed or the workflow asks it to exit.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class PilotWorkerAction extends AbstractAction {
+
+  /** Name of this action. */
+  public static final String ACTION_NAME = "pilotworker";
+
+  private static final int DEFAULT_IDLE_TIMEOUT = 300;
+  private static final int QUEUE_CHECK_DELAY = 1000;
+
+  @Override
+  public String getName() {
+
+    return ACTION_NAME;
+  }
+
+  @Override
+  public String getDescription() {
+
+    return "execute a cluster pilot job";
+  }
+
+  @Override
+  public boolean isHidden() {
+
+    return true;
+  }
+
+  @Override
+  public void action(final List<String> arguments) {
+
+    final Options options = makeOptions();
+    final CommandLineParser parser = new DefaultParser();
+
+    int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    int maxTasks = 0;
+    int argsOptions = 0;
+
+    try {
+
+      // parse the command line arguments
+      final CommandLine line = parser.parse(options, arguments.toArray(new String[0]), true);
+
+      // Help option
+      if (line.hasOption("help")) {
+        help(options);
+      }
+
+      if (line.hasOption("idletimeout")) {
+        idleTimeout = Integer.parseInt(line.getOptionValue("idletimeout"));
+        argsOptions += 2;
+      }
+
+      if (line.hasOption("maxtasks")) {
+        maxTasks = Integer.parseInt(line.getOptionValue("maxtasks"));
+        argsOptions += 2;
+      }
+
+    } catch (ParseException | NumberFormatException e) {
+      Common.errorExit(e, "Error while parsing command line arguments: " + e.getMessage());
+    }
+
+    if (arguments.size() != argsOptions + 2) {
+      help(options);
+    }
+
+    final Path queueDir = Path.of(arguments.get(argsOptions));
+    final String workerId = arguments.get(argsOptions + 1);
+
+    // Execute the tasks
+    run(queueDir, workerId, idleTimeout, maxTasks);
+  }
+
+  //
+  // Command line parsing
+  //
+
+  /**
+   * Create options for command line
+   *
+   * @return an Options object
+   */
+  private Options makeOptions() {
+
+    // create Options object
+    final Options options = new Options();
+
+    // Help option
+    options.addOption("h", "help", false, "display this help");
+
+    // Idle timeout option
+    options.addOption(
+        Option.builder("idletimeout")
+            .argName("seconds")
+            .hasArg()
+            .desc("exit after this time without task to execute")
+            .get());
+
+    // Max tasks option
+    options.addOption(
+        Option.builder("maxtasks")
+            .argName("count")
+            .hasArg()
+            .desc("exit after the execution of this number of tasks")
+            .get());
+
+    return options;
+  }
+
+  /**
+   * Show command line help.
+   *
+   * @param options Options of the software
+   */
+  private void help(final Options options) {
+
+    // Show help message
+    final HelpFormatter formatter = HelpFormatter.builder().setShowSince(false).get();
+    try {
+      formatter.printHelp(
+          Globals.APP_NAME_LOWER_CASE + ".sh " + getName() + " [options] queuedir workerid",
+          "",
+          options,
+          "",
+          false);
+    } catch (IOException e) {
+      Common.errorExit(e, "Error while creating help message.");
+    }
+
+    Common.exit(0);
+  }
+
+  //
+  // Execution
+  //
+
+  /**
+   * Execute the tasks of the queue.
+   *
+   * @param queueDir queue directory
+   * @param workerId identifier of the pilot job
+   * @param idleTimeout time in seconds after which the pilot job exits if the queue is empty
+   * @param maxTasks maximal number of tasks to execute, 0 for no limit
+   */
+  private static void run(
+      final Path queueDir, final String workerId, final int idleTimeout, final int maxTasks) {
+
+    requireNonNull(queueDir, "queueDir is null");
+    requireNonNull(workerId, "workerId is null");
+
+    // Get Eoulsan runtime
+    final LocalEoulsanRuntime localRuntime = (LocalEoulsanRuntime) EoulsanRuntime.getRuntime();
+
+    // Set the cluster task mode
+    localRuntime.setMode(EoulsanExecMode.CLUSTER_TASK);
+
+    try {
+
+      final PilotJobQueue queue = new PilotJobQueue(queueDir);
+      long lastActivity = System.currentTimeMillis();
+      int taskCount = 0;
+
+      while (!queue.isStopRequested() && (maxTasks <= 0 || taskCount < maxTasks)) {
+
+        final ClaimedTask task = queue.claim(workerId);
+
+        // Wait for a task until the idle timeout
+        if (task == null) {
+
+          if (System.currentTimeMillis() - lastActivity > idleTimeout * 1000L) {
+            getLogger().info("Pilot job " + workerId + " is idle, exiting");
+            break;
+          }
+
+          Thread.sleep(QUEUE_CHECK_DELAY);
+          continue;
+        }
+
+        try {
+
+          // Execute the task, the submitter fails the task if no result has been saved
+          TaskSerializationUtils.execute(new DataFile(task.getContextFile()));
+
+        } catch (IOException | EoulsanException | RuntimeException e) {
+          getLogger()
+              .severe(
+                  "Error while executing task " + task.getContextFile() + ": " + e.getMessage());
+        } finally {
+          queue.complete(task);
+        }
+
+        taskCount++;
+        lastActivity = System.currentTimeMillis();
+      }
+
+      getLogger().info("Pilot job " + workerId + " has executed " + taskCount + " task(s)");
+
+    } catch (IOException e) {
+      Common.errorExit(e, "IOException: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Common.errorExit(e, "Pilot job interrupted: " + e.getMessage());
+    } catch (Throwable t) {
+      Common.errorExit(t, "Error in pilot job " + workerId + ": " + t.getMessage());
+    }
+  }
+}
@@ -114,6 +114,17 @@ public class EoulsanAnnotationUtils {
     return isAnnotation(module, NoOutputDirectory.class);
   }
 
+  /**
+   * Test if a module contain the @StreamingAccess annotation.
+   *
+   * @param module the module to test
+   * @return true if the module contains the annotation
+   */
+  public static boolean isStreamingAccess(final Module module) {
+
+    return isAnnotation(module, StreamingAccess.class);
+  }
+
   /**
    * Test if a module contains an annotation.
    *
@@ -0,0 +1,410 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.bio.io;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class define a reader for SAM files that splits the alignments in chunks of lines processed
+ * concurrently. The chunks are raw bytes, the processors can scan only the fields they need
+ * without creating SAMRecord objects. The results of the chunks are consumed in the order of the
+ * chunks in the file.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ParallelSAMReader implements AutoCloseable {
+
+  private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  /** Field indexes in a SAM line. */
+  public static final int FLAG_FIELD = 1;
+
+  public static final int CIGAR_FIELD = 5;
+
+  private final InputStream in;
+  private final int threads;
+  private final int chunkSize;
+  private final byte[] header;
+  private byte[] remaining;
+  private int chunkLength;
+  private boolean end;
+
+  /**
+   * This interface define a processor of a chunk of SAM lines.
+   *
+   * @param <R> type of the result
+   */
+  public interface ChunkProcessor<R> {
+
+    /**
+     * Process a chunk of lines. The chunk only contains full lines.
+     *
+     * @param data the data
+     * @param start start of the chunk in the data
+     * @param end end of the chunk in the data (exclusive)
+     * @return the result of the chunk
+     * @throws IOException if an error occurs while processing the chunk
+     */
+    R process(byte[] data, int start, int end) throws IOException;
+  }
+
+  /**
+   * This interface define a consumer of the results of the chunks.
+   *
+   * @param <R> type of the result
+   */
+  public interface ResultConsumer<R> {
+
+    /**
+     * Consume the result of a chunk.
+     *
+     * @param result the result
+     * @throws IOException if an error occurs while consuming the result
+     */
+    void consume(R result) throws IOException;
+  }
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the header of the SAM file.
+   *
+   * @return the header of the SAM file as bytes
+   */
+  public byte[] getHeader() {
+    return this.header.clone();
+  }
+
+  //
+  // Processing
+  //
+
+  /**
+   * Process the alignments of the SAM file.
+   *
+   * @param processor the processor of the chunks, must be thread safe
+   * @param consumer the consumer of the results, called in the order of the chunks
+   * @param <R> type of the result
+   * @throws IOException if an error occurs while processing the file
+   */
+  public <R> void process(final ChunkProcessor<R> processor, final ResultConsumer<R> consumer)
+      throws IOException {
+
+    requireNonNull(processor, "processor argument cannot be null");
+    requireNonNull(consumer, "consumer argument cannot be null");
+
+    final ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+    final Deque<Future<R>> futures = new ArrayDeque<>();
+
+    try {
+
+      byte[] chunk;
+      while ((chunk = nextChunk()) != null) {
+
+        final byte[] data = chunk;
+        final int length = this.chunkLength;
+        futures.add(executor.submit(() -> processor.process(data, 0, length)));
+
+        // Limit the number of chunks in memory
+        if (futures.size() >= 2 * this.threads) {
+          consumer.consume(futures.remove().get());
+        }
+      }
+
+      while (!futures.isEmpty()) {
+        consumer.consume(futures.remove().get());
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("SAM file processing interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Read the next chunk of full lines. The length of the chunk is stored in the chunkLength field.
+   *
+   * @return an array with the next chunk or null if there is no more data
+   * @throws IOException if an error occurs while reading the data
+   */
+  private byte[] nextChunk() throws IOException {
+
+    if (this.end) {
+      return null;
+    }
+
+    byte[] buffer = Arrays.copyOf(this.remaining, Math.max(this.chunkSize, this.remaining.length));
+    int length = this.remaining.length;
+    int lastEndOfLine = lastIndexOf(buffer, 0, length);
+
+    // Fill the buffer until it contains at least a full line
+    while (true) {
+
+      if (length == buffer.length) {
+
+        if (lastEndOfLine >= 0) {
+          break;
+        }
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+
+      final int n = this.in.read(buffer, length, buffer.length - length);
+      if (n == -1) {
+        this.end = true;
+        break;
+      }
+
+      final int previousLength = length;
+      length += n;
+
+      final int index = lastIndexOf(buffer, previousLength, length);
+      if (index >= 0) {
+        lastEndOfLine = index;
+      }
+    }
+
+    // At the end of the file, the last line may not end with a new line
+    final int chunkEnd = this.end ? length : lastEndOfLine + 1;
+
+    this.remaining = Arrays.copyOfRange(buffer, chunkEnd, length);
+
+    if (chunkEnd == 0) {
+      return null;
+    }
+
+    this.chunkLength = chunkEnd;
+
+    return buffer;
+  }
+
+  /**
+   * Read the header of the SAM file.
+   *
+   * @return the header as bytes
+   * @throws IOException if an error occurs while reading the header
+   */
+  private byte[] readHeader() throws IOException {
+
+    final ByteArrayOutputStream headerData = new ByteArrayOutputStream();
+
+    int c;
+    boolean startOfLine = true;
+    while ((c = this.in.read()) != -1) {
+
+      // The first alignment byte is the beginning of the first chunk
+      if (startOfLine && c != '@') {
+        this.remaining = new byte[] {(byte) c};
+        return headerData.toByteArray();
+      }
+
+      headerData.write(c);
+      startOfLine = c == '\n';
+    }
+
+    this.remaining = new byte[0];
+
+    return headerData.toByteArray();
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    this.in.close();
+  }
+
+  //
+  // Field scanning
+  //
+
+  /**
+   * Find the end of a line.
+   *
+   * @param data the data
+   * @param start start of the line
+   * @param end end of the data (exclusive)
+   * @return the index of the end of the line
+   */
+  public static int endOfLine(final byte[] data, final int start, final int end) {
+
+    for (int i = start; i < end; i++) {
+      if (data[i] == '\n') {
+        return i;
+      }
+    }
+
+    return end;
+  }
+
+  /**
+   * Find the start of a field in a line.
+   *
+   * @param data the data
+   * @param lineStart start of the line
+   * @param lineEnd end of the line (exclusive)
+   * @param field index of the field
+   * @return the index of the start of the field or -1 if the line does not contain the field
+   */
+  public static int fieldStart(
+      final byte[] data, final int lineStart, final int lineEnd, final int field) {
+
+    int count = 0;
+    int i = lineStart;
+
+    while (count < field) {
+
+      if (i == lineEnd) {
+        return -1;
+      }
+      if (data[i++] == '\t') {
+        count++;
+      }
+    }
+
+    return i;
+  }
+
+  /**
+   * Find the end of a field.
+   *
+   * @param data the data
+   * @param fieldStart start of the field
+   * @param lineEnd end of the line (exclusive)
+   * @return the index of the end of the field
+   */
+  public static int fieldEnd(final byte[] data, final int fieldStart, final int lineEnd) {
+
+    int i = fieldStart;
+    while (i < lineEnd && data[i] != '\t' && data[i] != '\r') {
+      i++;
+    }
+
+    return i;
+  }
+
+  /**
+   * Parse an integer field.
+   *
+   * @param data the data
+   * @param fieldStart start of the field
+   * @param lineEnd end of the line (exclusive)
+   * @return the value of the field
+   * @throws IOException if the field is not an integer
+   */
+  public static int parseIntField(final byte[] data, final int fieldStart, final int lineEnd)
+      throws IOException {
+
+    final int fieldEnd = fieldEnd(data, fieldStart, lineEnd);
+
+    if (fieldStart == fieldEnd) {
+      throw new IOException("Invalid SAM line, empty integer field");
+    }
+
+    int result = 0;
+    for (int i = fieldStart; i < fieldEnd; i++) {
+
+      final int digit = data[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new IOException(
+            "Invalid SAM line, invalid integer field: "
+                + new String(data, fieldStart, fieldEnd - fieldStart));
+      }
+      result = result * 10 + digit;
+    }
+
+    return result;
+  }
+
+  private static int lastIndexOf(final byte[] data, final int start, final int end) {
+
+    for (int i = end - 1; i >= start; i--) {
+      if (data[i] == '\n') {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  //
+  // Constructors
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param in the input stream of the SAM file
+   * @param threads number of threads to use
+   * @throws IOException if an error occurs while reading the header of the file
+   */
+  public ParallelSAMReader(final InputStream in, final int threads) throws IOException {
+
+    this(in, threads, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param in the input stream of the SAM file
+   * @param threads number of threads to use
+   * @param chunkSize size of the chunks
+   * @throws IOException if an error occurs while reading the header of the file
+   */
+  public ParallelSAMReader(final InputStream in, final int threads, final int chunkSize)
+      throws IOException {
+
+    requireNonNull(in, "in argument cannot be null");
+
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+
+    this.in = new BufferedInputStream(in);
+    this.threads = Math.max(1, threads);
+    this.chunkSize = chunkSize;
+    this.header = readHeader();
+  }
+}
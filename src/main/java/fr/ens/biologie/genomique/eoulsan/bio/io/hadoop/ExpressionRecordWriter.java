@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -54,13 +55,14 @@ public class ExpressionRecordWriter extends RecordWriter<Text, LongWritable> {
   }
 
   private final DataOutputStream out;
-  private final TaskAttemptContext context;
+  private final Counter inputEntriesCounter;
+  private final Counter entriesWrittenCounter;
 
   @Override
   public synchronized void write(final Text key, final LongWritable value)
       throws IOException, InterruptedException {
 
-    this.context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES).increment(1);
+    this.inputEntriesCounter.increment(1);
 
     if (value == null) {
       return;
@@ -71,7 +73,7 @@ public class ExpressionRecordWriter extends RecordWriter<Text, LongWritable> {
     this.out.write(value.toString().getBytes(StandardCharsets.UTF_8));
     this.out.write(newline);
 
-    this.context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN).increment(1);
+    this.entriesWrittenCounter.increment(1);
   }
 
   @Override
@@ -92,7 +94,8 @@ public class ExpressionRecordWriter extends RecordWriter<Text, LongWritable> {
    */
   public ExpressionRecordWriter(final TaskAttemptContext context, final DataOutputStream out) {
 
-    this.context = context;
+    this.inputEntriesCounter = context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES);
+    this.entriesWrittenCounter = context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN);
     this.out = out;
   }
 }
@@ -28,6 +28,7 @@ import static fr.ens.biologie.genomique.eoulsan.bio.io.hadoop.Counters.ENTRIES_W
 
 import java.io.IOException;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -42,7 +43,7 @@ public class FastqRecordReader extends RecordReader<Text, Text> {
 
   private static final String COUNTERS_GROUP = "FASTQ Input Format Counters";
 
-  private final TaskAttemptContext context;
+  private final Counter entriesWrittenCounter;
   private Text key = new Text();
   private Text value = new Text();
 
@@ -128,7 +129,7 @@ public class FastqRecordReader extends RecordReader<Text, Text> {
     // Clean array
     this.lines[0] = this.lines[1] = this.lines[2] = this.lines[3] = null;
 
-    this.context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN).increment(1);
+    this.entriesWrittenCounter.increment(1);
 
     return true;
   }
@@ -172,6 +173,6 @@ public class FastqRecordReader extends RecordReader<Text, Text> {
    */
   public FastqRecordReader(final TaskAttemptContext context) {
 
-    this.context = context;
+    this.entriesWrittenCounter = context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN);
   }
 }
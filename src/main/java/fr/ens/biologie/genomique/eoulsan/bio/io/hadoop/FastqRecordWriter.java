@@ -32,6 +32,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -52,13 +53,14 @@ public class FastqRecordWriter extends RecordWriter<Text, Text> {
   }
 
   private final DataOutputStream out;
-  private final TaskAttemptContext context;
+  private final Counter inputEntriesCounter;
+  private final Counter entriesWrittenCounter;
   private final ReadSequence read = new ReadSequence();
 
   @Override
   public synchronized void write(final Text key, final Text value) throws IOException {
 
-    this.context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES).increment(1);
+    this.inputEntriesCounter.increment(1);
 
     if (value == null) {
       return;
@@ -69,7 +71,7 @@ public class FastqRecordWriter extends RecordWriter<Text, Text> {
     this.out.write(this.read.toFastQ().getBytes(StandardCharsets.UTF_8));
     this.out.write(newline);
 
-    this.context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN).increment(1);
+    this.entriesWrittenCounter.increment(1);
   }
 
   @Override
@@ -90,7 +92,8 @@ public class FastqRecordWriter extends RecordWriter<Text, Text> {
    */
   public FastqRecordWriter(final TaskAttemptContext context, final DataOutputStream out) {
 
-    this.context = context;
+    this.inputEntriesCounter = context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES);
+    this.entriesWrittenCounter = context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN);
     this.out = out;
   }
 }
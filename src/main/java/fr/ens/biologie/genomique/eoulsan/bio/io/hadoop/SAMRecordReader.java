@@ -4,6 +4,7 @@ import static fr.ens.biologie.genomique.eoulsan.bio.io.hadoop.Counters.ENTRIES_W
 
 import java.io.IOException;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -19,7 +20,7 @@ public class SAMRecordReader extends RecordReader<Text, Text> {
 
   private static final String COUNTERS_GROUP = "SAM Input Format Counters";
 
-  private final TaskAttemptContext context;
+  private final Counter entriesWrittenCounter;
   private final LineRecordReader lrr = new LineRecordReader();
   private final Text key = new Text();
   private final Text value = new Text();
@@ -89,7 +90,7 @@ public class SAMRecordReader extends RecordReader<Text, Text> {
       }
     }
 
-    this.context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN).increment(1);
+    this.entriesWrittenCounter.increment(1);
 
     return true;
   }
@@ -105,6 +106,6 @@ public class SAMRecordReader extends RecordReader<Text, Text> {
    */
   public SAMRecordReader(final TaskAttemptContext context) {
 
-    this.context = context;
+    this.entriesWrittenCounter = context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN);
   }
 }
@@ -31,6 +31,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -51,13 +52,14 @@ public class SAMRecordWriter extends RecordWriter<Text, Text> {
   }
 
   private final DataOutputStream out;
-  private final TaskAttemptContext context;
+  private final Counter inputEntriesCounter;
+  private final Counter entriesWrittenCounter;
 
   @Override
   public synchronized void write(final Text key, final Text value)
       throws IOException, InterruptedException {
 
-    this.context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES).increment(1);
+    this.inputEntriesCounter.increment(1);
 
     if (value == null) {
       return;
@@ -66,7 +68,7 @@ public class SAMRecordWriter extends RecordWriter<Text, Text> {
     this.out.write(value.getBytes(), 0, value.getLength());
     this.out.write(newline);
 
-    this.context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN).increment(1);
+    this.entriesWrittenCounter.increment(1);
   }
 
   @Override
@@ -87,7 +89,8 @@ public class SAMRecordWriter extends RecordWriter<Text, Text> {
    */
   public SAMRecordWriter(final TaskAttemptContext context, final DataOutputStream out) {
 
-    this.context = context;
+    this.inputEntriesCounter = context.getCounter(COUNTERS_GROUP, INPUT_ENTRIES);
+    this.entriesWrittenCounter = context.getCounter(COUNTERS_GROUP, ENTRIES_WRITTEN);
     this.out = out;
   }
 }
@@ -24,12 +24,12 @@
 
 package fr.ens.biologie.genomique.eoulsan.checkers;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class define a storage where some results of the checker can be save for later reuse by
- * other checkers.
+ * other checkers. This class is thread safe as the checkers can be launched concurrently.
  *
  * @since 1.0
  * @author Laurent Jourdren
@@ -37,7 +37,7 @@ import java.util.Map;
 public class CheckStore {
 
   private static CheckStore singleton;
-  private final Map<String, Object> info = new HashMap<>();
+  private final Map<String, Object> info = new ConcurrentHashMap<>();
 
   /**
    * Store some data.
@@ -91,7 +91,7 @@ public class CheckStore {
    *
    * @return the CheckStore object
    */
-  public static CheckStore getCheckStore() {
+  public static synchronized CheckStore getCheckStore() {
 
     if (singleton == null) {
       singleton = new CheckStore();
@@ -38,6 +38,7 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
+import fr.ens.biologie.genomique.eoulsan.modules.expression.AnnotationFileCache;
 import fr.ens.biologie.genomique.eoulsan.modules.generators.GenomeDescriptionCreator;
 import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
 import fr.ens.biologie.genomique.kenetre.bio.GFFEntry;
@@ -180,8 +181,10 @@ public class GFFChecker implements Checker {
     long sequenceLength = -1;
     String lastSequenceName = null;
 
-    try (final GFFReader gffReader =
-        gtfFormat ? new GTFReader(file.open()) : new GFFReader(file.open())) {
+    // Use the annotation cache to share the uncompressed annotation with the expression step
+    final InputStream in = AnnotationFileCache.getInstance().open(file);
+
+    try (final GFFReader gffReader = gtfFormat ? new GTFReader(in) : new GFFReader(in)) {
 
       GFFEntry lastEntry = null;
 
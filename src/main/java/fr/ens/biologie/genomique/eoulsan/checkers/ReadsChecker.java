@@ -27,6 +27,7 @@ package fr.ens.biologie.genomique.eoulsan.checkers;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.READS_FASTQ;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
@@ -43,7 +44,8 @@ import java.util.Collections;
 import java.util.Set;
 
 /**
- * This class define a checker on FASTQ files.
+ * This class define a checker on FASTQ files. Only the first reads of the files are checked, the
+ * number of reads to check can be set using the main.checker.reads.sample.size setting.
  *
  * @since 1.0
  * @author Laurent Jourdren
@@ -139,7 +141,7 @@ public class ReadsChecker implements Checker {
     try {
 
       is = file.open();
-      checkReadsFile(is, MAX_READS_TO_CHECK, format, checkPairMember, pairMember);
+      checkReadsFile(is, getReadsToCheck(), format, checkPairMember, pairMember);
 
     } catch (IOException e) {
       throw new EoulsanException(
@@ -160,6 +162,22 @@ public class ReadsChecker implements Checker {
     }
   }
 
+  /**
+   * Get the number of reads to check in each file.
+   *
+   * @return the number of reads to check or -1 if all the reads must be checked
+   */
+  private static int getReadsToCheck() {
+
+    if (!EoulsanRuntime.isRuntime()) {
+      return MAX_READS_TO_CHECK;
+    }
+
+    final int result = EoulsanRuntime.getSettings().getCheckerReadsSampleSize();
+
+    return result < 0 ? -1 : result;
+  }
+
   private boolean checkReadsFile(
       final InputStream is,
       final int maxReadToCheck,
@@ -174,7 +192,7 @@ public class ReadsChecker implements Checker {
 
     for (final ReadSequence read : reader) {
 
-      if (count > maxReadToCheck) {
+      if (maxReadToCheck != -1 && count >= maxReadToCheck) {
         break;
       }
 
@@ -63,12 +63,13 @@ public class CombinedTaskScheduler implements TaskScheduler, Runnable {
 
     requireNonNull(contexts, "contexts argument cannot be null");
 
+    requireNonNull(step, "step argument cannot be null");
+
     // Check execution state
     checkExecutionState();
 
-    for (TaskContextImpl context : contexts) {
-      submit(step, context);
-    }
+    // Submit all the contexts at once to allow the scheduler to batch them
+    getTaskScheduler(step).submit(step, contexts);
   }
 
   @Override
@@ -24,6 +24,7 @@
 
 package fr.ens.biologie.genomique.eoulsan.core.schedulers;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static fr.ens.biologie.genomique.eoulsan.CommonHadoop.createConfiguration;
 import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
 import static fr.ens.biologie.genomique.eoulsan.Globals.TASK_DATA_EXTENSION;
@@ -44,12 +45,20 @@ import fr.ens.biologie.genomique.eoulsan.core.workflow.TaskResultImpl;
 import fr.ens.biologie.genomique.eoulsan.core.workflow.TaskRunner;
 import fr.ens.biologie.genomique.eoulsan.core.workflow.TaskSerializationUtils;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
-import fr.ens.biologie.genomique.eoulsan.util.hadoop.HadoopJobEmergencyStopTask;
+import fr.ens.biologie.genomique.eoulsan.util.hadoop.HadoopJobMonitor;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
@@ -63,7 +72,8 @@ import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
 
 /**
  * This class is a scheduler for tasks from step with the @HadoopComptible annotation in Hadoop
- * mode.
+ * mode. All the tasks of a step submitted together are executed in a single Hadoop job, with one
+ * map task per Eoulsan task.
  *
  * @author Laurent Jourdren
  * @since 2.0
@@ -71,22 +81,24 @@ import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
 public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
 
   private final Configuration conf;
-  private final Queue<TaskThread> queue = Queues.newLinkedBlockingQueue();
+  private final Queue<JobThread> queue = Queues.newLinkedBlockingQueue();
+  private final AtomicInteger jobCount = new AtomicInteger();
 
   /**
-   * Wrapper class around a call to executeTask methods.
+   * Wrapper class around a Hadoop job that execute a batch of tasks. Each task is executed in its
+   * own map task.
    *
    * @author Laurent Jourdren
    */
-  private final class TaskThread extends Thread {
+  private final class JobThread extends Thread {
 
     private static final String SUBMIT_FILE_NAME = "submitfile";
-    private final TaskContextImpl context;
+    private final List<TaskContextImpl> contexts;
+    private final Step step;
+    private final int requiredMemory;
     private final Configuration conf;
-    private final DataFile taskDir;
-    private final String taskPrefix;
-    private String jobId;
-    private Job hadoopJob;
+    private final DataFile jobDir;
+    private volatile Job hadoopJob;
 
     private Job createHadoopJob(
         final Configuration conf,
@@ -100,6 +112,9 @@ public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
       // Set one task per map
       jobConf.set("mapreduce.input.lineinputformat.linespermap", "" + 1);
 
+      // The failure of a task must not kill the other tasks of the job
+      jobConf.set("mapreduce.map.failures.maxpercent", "" + 100);
+
       if (requiredMemory > 0) {
 
         // Set the memory required by the reads mapper
@@ -145,169 +160,247 @@ public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
     }
 
     /**
-     * Create the submit file for the Hadoop job.
+     * Create the submit file for the Hadoop job. The submit file contains one line for each task
+     * context file.
      *
-     * @param taskContextFile the task context file
+     * @param taskContextFiles the task context files
      * @return the path to the submit file
      * @throws IOException if an error occurs while creating the submit file
      */
-    private DataFile createSubmitFile(final DataFile taskContextFile) throws IOException {
+    private DataFile createSubmitFile(final List<DataFile> taskContextFiles) throws IOException {
 
-      final DataFile submitFile = new DataFile(taskContextFile.getParent(), SUBMIT_FILE_NAME);
+      final DataFile submitFile = new DataFile(this.jobDir, SUBMIT_FILE_NAME);
 
-      final Writer writer = new OutputStreamWriter(submitFile.create(), Charset.defaultCharset());
-      writer.write(taskContextFile.getSource());
-      writer.close();
+      try (Writer writer = new OutputStreamWriter(submitFile.create(), Charset.defaultCharset())) {
+        for (DataFile taskContextFile : taskContextFiles) {
+          writer.write(taskContextFile.getSource());
+          writer.write('\n');
+        }
+      }
 
       return submitFile;
     }
 
     /**
-     * Load the result of the step
+     * Load the result of a task.
      *
+     * @param context the context of the task
      * @return a TaskResult object
      * @throws EoulsanException if the done task is not found
      * @throws IOException if an error occurs while reading the result file
      */
-    private TaskResultImpl loadResult() throws EoulsanException, IOException {
+    private TaskResultImpl loadResult(final TaskContextImpl context)
+        throws EoulsanException, IOException {
+
+      final String taskPrefix = context.getTaskFilePrefix();
 
       // Define the file for the task done
-      final DataFile taskDoneFile =
-          new DataFile(this.taskDir, this.taskPrefix + TASK_DONE_EXTENSION);
+      final DataFile taskDoneFile = new DataFile(this.jobDir, taskPrefix + TASK_DONE_EXTENSION);
 
       if (!taskDoneFile.exists()) {
         throw new EoulsanException(
             "No done file found for task #"
-                + this.context.getId()
-                + " in step "
-                + getStep(this.context).getId());
+                + context.getId()
+                + " ("
+                + context.getContextName()
+                + ") in step "
+                + this.step.getId()
+                + (this.hadoopJob == null ? "" : " (Hadoop job: " + getJobId() + ")"));
       }
 
       // Define the file for the task result
-      final DataFile taskResultFile =
-          new DataFile(this.taskDir, this.taskPrefix + TASK_RESULT_EXTENSION);
+      final DataFile taskResultFile = new DataFile(this.jobDir, taskPrefix + TASK_RESULT_EXTENSION);
       // Load output data objects
-      this.context.deserializeOutputData(
-          new DataFile(this.taskDir, this.taskPrefix + TASK_DATA_EXTENSION));
+      context.deserializeOutputData(new DataFile(this.jobDir, taskPrefix + TASK_DATA_EXTENSION));
 
       return TaskResultImpl.deserialize(taskResultFile);
     }
 
+    /**
+     * Get the Hadoop job id.
+     *
+     * @return the Hadoop job id or the job name if the id is not available
+     */
+    private String getJobId() {
+
+      final Job job = this.hadoopJob;
+
+      if (job == null || job.getJobID() == null) {
+        return job == null ? null : job.getJobName();
+      }
+
+      return job.getJobID().toString();
+    }
+
+    /**
+     * Set the result of a task and send its tokens.
+     *
+     * @param context the context of the task
+     * @param result the result of the task
+     */
+    private void endTask(final TaskContextImpl context, final TaskResultImpl result) {
+
+      TaskResultImpl taskResult = result;
+
+      if (taskResult == null) {
+        try {
+
+          // Load result
+          taskResult = loadResult(context);
+
+          // Send tokens
+          if (!isStopped()) {
+            TaskRunner.sendTokens(context, taskResult);
+          }
+
+        } catch (IOException | EoulsanException | ClassNotFoundException e) {
+          taskResult = TaskRunner.createStepResult(context, e);
+        }
+      }
+
+      // Do nothing if scheduler is stopped
+      if (isStopped()) {
+        return;
+      }
+
+      // Set task in done state
+      afterExecuteTask(context, taskResult);
+    }
+
     @Override
     public void run() {
 
-      TaskResultImpl result = null;
+      final List<TaskContextImpl> startedContexts = new ArrayList<>();
 
       try {
 
         // Create job directory
-        this.taskDir.mkdir();
+        this.jobDir.mkdir();
+
+        final List<DataFile> taskContextFiles = new ArrayList<>();
 
-        final DataFile taskContextFile =
-            new DataFile(this.taskDir, this.taskPrefix + Globals.TASK_CONTEXT_EXTENSION);
+        for (TaskContextImpl context : this.contexts) {
 
-        // Serialize the context object
-        this.context.serialize(taskContextFile);
+          final DataFile taskContextFile =
+              new DataFile(
+                  this.jobDir, context.getTaskFilePrefix() + Globals.TASK_CONTEXT_EXTENSION);
+
+          // Serialize the context object
+          context.serialize(taskContextFile);
+          taskContextFiles.add(taskContextFile);
+        }
 
         // Do nothing if scheduler is stopped
         if (isStopped()) {
           return;
         }
 
-        // Set task in running state
-        beforeExecuteTask(this.context);
+        // Set tasks in running state
+        for (TaskContextImpl context : this.contexts) {
+          beforeExecuteTask(context);
+          startedContexts.add(context);
+        }
 
         // Create submit file
-        final DataFile sumbitFile = createSubmitFile(taskContextFile);
+        final DataFile sumbitFile = createSubmitFile(taskContextFiles);
 
         // Submit Job
         this.hadoopJob =
             createHadoopJob(
                 this.conf,
                 sumbitFile,
-                this.context.getCurrentStep().getRequiredMemory(),
+                this.requiredMemory,
                 "Eoulsan Step "
-                    + this.context.getCurrentStep().getId()
+                    + this.step.getId()
                     + " ("
-                    + this.context.getCurrentStep().getModuleName()
-                    + ") Task #"
-                    + this.context.getId()
-                    + " ("
-                    + this.context.getContextName()
-                    + ")");
-
-        // Submit the Hadoop job
-        this.hadoopJob.submit();
-
-        // Add the Hadoop job to the list of job to kill if workflow fails
-        HadoopJobEmergencyStopTask.addHadoopJobEmergencyStopTask(this.hadoopJob);
+                    + this.step.getModuleName()
+                    + ") "
+                    + jobTaskDescription());
 
-        // Submit the job to the Hadoop scheduler, and wait the end of the job
-        // in non verbose mode
-        this.hadoopJob.waitForCompletion(false);
-
-        // Remove the Hadoop job to the list of job to kill if workflow fails
-        HadoopJobEmergencyStopTask.removeHadoopJobEmergencyStopTask(this.hadoopJob);
+        // Submit the Hadoop job and wait the end of the job
+        HadoopJobMonitor.waitForJob(HadoopJobMonitor.getInstance().submit(this.hadoopJob));
 
         if (!this.hadoopJob.isSuccessful()) {
+          getLogger()
+              .severe(
+                  "Hadoop job "
+                      + getJobId()
+                      + " for step "
+                      + this.step.getId()
+                      + " has failed, result of each task will be checked");
+        }
 
-          // Try to load the task result
-          try {
-            // Load result
-            result = loadResult();
-          } catch (EoulsanException | IOException e) {
-
-            throw new EoulsanException(
-                "Error while running Hadoop job for Eoulsan task #"
-                    + this.context.getId()
-                    + "("
-                    + this.context.getContextName()
-                    + ")");
-          }
+        // Load the result of each task
+        for (TaskContextImpl context : this.contexts) {
+          endTask(context, null);
         }
 
-        // Load result
-        result = loadResult();
+      } catch (IOException | EoulsanException | InterruptedException | ClassNotFoundException e) {
 
-        // Remove task files
-        this.taskDir.delete(true);
+        // All the tasks of the job fail with the same exception
+        for (TaskContextImpl context : this.contexts) {
 
-        // Do nothing if scheduler is stopped
-        if (isStopped()) {
-          return;
+          if (isStopped()) {
+            break;
+          }
+
+          if (!startedContexts.contains(context)) {
+            beforeExecuteTask(context);
+          }
+          endTask(context, TaskRunner.createStepResult(context, e));
         }
 
-        // Send tokens
-        TaskRunner.sendTokens(this.context, result);
+        return;
 
-      } catch (IOException | EoulsanException | InterruptedException | ClassNotFoundException e) {
+      } finally {
 
-        result = TaskRunner.createStepResult(this.context, e);
+        // Remove the thread from the queue
+        queue.remove(this);
       }
 
-      // Do nothing if scheduler is stopped
-      if (isStopped()) {
-        return;
+      // Remove task files
+      try {
+        if (!isStopped()) {
+          this.jobDir.delete(true);
+        }
+      } catch (IOException e) {
+        getLogger()
+            .warning("Unable to remove Hadoop job directory " + this.jobDir + ": " + e.getMessage());
       }
+    }
 
-      // Set task in done state
-      afterExecuteTask(this.context, result);
+    /**
+     * Get a description of the tasks of the job.
+     *
+     * @return a String with the description of the tasks of the job
+     */
+    private String jobTaskDescription() {
+
+      if (this.contexts.size() == 1) {
 
-      // Remove the thread from the queue
-      queue.remove(this);
+        final TaskContextImpl context = this.contexts.get(0);
+        return "Task #" + context.getId() + " (" + context.getContextName() + ")";
+      }
+
+      return this.contexts.size()
+          + " tasks (#"
+          + this.contexts.get(0).getId()
+          + " to #"
+          + this.contexts.get(this.contexts.size() - 1).getId()
+          + ")";
     }
 
     /** Stop the thread. */
     public void stopThread() {
 
-      if (this.jobId != null) {
+      final Job job = this.hadoopJob;
+
+      if (job != null) {
 
         try {
-          if (this.hadoopJob != null) {
-            this.hadoopJob.killJob();
-          }
+          job.killJob();
         } catch (IOException e) {
-          getLogger().severe("Error while stopping job " + this.jobId + ": " + e.getMessage());
+          getLogger().severe("Error while stopping job " + getJobId() + ": " + e.getMessage());
         }
       }
     }
@@ -319,20 +412,36 @@ public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
     /**
      * Constructor.
      *
-     * @param context context to execute
+     * @param conf Hadoop configuration
+     * @param step step of the contexts
+     * @param requiredMemory memory required by each task
+     * @param contexts contexts to execute
      */
-    TaskThread(final Configuration conf, final TaskContextImpl context) {
+    JobThread(
+        final Configuration conf,
+        final Step step,
+        final int requiredMemory,
+        final List<TaskContextImpl> contexts) {
 
       requireNonNull(conf, "conf argument cannot be null");
-      requireNonNull(context, "context argument cannot be null");
+      requireNonNull(step, "step argument cannot be null");
+      requireNonNull(contexts, "contexts argument cannot be null");
+      checkArgument(!contexts.isEmpty(), "contexts argument cannot be empty");
 
-      final DataFile hadoopWorkDir = context.getHadoopWorkingPathname();
+      final DataFile hadoopWorkDir = contexts.get(0).getHadoopWorkingPathname();
 
       this.conf = conf;
-      this.context = context;
-      this.taskDir =
-          new DataFile(hadoopWorkDir, "eoulsan-hadoop-compatible-task-" + this.context.getId());
-      this.taskPrefix = context.getTaskFilePrefix();
+      this.step = step;
+      this.requiredMemory = requiredMemory;
+      this.contexts = new ArrayList<>(contexts);
+      this.contexts.sort(Comparator.comparingInt(TaskContextImpl::getId));
+      this.jobDir =
+          new DataFile(
+              hadoopWorkDir,
+              "eoulsan-hadoop-compatible-job-"
+                  + step.getId()
+                  + "-"
+                  + jobCount.incrementAndGet());
     }
   }
 
@@ -405,17 +514,46 @@ public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
   @Override
   public void submit(final Step step, final TaskContextImpl context) {
 
-    // Call to the super method
-    super.submit(step, context);
+    requireNonNull(context, "context argument cannot be null");
 
-    // Create the thread object
-    final TaskThread st = new TaskThread(this.conf, context);
+    submit(step, Collections.singleton(context));
+  }
 
-    // Add the thread to the queue
-    this.queue.add(st);
+  @Override
+  public void submit(final Step step, final Set<TaskContextImpl> contexts) {
 
-    // Start the Thread
-    st.start();
+    requireNonNull(step, "step argument cannot be null");
+    requireNonNull(contexts, "contexts argument cannot be null");
+
+    if (contexts.isEmpty()) {
+      return;
+    }
+
+    // Group the contexts by required memory, all the tasks of an Hadoop job share the same memory
+    // settings
+    final Map<Integer, List<TaskContextImpl>> groups = new TreeMap<>();
+
+    for (TaskContextImpl context : contexts) {
+
+      // Call to the super method
+      super.submit(step, context);
+
+      groups
+          .computeIfAbsent(context.getCurrentStep().getRequiredMemory(), k -> new ArrayList<>())
+          .add(context);
+    }
+
+    for (Map.Entry<Integer, List<TaskContextImpl>> e : groups.entrySet()) {
+
+      // Create the thread object
+      final JobThread st = new JobThread(this.conf, step, e.getKey(), e.getValue());
+
+      // Add the thread to the queue
+      this.queue.add(st);
+
+      // Start the Thread
+      st.start();
+    }
   }
 
   @Override
@@ -424,7 +562,7 @@ public class HadoopCompatibleTaskScheduler extends AbstractTaskScheduler {
     // Call to the super method
     super.stop();
 
-    for (TaskThread thread : this.queue) {
+    for (JobThread thread : this.queue) {
 
       // Kill the subprocess
       thread.stopThread();
@@ -93,6 +93,16 @@ public class TaskSchedulerFactory {
     }
   }
 
+  /**
+   * Test if the scheduler has been initialized.
+   *
+   * @return true if the scheduler has been initialized
+   */
+  public static boolean isInitialized() {
+
+    return scheduler != null;
+  }
+
   /**
    * Get the scheduler
    *
@@ -34,6 +34,7 @@ import static java.util.Objects.requireNonNull;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Main;
+import fr.ens.biologie.genomique.eoulsan.Settings;
 import fr.ens.biologie.genomique.eoulsan.actions.ClusterTaskAction;
 import fr.ens.biologie.genomique.eoulsan.core.Step;
 import fr.ens.biologie.genomique.eoulsan.core.schedulers.AbstractTaskScheduler;
@@ -48,10 +49,12 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -66,8 +69,12 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
 
   private static final int STATUS_UPDATE_DELAY = 1000;
 
+  private static final String PILOT_JOBS_DIRECTORY = "eoulsan-pilot-jobs";
+
   private final Queue<TaskThread> queue = new LinkedBlockingQueue<>();
   private final StatusUpdateWaitingQueue statusUpdateQueue = new StatusUpdateWaitingQueue();
+  private PilotJobPool pilotJobPool;
+  private boolean pilotJobPoolInitialized;
 
   /** This class define a waiting queue for status update queries. */
   private static class StatusUpdateWaitingQueue {
@@ -141,36 +148,28 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
      */
     private List<String> createJobCommand() throws IOException {
 
+      final Path taskContextFile = serializeContext();
+
+      return createEoulsanCommand(
+          Arrays.asList(
+              ClusterTaskAction.ACTION_NAME, taskContextFile.toAbsolutePath().toString()));
+    }
+
+    /**
+     * Serialize the context of the task.
+     *
+     * @return the path of the serialized context
+     * @throws IOException if an error occurs while serializing the context
+     */
+    private Path serializeContext() throws IOException {
+
       // Define the file for the task context
       final Path taskContextFile = this.taskDir.resolve(this.taskPrefix + TASK_CONTEXT_EXTENSION);
 
       // Serialize the context object
       this.context.serialize(taskContextFile);
 
-      final List<String> command = new ArrayList<>();
-
-      final Path eoulsanScriptFile = Path.of(Main.getInstance().getEoulsanScriptPath());
-      command.add(eoulsanScriptFile.toAbsolutePath().toString());
-
-      // Force the usage of the current JRE by the submitted task
-      command.add("-j");
-      command.add(System.getProperty("java.home"));
-
-      // Set the working directory
-      command.add("-w");
-      command.add(System.getProperty("user.dir"));
-
-      final String logLevel = Main.getInstance().getLogLevelArgument();
-
-      if (logLevel != null) {
-        command.add("-loglevel");
-        command.add(logLevel);
-      }
-
-      command.add(ClusterTaskAction.ACTION_NAME);
-      command.add(taskContextFile.toAbsolutePath().toString());
-
-      return Collections.unmodifiableList(command);
+      return taskContextFile;
     }
 
     /**
@@ -239,52 +238,12 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
         final int requiredMemory = getRequiredMemory();
         final int requiredProcessors = this.context.getCurrentStep().getRequiredProcessors();
 
-        // Submit Job
-        this.jobId =
-            submitJob(
-                getJobName(),
-                createJobCommand(),
-                taskFile,
-                this.context.getId(),
-                requiredMemory,
-                requiredProcessors);
-
-        // Create a file with the id of the submitted job
-        createJobIdFile();
-
-        StatusResult status = null;
-
-        boolean completed = false;
-
-        do {
-
-          // Wait turn before querying job status
-          statusUpdateQueue.waitTurn(this);
-
-          status = statusJob(this.jobId);
-
-          switch (status.getStatusValue()) {
-            case COMPLETE:
-              completed = true;
-              break;
-
-            case WAITING:
-            case RUNNING:
-            case UNKNOWN:
-            default:
-              break;
-          }
-
-        } while (!completed);
-
-        if (status.getExitCode() != 0) {
-          throw new EoulsanException(
-              "Invalid task exit code: "
-                  + status.getExitCode()
-                  + " for task #"
-                  + this.context.getId()
-                  + " in step "
-                  + getStep(this.context).getId());
+        // Execute the task in a pilot job if possible
+        final PilotJobPool pilotJobPool = getPilotJobPool(this.context);
+        if (pilotJobPool != null && pilotJobPool.accept(requiredMemory, requiredProcessors)) {
+          executeWithPilotJob(pilotJobPool);
+        } else {
+          executeWithJob(taskFile, requiredMemory, requiredProcessors);
         }
 
         // Load result
@@ -317,6 +276,94 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
       }
     }
 
+    /**
+     * Execute the task in a pilot job.
+     *
+     * @param pilotJobPool the pool of pilot jobs
+     * @throws IOException if an error occurs while submitting the task
+     * @throws EoulsanException if the task has not been executed by the pilot job
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    private void executeWithPilotJob(final PilotJobPool pilotJobPool)
+        throws IOException, EoulsanException, InterruptedException {
+
+      try {
+        pilotJobPool.execute(serializeContext()).get();
+      } catch (ExecutionException e) {
+        throw new EoulsanException(
+            "Error while executing task #"
+                + this.context.getId()
+                + " in step "
+                + getStep(this.context).getId()
+                + " with a pilot job: "
+                + e.getCause().getMessage(),
+            e.getCause());
+      }
+    }
+
+    /**
+     * Execute the task in a dedicated cluster job.
+     *
+     * @param taskFile task directory
+     * @param requiredMemory required memory
+     * @param requiredProcessors required processors
+     * @throws IOException if an error occurs while submitting the job
+     * @throws EoulsanException if the job has failed
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    private void executeWithJob(
+        final File taskFile, final int requiredMemory, final int requiredProcessors)
+        throws IOException, EoulsanException, InterruptedException {
+
+      // Submit Job
+      this.jobId =
+          submitJob(
+              getJobName(),
+              createJobCommand(),
+              taskFile,
+              this.context.getId(),
+              requiredMemory,
+              requiredProcessors);
+
+      // Create a file with the id of the submitted job
+      createJobIdFile();
+
+      StatusResult status = null;
+
+      boolean completed = false;
+
+      do {
+
+        // Wait turn before querying job status
+        statusUpdateQueue.waitTurn(this);
+
+        status = statusJob(this.jobId);
+
+        switch (status.getStatusValue()) {
+          case COMPLETE:
+            completed = true;
+            break;
+
+          case WAITING:
+          case RUNNING:
+          case UNKNOWN:
+          default:
+            break;
+        }
+
+      } while (!completed);
+
+      if (status.getExitCode() != 0) {
+        throw new EoulsanException(
+            "Invalid task exit code: "
+                + status.getExitCode()
+                + " for task #"
+                + this.context.getId()
+                + " in step "
+                + getStep(this.context).getId());
+      }
+    }
+
     /**
      * Get the required memory for the step
      *
@@ -374,6 +421,88 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
     }
   }
 
+  //
+  // Job commands
+  //
+
+  /**
+   * Create an Eoulsan command to submit.
+   *
+   * @param actionArguments the name of the action to execute and its arguments
+   * @return a list with the arguments of the command to submit
+   */
+  List<String> createEoulsanCommand(final List<String> actionArguments) {
+
+    final List<String> command = new ArrayList<>();
+
+    final Path eoulsanScriptFile = Path.of(Main.getInstance().getEoulsanScriptPath());
+    command.add(eoulsanScriptFile.toAbsolutePath().toString());
+
+    // Force the usage of the current JRE by the submitted task
+    command.add("-j");
+    command.add(System.getProperty("java.home"));
+
+    // Set the working directory
+    command.add("-w");
+    command.add(System.getProperty("user.dir"));
+
+    final String logLevel = Main.getInstance().getLogLevelArgument();
+
+    if (logLevel != null) {
+      command.add("-loglevel");
+      command.add(logLevel);
+    }
+
+    command.addAll(actionArguments);
+
+    return Collections.unmodifiableList(command);
+  }
+
+  /**
+   * Get the pool of pilot jobs. The pool is created at the first call of this method.
+   *
+   * @param context the context of a task
+   * @return the pool of pilot jobs or null if pilot jobs are disabled
+   * @throws IOException if an error occurs while creating the pool
+   */
+  private synchronized PilotJobPool getPilotJobPool(final TaskContextImpl context)
+      throws IOException {
+
+    if (this.pilotJobPoolInitialized) {
+      return this.pilotJobPool;
+    }
+    this.pilotJobPoolInitialized = true;
+
+    final Settings settings = context.getSettings();
+    final int pilotJobs = settings.getClusterPilotJobs();
+
+    if (pilotJobs <= 0) {
+      return null;
+    }
+
+    // Define the memory of the pilot jobs
+    int memory = settings.getClusterPilotMemory();
+    if (memory <= 0) {
+      memory = settings.getDefaultClusterMemoryRequired();
+    }
+    if (memory <= 0) {
+      memory = Main.getInstance().getEoulsanMemory();
+    }
+
+    this.pilotJobPool =
+        new PilotJobPool(
+            this,
+            context.getTaskOutputDirectory().toPath().resolve(PILOT_JOBS_DIRECTORY),
+            context.getJobId(),
+            pilotJobs,
+            settings.getClusterPilotIdleTimeout(),
+            settings.getClusterPilotMaxTasks(),
+            memory,
+            settings.getClusterPilotProcessors());
+
+    return this.pilotJobPool;
+  }
+
   //
   // Task scheduler methods
   //
@@ -404,5 +533,12 @@ public abstract class AbstractClusterTaskScheduler extends AbstractTaskScheduler
     }
 
     this.queue.clear();
+
+    // Stop the pilot jobs
+    synchronized (this) {
+      if (this.pilotJobPool != null) {
+        this.pilotJobPool.stop();
+      }
+    }
   }
 }
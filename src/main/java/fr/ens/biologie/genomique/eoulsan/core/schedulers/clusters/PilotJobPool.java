@@ -0,0 +1,348 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.actions.PilotWorkerAction;
+import fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters.ClusterTaskScheduler.StatusResult;
+import fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters.ClusterTaskScheduler.StatusValue;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class define a pool of pilot jobs. A pilot job is a long-lived cluster job that executes in
+ * the same JVM the tasks it pulls from a {@link PilotJobQueue}, avoiding the cost of a JVM startup
+ * and of a cluster queue wait for each task. The pool starts pilot jobs on demand, up to a maximal
+ * number, and fails the tasks whose pilot job has ended before their end.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class PilotJobPool {
+
+  private static final int UPDATE_DELAY = 1000;
+  private static final int MAX_CONSECUTIVE_PILOT_FAILURES = 3;
+
+  private final AbstractClusterTaskScheduler scheduler;
+  private final PilotJobQueue queue;
+  private final String jobNamePrefix;
+  private final int maxPilotJobs;
+  private final int idleTimeout;
+  private final int maxTasks;
+  private final int requiredMemory;
+  private final int requiredProcessors;
+
+  private final Map<String, String> pilotJobs = new LinkedHashMap<>();
+  private final Set<String> endedPilotJobs = new HashSet<>();
+  private final Map<String, CompletableFuture<Void>> tasks = new ConcurrentHashMap<>();
+  private int pilotJobCount;
+  private int consecutiveFailures;
+
+  private Thread thread;
+  private volatile boolean stopped;
+
+  /**
+   * Test if a task can be executed by the pilot jobs of the pool.
+   *
+   * @param requiredMemory memory required by the task
+   * @param requiredProcessors processors required by the task
+   * @return true if the task can be executed by the pilot jobs
+   */
+  boolean accept(final int requiredMemory, final int requiredProcessors) {
+
+    return !this.stopped
+        && requiredMemory <= this.requiredMemory
+        && requiredProcessors <= this.requiredProcessors;
+  }
+
+  /**
+   * Execute a task with a pilot job.
+   *
+   * @param contextFile the serialized context of the task
+   * @return a future that is completed when the task has been executed
+   * @throws IOException if an error occurs while adding the task to the queue
+   */
+  synchronized CompletableFuture<Void> execute(final Path contextFile) throws IOException {
+
+    requireNonNull(contextFile, "contextFile argument cannot be null");
+
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    if (this.stopped) {
+      future.completeExceptionally(new EoulsanException("The pilot jobs have been stopped"));
+      return future;
+    }
+
+    this.tasks.put(this.queue.submit(contextFile), future);
+
+    // Start the thread that manages the pilot jobs
+    if (this.thread == null) {
+      this.thread = new Thread(this::run, "Pilot job pool");
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    return future;
+  }
+
+  /** Stop the pilot jobs of the pool. */
+  synchronized void stop() {
+
+    this.stopped = true;
+
+    try {
+      this.queue.requestStop();
+    } catch (IOException e) {
+      getLogger().severe("Error while stopping pilot jobs: " + e.getMessage());
+    }
+
+    for (String jobId : this.pilotJobs.values()) {
+      try {
+        this.scheduler.stopJob(jobId);
+      } catch (IOException e) {
+        getLogger().severe("Error while stopping job " + jobId + ": " + e.getMessage());
+      }
+    }
+    this.pilotJobs.clear();
+
+    failAllTasks(new EoulsanException("The pilot jobs have been stopped"));
+  }
+
+  //
+  // Pool management
+  //
+
+  private void run() {
+
+    while (!this.stopped) {
+
+      try {
+        update();
+      } catch (IOException e) {
+        getLogger().severe("Error while updating the pilot jobs: " + e.getMessage());
+      }
+
+      try {
+        Thread.sleep(UPDATE_DELAY);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Update the state of the pilot jobs and of the tasks.
+   *
+   * @throws IOException if an error occurs while updating the pool
+   */
+  private synchronized void update() throws IOException {
+
+    if (this.stopped) {
+      return;
+    }
+
+    // Check the status of the pilot jobs
+    for (Iterator<Map.Entry<String, String>> it = this.pilotJobs.entrySet().iterator();
+        it.hasNext(); ) {
+
+      final Map.Entry<String, String> e = it.next();
+      final StatusResult status = this.scheduler.statusJob(e.getValue());
+
+      if (status.getStatusValue() == StatusValue.COMPLETE) {
+        it.remove();
+        this.endedPilotJobs.add(e.getKey());
+
+        if (status.getExitCode() == 0) {
+          this.consecutiveFailures = 0;
+        } else {
+          this.consecutiveFailures++;
+          getLogger()
+              .warning(
+                  "Pilot job "
+                      + e.getKey()
+                      + " ("
+                      + e.getValue()
+                      + ") has ended with exit code "
+                      + status.getExitCode());
+        }
+      }
+    }
+
+    // Notify the executed tasks. The done tasks must be listed after checking the status of
+    // the pilot jobs, as a pilot job always moves its task to the done directory before exiting
+    for (String name : this.queue.getDoneTasks()) {
+
+      this.queue.remove(name, null);
+      final CompletableFuture<Void> future = this.tasks.remove(name);
+      if (future != null) {
+        future.complete(null);
+      }
+    }
+
+    // Fail the tasks of the pilot jobs that have ended
+    for (String[] e : this.queue.getRunningTasks()) {
+
+      final String workerId = e[0];
+      final String name = e[1];
+
+      if (this.endedPilotJobs.contains(workerId)) {
+
+        this.queue.remove(name, workerId);
+        final CompletableFuture<Void> future = this.tasks.remove(name);
+        if (future != null) {
+          future.completeExceptionally(
+              new EoulsanException(
+                  "The pilot job " + workerId + " has ended before the end of the task"));
+        }
+      }
+    }
+
+    // Avoid to submit indefinitely pilot jobs that cannot start
+    if (this.consecutiveFailures >= MAX_CONSECUTIVE_PILOT_FAILURES) {
+      failAllTasks(
+          new EoulsanException(
+              this.consecutiveFailures + " consecutive pilot jobs have failed, see their logs in "
+                  + this.queue.getQueueDirectory()));
+      this.consecutiveFailures = 0;
+      return;
+    }
+
+    // Start new pilot jobs if required
+    final int required = Math.min(this.maxPilotJobs, this.tasks.size());
+    while (this.pilotJobs.size() < required) {
+      startPilotJob();
+    }
+  }
+
+  /**
+   * Submit a new pilot job.
+   *
+   * @throws IOException if an error occurs while submitting the pilot job
+   */
+  private void startPilotJob() throws IOException {
+
+    final int pilotId = ++this.pilotJobCount;
+    final String workerId = "pilot" + pilotId;
+
+    final List<String> command =
+        this.scheduler.createEoulsanCommand(
+            Arrays.asList(
+                PilotWorkerAction.ACTION_NAME,
+                "-idletimeout",
+                Integer.toString(this.idleTimeout),
+                "-maxtasks",
+                Integer.toString(this.maxTasks),
+                this.queue.getQueueDirectory().toAbsolutePath().toString(),
+                workerId));
+
+    final String jobId =
+        this.scheduler.submitJob(
+            this.jobNamePrefix + "-" + workerId,
+            command,
+            this.queue.getQueueDirectory().toFile(),
+            pilotId,
+            this.requiredMemory,
+            this.requiredProcessors);
+
+    getLogger().fine("Pilot job " + workerId + " submitted: " + jobId);
+
+    this.pilotJobs.put(workerId, jobId);
+  }
+
+  /**
+   * Fail all the tasks of the pool. The pending entries of the tasks are removed from the queue, so
+   * the failed tasks will never be claimed by a pilot job.
+   *
+   * @param exception the exception of the tasks
+   */
+  private void failAllTasks(final Exception exception) {
+
+    for (Map.Entry<String, CompletableFuture<Void>> e : this.tasks.entrySet()) {
+
+      try {
+        this.queue.remove(e.getKey(), null);
+      } catch (IOException ioe) {
+        getLogger()
+            .warning("Cannot remove task " + e.getKey() + " from the queue: " + ioe.getMessage());
+      }
+
+      e.getValue().completeExceptionally(exception);
+    }
+    this.tasks.clear();
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param scheduler the cluster scheduler that submits the pilot jobs
+   * @param queueDir the directory of the queue of the tasks
+   * @param jobNamePrefix prefix of the name of the pilot jobs
+   * @param maxPilotJobs maximal number of pilot jobs running simultaneously
+   * @param idleTimeout time in seconds after which an idle pilot job exits
+   * @param maxTasks maximal number of tasks executed by a pilot job, 0 for no limit
+   * @param requiredMemory memory required by a pilot job
+   * @param requiredProcessors processors required by a pilot job
+   * @throws IOException if an error occurs while creating the queue
+   */
+  PilotJobPool(
+      final AbstractClusterTaskScheduler scheduler,
+      final Path queueDir,
+      final String jobNamePrefix,
+      final int maxPilotJobs,
+      final int idleTimeout,
+      final int maxTasks,
+      final int requiredMemory,
+      final int requiredProcessors)
+      throws IOException {
+
+    requireNonNull(scheduler, "scheduler argument cannot be null");
+    requireNonNull(jobNamePrefix, "jobNamePrefix argument cannot be null");
+
+    this.scheduler = scheduler;
+    this.queue = new PilotJobQueue(queueDir);
+    this.jobNamePrefix = jobNamePrefix;
+    this.maxPilotJobs = maxPilotJobs;
+    this.idleTimeout = idleTimeout;
+    this.maxTasks = maxTasks;
+    this.requiredMemory = requiredMemory;
+    this.requiredProcessors = requiredProcessors;
+  }
+}
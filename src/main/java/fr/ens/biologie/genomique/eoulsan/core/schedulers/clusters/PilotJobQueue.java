@@ -0,0 +1,297 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.schedulers.clusters;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class define a queue of tasks shared by the submitter of a workflow and its pilot jobs. The
+ * queue only relies on atomic file moves in a shared directory: a task waits in the "pending"
+ * directory, moves to the "running" directory when a pilot job claims it and ends in the "done"
+ * directory once executed.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class PilotJobQueue {
+
+  private static final String PENDING_DIR = "pending";
+  private static final String RUNNING_DIR = "running";
+  private static final String DONE_DIR = "done";
+  private static final String STOP_FILE = "stop";
+  private static final char WORKER_SEPARATOR = '@';
+
+  private final Path queueDir;
+  private final Path pendingDir;
+  private final Path runningDir;
+  private final Path doneDir;
+  private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+  /** This class define a task claimed by a pilot job. */
+  public static final class ClaimedTask {
+
+    private final Path entry;
+    private final Path contextFile;
+
+    /**
+     * Get the task context file.
+     *
+     * @return the path of the task context file
+     */
+    public Path getContextFile() {
+      return this.contextFile;
+    }
+
+    private ClaimedTask(final Path entry, final Path contextFile) {
+      this.entry = entry;
+      this.contextFile = contextFile;
+    }
+  }
+
+  //
+  // Submitter methods
+  //
+
+  /**
+   * Add a task to the queue.
+   *
+   * @param contextFile the serialized task context file
+   * @return the name of the task in the queue
+   * @throws IOException if an error occurs while adding the task
+   */
+  public String submit(final Path contextFile) throws IOException {
+
+    requireNonNull(contextFile, "contextFile argument cannot be null");
+
+    final String name =
+        String.format("%019d-%s", this.sequence.incrementAndGet(), contextFile.getFileName());
+
+    // Write the entry in a temporary file before making it visible to the pilot jobs
+    final Path tmpFile = this.queueDir.resolve(name + ".tmp");
+    Files.writeString(tmpFile, contextFile.toAbsolutePath().toString(), StandardCharsets.UTF_8);
+    Files.move(tmpFile, this.pendingDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+
+    return name;
+  }
+
+  /**
+   * Get the number of tasks waiting for a pilot job.
+   *
+   * @return the number of pending tasks
+   * @throws IOException if an error occurs while listing the queue
+   */
+  public int getPendingCount() throws IOException {
+
+    return list(this.pendingDir).size();
+  }
+
+  /**
+   * Get the names of the executed tasks.
+   *
+   * @return a list with the name of the executed tasks
+   * @throws IOException if an error occurs while listing the queue
+   */
+  public List<String> getDoneTasks() throws IOException {
+
+    return list(this.doneDir);
+  }
+
+  /**
+   * Get the running tasks.
+   *
+   * @return a list with the running entries, each entry is an array with the worker id and the
+   *     name of the task
+   * @throws IOException if an error occurs while listing the queue
+   */
+  public List<String[]> getRunningTasks() throws IOException {
+
+    final List<String[]> result = new ArrayList<>();
+
+    for (String entry : list(this.runningDir)) {
+
+      final int pos = entry.indexOf(WORKER_SEPARATOR);
+      if (pos != -1) {
+        result.add(new String[] {entry.substring(0, pos), entry.substring(pos + 1)});
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Remove a task from the queue, whatever its state.
+   *
+   * @param name name of the task
+   * @param workerId the worker that has claimed the task, can be null
+   * @throws IOException if an error occurs while removing the task
+   */
+  public void remove(final String name, final String workerId) throws IOException {
+
+    Files.deleteIfExists(this.pendingDir.resolve(name));
+    Files.deleteIfExists(this.doneDir.resolve(name));
+
+    if (workerId != null) {
+      Files.deleteIfExists(this.runningDir.resolve(workerId + WORKER_SEPARATOR + name));
+    }
+  }
+
+  /**
+   * Request all the pilot jobs to exit.
+   *
+   * @throws IOException if an error occurs while creating the stop file
+   */
+  public void requestStop() throws IOException {
+
+    try {
+      Files.createFile(this.queueDir.resolve(STOP_FILE));
+    } catch (FileAlreadyExistsException e) {
+      // Stop has already been requested
+    }
+  }
+
+  //
+  // Pilot job methods
+  //
+
+  /**
+   * Test if the pilot jobs must exit.
+   *
+   * @return true if the pilot jobs must exit
+   */
+  public boolean isStopRequested() {
+
+    return Files.exists(this.queueDir.resolve(STOP_FILE));
+  }
+
+  /**
+   * Claim the oldest pending task of the queue.
+   *
+   * @param workerId identifier of the pilot job
+   * @return the claimed task or null if the queue is empty
+   * @throws IOException if an error occurs while claiming a task
+   */
+  public ClaimedTask claim(final String workerId) throws IOException {
+
+    requireNonNull(workerId, "workerId argument cannot be null");
+
+    for (String name : list(this.pendingDir)) {
+
+      final Path entry = this.runningDir.resolve(workerId + WORKER_SEPARATOR + name);
+
+      try {
+        // Only one pilot job can succeed to move the entry
+        Files.move(this.pendingDir.resolve(name), entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (NoSuchFileException e) {
+        // The task has been claimed by another pilot job
+        continue;
+      }
+
+      final String contextFile = Files.readString(entry, StandardCharsets.UTF_8).trim();
+
+      return new ClaimedTask(entry, Paths.get(contextFile));
+    }
+
+    return null;
+  }
+
+  /**
+   * Mark a claimed task as executed.
+   *
+   * @param task the claimed task
+   * @throws IOException if an error occurs while moving the task
+   */
+  public void complete(final ClaimedTask task) throws IOException {
+
+    requireNonNull(task, "task argument cannot be null");
+
+    final String entryName = task.entry.getFileName().toString();
+    final String name = entryName.substring(entryName.indexOf(WORKER_SEPARATOR) + 1);
+
+    Files.move(task.entry, this.doneDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Get the queue directory.
+   *
+   * @return the queue directory
+   */
+  public Path getQueueDirectory() {
+
+    return this.queueDir;
+  }
+
+  private static List<String> list(final Path dir) throws IOException {
+
+    final List<String> result = new ArrayList<>();
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path p : stream) {
+        result.add(p.getFileName().toString());
+      }
+    }
+
+    Collections.sort(result);
+
+    return result;
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param queueDir the queue directory
+   * @throws IOException if an error occurs while creating the queue directories
+   */
+  public PilotJobQueue(final Path queueDir) throws IOException {
+
+    requireNonNull(queueDir, "queueDir argument cannot be null");
+
+    this.queueDir = queueDir;
+    this.pendingDir = Files.createDirectories(queueDir.resolve(PENDING_DIR));
+    this.runningDir = Files.createDirectories(queueDir.resolve(RUNNING_DIR));
+    this.doneDir = Files.createDirectories(queueDir.resolve(DONE_DIR));
+  }
+}
@@ -252,7 +252,12 @@ class DataElement extends AbstractData {
 
   private DataFile createDataFile(final int fileIndex) {
 
-    return WorkflowFileNaming.file(this.port, this, fileIndex);
+    final DataFile file = WorkflowFileNaming.file(this.port, this, fileIndex);
+
+    // Use the scratch directory of the task if its files are staged
+    final TaskStaging staging = TaskStaging.current();
+
+    return staging == null ? file : staging.outputFile(this.port, file);
   }
 
   private void updateDataFiles() {
@@ -32,6 +32,8 @@ import static fr.ens.biologie.genomique.eoulsan.annotations.ExecutionMode.LOCAL_
 import static java.util.Objects.requireNonNull;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Main;
 import fr.ens.biologie.genomique.eoulsan.annotations.ExecutionMode;
@@ -40,9 +42,11 @@ import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.GalaxyToolModule;
 import fr.ens.biologie.genomique.eoulsan.util.ClassPathResourceLoader;
 import fr.ens.biologie.genomique.eoulsan.util.FileResourceLoader;
+import fr.ens.biologie.genomique.eoulsan.util.ResourceIndex;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -61,6 +65,7 @@ public class ModuleRegistry {
 
   private static final String RESOURCE_PREFIX = "META-INF/services/registrytoolshed/";
   private static final String GALAXY_TOOL_SUBDIR = "galaxytools";
+  private static final String INDEX_NAME_PREFIX = "galaxytools-";
 
   private static ModuleRegistry instance;
   private final ModuleService service;
@@ -237,15 +242,15 @@ public class ModuleRegistry {
       getLogger().config("Found module: " + e.getKey() + " (" + e.getValue() + ")");
     }
 
-    // Log Galaxy tool modules
-    final List<GalaxyToolModule> modulesFound = new ArrayList<>();
-    modulesFound.addAll(this.galaxyClassPathLoader.loadAllResources());
-    modulesFound.addAll(this.galaxyFileLoader.loadAllResources());
+    // Log Galaxy tool modules, the tool files are only parsed when a module is loaded
+    final Multimap<String, String> modulesFound = ArrayListMultimap.create();
+    modulesFound.putAll(this.galaxyClassPathLoader.getResourcePaths());
+    modulesFound.putAll(this.galaxyFileLoader.getResourcePaths());
 
-    for (GalaxyToolModule s : modulesFound) {
+    for (Map.Entry<String, String> e : modulesFound.entries()) {
 
       getLogger()
-          .config("Found module: " + s.getName() + " (Galaxy tool, source: " + s.getSource() + ")");
+          .config("Found module: " + e.getKey() + " (Galaxy tool, source: " + e.getValue() + ")");
     }
   }
 
@@ -410,5 +415,12 @@ public class ModuleRegistry {
     this.galaxyClassPathLoader = new GalaxyToolModuleClassPathLoader();
     this.galaxyFileLoader =
         new GalaxyToolModuleFileResourceLoader(getSettings().getGalaxyToolPaths());
+
+    // Avoid to parse all the Galaxy tool files at each startup
+    final Path indexDir = Path.of(getSettings().getRegistryIndexPath());
+    this.galaxyClassPathLoader.setResourceIndex(
+        new ResourceIndex(indexDir, INDEX_NAME_PREFIX + "classpath"));
+    this.galaxyFileLoader.setResourceIndex(
+        new ResourceIndex(indexDir, INDEX_NAME_PREFIX + "files"));
   }
 }
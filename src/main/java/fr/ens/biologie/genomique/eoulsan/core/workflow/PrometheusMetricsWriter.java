@@ -0,0 +1,302 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.workflow;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class define a writer of the resources used by the tasks of the steps in a file at the
+ * Prometheus text format. The file is rewritten each time a task ends, so it can be read by the
+ * textfile collector of the Prometheus node exporter during the run.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class PrometheusMetricsWriter {
+
+  private static PrometheusMetricsWriter instance;
+
+  private final Path file;
+  private final Map<String, StepMetrics> steps = new TreeMap<>();
+  private boolean writeErrorLogged;
+
+  /** This class define the metrics of a step. */
+  private static final class StepMetrics {
+
+    private long successTasks;
+    private long failedTasks;
+    private long duration;
+    private TaskResourceMetrics resources;
+  }
+
+  /** This enum define the metrics of the file. */
+  private enum Metric {
+    TASKS("eoulsan_step_tasks_total", "counter", "Number of tasks executed by the step."),
+    DURATION(
+        "eoulsan_step_task_duration_seconds_total",
+        "counter",
+        "Sum of the durations of the tasks of the step."),
+    CPU_TIME(
+        "eoulsan_step_task_cpu_seconds_total",
+        "counter",
+        "CPU time used by the tasks of the step and their child processes."),
+    PEAK_MEMORY(
+        "eoulsan_step_task_peak_memory_bytes",
+        "gauge",
+        "Maximal peak resident memory of the tasks of the step."),
+    READ_BYTES(
+        "eoulsan_step_task_read_bytes_total", "counter", "Bytes read by the tasks of the step."),
+    WRITTEN_BYTES(
+        "eoulsan_step_task_written_bytes_total",
+        "counter",
+        "Bytes written by the tasks of the step."),
+    GC_TIME(
+        "eoulsan_step_task_gc_seconds_total",
+        "counter",
+        "Garbage collection time during the tasks of the step.");
+
+    private final String metricName;
+    private final String type;
+    private final String help;
+
+    Metric(final String metricName, final String type, final String help) {
+      this.metricName = metricName;
+      this.type = type;
+      this.help = help;
+    }
+  }
+
+  //
+  // Static methods
+  //
+
+  /**
+   * Get the writer defined in the settings.
+   *
+   * @return the writer or null if no Prometheus metrics file has been defined in the settings
+   */
+  static synchronized PrometheusMetricsWriter getInstance() {
+
+    if (!EoulsanRuntime.isRuntime()) {
+      return null;
+    }
+
+    final String path = EoulsanRuntime.getSettings().getTaskMetricsPrometheusFile();
+
+    if (path == null || path.trim().isEmpty()) {
+      return null;
+    }
+
+    final Path file = Path.of(path.trim());
+
+    if (instance == null || !instance.file.equals(file)) {
+      instance = new PrometheusMetricsWriter(file);
+    }
+
+    return instance;
+  }
+
+  //
+  // Writer methods
+  //
+
+  /**
+   * Add the result of a task and rewrite the metrics file.
+   *
+   * @param stepId the id of the step of the task
+   * @param result the result of the task
+   */
+  synchronized void addTaskResult(final String stepId, final TaskResultImpl result) {
+
+    requireNonNull(stepId, "stepId argument cannot be null");
+    requireNonNull(result, "result argument cannot be null");
+
+    final StepMetrics metrics = this.steps.computeIfAbsent(stepId, k -> new StepMetrics());
+
+    if (result.isSuccess()) {
+      metrics.successTasks++;
+    } else {
+      metrics.failedTasks++;
+    }
+
+    metrics.duration += Math.max(0, result.getDuration());
+
+    final TaskResourceMetrics resources = result.getResourceMetrics();
+    if (resources != null) {
+      metrics.resources = resources.merge(metrics.resources);
+    }
+
+    try {
+      write();
+    } catch (IOException e) {
+
+      // Log only the first error to avoid filling the log
+      if (!this.writeErrorLogged) {
+        this.writeErrorLogged = true;
+        getLogger()
+            .warning("Unable to write the Prometheus metrics file " + this.file + ": " + e);
+      }
+    }
+  }
+
+  /**
+   * Write the metrics file. The file is first written in a temporary file and then atomically
+   * renamed to avoid partial reads by the collector.
+   *
+   * @throws IOException if an error occurs while writing the file
+   */
+  private void write() throws IOException {
+
+    final Path dir = this.file.toAbsolutePath().getParent();
+    final Path tmpFile = dir.resolve("." + this.file.getFileName() + ".tmp");
+
+    try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+
+      for (Metric metric : Metric.values()) {
+
+        writer.write("# HELP " + metric.metricName + ' ' + metric.help + '\n');
+        writer.write("# TYPE " + metric.metricName + ' ' + metric.type + '\n');
+
+        for (Map.Entry<String, StepMetrics> e : this.steps.entrySet()) {
+          writeMetric(writer, metric, e.getKey(), e.getValue());
+        }
+      }
+    }
+
+    Files.move(
+        tmpFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Write the samples of a metric for a step.
+   *
+   * @param writer the writer
+   * @param metric the metric
+   * @param stepId the step id
+   * @param metrics the metrics of the step
+   * @throws IOException if an error occurs while writing the samples
+   */
+  private static void writeMetric(
+      final Writer writer, final Metric metric, final String stepId, final StepMetrics metrics)
+      throws IOException {
+
+    final String labels = "step=\"" + escapeLabelValue(stepId) + '"';
+    final TaskResourceMetrics r = metrics.resources;
+
+    switch (metric) {
+      case TASKS:
+        writeSample(writer, metric, labels + ",result=\"success\"", metrics.successTasks);
+        writeSample(writer, metric, labels + ",result=\"failure\"", metrics.failedTasks);
+        break;
+
+      case DURATION:
+        writeSample(writer, metric, labels, metrics.duration / 1000.0);
+        break;
+
+      case CPU_TIME:
+        if (r != null && r.getCPUTime() >= 0) {
+          writeSample(writer, metric, labels, r.getCPUTime() / 1000.0);
+        }
+        break;
+
+      case PEAK_MEMORY:
+        if (r != null && r.getPeakMemory() >= 0) {
+          writeSample(writer, metric, labels, r.getPeakMemory());
+        }
+        break;
+
+      case READ_BYTES:
+        if (r != null && r.getReadBytes() >= 0) {
+          writeSample(writer, metric, labels, r.getReadBytes());
+        }
+        break;
+
+      case WRITTEN_BYTES:
+        if (r != null && r.getWrittenBytes() >= 0) {
+          writeSample(writer, metric, labels, r.getWrittenBytes());
+        }
+        break;
+
+      case GC_TIME:
+        if (r != null && r.getGCTime() >= 0) {
+          writeSample(writer, metric, labels, r.getGCTime() / 1000.0);
+        }
+        break;
+
+      default:
+        throw new IllegalStateException("Unknown metric: " + metric);
+    }
+  }
+
+  private static void writeSample(
+      final Writer writer, final Metric metric, final String labels, final long value)
+      throws IOException {
+
+    writer.write(metric.metricName + '{' + labels + "} " + value + '\n');
+  }
+
+  private static void writeSample(
+      final Writer writer, final Metric metric, final String labels, final double value)
+      throws IOException {
+
+    writer.write(metric.metricName + '{' + labels + "} " + value + '\n');
+  }
+
+  /**
+   * Escape a label value as defined in the Prometheus text format.
+   *
+   * @param value the value to escape
+   * @return the escaped value
+   */
+  private static String escapeLabelValue(final String value) {
+
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Private constructor.
+   *
+   * @param file the metrics file
+   */
+  private PrometheusMetricsWriter(final Path file) {
+
+    this.file = file;
+  }
+}
@@ -75,6 +75,7 @@ import javax.json.stream.JsonGeneratorFactory;
 public class StepResult {
 
   private static final String TASK_COUNTERS_TAG = "Task counters";
+  private static final String TASK_RESOURCES_TAG = "Task resources";
   private static final String TASK_MESSAGE_TAG = "Task message";
   private static final String TASK_DESCRIPTION_TAG = "Task description";
   private static final String TASK_COMMAND_LINE_TAG = "Task command line";
@@ -83,6 +84,7 @@ public class StepResult {
   private static final String TASK_ID_TAG = "Task id";
   private static final String TASKS_TAG = "Tasks";
   private static final String COUNTERS_TAG = "Counters";
+  private static final String RESOURCES_TAG = "Resources";
   private static final String STEP_PARAMETERS_TAG = "Step parameters";
   private static final String STEP_MESSAGE_TAG = "Step message";
   private static final String SUCCESS_TAG = "Success";
@@ -122,6 +124,8 @@ public class StepResult {
   private final Map<Integer, String> taskCommandLines = new HashMap<>();
   private final Map<Integer, String> taskDockerImages = new HashMap<>();
   private final Map<String, Long> stepCounters = new HashMap<>();
+  private final Map<Integer, TaskResourceMetrics> taskResources = new HashMap<>();
+  private TaskResourceMetrics stepResources;
   private String stepMessage;
 
   private boolean success = true;
@@ -181,6 +185,30 @@ public class StepResult {
     return Collections.unmodifiableMap(result);
   }
 
+  /**
+   * Get the resources used by all the tasks of the step. The CPU times, the bytes read and written
+   * and the garbage collection times are summed and the peak memory is the maximal peak memory of
+   * the tasks.
+   *
+   * @return the resources used by the tasks of the step or null if the resources have not been
+   *     measured
+   */
+  public TaskResourceMetrics getStepResources() {
+
+    return this.stepResources;
+  }
+
+  /**
+   * Get the resources used by a context.
+   *
+   * @param contextId context id
+   * @return the resources used by the context or null if the resources have not been measured
+   */
+  public TaskResourceMetrics getContextResources(final int contextId) {
+
+    return this.taskResources.get(contextId);
+  }
+
   /**
    * Test if the object immutable.
    *
@@ -292,6 +320,19 @@ public class StepResult {
     this.taskDockerImages.put(contextId, result.getDockerImage());
     addCounters(taskName, result.getCounters());
 
+    // Set resources information
+    final TaskResourceMetrics resources = result.getResourceMetrics();
+    if (resources != null) {
+      this.taskResources.put(contextId, resources);
+      this.stepResources = resources.merge(this.stepResources);
+    }
+
+    // Update the Prometheus metrics file
+    final PrometheusMetricsWriter metricsWriter = PrometheusMetricsWriter.getInstance();
+    if (metricsWriter != null) {
+      metricsWriter.addTaskResult(this.stepId, result);
+    }
+
     // Set success (Keep only the first error)
     if (this.success) {
       if (!result.isSuccess()) {
@@ -412,6 +453,11 @@ public class StepResult {
     }
     jg.writeEnd(); // Counters
 
+    // Resources
+    if (this.stepResources != null) {
+      writeResources(jg, RESOURCES_TAG, this.stepResources);
+    }
+
     // Tasks
     jg.writeStartArray(TASKS_TAG);
 
@@ -437,6 +483,11 @@ public class StepResult {
       }
       jg.writeEnd(); // Tasks counters
 
+      // contextName resources
+      if (this.taskResources.containsKey(contextId)) {
+        writeResources(jg, TASK_RESOURCES_TAG, this.taskResources.get(contextId));
+      }
+
       jg.writeEnd(); // Task
     }
     jg.writeEnd(); // Tasks array
@@ -446,6 +497,39 @@ public class StepResult {
     return writer.toString();
   }
 
+  /**
+   * Write resources in JSON.
+   *
+   * @param jg JSON generator
+   * @param tag the name of the JSON object
+   * @param resources the resources to write
+   */
+  private static void writeResources(
+      final JsonGenerator jg, final String tag, final TaskResourceMetrics resources) {
+
+    jg.writeStartObject(tag);
+    for (Map.Entry<String, Long> e : resources.toMap().entrySet()) {
+      jg.write(e.getKey(), e.getValue());
+    }
+    jg.writeEnd();
+  }
+
+  /**
+   * Read resources in JSON.
+   *
+   * @param obj the JSON object that contains the resources
+   * @return a TaskResourceMetrics object
+   */
+  private static TaskResourceMetrics readResources(final JsonObject obj) {
+
+    final Map<String, Long> map = new HashMap<>();
+    for (String key : obj.keySet()) {
+      map.put(key, obj.getJsonNumber(key).longValue());
+    }
+
+    return TaskResourceMetrics.fromMap(map);
+  }
+
   /**
    * Get a representation of the result in the old Eoulsan format.
    *
@@ -577,6 +661,11 @@ public class StepResult {
       }
     }
 
+    // Parse resources, that are not available in the files of the previous versions
+    if (obj.containsKey(RESOURCES_TAG)) {
+      this.stepResources = readResources(obj.getJsonObject(RESOURCES_TAG));
+    }
+
     // Parse task
     final JsonArray tasksArray = obj.getJsonArray(TASKS_TAG);
     for (JsonValue entry : tasksArray) {
@@ -596,6 +685,10 @@ public class StepResult {
       for (String counterName : taskCountersObj.keySet()) {
         map.put(counterName, taskCountersObj.getJsonNumber(counterName).longValue());
       }
+
+      if (entryObj.containsKey(TASK_RESOURCES_TAG)) {
+        this.taskResources.put(taskId, readResources(entryObj.getJsonObject(TASK_RESOURCES_TAG)));
+      }
     }
   }
 
@@ -79,6 +79,8 @@ public class TaskContextImpl implements TaskContext, Serializable {
   private final Map<String, Data> inputData = new HashMap<>();
   private final Map<String, AbstractData> outputData = new HashMap<>();
 
+  private transient TaskStaging staging;
+
   //
   // Getters
   //
@@ -385,6 +387,12 @@ public class TaskContextImpl implements TaskContext, Serializable {
   @Override
   public File getLocalTempDirectory() {
 
+    // Use the scratch directory of the task if its files are staged
+    final TaskStaging staging = this.staging;
+    if (staging != null) {
+      return staging.getTempDirectory();
+    }
+
     return EoulsanRuntime.getRuntime().getTempDirectory();
   }
 
@@ -443,6 +451,16 @@ public class TaskContextImpl implements TaskContext, Serializable {
     return this.step;
   }
 
+  /**
+   * Set the staging of the files of the task.
+   *
+   * @param staging the staging of the task, can be null
+   */
+  void setStaging(final TaskStaging staging) {
+
+    this.staging = staging;
+  }
+
   //
   // Private methods
   //
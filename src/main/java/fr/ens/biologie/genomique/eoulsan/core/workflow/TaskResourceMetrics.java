@@ -0,0 +1,228 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.workflow;
+
+import com.google.common.base.MoreObjects;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class define the resources used by a task. A negative value means that the resource has
+ * not been measured.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public final class TaskResourceMetrics implements Serializable {
+
+  private static final long serialVersionUID = 3195946377462120538L;
+
+  static final String CPU_TIME_KEY = "CPU time in milliseconds";
+  static final String PEAK_MEMORY_KEY = "Peak memory in bytes";
+  static final String READ_BYTES_KEY = "Bytes read";
+  static final String WRITTEN_BYTES_KEY = "Bytes written";
+  static final String GC_TIME_KEY = "GC time in milliseconds";
+
+  private final long cpuTime;
+  private final long peakMemory;
+  private final long readBytes;
+  private final long writtenBytes;
+  private final long gcTime;
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the CPU time of the task, including the CPU time of its child processes.
+   *
+   * @return the CPU time in milliseconds
+   */
+  public long getCPUTime() {
+    return this.cpuTime;
+  }
+
+  /**
+   * Get the peak resident memory of the task, including the memory of its child processes. The
+   * memory is measured for the whole JVM, so it includes the memory of the concurrent tasks.
+   *
+   * @return the peak memory in bytes
+   */
+  public long getPeakMemory() {
+    return this.peakMemory;
+  }
+
+  /**
+   * Get the number of bytes read from the storage by the task.
+   *
+   * @return the number of bytes read
+   */
+  public long getReadBytes() {
+    return this.readBytes;
+  }
+
+  /**
+   * Get the number of bytes written on the storage by the task.
+   *
+   * @return the number of bytes written
+   */
+  public long getWrittenBytes() {
+    return this.writtenBytes;
+  }
+
+  /**
+   * Get the time spent by the garbage collector during the task.
+   *
+   * @return the garbage collection time in milliseconds
+   */
+  public long getGCTime() {
+    return this.gcTime;
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Merge the metrics with the metrics of another task. The times and the bytes are summed and the
+   * peak memory is the maximum of the two peak memories.
+   *
+   * @param metrics the metrics to merge
+   * @return a new TaskResourceMetrics object
+   */
+  TaskResourceMetrics merge(final TaskResourceMetrics metrics) {
+
+    if (metrics == null) {
+      return this;
+    }
+
+    return new TaskResourceMetrics(
+        sum(this.cpuTime, metrics.cpuTime),
+        Math.max(this.peakMemory, metrics.peakMemory),
+        sum(this.readBytes, metrics.readBytes),
+        sum(this.writtenBytes, metrics.writtenBytes),
+        sum(this.gcTime, metrics.gcTime));
+  }
+
+  /**
+   * Convert the metrics to a map. The resources that have not been measured are not added to the
+   * map.
+   *
+   * @return a map with the metrics
+   */
+  Map<String, Long> toMap() {
+
+    final Map<String, Long> result = new LinkedHashMap<>();
+
+    put(result, CPU_TIME_KEY, this.cpuTime);
+    put(result, PEAK_MEMORY_KEY, this.peakMemory);
+    put(result, READ_BYTES_KEY, this.readBytes);
+    put(result, WRITTEN_BYTES_KEY, this.writtenBytes);
+    put(result, GC_TIME_KEY, this.gcTime);
+
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Create a TaskResourceMetrics object from a map.
+   *
+   * @param map the map
+   * @return a new TaskResourceMetrics object
+   */
+  static TaskResourceMetrics fromMap(final Map<String, Long> map) {
+
+    return new TaskResourceMetrics(
+        map.getOrDefault(CPU_TIME_KEY, -1L),
+        map.getOrDefault(PEAK_MEMORY_KEY, -1L),
+        map.getOrDefault(READ_BYTES_KEY, -1L),
+        map.getOrDefault(WRITTEN_BYTES_KEY, -1L),
+        map.getOrDefault(GC_TIME_KEY, -1L));
+  }
+
+  private static long sum(final long a, final long b) {
+
+    if (a < 0) {
+      return b;
+    }
+
+    if (b < 0) {
+      return a;
+    }
+
+    return a + b;
+  }
+
+  private static void put(final Map<String, Long> map, final String key, final long value) {
+
+    if (value >= 0) {
+      map.put(key, value);
+    }
+  }
+
+  //
+  // Object methods
+  //
+
+  @Override
+  public String toString() {
+
+    return MoreObjects.toStringHelper(this)
+        .add("cpuTime", this.cpuTime)
+        .add("peakMemory", this.peakMemory)
+        .add("readBytes", this.readBytes)
+        .add("writtenBytes", this.writtenBytes)
+        .add("gcTime", this.gcTime)
+        .toString();
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param cpuTime CPU time in milliseconds
+   * @param peakMemory peak memory in bytes
+   * @param readBytes number of bytes read
+   * @param writtenBytes number of bytes written
+   * @param gcTime garbage collection time in milliseconds
+   */
+  TaskResourceMetrics(
+      final long cpuTime,
+      final long peakMemory,
+      final long readBytes,
+      final long writtenBytes,
+      final long gcTime) {
+
+    this.cpuTime = cpuTime;
+    this.peakMemory = peakMemory;
+    this.readBytes = readBytes;
+    this.writtenBytes = writtenBytes;
+    this.gcTime = gcTime;
+  }
+}
@@ -0,0 +1,391 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.workflow;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class define a monitor of the resources used by a task. The CPU time of the threads of the
+ * task is read using the ThreadMXBean, the other resources are read in the /proc filesystem of
+ * Linux. The memory of the JVM and of its descendant processes (e.g. the processes launched
+ * using ProcessUtils or SimpleProcess) is periodically sampled by a single daemon thread shared by
+ * all the monitors.
+ *
+ * <p>The processes of the containers started by a Docker daemon are not descendants of the JVM, so
+ * their memory and CPU time are not measured.
+ *
+ * <p>Only the CPU time of the threads is attributed to a task. The CPU time of the child
+ * processes, the bytes read and written, the garbage collection time and the memory are measured
+ * for the whole JVM. So these values are exact when only one task is executed by the JVM like on
+ * the cluster nodes. When tasks are executed concurrently in the same JVM, each task reports the
+ * combined usage of all the tasks running at the same time.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class TaskResourceMonitor {
+
+  private static final long SAMPLING_PERIOD_IN_MS = 2000;
+
+  /* The value of USER_HZ on all the Linux architectures supported by Java. */
+  private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+  private static final Path PROC_DIR = Path.of("/proc");
+  private static final Path PROC_SELF_DIR = PROC_DIR.resolve("self");
+  private static final int CUTIME_FIELD_INDEX = 13;
+  private static final int CSTIME_FIELD_INDEX = 14;
+
+  private static final Set<TaskResourceMonitor> MONITORS = ConcurrentHashMap.newKeySet();
+  private static ScheduledExecutorService sampler;
+
+  private final ThreadGroup threadGroup;
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private final Map<Long, Long> threadCPUTimes = new HashMap<>();
+  private final long startChildrenCPUTime;
+  private final long[] startIO;
+  private final long startGCTime;
+  private long peakMemory = -1;
+  private TaskResourceMetrics metrics;
+
+  //
+  // Monitor methods
+  //
+
+  /**
+   * Start the monitoring of a task.
+   *
+   * @param threadGroup the thread group of the task
+   * @return a new TaskResourceMonitor object
+   */
+  static TaskResourceMonitor start(final ThreadGroup threadGroup) {
+
+    final TaskResourceMonitor monitor = new TaskResourceMonitor(threadGroup);
+    monitor.sample(readMemory());
+
+    MONITORS.add(monitor);
+    startSampler();
+
+    return monitor;
+  }
+
+  /**
+   * Stop the monitoring of the task. The method can be called several times, the metrics are only
+   * computed on the first call.
+   *
+   * @return the resources used by the task
+   */
+  synchronized TaskResourceMetrics stop() {
+
+    if (this.metrics != null) {
+      return this.metrics;
+    }
+
+    MONITORS.remove(this);
+    sample(readMemory());
+
+    // Compute the CPU time of the threads of the task and of the child processes
+    long cpuTime = this.threadCPUTimes.isEmpty() ? -1 : 0;
+    for (long time : this.threadCPUTimes.values()) {
+      cpuTime += time;
+    }
+    cpuTime = cpuTime < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpuTime);
+
+    final long childrenCPUTime = readChildrenCPUTime();
+    if (childrenCPUTime >= 0 && this.startChildrenCPUTime >= 0) {
+      cpuTime = Math.max(cpuTime, 0) + childrenCPUTime - this.startChildrenCPUTime;
+    }
+
+    final long[] io = readIO();
+    final long gcTime = readGCTime();
+
+    this.metrics =
+        new TaskResourceMetrics(
+            cpuTime,
+            this.peakMemory,
+            delta(this.startIO[0], io[0]),
+            delta(this.startIO[1], io[1]),
+            delta(this.startGCTime, gcTime));
+
+    return this.metrics;
+  }
+
+  /**
+   * Sample the resources of the task.
+   *
+   * @param memory the memory used by the JVM and its child processes
+   */
+  private synchronized void sample(final long memory) {
+
+    if (this.metrics != null) {
+      return;
+    }
+
+    this.peakMemory = Math.max(this.peakMemory, memory);
+
+    if (!this.threadBean.isThreadCpuTimeSupported()) {
+      return;
+    }
+
+    // Keep the last CPU time of each thread as the time of a dead thread cannot be read
+    final Thread[] threads = new Thread[this.threadGroup.activeCount() * 2 + 1];
+    final int count = this.threadGroup.enumerate(threads, true);
+
+    for (int i = 0; i < count; i++) {
+
+      final long id = threads[i].getId();
+      final long time = this.threadBean.getThreadCpuTime(id);
+
+      if (time >= 0) {
+        this.threadCPUTimes.put(id, time);
+      }
+    }
+  }
+
+  //
+  // Sampler methods
+  //
+
+  /** Start the sampler thread if it does not exist. */
+  private static synchronized void startSampler() {
+
+    if (sampler != null) {
+      return;
+    }
+
+    sampler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread t = new Thread(r, "TaskResourceMonitor");
+              t.setDaemon(true);
+              return t;
+            });
+
+    sampler.scheduleWithFixedDelay(
+        TaskResourceMonitor::sampleAll,
+        SAMPLING_PERIOD_IN_MS,
+        SAMPLING_PERIOD_IN_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** Sample the resources of all the running tasks. */
+  private static void sampleAll() {
+
+    // Do nothing if no task is running
+    if (MONITORS.isEmpty()) {
+      return;
+    }
+
+    try {
+
+      final long memory = readMemory();
+      for (TaskResourceMonitor monitor : MONITORS) {
+        monitor.sample(memory);
+      }
+
+    } catch (RuntimeException e) {
+      getLogger().warning("Error while sampling the resources of the tasks: " + e.getMessage());
+    }
+  }
+
+  //
+  // Read methods
+  //
+
+  /**
+   * Read the resident memory used by the JVM and its child processes.
+   *
+   * @return the resident memory in bytes or -1 if the memory cannot be read
+   */
+  private static long readMemory() {
+
+    final long jvmMemory = readResidentMemory(PROC_SELF_DIR);
+
+    if (jvmMemory < 0) {
+      return -1;
+    }
+
+    return jvmMemory
+        + ProcessHandle.current()
+            .descendants()
+            .mapToLong(p -> Math.max(0, readResidentMemory(PROC_DIR.resolve("" + p.pid()))))
+            .sum();
+  }
+
+  /**
+   * Read the resident memory of a process.
+   *
+   * @param processDir the /proc directory of the process
+   * @return the resident memory in bytes or -1 if the memory cannot be read
+   */
+  private static long readResidentMemory(final Path processDir) {
+
+    final Map<String, Long> status = readKeyValueFile(processDir.resolve("status"));
+
+    return status.containsKey("VmRSS") ? status.get("VmRSS") * 1024 : -1;
+  }
+
+  /**
+   * Read the CPU time of the terminated child processes of the JVM.
+   *
+   * @return the CPU time in milliseconds or -1 if the CPU time cannot be read
+   */
+  private static long readChildrenCPUTime() {
+
+    try {
+
+      final String stat =
+          Files.readString(PROC_SELF_DIR.resolve("stat"), StandardCharsets.ISO_8859_1);
+
+      // The name of the command may contain spaces, skip it
+      final List<String> fields =
+          Splitter.on(CharMatcher.whitespace())
+              .omitEmptyStrings()
+              .splitToList(stat.substring(stat.lastIndexOf(')') + 1).trim());
+
+      final long ticks =
+          Long.parseLong(fields.get(CUTIME_FIELD_INDEX))
+              + Long.parseLong(fields.get(CSTIME_FIELD_INDEX));
+
+      return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+
+    } catch (IOException | RuntimeException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Read the number of bytes read and written on the storage by the JVM and its terminated child
+   * processes.
+   *
+   * @return an array with the number of bytes read and written, values are -1 if they cannot be
+   *     read
+   */
+  private static long[] readIO() {
+
+    final Map<String, Long> io = readKeyValueFile(PROC_SELF_DIR.resolve("io"));
+
+    return new long[] {io.getOrDefault("read_bytes", -1L), io.getOrDefault("write_bytes", -1L)};
+  }
+
+  /**
+   * Read the time spent by the garbage collectors of the JVM.
+   *
+   * @return the garbage collection time in milliseconds or -1 if the time cannot be read
+   */
+  private static long readGCTime() {
+
+    long result = -1;
+
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+
+      final long time = bean.getCollectionTime();
+      if (time >= 0) {
+        result = Math.max(result, 0) + time;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Read a /proc file with "key: value" lines. Only the first number of the values is kept.
+   *
+   * @param file the file to read
+   * @return a map with the content of the file or an empty map if the file cannot be read
+   */
+  private static Map<String, Long> readKeyValueFile(final Path file) {
+
+    final Map<String, Long> result = new HashMap<>();
+
+    try {
+
+      for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+
+        final int pos = line.indexOf(':');
+        if (pos == -1) {
+          continue;
+        }
+
+        final List<String> values =
+            Splitter.on(CharMatcher.whitespace())
+                .omitEmptyStrings()
+                .splitToList(line.substring(pos + 1));
+
+        if (!values.isEmpty()) {
+          try {
+            result.put(line.substring(0, pos).trim(), Long.parseLong(values.get(0)));
+          } catch (NumberFormatException e) {
+            // Ignore non numeric values
+          }
+        }
+      }
+
+    } catch (IOException e) {
+      // The file does not exist on non Linux systems or the process has terminated
+    }
+
+    return result;
+  }
+
+  private static long delta(final long start, final long end) {
+
+    return start < 0 || end < 0 ? -1 : end - start;
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Private constructor.
+   *
+   * @param threadGroup the thread group of the task
+   */
+  private TaskResourceMonitor(final ThreadGroup threadGroup) {
+
+    this.threadGroup = threadGroup;
+    this.startChildrenCPUTime = readChildrenCPUTime();
+    this.startIO = readIO();
+    this.startGCTime = readGCTime();
+  }
+}
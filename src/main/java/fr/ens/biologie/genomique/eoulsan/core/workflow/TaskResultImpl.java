@@ -67,6 +67,7 @@ public class TaskResultImpl implements TaskResult, Serializable {
   private final String taskDescription;
   private final String taskCommandLine;
   private final String taskDockerImage;
+  private TaskResourceMetrics resourceMetrics;
 
   TaskContextImpl getContext() {
     return this.context;
@@ -100,6 +101,14 @@ public class TaskResultImpl implements TaskResult, Serializable {
     return this.taskMessage;
   }
 
+  TaskResourceMetrics getResourceMetrics() {
+    return this.resourceMetrics;
+  }
+
+  void setResourceMetrics(final TaskResourceMetrics resourceMetrics) {
+    this.resourceMetrics = resourceMetrics;
+  }
+
   @Override
   public long getDuration() {
     return this.duration;
@@ -69,6 +69,7 @@ public class TaskRunner {
   private final Module module;
   private final TaskStatusImpl status;
   private volatile TaskResult result;
+  private volatile TaskResourceMonitor resourceMonitor;
   private boolean isTokensSent;
   private boolean forceStepInstanceReuse;
 
@@ -209,6 +210,12 @@ public class TaskRunner {
 
             getLogger().info("End of task #" + TaskRunner.this.context.getId());
             getLogger().info("Duration: " + toTimeHumanReadable(duration));
+
+            // Log the resources used by the task
+            if (TaskRunner.this.resourceMonitor != null) {
+              getLogger().info("Resources: " + TaskRunner.this.resourceMonitor.stop().toMap());
+            }
+
             getLogger().info("Result: " + (success ? "Success" : "Fail"));
 
             if (!success) {
@@ -241,12 +248,23 @@ public class TaskRunner {
           }
         };
 
+    // Stage the files of the task on the node-local scratch directory if required
+    final TaskStaging staging = createStaging();
+    if (staging != null) {
+      staging.register(threadGroup);
+    }
+
     // Set the progress of the task to 0%
     this.status.setProgress(0);
 
     // Start the time watch
     this.status.durationStart();
 
+    // Start the monitoring of the resources used by the task
+    if (this.context.getSettings().isTaskMetricsEnabled()) {
+      this.resourceMonitor = TaskResourceMonitor.start(threadGroup);
+    }
+
     try {
 
       // Create thread, reuse the thread group name as thread name
@@ -272,6 +290,11 @@ public class TaskRunner {
 
     } finally {
 
+      // Stop the monitoring of the resources if the task has been interrupted
+      if (this.resourceMonitor != null) {
+        this.resourceMonitor.stop();
+      }
+
       if (logger != null) {
 
         Handler[] handlers = logger.getHandlers();
@@ -304,12 +327,74 @@ public class TaskRunner {
                       + " has not generate a result object"));
     }
 
+    // Copy back the output files of the task in the step output directory
+    if (staging != null) {
+      try {
+        staging.unstage(this.result.isSuccess());
+      } catch (IOException e) {
+        getLogger().severe("Error while copying back the staged files: " + e.getMessage());
+        this.result = this.status.createTaskResult(e);
+      } finally {
+        TaskStaging.unregister(threadGroup);
+        this.context.setStaging(null);
+        staging.cleanup();
+      }
+    }
+
+    // Set the resources used by the task
+    if (this.resourceMonitor != null) {
+      ((TaskResultImpl) this.result).setResourceMetrics(this.resourceMonitor.stop());
+    }
+
     // Send the tokens
     sendTokens();
 
     return (TaskResultImpl) this.result;
   }
 
+  /**
+   * Create the staging of the files of the task and copy its input files on the node-local scratch
+   * directory.
+   *
+   * @return the staging of the task or null if the files of the task are not staged
+   */
+  private TaskStaging createStaging() {
+
+    TaskStaging staging = null;
+
+    try {
+
+      staging = TaskStaging.newTaskStaging(this.context, this.module);
+
+      if (staging != null) {
+        staging.stageInputs();
+        this.context.setStaging(staging);
+      }
+
+      return staging;
+
+    } catch (IOException e) {
+
+      getLogger()
+          .warning(
+              "Cannot stage the files of task #"
+                  + this.context.getId()
+                  + ", use the shared files: "
+                  + e.getMessage());
+
+      if (staging != null) {
+        try {
+          staging.unstage(false);
+        } catch (IOException e2) {
+          getLogger().warning("Cannot restore the input files: " + e2.getMessage());
+        }
+        staging.cleanup();
+      }
+
+      return null;
+    }
+  }
+
   /** Send token. */
   private void sendTokens() {
 
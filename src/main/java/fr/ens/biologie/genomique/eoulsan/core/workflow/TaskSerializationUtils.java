@@ -136,8 +136,10 @@ public class TaskSerializationUtils {
     // created
     runner.setForceStepInstanceReuse(true);
 
-    // Initialize scheduler
-    TaskSchedulerFactory.initialize();
+    // Initialize scheduler, a pilot job executes several tasks in the same JVM
+    if (!TaskSchedulerFactory.isInitialized()) {
+      TaskSchedulerFactory.initialize();
+    }
 
     // Get the result
     return runner.run();
@@ -0,0 +1,442 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.workflow;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static fr.ens.biologie.genomique.eoulsan.annotations.EoulsanAnnotationUtils.isStreamingAccess;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.AbstractEoulsanRuntime.EoulsanExecMode;
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import fr.ens.biologie.genomique.eoulsan.Settings;
+import fr.ens.biologie.genomique.eoulsan.core.Module;
+import fr.ens.biologie.genomique.eoulsan.data.Data;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * This class define the staging of the files of a task on a node-local scratch directory. The input
+ * files of the task are copied in the scratch directory before the execution of the task, the
+ * output files are created in the scratch directory and copied back atomically in the step output
+ * directory at the end of the task.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class TaskStaging {
+
+  private static final Map<String, TaskStaging> threadGroupStagings = new ConcurrentHashMap<>();
+
+  private final TaskContextImpl context;
+  private final Path taskDir;
+  private final Path inputDir;
+  private final Path outputDir;
+  private final Path tempDir;
+  private final long maxInputSize;
+
+  private final Map<Data, List<DataFile>> stagedInputs = new IdentityHashMap<>();
+  private final Map<DataFile, DataFile> stagedOutputs = new ConcurrentHashMap<>();
+  private int inputCount;
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the temporary directory of the task.
+   *
+   * @return the temporary directory of the task
+   */
+  File getTempDirectory() {
+
+    return this.tempDir.toFile();
+  }
+
+  //
+  // Staging methods
+  //
+
+  /**
+   * Copy the input files of the task in the scratch directory and update the input data of the
+   * task.
+   *
+   * @throws IOException if an error occurs while copying the input files
+   */
+  void stageInputs() throws IOException {
+
+    for (String portName : this.context.getCurrentStep().getInputPorts().getPortNames()) {
+
+      final Data data = ((UnmodifiableData) this.context.getInputData(portName)).getData();
+
+      for (Data e : data.getListElements()) {
+
+        final List<DataFile> files = WorkflowDataUtils.getDataFiles(e);
+        final List<DataFile> localFiles = new ArrayList<>();
+        boolean staged = false;
+
+        for (DataFile file : files) {
+
+          final DataFile localFile = stageInput(file);
+          localFiles.add(localFile);
+          staged |= localFile != file;
+        }
+
+        if (staged) {
+          this.stagedInputs.put(e, files);
+          WorkflowDataUtils.setDataFiles(e, localFiles);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copy an input file in the scratch directory.
+   *
+   * @param file the file to copy
+   * @return the local copy of the file or the original file if the file has not been staged
+   * @throws IOException if an error occurs while copying the file
+   */
+  private DataFile stageInput(final DataFile file) throws IOException {
+
+    if (!file.isLocalFile()) {
+      return file;
+    }
+
+    final Path path = file.toPath();
+
+    // Large files and directories are not staged
+    if (!Files.isRegularFile(path) || Files.size(path) > this.maxInputSize) {
+      return file;
+    }
+
+    // Keep the original filename as modules may rely on its extension
+    final Path localPath =
+        Files.createDirectories(this.inputDir.resolve(Integer.toString(this.inputCount++)))
+            .resolve(path.getFileName().toString());
+
+    Files.copy(path, localPath);
+
+    getLogger().fine("Stage input file " + file + " in " + localPath);
+
+    return new DataFile(localPath);
+  }
+
+  /**
+   * Get the file to use for an output file of the task. This method is called by the file naming
+   * of the output data.
+   *
+   * @param port the output port
+   * @param file the file in the step output directory
+   * @return the file to use
+   */
+  DataFile outputFile(final StepOutputPort port, final DataFile file) {
+
+    if (port.getStep() != this.context.getWorkflowStep() || !file.isLocalFile()) {
+      return file;
+    }
+
+    final DataFile localFile = new DataFile(this.outputDir.resolve(file.getName()));
+    this.stagedOutputs.put(localFile, file);
+
+    return localFile;
+  }
+
+  /**
+   * Copy back the output files of the task in the step output directory and restore the data of
+   * the task.
+   *
+   * @param success true if the task has been successful
+   * @throws IOException if an error occurs while copying the output files
+   */
+  void unstage(final boolean success) throws IOException {
+
+    // Restore input data
+    for (Map.Entry<Data, List<DataFile>> e : this.stagedInputs.entrySet()) {
+      WorkflowDataUtils.setDataFiles(e.getKey(), e.getValue());
+    }
+
+    // Copy back output files and restore output data
+    for (String portName : this.context.getCurrentStep().getOutputPorts().getPortNames()) {
+
+      final Data data =
+          this.context.getOutputData(
+              this.context.getWorkflowStep().getWorkflowOutputPorts().getPort(portName));
+
+      for (Data e : data.getListElements()) {
+
+        final List<DataFile> files = new ArrayList<>();
+        boolean staged = false;
+
+        for (DataFile file : WorkflowDataUtils.getDataFiles(e)) {
+
+          final DataFile finalFile = this.stagedOutputs.get(file);
+
+          if (finalFile == null) {
+            files.add(file);
+          } else {
+            if (success) {
+              unstageOutput(file.toPath(), finalFile.toPath());
+            }
+            files.add(finalFile);
+            staged = true;
+          }
+        }
+
+        if (staged) {
+          WorkflowDataUtils.setDataFiles(e, files);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copy back an output file in the step output directory. The file is first copied in a
+   * temporary file of the output directory and then renamed, so an output file is never visible
+   * partially written. An existing output directory (e.g. written by a previous attempt of the
+   * task) is moved aside before the renaming and removed after.
+   *
+   * @param localPath the local file
+   * @param finalPath the final file
+   * @throws IOException if an error occurs while copying the file
+   */
+  static void unstageOutput(final Path localPath, final Path finalPath) throws IOException {
+
+    if (!Files.exists(localPath)) {
+      return;
+    }
+
+    final Path tmpPath = finalPath.resolveSibling("." + finalPath.getFileName() + ".staging.tmp");
+    final Path oldPath = finalPath.resolveSibling("." + finalPath.getFileName() + ".staging.old");
+
+    // Remove the files of a previous failed copy
+    deleteRecursively(tmpPath);
+
+    boolean movedAside = false;
+
+    try {
+
+      if (Files.isDirectory(localPath)) {
+        copyDirectory(localPath, tmpPath);
+      } else {
+        Files.copy(localPath, tmpPath);
+      }
+
+      // A non-empty directory cannot be replaced by a rename
+      if (Files.isDirectory(finalPath, LinkOption.NOFOLLOW_LINKS)) {
+        deleteRecursively(oldPath);
+        Files.move(finalPath, oldPath, StandardCopyOption.ATOMIC_MOVE);
+        movedAside = true;
+      }
+
+      Files.move(tmpPath, finalPath, StandardCopyOption.ATOMIC_MOVE);
+
+    } catch (IOException | RuntimeException e) {
+
+      try {
+        deleteRecursively(tmpPath);
+
+        // Restore the previous output
+        if (movedAside && !Files.exists(finalPath, LinkOption.NOFOLLOW_LINKS)) {
+          Files.move(oldPath, finalPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+
+      throw e;
+    }
+
+    if (movedAside) {
+      deleteRecursively(oldPath);
+    }
+
+    getLogger().fine("Unstage output file " + localPath + " in " + finalPath);
+  }
+
+  private static void copyDirectory(final Path source, final Path target) throws IOException {
+
+    try (Stream<Path> stream = Files.walk(source)) {
+      for (Path p : (Iterable<Path>) stream::iterator) {
+        final Path dest = target.resolve(source.relativize(p).toString());
+        if (Files.isDirectory(p)) {
+          Files.createDirectories(dest);
+        } else {
+          Files.copy(p, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove a file or a directory and its content if exists. Symbolic links are not followed.
+   *
+   * @param path the path to remove
+   * @throws IOException if an error occurs while removing the path
+   */
+  private static void deleteRecursively(final Path path) throws IOException {
+
+    if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+      return;
+    }
+
+    try (Stream<Path> stream = Files.walk(path)) {
+      for (Path p : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(p);
+      }
+    }
+  }
+
+  /** Remove the scratch directory of the task. */
+  void cleanup() {
+
+    try (Stream<Path> stream = Files.walk(this.taskDir)) {
+      stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    } catch (IOException e) {
+      getLogger()
+          .warning("Cannot remove the staging directory " + this.taskDir + ": " + e.getMessage());
+    }
+  }
+
+  //
+  // Thread group registration
+  //
+
+  /**
+   * Register the staging for the threads of a thread group.
+   *
+   * @param threadGroup the thread group
+   */
+  void register(final ThreadGroup threadGroup) {
+
+    threadGroupStagings.put(threadGroup.getName(), this);
+  }
+
+  /**
+   * Remove the staging of a thread group.
+   *
+   * @param threadGroup the thread group
+   */
+  static void unregister(final ThreadGroup threadGroup) {
+
+    threadGroupStagings.remove(threadGroup.getName());
+  }
+
+  /**
+   * Get the staging of the current thread.
+   *
+   * @return the staging of the current thread or null if the files of the current task are not
+   *     staged
+   */
+  static TaskStaging current() {
+
+    if (threadGroupStagings.isEmpty()) {
+      return null;
+    }
+
+    ThreadGroup tg = Thread.currentThread().getThreadGroup();
+    while (tg != null) {
+
+      final TaskStaging staging = threadGroupStagings.get(tg.getName());
+      if (staging != null) {
+        return staging;
+      }
+
+      tg = tg.getParent();
+    }
+
+    return null;
+  }
+
+  //
+  // Static methods
+  //
+
+  /**
+   * Create a staging for a task if required. Only the tasks of the cluster mode are staged.
+   *
+   * @param context the context of the task
+   * @param module the module of the task
+   * @return a new TaskStaging object or null if the files of the task must not be staged
+   * @throws IOException if an error occurs while creating the staging directory
+   */
+  static TaskStaging newTaskStaging(final TaskContextImpl context, final Module module)
+      throws IOException {
+
+    requireNonNull(context, "context argument cannot be null");
+    requireNonNull(module, "module argument cannot be null");
+
+    final Settings settings = context.getSettings();
+    final String stagingPath = settings.getTaskStagingPath();
+
+    if (stagingPath == null
+        || stagingPath.trim().isEmpty()
+        || EoulsanRuntime.getRuntime().getMode() != EoulsanExecMode.CLUSTER_TASK
+        || isStreamingAccess(module)) {
+      return null;
+    }
+
+    final Path root = Files.createDirectories(Paths.get(stagingPath.trim()));
+    final Path taskDir =
+        Files.createTempDirectory(root, "eoulsan-" + context.getTaskFilePrefix() + "-");
+
+    return new TaskStaging(context, taskDir, settings.getTaskStagingMaxInputSize() * 1024 * 1024);
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Private constructor.
+   *
+   * @param context the context of the task
+   * @param taskDir the scratch directory of the task
+   * @param maxInputSize the maximal size of an input file to stage
+   * @throws IOException if an error occurs while creating the scratch directories
+   */
+  private TaskStaging(final TaskContextImpl context, final Path taskDir, final long maxInputSize)
+      throws IOException {
+
+    this.context = context;
+    this.taskDir = taskDir;
+    this.inputDir = Files.createDirectories(taskDir.resolve("input"));
+    this.outputDir = Files.createDirectories(taskDir.resolve("output"));
+    this.tempDir = Files.createDirectories(taskDir.resolve("tmp"));
+    this.maxInputSize = maxInputSize;
+  }
+}
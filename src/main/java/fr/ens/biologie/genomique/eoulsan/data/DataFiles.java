@@ -27,6 +27,7 @@ package fr.ens.biologie.genomique.eoulsan.data;
 import static java.util.Objects.requireNonNull;
 
 import fr.ens.biologie.genomique.eoulsan.data.protocols.DataProtocol;
+import fr.ens.biologie.genomique.eoulsan.io.ParallelCompressionCodecs;
 import fr.ens.biologie.genomique.kenetre.io.FileUtils;
 import java.io.IOException;
 
@@ -56,7 +57,10 @@ public class DataFiles {
     if (input.getCompressionType() == output.getCompressionType()) {
       rawCopy(input, output);
     } else {
-      FileUtils.copy(input.open(), output.create());
+      FileUtils.copy(
+          input.open(),
+          ParallelCompressionCodecs.createOutputStream(
+              output.getCompressionType(), output.rawCreate()));
     }
   }
 
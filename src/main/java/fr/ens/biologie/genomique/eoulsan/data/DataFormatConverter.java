@@ -26,6 +26,7 @@ package fr.ens.biologie.genomique.eoulsan.data;
 
 import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
 
+import fr.ens.biologie.genomique.eoulsan.io.ParallelCompressionCodecs;
 import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
 import fr.ens.biologie.genomique.kenetre.bio.ReadSequence;
 import fr.ens.biologie.genomique.kenetre.bio.io.FastqReader;
@@ -97,12 +98,13 @@ public class DataFormatConverter {
       return;
     }
 
-    final OutputStream destOs = this.os == null ? this.outFile.create() : this.os;
+    // The output is compressed in parallel by the converter
+    final OutputStream destOs = this.os == null ? this.outFile.rawCreate() : this.os;
 
     if (this.inFormat.equals(this.outFormat)) {
 
       final InputStream is = this.inFile.open();
-      final OutputStream os = destCT.createOutputStream(destOs);
+      final OutputStream os = ParallelCompressionCodecs.createOutputStream(destCT, destOs);
 
       FileUtils.copy(is, os);
       return;
@@ -119,7 +121,7 @@ public class DataFormatConverter {
         reader = new TFQReader(this.inFile.open());
       }
 
-      final OutputStream os = destCT.createOutputStream(destOs);
+      final OutputStream os = ParallelCompressionCodecs.createOutputStream(destCT, destOs);
 
       final ReadSequenceWriter writer;
 
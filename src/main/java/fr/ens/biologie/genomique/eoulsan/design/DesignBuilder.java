@@ -33,17 +33,17 @@ import static java.util.regex.Pattern.compile;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import fr.ens.biologie.genomique.eoulsan.Settings;
 import fr.ens.biologie.genomique.eoulsan.core.Naming;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFileMetadata;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormatRegistry;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
+import fr.ens.biologie.genomique.eoulsan.design.FastqProbeCache.FastqProbe;
 import fr.ens.biologie.genomique.kenetre.KenetreException;
-import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
 import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
 import fr.ens.biologie.genomique.kenetre.bio.IlluminaReadId;
-import fr.ens.biologie.genomique.kenetre.bio.io.FastqReader;
 import fr.ens.biologie.genomique.kenetre.illumina.samplesheet.SampleSheet;
 import fr.ens.biologie.genomique.kenetre.illumina.samplesheet.io.SampleSheetCSVReader;
 import fr.ens.biologie.genomique.kenetre.util.StringUtils;
@@ -84,6 +84,7 @@ public class DesignBuilder {
   private DataFile gffFile;
   private DataFile gtfFile;
   private DataFile additionalAnnotationFile;
+  private FastqProbeCache probeCache;
 
   /**
    * This class define a exception thrown when a fastq file is empty.
@@ -121,6 +122,7 @@ public class DesignBuilder {
     private final String sampleOperator;
     private final String sampleDate;
     private final String firstReadId;
+    private final FastqFormat format;
     private final String prefix;
     private final int pairMember;
 
@@ -146,29 +148,18 @@ public class DesignBuilder {
      * Get the identifier of the first read of a fastq file.
      *
      * @param f the input file
+     * @param probe the result of the probe of the file
      * @return the identifier of the first read of a fastq file as a string
-     * @throws EoulsanException if an error occurs while reading the file or if the read format is
-     *     invalid
+     * @throws EoulsanException if the file is empty
      */
-    private static String getFirstReadSeqId(final DataFile f) throws EoulsanException {
-
-      final FastqReader reader;
-      try {
-        reader = new FastqReader(f.open());
-
-        if (!reader.hasNext()) {
-          reader.close();
-          reader.throwException();
-          throw new EmptyFastqException("Fastq file is empty: " + f.getSource());
-        }
-
-        reader.close();
-        reader.throwException();
+    private static String getFirstReadSeqId(final DataFile f, final FastqProbe probe)
+        throws EoulsanException {
 
-        return reader.next().getName();
-      } catch (IOException | BadBioEntryException e) {
-        throw new EoulsanException(e);
+      if (probe.getFirstReadId() == null) {
+        throw new EmptyFastqException("Fastq file is empty: " + f.getSource());
       }
+
+      return probe.getFirstReadId();
     }
 
     private Object[] initPairedEnd() {
@@ -276,7 +267,7 @@ public class DesignBuilder {
     // Constructors
     //
 
-    public FastqEntry(final DataFile path) throws EoulsanException {
+    public FastqEntry(final DataFile path, final FastqProbe probe) throws EoulsanException {
 
       this.path = path;
       this.sampleName = defineSampleName(path);
@@ -284,7 +275,8 @@ public class DesignBuilder {
       this.sampleDesc = null;
       this.sampleOperator = null;
       this.sampleDate = getDate(path);
-      this.firstReadId = getFirstReadSeqId(path);
+      this.firstReadId = getFirstReadSeqId(path, probe);
+      this.format = probe.getFormat();
       final Object[] array = initPairedEnd();
       this.prefix = (String) array[0];
       this.pairMember = (Integer) array[1];
@@ -295,7 +287,8 @@ public class DesignBuilder {
         final String sampleId,
         final String sampleName,
         final String sampleDesc,
-        final String sampleOperator)
+        final String sampleOperator,
+        final FastqProbe probe)
         throws EoulsanException {
 
       this.path = path;
@@ -304,7 +297,8 @@ public class DesignBuilder {
       this.sampleDesc = sampleDesc;
       this.sampleOperator = sampleOperator;
       this.sampleDate = getDate(path);
-      this.firstReadId = getFirstReadSeqId(path);
+      this.firstReadId = getFirstReadSeqId(path, probe);
+      this.format = probe.getFormat();
       final Object[] array = initPairedEnd();
       this.prefix = (String) array[0];
       this.pairMember = (Integer) array[1];
@@ -342,7 +336,7 @@ public class DesignBuilder {
       final FastqEntry entry;
 
       try {
-        entry = new FastqEntry(file);
+        entry = new FastqEntry(file, getProbeCache().probe(file));
       } catch (EmptyFastqException e) {
         getLogger().warning(e.getMessage());
         return;
@@ -412,9 +406,7 @@ public class DesignBuilder {
       return;
     }
 
-    for (String filename : filenames) {
-      addFile(filename);
-    }
+    addFiles(Arrays.asList(filenames));
   }
 
   /**
@@ -429,9 +421,20 @@ public class DesignBuilder {
       return;
     }
 
+    // Probe concurrently the FASTQ files before adding them in the order of the list
+    final List<DataFile> files = new ArrayList<>();
+    for (String filename : filenames) {
+      if (filename != null) {
+        files.add(new DataFile(filename));
+      }
+    }
+    prefetchFastqFiles(files);
+
     for (String filename : filenames) {
       addFile(filename);
     }
+
+    getProbeCache().save();
   }
 
   /**
@@ -473,13 +476,14 @@ public class DesignBuilder {
     final boolean Bcl2Fastq1 =
         Files.isDirectory(Path.of(bcl2fastqOutputDir.toString() + "/Project_" + projectName));
 
+    final List<Map.Entry<fr.ens.biologie.genomique.kenetre.illumina.samplesheet.Sample, File[]>>
+        sampleFiles = new ArrayList<>();
+
     for (fr.ens.biologie.genomique.kenetre.illumina.samplesheet.Sample sample : samplesheet) {
 
       final String sampleProject = sample.getSampleProject();
       final String sampleId = sample.getSampleId();
       final String sampleName = sample.getSampleName();
-      final String sampleDesc = sample.getDescription();
-      final String sampleOperator = sample.get("Operator");
       final int sampleLane = sample.getLane();
 
       // Check if sample id field exist for sample
@@ -541,10 +545,30 @@ public class DesignBuilder {
       // Sort the list of input FASTQ files
       Arrays.sort(files);
 
-      for (File fastqFile : files) {
+      sampleFiles.add(Map.entry(sample, files));
+    }
+
+    // Probe concurrently all the FASTQ files before adding them
+    final List<DataFile> filesToProbe = new ArrayList<>();
+    for (Map.Entry<?, File[]> e : sampleFiles) {
+      for (File f : e.getValue()) {
+        filesToProbe.add(new DataFile(f));
+      }
+    }
+    prefetchFastqFiles(filesToProbe);
+
+    for (Map.Entry<fr.ens.biologie.genomique.kenetre.illumina.samplesheet.Sample, File[]> e :
+        sampleFiles) {
+
+      final fr.ens.biologie.genomique.kenetre.illumina.samplesheet.Sample sample = e.getKey();
+      final String sampleId = sample.getSampleId();
+      final String sampleName = sample.getSampleName();
+      final String samplePrefix = sampleName == null ? sampleId : sampleName;
+      final String normalizedSampleId = Naming.toValidName(sampleId);
+
+      for (File fastqFile : e.getValue()) {
 
         final List<FastqEntry> list;
-        final String normalizedSampleId = Naming.toValidName(sampleId);
 
         if (this.fastqMap.containsKey(normalizedSampleId)) {
           list = this.fastqMap.get(normalizedSampleId);
@@ -553,19 +577,24 @@ public class DesignBuilder {
           this.fastqMap.put(normalizedSampleId, list);
         }
 
+        final DataFile file = new DataFile(fastqFile);
+
         try {
           list.add(
               new FastqEntry(
-                  new DataFile(fastqFile),
+                  file,
                   normalizedSampleId,
                   samplePrefix,
-                  sampleDesc,
-                  sampleOperator));
-        } catch (EmptyFastqException e) {
-          getLogger().warning(e.getMessage());
+                  sample.getDescription(),
+                  sample.get("Operator"),
+                  getProbeCache().probe(file)));
+        } catch (EmptyFastqException ex) {
+          getLogger().warning(ex.getMessage());
         }
       }
     }
+
+    getProbeCache().save();
   }
 
   /**
@@ -660,6 +689,9 @@ public class DesignBuilder {
 
     final FastqFormat defaultFastqFormat = EoulsanRuntime.getSettings().getDefaultFastqFormat();
 
+    // Save the results of the probes of the fastq files
+    getProbeCache().save();
+
     for (Map.Entry<String, List<FastqEntry>> e : this.fastqMap.entrySet()) {
 
       final String sampleId = e.getKey();
@@ -697,7 +729,7 @@ public class DesignBuilder {
               operator,
               defaultFastqFormat,
               filenames,
-              fes.get(0).path);
+              fes.get(0).format);
           count++;
 
         } else {
@@ -719,7 +751,7 @@ public class DesignBuilder {
                 operator,
                 defaultFastqFormat,
                 Collections.singletonList(fe.path.getSource()),
-                fe.path);
+                fe.format);
             count++;
           }
         }
@@ -741,7 +773,7 @@ public class DesignBuilder {
    * @param operator operator for the sample
    * @param defaultFastqFormat default fastq format
    * @param filenames list of the fastq files for the sample
-   * @param fileToCheck DataFile of the file to use to check fastq format
+   * @param format the fastq format identified in the fastq files of the sample, can be null
    * @throws EoulsanException if an error occurs while adding the sample
    */
   private void addSample(
@@ -754,7 +786,7 @@ public class DesignBuilder {
       final String operator,
       final FastqFormat defaultFastqFormat,
       final List<String> filenames,
-      final DataFile fileToCheck)
+      final FastqFormat format)
       throws EoulsanException {
 
     if (design == null) {
@@ -812,15 +844,7 @@ public class DesignBuilder {
       design.getMetadata().setAdditionalAnnotationFile(this.additionalAnnotationFile.toString());
     }
 
-    // Identify Fastq format
-    FastqFormat format = null;
-
-    try {
-      getLogger().info("Check fastq format for " + fileToCheck);
-      format = FastqFormat.identifyFormat(fileToCheck.open(), MAX_FASTQ_ENTRIES_TO_READ);
-    } catch (IOException | BadBioEntryException e) {
-      throw new EoulsanException(e);
-    }
+    // Set the fastq format identified when the fastq files have been probed
     smd.setFastqFormat(format == null ? defaultFastqFormat : format);
 
     // Set replicate technical group
@@ -927,6 +951,50 @@ public class DesignBuilder {
     return result;
   }
 
+  /**
+   * Get the cache of the probes of the fastq files.
+   *
+   * @return the FastqProbeCache object
+   */
+  private FastqProbeCache getProbeCache() {
+
+    if (this.probeCache == null) {
+
+      final Settings settings = EoulsanRuntime.getSettings();
+      final String cacheFile = settings.getDesignFastqProbeCacheFile();
+
+      this.probeCache =
+          new FastqProbeCache(
+              cacheFile == null ? null : Path.of(cacheFile),
+              MAX_FASTQ_ENTRIES_TO_READ,
+              settings.getDesignFastqProbeMaxSize() * 1024,
+              settings.getDesignFastqProbeThreads());
+    }
+
+    return this.probeCache;
+  }
+
+  /**
+   * Probe concurrently the fastq files of a list of files.
+   *
+   * @param files the files
+   */
+  private void prefetchFastqFiles(final List<DataFile> files) {
+
+    final List<DataFile> fastqFiles = new ArrayList<>();
+
+    for (DataFile file : files) {
+
+      final String extension = StringUtils.extensionWithoutCompressionExtension(file.getName());
+
+      if (isDataFormatExtension(DataFormats.READS_FASTQ, extension, null)) {
+        fastqFiles.add(file);
+      }
+    }
+
+    getProbeCache().prefetch(fastqFiles);
+  }
+
   /**
    * Parse the sample name from its filename.
    *
@@ -0,0 +1,406 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.design;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.ByteStreams;
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.data.DataFileMetadata;
+import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
+import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
+import fr.ens.biologie.genomique.kenetre.bio.io.FastqReader;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class define a cache for the probes of the FASTQ files used to create a design. A probe
+ * reads the beginning of a FASTQ file to get the identifier of its first read and its FASTQ format.
+ * The probes of several files can be launched concurrently and the results are kept in memory and
+ * in an optional cache file. The size and the modification date of the files are part of the key
+ * of the cache, so a modified file is probed again.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class FastqProbeCache {
+
+  private static final char SEPARATOR = '\t';
+  private static final Splitter TAB_SPLITTER = Splitter.on(SEPARATOR);
+
+  private final Map<String, FastqProbe> probes = new ConcurrentHashMap<>();
+  private final Path cacheFile;
+  private final int maxEntries;
+  private final long maxBytes;
+  private final int threads;
+  private final AtomicBoolean modified = new AtomicBoolean();
+
+  /** This class define the result of the probe of a FASTQ file. */
+  static final class FastqProbe {
+
+    private final String firstReadId;
+    private final FastqFormat format;
+
+    /**
+     * Get the identifier of the first read of the file.
+     *
+     * @return the identifier of the first read or null if the file is empty
+     */
+    String getFirstReadId() {
+      return this.firstReadId;
+    }
+
+    /**
+     * Get the format of the file.
+     *
+     * @return the FASTQ format of the file or null if the format cannot be identified
+     */
+    FastqFormat getFormat() {
+      return this.format;
+    }
+
+    private FastqProbe(final String firstReadId, final FastqFormat format) {
+
+      this.firstReadId = firstReadId;
+      this.format = format;
+    }
+  }
+
+  //
+  // Probe methods
+  //
+
+  /**
+   * Probe a FASTQ file. If the file has been already probed and has not been modified since, the
+   * result of the previous probe is returned.
+   *
+   * @param file the file to probe
+   * @return a FastqProbe object
+   * @throws EoulsanException if an error occurs while reading the file
+   */
+  FastqProbe probe(final DataFile file) throws EoulsanException {
+
+    requireNonNull(file, "file argument cannot be null");
+
+    final String key = key(file);
+    FastqProbe result = this.probes.get(key);
+
+    if (result == null) {
+
+      try {
+        result = readProbe(file);
+      } catch (IOException | BadBioEntryException e) {
+        throw new EoulsanException(e);
+      }
+
+      this.probes.put(key, result);
+      this.modified.set(true);
+    }
+
+    return result;
+  }
+
+  /**
+   * Probe concurrently FASTQ files. The errors are ignored as they will be thrown by the next call
+   * to the probe() method on the files. The files already in the cache are not read again.
+   *
+   * @param files the files to probe
+   */
+  void prefetch(final Collection<DataFile> files) {
+
+    requireNonNull(files, "files argument cannot be null");
+
+    // The metadata of the files are also read concurrently to compute the keys of the cache
+    final Set<DataFile> toProbe = new LinkedHashSet<>(files);
+
+    if (toProbe.size() < 2) {
+      return;
+    }
+
+    getLogger().info("Probe " + toProbe.size() + " FASTQ files using " + this.threads + " threads");
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(this.threads, toProbe.size()));
+
+    try {
+
+      final List<Future<FastqProbe>> futures = new ArrayList<>();
+      for (DataFile file : toProbe) {
+        futures.add(executor.submit(() -> probe(file)));
+      }
+
+      for (Future<FastqProbe> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          // The error will be thrown again when the file will be added to the design
+        }
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Read the beginning of a FASTQ file to probe it.
+   *
+   * @param file the file to probe
+   * @return a FastqProbe object
+   * @throws IOException if an error occurs while reading the file
+   * @throws BadBioEntryException if a FASTQ entry is invalid
+   */
+  private FastqProbe readProbe(final DataFile file) throws IOException, BadBioEntryException {
+
+    final byte[] data;
+
+    try (InputStream in = file.open()) {
+      data = ByteStreams.toByteArray(ByteStreams.limit(in, this.maxBytes + 1));
+    }
+
+    int length = data.length;
+
+    // Only keep the complete FASTQ entries if the whole file has not been read
+    if (length > this.maxBytes) {
+      length = completeEntriesLength(data, (int) this.maxBytes);
+    }
+
+    if (length > 0) {
+
+      final String firstReadId = readFirstReadId(new ByteArrayInputStream(data, 0, length));
+
+      if (firstReadId == null) {
+        return new FastqProbe(null, null);
+      }
+
+      return new FastqProbe(
+          firstReadId,
+          FastqFormat.identifyFormat(
+              new ByteArrayInputStream(data, 0, length), this.maxEntries));
+    }
+
+    if (data.length == 0) {
+      return new FastqProbe(null, null);
+    }
+
+    // The first entry is larger than the maximal size to read, read the whole file
+    final String firstReadId = readFirstReadId(file.open());
+
+    try (InputStream in = file.open()) {
+      return new FastqProbe(firstReadId, FastqFormat.identifyFormat(in, this.maxEntries));
+    }
+  }
+
+  /**
+   * Get the identifier of the first read of FASTQ data.
+   *
+   * @param in the FASTQ data
+   * @return the identifier of the first read or null if there is no read
+   * @throws IOException if an error occurs while reading the data
+   * @throws BadBioEntryException if the first FASTQ entry is invalid
+   */
+  private static String readFirstReadId(final InputStream in)
+      throws IOException, BadBioEntryException {
+
+    try (FastqReader reader = new FastqReader(in)) {
+
+      if (!reader.hasNext()) {
+        reader.throwException();
+        return null;
+      }
+
+      final String result = reader.next().getName();
+      reader.throwException();
+
+      return result;
+    }
+  }
+
+  /**
+   * Get the length of the complete FASTQ entries at the beginning of a buffer.
+   *
+   * @param data the buffer
+   * @param length the length of the data to use in the buffer
+   * @return the length of the complete entries of the buffer
+   */
+  private static int completeEntriesLength(final byte[] data, final int length) {
+
+    int lines = 0;
+    int result = 0;
+
+    for (int i = 0; i < length; i++) {
+
+      if (data[i] == '\n' && ++lines % 4 == 0) {
+        result = i + 1;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Get the key of a file in the cache.
+   *
+   * @param file the file
+   * @return the key of the file
+   */
+  private static String key(final DataFile file) {
+
+    long length = -1;
+    long lastModified = -1;
+
+    try {
+      final DataFileMetadata md = file.getMetaData();
+      length = md.getContentLength();
+      lastModified = md.getLastModified();
+    } catch (IOException e) {
+      // Only use the source of the file as key
+    }
+
+    return file.getSource() + SEPARATOR + length + SEPARATOR + lastModified;
+  }
+
+  //
+  // Cache file methods
+  //
+
+  /** Load the cache file. */
+  private void load() {
+
+    if (this.cacheFile == null || !Files.isRegularFile(this.cacheFile)) {
+      return;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(this.cacheFile, UTF_8)) {
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+
+        final List<String> fields = TAB_SPLITTER.splitToList(line);
+        if (fields.size() != 5) {
+          continue;
+        }
+
+        final String key = fields.get(0) + SEPARATOR + fields.get(1) + SEPARATOR + fields.get(2);
+        final String firstReadId = fields.get(3).isEmpty() ? null : fields.get(3);
+        final FastqFormat format =
+            fields.get(4).isEmpty() ? null : FastqFormat.getFormatFromName(fields.get(4));
+
+        this.probes.put(key, new FastqProbe(firstReadId, format));
+      }
+
+    } catch (IOException e) {
+      getLogger().warning("Unable to read the FASTQ probe cache file " + this.cacheFile + ": " + e);
+    }
+  }
+
+  /** Save the cache file if the cache has been modified. */
+  void save() {
+
+    if (this.cacheFile == null || !this.modified.getAndSet(false)) {
+      return;
+    }
+
+    try {
+
+      final Path tmpFile =
+          Files.createTempFile(
+              this.cacheFile.toAbsolutePath().getParent(),
+              this.cacheFile.getFileName().toString(),
+              ".tmp");
+
+      try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, UTF_8)) {
+
+        for (Map.Entry<String, FastqProbe> e : this.probes.entrySet()) {
+
+          final FastqProbe probe = e.getValue();
+          writer.write(e.getKey());
+          writer.write(SEPARATOR);
+          writer.write(probe.firstReadId == null ? "" : probe.firstReadId);
+          writer.write(SEPARATOR);
+          writer.write(probe.format == null ? "" : probe.format.getName());
+          writer.newLine();
+        }
+      }
+
+      Files.move(
+          tmpFile,
+          this.cacheFile,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+
+    } catch (IOException e) {
+      getLogger()
+          .warning("Unable to write the FASTQ probe cache file " + this.cacheFile + ": " + e);
+    }
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param cacheFile the cache file, can be null
+   * @param maxEntries maximal number of FASTQ entries to read to identify the FASTQ format
+   * @param maxBytes maximal number of bytes to read in each file
+   * @param threads number of threads to use to probe the files
+   */
+  FastqProbeCache(
+      final Path cacheFile, final int maxEntries, final long maxBytes, final int threads) {
+
+    this.cacheFile = cacheFile;
+    this.maxEntries = maxEntries;
+    this.maxBytes = Math.max(1, Math.min(maxBytes, Integer.MAX_VALUE - 8));
+    this.threads = Math.max(1, threads);
+
+    load();
+  }
+}
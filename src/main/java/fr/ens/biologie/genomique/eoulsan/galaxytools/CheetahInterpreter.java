@@ -27,12 +27,18 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
 import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.kenetre.util.GuavaCompatibility;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import org.python.core.PyCode;
 import org.python.core.PyDictionary;
+import org.python.core.PyException;
 import org.python.core.PyObject;
 import org.python.core.PyString;
 import org.python.util.PythonInterpreter;
@@ -58,7 +64,24 @@ public class CheetahInterpreter {
   /** The Constant DEFAULT_VALUE_NULL. */
   static final String DEFAULT_VALUE_NULL = "no_authorized";
 
+  /** Maximal number of idle interpreters kept in the pool. */
+  private static final int MAX_IDLE_INTERPRETERS = Runtime.getRuntime().availableProcessors();
+
+  private static final String INIT_SCRIPT =
+      "from Cheetah.Template import Template\n" + "templates = {}";
+
+  private static final String RENDER_SCRIPT =
+      "klass = templates.get(templateKey)\n"
+          + "if klass is None:\n"
+          + "    klass = Template.compile(source=template)\n"
+          + "    templates[templateKey] = klass\n"
+          + "result = str(klass(searchList=[nameSpace]))";
+
+  private static final BlockingDeque<PooledInterpreter> idleInterpreters =
+      new LinkedBlockingDeque<>();
+
   private final String cheetahScript;
+  private final String templateKey;
   private final Map<String, String> variables;
 
   //
@@ -109,6 +132,49 @@ public class CheetahInterpreter {
     }
   }
 
+  /**
+   * This class define a Python interpreter of the pool. Each interpreter keeps the Cheetah
+   * templates it has already compiled.
+   */
+  private static final class PooledInterpreter {
+
+    private final PythonInterpreter interpreter;
+    private final PyCode renderCode;
+
+    /**
+     * Render a template.
+     *
+     * @param templateKey the key of the template in the cache of compiled templates
+     * @param template the template
+     * @param nameSpace the placeholders of the template
+     * @return the rendered template
+     */
+    private String render(
+        final String templateKey, final String template, final PyObject nameSpace) {
+
+      this.interpreter.set("templateKey", templateKey);
+      this.interpreter.set("template", template);
+      this.interpreter.set("nameSpace", nameSpace);
+
+      try {
+        this.interpreter.exec(this.renderCode);
+
+        // Retrieve standard output
+        return this.interpreter.get("result").asString();
+      } finally {
+        this.interpreter.set("nameSpace", null);
+      }
+    }
+
+    /** Constructor. */
+    private PooledInterpreter() {
+
+      this.interpreter = new PythonInterpreter();
+      this.interpreter.exec(INIT_SCRIPT);
+      this.renderCode = this.interpreter.compile(RENDER_SCRIPT);
+    }
+  }
+
   /**
    * Execute script by Python interpreter and replace variable name by value.
    *
@@ -117,24 +183,32 @@ public class CheetahInterpreter {
    */
   public String execute() throws EoulsanException {
 
-    try (final PythonInterpreter interpreter = new PythonInterpreter()) {
-
-      final PyObject nameSpace = createNameSpace(this.variables);
+    final PyObject nameSpace = createNameSpace(this.variables);
 
-      interpreter.set("template", this.cheetahScript);
-      interpreter.set("nameSpace", nameSpace);
-
-      final String pythonScript =
-          "from Cheetah.Template import Template\n"
-              + "result = str(Template(template, searchList=[nameSpace]))";
+    // Get an interpreter from the pool
+    PooledInterpreter interpreter = idleInterpreters.pollFirst();
+    if (interpreter == null) {
+      interpreter = new PooledInterpreter();
+    }
 
-      interpreter.exec(pythonScript);
+    final String result;
+    try {
+      result = interpreter.render(this.templateKey, this.cheetahScript, nameSpace);
+    } catch (PyException e) {
 
-      // Retrieve standard output
-      final PyObject cmd = interpreter.get("result");
+      // Do not reuse an interpreter in an unknown state
+      interpreter.interpreter.close();
+      throw new EoulsanException("Error while executing Cheetah script: " + e, e);
+    }
 
-      return cmd.asString().replace('\n', ' ').trim();
+    // Return the interpreter to the pool
+    if (idleInterpreters.size() < MAX_IDLE_INTERPRETERS) {
+      idleInterpreters.offerFirst(interpreter);
+    } else {
+      interpreter.interpreter.close();
     }
+
+    return result.replace('\n', ' ').trim();
   }
 
   /**
@@ -203,13 +277,34 @@ public class CheetahInterpreter {
   public CheetahInterpreter(final String cheetahScript, final Map<String, String> variables)
       throws EoulsanException {
 
+    this(cheetahScript, variables, "");
+  }
+
+  /**
+   * Instantiates a new tool Cheetah script interpreter.
+   *
+   * @param cheetahScript the Cheetah script to execute
+   * @param variables the variables of the script
+   * @param templateId the identifier of the template (e.g. the id and the version of the tool)
+   * @throws EoulsanException if the constructor fails
+   */
+  public CheetahInterpreter(
+      final String cheetahScript, final Map<String, String> variables, final String templateId)
+      throws EoulsanException {
+
+    requireNonNull(cheetahScript, "No Cheetah script set for Cheetah interpreter");
     requireNonNull(variables, "No variable set for Cheetah interpreter");
+    requireNonNull(templateId, "templateId argument cannot be null");
 
     checkState(
         !variables.isEmpty(),
         "Tool instance from Galaxy Tool not found variables for interpretation");
 
     this.cheetahScript = cheetahScript;
+    this.templateKey =
+        templateId
+            + "#"
+            + Hashing.sha256().hashString(cheetahScript, StandardCharsets.UTF_8).toString();
     this.variables = new HashMap<>(variables);
   }
 }
@@ -379,7 +379,10 @@ public class GalaxyToolInterpreter {
 
     // Create the Cheetah interpreter
     final CheetahInterpreter cheetahInterpreter =
-        new CheetahInterpreter(this.toolInfo.getCheetahScript(), variables);
+        new CheetahInterpreter(
+            this.toolInfo.getCheetahScript(),
+            variables,
+            this.toolInfo.getToolID() + "/" + this.toolInfo.getToolVersion());
 
     // Get the command line to execute from Cheetah code execution
     final String commandLine = cheetahInterpreter.execute();
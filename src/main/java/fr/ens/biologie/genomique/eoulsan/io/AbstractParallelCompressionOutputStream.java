@@ -0,0 +1,274 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.io;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class define an OutputStream that compress the data by blocks. The blocks are compressed
+ * concurrently by the threads of an executor and written in order in the underlying stream. The
+ * number of blocks being compressed is bounded to limit the memory used by the stream.
+ *
+ * @param <B> type of the compressed blocks
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public abstract class AbstractParallelCompressionOutputStream<B> extends OutputStream {
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int maxPendingBlocks;
+  private final Deque<Future<B>> pendingBlocks = new ArrayDeque<>();
+
+  private byte[] buffer;
+  private int bufferLength;
+  private boolean headerWritten;
+  private boolean closed;
+
+  //
+  // Abstract methods
+  //
+
+  /**
+   * Write the header of the compressed stream.
+   *
+   * @param out the underlying output stream
+   * @throws IOException if an error occurs while writing the header
+   */
+  protected abstract void writeHeader(OutputStream out) throws IOException;
+
+  /**
+   * Process the uncompressed data of a block before its compression. This method is called in the
+   * order of the blocks by the thread that write the data.
+   *
+   * @param data the uncompressed data
+   * @param length the length of the data
+   */
+  protected void update(final byte[] data, final int length) {}
+
+  /**
+   * Compress a block. This method is called concurrently by the threads of the executor.
+   *
+   * @param data the uncompressed data of the block
+   * @param length the length of the data
+   * @return the compressed block
+   * @throws IOException if an error occurs while compressing the block
+   */
+  protected abstract B compress(byte[] data, int length) throws IOException;
+
+  /**
+   * Write a compressed block. This method is called in the order of the blocks.
+   *
+   * @param block the compressed block
+   * @param out the underlying output stream
+   * @throws IOException if an error occurs while writing the block
+   */
+  protected abstract void writeBlock(B block, OutputStream out) throws IOException;
+
+  /**
+   * Write the end of the compressed stream.
+   *
+   * @param out the underlying output stream
+   * @throws IOException if an error occurs while writing the end of the stream
+   */
+  protected abstract void writeTrailer(OutputStream out) throws IOException;
+
+  //
+  // OutputStream methods
+  //
+
+  @Override
+  public void write(final int b) throws IOException {
+
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+
+    requireNonNull(b, "b argument cannot be null");
+
+    if (off < 0 || len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    if (this.closed) {
+      throw new IOException("Stream closed");
+    }
+
+    int offset = off;
+    int remaining = len;
+
+    while (remaining > 0) {
+
+      final int n = Math.min(remaining, this.buffer.length - this.bufferLength);
+      System.arraycopy(b, offset, this.buffer, this.bufferLength, n);
+      this.bufferLength += n;
+      offset += n;
+      remaining -= n;
+
+      if (this.bufferLength == this.buffer.length) {
+        submitBlock();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+
+    // The blocks cannot be flushed before being full without changing the compressed stream
+    this.out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+
+    try {
+
+      if (this.bufferLength > 0) {
+        submitBlock();
+      }
+
+      while (!this.pendingBlocks.isEmpty()) {
+        writeNextBlock();
+      }
+
+      if (!this.headerWritten) {
+        writeHeader(this.out);
+        this.headerWritten = true;
+      }
+
+      writeTrailer(this.out);
+
+    } finally {
+
+      for (Future<B> f : this.pendingBlocks) {
+        f.cancel(true);
+      }
+      this.out.close();
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Submit the current buffer for compression.
+   *
+   * @throws IOException if an error occurs while writing the previous blocks
+   */
+  private void submitBlock() throws IOException {
+
+    final byte[] data = this.buffer;
+    final int length = this.bufferLength;
+
+    update(data, length);
+    this.pendingBlocks.add(this.executor.submit(() -> compress(data, length)));
+
+    this.buffer = new byte[data.length];
+    this.bufferLength = 0;
+
+    // Wait the compression of the oldest block if too many blocks are pending
+    while (this.pendingBlocks.size() >= this.maxPendingBlocks) {
+      writeNextBlock();
+    }
+  }
+
+  /**
+   * Wait the compression of the oldest pending block and write it.
+   *
+   * @throws IOException if an error occurs while compressing or writing the block
+   */
+  private void writeNextBlock() throws IOException {
+
+    final B block;
+
+    try {
+      block = this.pendingBlocks.peek().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Compression interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+
+    this.pendingBlocks.poll();
+
+    if (!this.headerWritten) {
+      writeHeader(this.out);
+      this.headerWritten = true;
+    }
+
+    writeBlock(block, this.out);
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param out the underlying output stream
+   * @param executor the executor that compress the blocks
+   * @param threads the number of threads of the executor
+   * @param blockSize the size of the uncompressed blocks
+   */
+  protected AbstractParallelCompressionOutputStream(
+      final OutputStream out,
+      final ExecutorService executor,
+      final int threads,
+      final int blockSize) {
+
+    requireNonNull(out, "out argument cannot be null");
+    requireNonNull(executor, "executor argument cannot be null");
+
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Invalid block size: " + blockSize);
+    }
+
+    this.out = out;
+    this.executor = executor;
+    this.maxPendingBlocks = 2 * Math.max(1, threads);
+    this.buffer = new byte[blockSize];
+  }
+}
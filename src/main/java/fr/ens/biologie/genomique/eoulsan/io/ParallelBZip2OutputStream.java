@@ -0,0 +1,229 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+/**
+ * This class define an OutputStream that compress data in the bzip2 format using several threads.
+ * Each block is compressed by its own bzip2 compressor, then the compressed bzip2 blocks are
+ * extracted from the bit stream of the compressors and concatenated in a single bzip2 stream. The
+ * output is a standard single stream bzip2 file that can be read by decoders that do not handle
+ * concatenated streams.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ParallelBZip2OutputStream
+    extends AbstractParallelCompressionOutputStream<ParallelBZip2OutputStream.Block> {
+
+  /**
+   * Size of the uncompressed blocks. The initial run length encoding of bzip2 may expand the data
+   * by 25%, so this size ensures that the data of a block always fit in a single 900k bzip2 block.
+   */
+  public static final int BLOCK_SIZE = 700_000;
+
+  private static final int BLOCK_SIZE_100K = 9;
+  private static final byte[] HEADER = {'B', 'Z', 'h', '0' + BLOCK_SIZE_100K};
+  private static final int HEADER_BITS = HEADER.length * 8;
+  private static final long BLOCK_MAGIC = 0x314159265359L;
+  private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+  private final BitWriter writer = new BitWriter();
+  private int combinedCRC;
+
+  /** This class define a compressed bzip2 block. */
+  static final class Block {
+
+    private final byte[] data;
+    private final long startBit;
+    private final long endBit;
+    private final int crc;
+
+    private Block(final byte[] data, final long startBit, final long endBit, final int crc) {
+      this.data = data;
+      this.startBit = startBit;
+      this.endBit = endBit;
+      this.crc = crc;
+    }
+  }
+
+  /** This class define a writer of bits. */
+  private static final class BitWriter {
+
+    private final byte[] buffer = new byte[64 * 1024];
+    private int bufferLength;
+    private long bits;
+    private int bitCount;
+
+    /**
+     * Write bits.
+     *
+     * @param value the bits to write
+     * @param n the number of bits to write (at most 32)
+     * @param out the output stream
+     * @throws IOException if an error occurs while writing the bits
+     */
+    void write(final long value, final int n, final OutputStream out) throws IOException {
+
+      this.bits = (this.bits << n) | (value & ((1L << n) - 1));
+      this.bitCount += n;
+
+      while (this.bitCount >= 8) {
+        this.bitCount -= 8;
+        this.buffer[this.bufferLength++] = (byte) (this.bits >>> this.bitCount);
+
+        if (this.bufferLength == this.buffer.length) {
+          out.write(this.buffer, 0, this.bufferLength);
+          this.bufferLength = 0;
+        }
+      }
+    }
+
+    /**
+     * Write the remaining bits padded with zeros and flush the buffer.
+     *
+     * @param out the output stream
+     * @throws IOException if an error occurs while writing the bits
+     */
+    void flush(final OutputStream out) throws IOException {
+
+      if (this.bitCount > 0) {
+        write(0, 8 - this.bitCount, out);
+      }
+
+      out.write(this.buffer, 0, this.bufferLength);
+      this.bufferLength = 0;
+    }
+  }
+
+  @Override
+  protected void writeHeader(final OutputStream out) throws IOException {
+
+    out.write(HEADER);
+  }
+
+  @Override
+  protected Block compress(final byte[] data, final int length) throws IOException {
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 3);
+    try (OutputStream os = new BZip2CompressorOutputStream(baos, BLOCK_SIZE_100K)) {
+      os.write(data, 0, length);
+    }
+    final byte[] stream = baos.toByteArray();
+
+    // The stream contains the header, a single block, the end of stream marker, the CRC of the
+    // stream and at most 7 bits of padding
+    if (readBits(stream, HEADER_BITS, 48) != BLOCK_MAGIC) {
+      throw new IOException("Unexpected bzip2 stream: no block found");
+    }
+    final int crc = (int) readBits(stream, HEADER_BITS + 48, 32);
+
+    for (int padding = 0; padding < 8; padding++) {
+
+      final long endBit = stream.length * 8L - padding - 80;
+
+      // The CRC of a stream with a single block is the CRC of the block
+      if (endBit > HEADER_BITS
+          && readBits(stream, endBit, 48) == END_OF_STREAM_MAGIC
+          && (int) readBits(stream, endBit + 48, 32) == crc) {
+        return new Block(stream, HEADER_BITS, endBit, crc);
+      }
+    }
+
+    throw new IOException("Unexpected bzip2 stream: more than one block found");
+  }
+
+  @Override
+  protected void writeBlock(final Block block, final OutputStream out) throws IOException {
+
+    this.combinedCRC = ((this.combinedCRC << 1) | (this.combinedCRC >>> 31)) ^ block.crc;
+
+    // The block starts on a byte boundary in the compressed stream of the block
+    long bit = block.startBit;
+    for (int i = (int) (bit / 8); bit + 8 <= block.endBit; i++, bit += 8) {
+      this.writer.write(block.data[i], 8, out);
+    }
+
+    if (bit < block.endBit) {
+      final int n = (int) (block.endBit - bit);
+      this.writer.write(readBits(block.data, bit, n), n, out);
+    }
+  }
+
+  @Override
+  protected void writeTrailer(final OutputStream out) throws IOException {
+
+    this.writer.write(END_OF_STREAM_MAGIC >>> 24, 24, out);
+    this.writer.write(END_OF_STREAM_MAGIC, 24, out);
+    this.writer.write(this.combinedCRC, 32, out);
+    this.writer.flush(out);
+  }
+
+  /**
+   * Read bits in an array of bytes.
+   *
+   * @param data the array of bytes
+   * @param start the position of the first bit to read
+   * @param n the number of bits to read (at most 56)
+   * @return the bits as a long
+   */
+  private static long readBits(final byte[] data, final long start, final int n) {
+
+    long result = 0;
+
+    for (long bit = start; bit < start + n; bit++) {
+
+      final int index = (int) (bit >>> 3);
+      if (index >= data.length) {
+        return -1;
+      }
+      result = (result << 1) | ((data[index] >>> (7 - (bit & 7))) & 1);
+    }
+
+    return result;
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param out the underlying output stream
+   * @param executor the executor that compress the blocks
+   * @param threads the number of threads of the executor
+   */
+  public ParallelBZip2OutputStream(
+      final OutputStream out, final ExecutorService executor, final int threads) {
+
+    super(out, executor, threads, BLOCK_SIZE);
+  }
+}
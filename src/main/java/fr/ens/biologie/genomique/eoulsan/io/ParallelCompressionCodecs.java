@@ -0,0 +1,119 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.io;
+
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import fr.ens.biologie.genomique.kenetre.io.CompressionType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class allow to create output streams that compress data using several threads. All the
+ * streams share the same pool of threads, so concurrent conversions of files do not use more
+ * threads than the number of local threads defined in the settings.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ParallelCompressionCodecs {
+
+  private static ExecutorService executor;
+  private static int threads;
+
+  /**
+   * Create an output stream that compress data. If the compression type cannot be compressed in
+   * parallel or if only one thread is available, the standard output stream of the compression
+   * type is returned.
+   *
+   * @param compression the compression type
+   * @param os the output stream to compress
+   * @return a compressed output stream
+   * @throws IOException if an error occurs while creating the output stream
+   */
+  public static OutputStream createOutputStream(
+      final CompressionType compression, final OutputStream os) throws IOException {
+
+    requireNonNull(compression, "compression argument cannot be null");
+    requireNonNull(os, "os argument cannot be null");
+
+    final ExecutorService executor = getExecutor();
+
+    if (executor != null) {
+
+      switch (compression) {
+        case GZIP:
+          return new ParallelGZipOutputStream(os, executor, threads);
+
+        case BZIP2:
+          return new ParallelBZip2OutputStream(os, executor, threads);
+
+        default:
+          break;
+      }
+    }
+
+    return compression.createOutputStream(os);
+  }
+
+  /**
+   * Get the executor shared by the parallel compression streams.
+   *
+   * @return the executor or null if only one thread is available
+   */
+  private static synchronized ExecutorService getExecutor() {
+
+    if (threads == 0) {
+
+      threads =
+          EoulsanRuntime.isRuntime()
+              ? EoulsanRuntime.getSettings().getLocalThreadsNumber()
+              : Runtime.getRuntime().availableProcessors();
+
+      if (threads > 1) {
+        executor =
+            Executors.newFixedThreadPool(
+                threads,
+                r -> {
+                  final Thread t = new Thread(r, "parallel-compression");
+                  t.setDaemon(true);
+                  return t;
+                });
+      }
+    }
+
+    return executor;
+  }
+
+  //
+  // Constructor
+  //
+
+  /** Private constructor. */
+  private ParallelCompressionCodecs() {}
+}
@@ -0,0 +1,147 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class define an OutputStream that compress data in the gzip format using several threads.
+ * Like pigz, each block is compressed independently in raw deflate blocks ended by a sync flush, so
+ * the concatenation of the compressed blocks is a single deflate stream and the output is a
+ * standard single member gzip file.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ParallelGZipOutputStream extends AbstractParallelCompressionOutputStream<byte[]> {
+
+  /** Size of the uncompressed blocks. */
+  public static final int BLOCK_SIZE = 1024 * 1024;
+
+  private static final byte[] HEADER = {
+    (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+
+  private final CRC32 crc = new CRC32();
+  private long uncompressedLength;
+
+  @Override
+  protected void writeHeader(final OutputStream out) throws IOException {
+
+    out.write(HEADER);
+  }
+
+  @Override
+  protected void update(final byte[] data, final int length) {
+
+    this.crc.update(data, 0, length);
+    this.uncompressedLength += length;
+  }
+
+  @Override
+  protected byte[] compress(final byte[] data, final int length) throws IOException {
+
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2);
+    final byte[] buffer = new byte[64 * 1024];
+
+    try {
+      deflater.setInput(data, 0, length);
+
+      int n;
+      do {
+        n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+        result.write(buffer, 0, n);
+      } while (n == buffer.length);
+
+    } finally {
+      deflater.end();
+    }
+
+    return result.toByteArray();
+  }
+
+  @Override
+  protected void writeBlock(final byte[] block, final OutputStream out) throws IOException {
+
+    out.write(block);
+  }
+
+  @Override
+  protected void writeTrailer(final OutputStream out) throws IOException {
+
+    // Final empty deflate block
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final byte[] buffer = new byte[64];
+    try {
+      deflater.finish();
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+    } finally {
+      deflater.end();
+    }
+
+    writeInt(out, (int) this.crc.getValue());
+    writeInt(out, (int) this.uncompressedLength);
+  }
+
+  /**
+   * Write an integer in little endian.
+   *
+   * @param out the output stream
+   * @param value the value to write
+   * @throws IOException if an error occurs while writing the value
+   */
+  private static void writeInt(final OutputStream out, final int value) throws IOException {
+
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+    out.write((value >>> 16) & 0xff);
+    out.write((value >>> 24) & 0xff);
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param out the underlying output stream
+   * @param executor the executor that compress the blocks
+   * @param threads the number of threads of the executor
+   */
+  public ParallelGZipOutputStream(
+      final OutputStream out, final ExecutorService executor, final int threads) {
+
+    super(out, executor, threads, BLOCK_SIZE);
+  }
+}
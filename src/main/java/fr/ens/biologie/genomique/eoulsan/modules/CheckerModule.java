@@ -50,11 +50,18 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is a module that launch checkers.
@@ -153,24 +160,21 @@ public class CheckerModule extends AbstractModule {
     // Store the design in the check store
     checkStore.add("design", context.getWorkflow().getDesign());
 
-    int count = 0;
+    ExecutorService executor = null;
 
     try {
 
       final List<Checker> checkerList = createDependenciesList(context.getWorkflow().getSteps());
 
-      // For all input ports of the step
+      // Configure the checkers and get the data to check before launching the checks
+      final Map<Checker, List<Data>> checkerData = new LinkedHashMap<>();
+      int taskCount = 0;
       for (Checker checker : checkerList) {
 
-        if (checker.isDesignChecker()) {
-
-          context.getLogger().info("Start checker " + checker.getName());
-
-          // Check the design
-          checker.check(null, checkStore);
-
-          context.getLogger().info("End of checker " + checker.getName());
+        final List<Data> dataList;
 
+        if (checker.isDesignChecker()) {
+          dataList = Collections.singletonList(null);
         } else {
 
           // Get the format of the checker
@@ -181,38 +185,63 @@ public class CheckerModule extends AbstractModule {
             checker.configure(this.checkerConfiguration.get(format));
           }
 
-          for (Data data : context.getInputData(format).getListElements()) {
-
-            context
-                .getLogger()
-                .info(
-                    "Start checker "
-                        + checker.getName()
-                        + " to check: "
-                        + DataUtils.getDataFiles(data));
-
-            // Check the data
-            checker.check(data, checkStore);
-
-            context
-                .getLogger()
-                .info(
-                    "End of checker "
-                        + checker.getName()
-                        + " to check: "
-                        + DataUtils.getDataFiles(data));
-          }
+          dataList = context.getInputData(format).getListElements();
+        }
+
+        checkerData.put(checker, dataList);
+        taskCount += dataList.size();
+      }
+
+      // The checkers are launched concurrently, a checker only waits the checkers it depends on
+      executor =
+          Executors.newFixedThreadPool(
+              Math.max(1, Math.min(context.getSettings().getLocalThreadsNumber(), taskCount)));
+
+      final Map<Checker, CompletableFuture<Void>> checkerFutures = new HashMap<>();
+      final AtomicInteger count = new AtomicInteger();
+      final int total = taskCount;
+
+      for (Map.Entry<Checker, List<Data>> e : checkerData.entrySet()) {
+
+        final Checker checker = e.getKey();
+        final CompletableFuture<Void> dependencies =
+            CompletableFuture.allOf(getDependencyFutures(checker, checkerFutures));
+
+        final List<CompletableFuture<Void>> dataFutures = new ArrayList<>();
+        for (Data data : e.getValue()) {
+
+          dataFutures.add(
+              dependencies.thenRunAsync(
+                  () -> {
+                    runChecker(context, checker, data, checkStore);
+
+                    synchronized (status) {
+                      status.setProgress(((double) count.incrementAndGet()) / total);
+                    }
+                  },
+                  executor));
         }
 
-        count++;
-        status.setProgress(((double) count) / checkerList.size());
+        checkerFutures.put(
+            checker, CompletableFuture.allOf(dataFutures.toArray(new CompletableFuture<?>[0])));
       }
 
+      // Wait the end of all the checkers
+      CompletableFuture.allOf(checkerFutures.values().toArray(new CompletableFuture<?>[0])).join();
+
     } catch (EoulsanException e) {
 
       return status.createTaskResult(e);
+    } catch (CompletionException e) {
+
+      // Error thrown by a checker
+      return status.createTaskResult(e.getCause());
     } finally {
 
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+
       // Clear the checker
       this.checkers.clear();
       this.checkerConfiguration.clear();
@@ -221,6 +250,61 @@ public class CheckerModule extends AbstractModule {
     return status.createTaskResult();
   }
 
+  /**
+   * Get the futures of the checkers required by a checker.
+   *
+   * @param checker the checker
+   * @param checkerFutures the futures of the checkers already submitted
+   * @return an array with the futures of the required checkers
+   */
+  private CompletableFuture<?>[] getDependencyFutures(
+      final Checker checker, final Map<Checker, CompletableFuture<Void>> checkerFutures) {
+
+    final List<CompletableFuture<Void>> result = new ArrayList<>();
+
+    if (!checker.isDesignChecker()) {
+      for (DataFormat format : checker.getCheckersRequired()) {
+
+        final CompletableFuture<Void> future = checkerFutures.get(this.checkers.get(format));
+        if (future != null) {
+          result.add(future);
+        }
+      }
+    }
+
+    return result.toArray(new CompletableFuture<?>[0]);
+  }
+
+  /**
+   * Launch a checker on a data.
+   *
+   * @param context the task context
+   * @param checker the checker
+   * @param data the data to check, null for design checkers
+   * @param checkStore the check store
+   */
+  private static void runChecker(
+      final TaskContext context,
+      final Checker checker,
+      final Data data,
+      final CheckStore checkStore) {
+
+    final String description =
+        data == null
+            ? checker.getName()
+            : checker.getName() + " to check: " + DataUtils.getDataFiles(data);
+
+    context.getLogger().info("Start checker " + description);
+
+    try {
+      checker.check(data, checkStore);
+    } catch (EoulsanException e) {
+      throw new CompletionException(e);
+    }
+
+    context.getLogger().info("End of checker " + description);
+  }
+
   /**
    * Create the dependencies list of the checker.
    *
@@ -24,9 +24,12 @@
 
 package fr.ens.biologie.genomique.eoulsan.modules;
 
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
 import static fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder.DEFAULT_SINGLE_INPUT_PORT_NAME;
 import static fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder.singleInputPort;
 import static fr.ens.biologie.genomique.eoulsan.core.OutputPortsBuilder.DEFAULT_SINGLE_OUTPUT_PORT_NAME;
+import static fr.ens.biologie.genomique.kenetre.util.StringUtils.sizeToHumanReadable;
+import static fr.ens.biologie.genomique.kenetre.util.StringUtils.toTimeHumanReadable;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
@@ -36,6 +39,7 @@ import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.annotations.NoLog;
 import fr.ens.biologie.genomique.eoulsan.annotations.NoOutputDirectory;
 import fr.ens.biologie.genomique.eoulsan.annotations.ReuseModuleInstance;
+import fr.ens.biologie.genomique.eoulsan.annotations.StreamingAccess;
 import fr.ens.biologie.genomique.eoulsan.core.DataUtils;
 import fr.ens.biologie.genomique.eoulsan.core.FileNaming;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
@@ -63,6 +67,10 @@ import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Copy input files of a format in another location or in different compression format.
@@ -74,6 +82,7 @@ import java.util.Set;
 @ReuseModuleInstance
 @NoLog
 @NoOutputDirectory
+@StreamingAccess
 public class CopyInputDataModule extends AbstractModule {
 
   public static final String MODULE_NAME = "_copyinputformat";
@@ -248,16 +257,47 @@ public class CopyInputDataModule extends AbstractModule {
       // Get the count of input files
       final int count = inData.getDataFileCount();
 
+      // The files (e.g. the two files of paired-end reads) are copied concurrently
+      final ExecutorService executor =
+          Executors.newFixedThreadPool(
+              Math.max(1, Math.min(count, context.getSettings().getLocalThreadsNumber())));
+      final List<Future<DataFile>> futures = new ArrayList<>();
+
       // The list of output files
       final List<DataFile> dataFiles = new ArrayList<>();
 
-      for (int i = 0; i < count; i++) {
-
-        // Copy the file
-        final DataFile outputFile =
-            copyFile(inData.getDataFile(i), i, outData.getName(), outData.getPart(), context);
-
-        dataFiles.add(outputFile);
+      try {
+
+        for (int i = 0; i < count; i++) {
+
+          final int fileIndex = i;
+
+          // Copy the file
+          futures.add(
+              executor.submit(
+                  () ->
+                      copyFile(
+                          inData.getDataFile(fileIndex),
+                          fileIndex,
+                          outData.getName(),
+                          outData.getPart(),
+                          context)));
+        }
+
+        for (Future<DataFile> f : futures) {
+          dataFiles.add(f.get());
+        }
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Copy of the files interrupted", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      } finally {
+        executor.shutdownNow();
       }
 
       // Set the files in the data object
@@ -311,8 +351,30 @@ public class CopyInputDataModule extends AbstractModule {
     checkFiles(in, out);
 
     // Copy file
+    final long startTime = System.currentTimeMillis();
     DataFiles.symlinkOrCopy(in, out, true);
 
+    // Report the throughput of the recompression
+    if (in.getCompressionType() != out.getCompressionType()) {
+
+      final long duration = Math.max(1, System.currentTimeMillis() - startTime);
+      final long size = Math.max(0, in.getMetaData().getContentLength());
+
+      getLogger()
+          .info(
+              "Copy "
+                  + in
+                  + " to "
+                  + out
+                  + ": "
+                  + sizeToHumanReadable(size)
+                  + " in "
+                  + toTimeHumanReadable(duration)
+                  + " ("
+                  + sizeToHumanReadable(size * 1000 / duration)
+                  + "/s)");
+    }
+
     return out;
   }
 
@@ -30,6 +30,7 @@ import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.annotations.NoLog;
 import fr.ens.biologie.genomique.eoulsan.annotations.NoOutputDirectory;
 import fr.ens.biologie.genomique.eoulsan.annotations.ReuseModuleInstance;
+import fr.ens.biologie.genomique.eoulsan.annotations.StreamingAccess;
 import fr.ens.biologie.genomique.eoulsan.core.DataUtils;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder;
@@ -63,6 +64,7 @@ import java.util.Set;
 @ReuseModuleInstance
 @NoLog
 @NoOutputDirectory
+@StreamingAccess
 public class CopyOutputDataModule extends AbstractModule {
 
   public static final String MODULE_NAME = "_copyoutputformat";
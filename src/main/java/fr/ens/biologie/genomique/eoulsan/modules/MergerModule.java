@@ -34,6 +34,7 @@ import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.annotations.ReuseModuleInstance;
+import fr.ens.biologie.genomique.eoulsan.annotations.StreamingAccess;
 import fr.ens.biologie.genomique.eoulsan.core.DataUtils;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder;
@@ -68,6 +69,7 @@ import java.util.Set;
  */
 @LocalOnly
 @ReuseModuleInstance
+@StreamingAccess
 public class MergerModule extends AbstractModule {
 
   public static final String MODULE_NAME = "merger";
@@ -0,0 +1,539 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import htsjdk.samtools.DuplicateScoringStrategy;
+import htsjdk.samtools.DuplicateScoringStrategy.ScoringStrategy;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamInputResource;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.metrics.MetricsFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import picard.sam.DuplicationMetrics;
+
+/**
+ * This class define a duplicate marker for SAM files. It marks the duplicates like Picard's
+ * MarkDuplicates but without sorting the input file and without temporary files. The input file is
+ * read twice: the first pass computes the 5' unclipped positions of the reads, then the duplicates
+ * are searched concurrently for each reference sequence. The second pass writes the output file
+ * with the duplicate flags. The input file can be in any order, but in a coordinate sorted or a
+ * query name grouped file the mates are close, that limits the memory used to pair the reads. When
+ * the input file is grouped by query name, all the alignments of a duplicate read are marked as
+ * duplicates, like Picard.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class DuplicateMarker {
+
+  private static final String UNKNOWN_LIBRARY = "Unknown Library";
+
+  private final int threads;
+  private final boolean removeDuplicates;
+  private final boolean sort;
+  private final File tmpDir;
+
+  /** This class define the first read of a pair waiting for its mate. */
+  private static final class PendingEnd {
+
+    private final int libraryId;
+    private final int referenceIndex;
+    private final int coordinate;
+    private final boolean reverse;
+    private final long id;
+    private final short score;
+
+    PendingEnd(
+        final int libraryId,
+        final int referenceIndex,
+        final int coordinate,
+        final boolean reverse,
+        final long id,
+        final short score) {
+
+      this.libraryId = libraryId;
+      this.referenceIndex = referenceIndex;
+      this.coordinate = coordinate;
+      this.reverse = reverse;
+      this.id = id;
+      this.score = score;
+    }
+  }
+
+  //
+  // Duplicate marking
+  //
+
+  /**
+   * Mark the duplicates of a SAM file.
+   *
+   * @param inputFile input SAM file
+   * @param outputFile output SAM file
+   * @param metricsFile metrics file in Picard's format, can be null
+   * @throws IOException if an error occurs while marking the duplicates
+   */
+  public void markDuplicates(
+      final DataFile inputFile, final DataFile outputFile, final DataFile metricsFile)
+      throws IOException {
+
+    requireNonNull(inputFile, "inputFile argument cannot be null");
+    requireNonNull(outputFile, "outputFile argument cannot be null");
+
+    getLogger().info("Mark duplicates of " + inputFile + " with output " + outputFile);
+
+    final long startTime = System.currentTimeMillis();
+
+    // First pass, compute the read ends
+    final SAMFileHeader header;
+    final ReadEndsChunk[] chunks;
+    try (SamReader reader = openReader(inputFile)) {
+
+      header = reader.getFileHeader();
+      chunks = readEnds(reader, header);
+    }
+
+    // Find the duplicates of each reference sequence
+    final BitSet duplicates = findDuplicates(chunks);
+
+    // Second pass, write the output file
+    final Map<String, DuplicationMetrics> metrics;
+    try (SamReader reader = openReader(inputFile)) {
+      metrics = writeOutput(reader, header, duplicates, outputFile);
+    }
+
+    if (metricsFile != null) {
+      writeMetrics(metrics, metricsFile);
+    }
+
+    getLogger()
+        .info(
+            "Duplicates of "
+                + inputFile
+                + " marked in "
+                + (System.currentTimeMillis() - startTime)
+                + " ms");
+  }
+
+  /**
+   * Read the ends of the reads.
+   *
+   * @param reader the SAM reader
+   * @param header the SAM header
+   * @return an array with the read ends of each reference sequence
+   * @throws IOException if an error occurs while reading the ends
+   */
+  private static ReadEndsChunk[] readEnds(final SamReader reader, final SAMFileHeader header)
+      throws IOException {
+
+    final boolean queryNameMode = isQueryNameMode(header);
+    final Map<String, Integer> libraryIds = libraryIds(header);
+    final ReadEndsChunk[] chunks = new ReadEndsChunk[header.getSequenceDictionary().size()];
+    final Map<String, PendingEnd> pendingEnds = new HashMap<>();
+
+    long index = -1;
+    long template = -1;
+    String previousName = null;
+
+    for (SAMRecord r : reader) {
+
+      checkIndex(++index);
+
+      // In query name mode, all the alignments of a read share the same id
+      if (queryNameMode && !r.getReadName().equals(previousName)) {
+        template++;
+        previousName = r.getReadName();
+      }
+
+      if (r.getReadUnmappedFlag() || r.isSecondaryOrSupplementary()) {
+        continue;
+      }
+
+      final long id = queryNameMode ? template : index;
+      final int referenceIndex = r.getReferenceIndex();
+      final boolean reverse = r.getReadNegativeStrandFlag();
+      final int coordinate = reverse ? r.getUnclippedEnd() : r.getUnclippedStart();
+      final int libraryId = libraryIds.get(libraryName(r));
+      final short score =
+          DuplicateScoringStrategy.computeDuplicateScore(r, ScoringStrategy.SUM_OF_BASE_QUALITIES);
+      final boolean paired = r.getReadPairedFlag() && !r.getMateUnmappedFlag();
+
+      if (chunks[referenceIndex] == null) {
+        chunks[referenceIndex] = new ReadEndsChunk(referenceIndex);
+      }
+
+      chunks[referenceIndex].addFragment(
+          libraryId,
+          coordinate,
+          reverse ? ReadEndsChunk.R : ReadEndsChunk.F,
+          id,
+          score,
+          paired);
+
+      if (!paired) {
+        continue;
+      }
+
+      final String key = r.getAttribute(SAMRecord.READ_GROUP_TAG_NAME) + ":" + r.getReadName();
+      final PendingEnd mate = pendingEnds.remove(key);
+
+      // Wait for the mate
+      if (mate == null) {
+        pendingEnds.put(
+            key, new PendingEnd(libraryId, referenceIndex, coordinate, reverse, id, score));
+        continue;
+      }
+
+      final short pairScore = (short) (mate.score + score);
+
+      // The first read of the pair is the read with the lowest position
+      if (referenceIndex > mate.referenceIndex
+          || (referenceIndex == mate.referenceIndex && coordinate >= mate.coordinate)) {
+
+        int orientation = ReadEndsChunk.pairOrientation(mate.reverse, reverse);
+
+        // Like Picard, when the two ends are at the same position on opposite strands, the
+        // orientation is always FR to not depend on the order of the reads in the file
+        if (referenceIndex == mate.referenceIndex
+            && coordinate == mate.coordinate
+            && orientation == ReadEndsChunk.RF) {
+          orientation = ReadEndsChunk.FR;
+        }
+
+        chunks[mate.referenceIndex].addPair(
+            mate.libraryId,
+            mate.coordinate,
+            referenceIndex,
+            coordinate,
+            orientation,
+            mate.id,
+            id,
+            pairScore);
+      } else {
+
+        chunks[referenceIndex].addPair(
+            mate.libraryId,
+            coordinate,
+            mate.referenceIndex,
+            mate.coordinate,
+            ReadEndsChunk.pairOrientation(reverse, mate.reverse),
+            id,
+            mate.id,
+            pairScore);
+      }
+    }
+
+    if (!pendingEnds.isEmpty()) {
+      getLogger().warning(pendingEnds.size() + " reads have a mapped mate not found in the file");
+    }
+
+    return chunks;
+  }
+
+  /**
+   * Find the duplicates. The reference sequences are processed concurrently.
+   *
+   * @param chunks the read ends of the reference sequences
+   * @return a BitSet with the ids of the duplicates
+   * @throws IOException if an error occurs while finding the duplicates
+   */
+  private BitSet findDuplicates(final ReadEndsChunk[] chunks) throws IOException {
+
+    final List<ReadEndsChunk> list = new ArrayList<>();
+    for (ReadEndsChunk c : chunks) {
+      if (c != null) {
+        list.add(c);
+      }
+    }
+
+    // Start with the largest reference sequences
+    list.sort((a, b) -> Long.compare(b.size(), a.size()));
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(this.threads, list.size())));
+    final List<Future<long[]>> futures = new ArrayList<>();
+    final BitSet result = new BitSet();
+
+    try {
+
+      for (ReadEndsChunk c : list) {
+        futures.add(executor.submit(c::findDuplicates));
+      }
+
+      for (Future<long[]> f : futures) {
+        for (long id : f.get()) {
+          result.set((int) id);
+        }
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Duplicate search interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Write the output file.
+   *
+   * @param reader the SAM reader
+   * @param header the SAM header
+   * @param duplicates the ids of the duplicates
+   * @param outputFile the output file
+   * @return the metrics of each library
+   * @throws IOException if an error occurs while writing the output file
+   */
+  private Map<String, DuplicationMetrics> writeOutput(
+      final SamReader reader,
+      final SAMFileHeader header,
+      final BitSet duplicates,
+      final DataFile outputFile)
+      throws IOException {
+
+    final boolean queryNameMode = isQueryNameMode(header);
+    final Map<String, DuplicationMetrics> result = new LinkedHashMap<>();
+
+    // Sort the output if required and the input file is not coordinate sorted
+    final boolean presorted =
+        !this.sort || header.getSortOrder() == SAMFileHeader.SortOrder.coordinate;
+    final SAMFileHeader outputHeader = header.clone();
+    if (!presorted) {
+      outputHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+    }
+
+    try (SAMFileWriter writer =
+        new SAMFileWriterFactory()
+            .setTempDirectory(this.tmpDir)
+            .makeSAMWriter(outputHeader, presorted, outputFile.create())) {
+
+      long index = -1;
+      long template = -1;
+      String previousName = null;
+
+      for (SAMRecord r : reader) {
+
+        index++;
+
+        if (queryNameMode && !r.getReadName().equals(previousName)) {
+          template++;
+          previousName = r.getReadName();
+        }
+
+        // In coordinate mode, only the primary alignments can be duplicates
+        final boolean duplicate =
+            queryNameMode
+                ? duplicates.get((int) template)
+                : !r.getReadUnmappedFlag()
+                    && !r.isSecondaryOrSupplementary()
+                    && duplicates.get((int) index);
+
+        updateMetrics(
+            result.computeIfAbsent(libraryName(r), DuplicateMarker::newMetrics), r, duplicate);
+
+        r.setDuplicateReadFlag(duplicate);
+
+        if (!(duplicate && this.removeDuplicates)) {
+          writer.addAlignment(r);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  //
+  // Metrics
+  //
+
+  private static DuplicationMetrics newMetrics(final String library) {
+
+    final DuplicationMetrics result = new DuplicationMetrics();
+    result.LIBRARY = library;
+
+    return result;
+  }
+
+  /**
+   * Update the metrics of a library with a SAM record. The counts of the read pairs are divided by
+   * 2 before writing the metrics.
+   *
+   * @param metrics the metrics to update
+   * @param r the SAM record
+   * @param duplicate true if the record is a duplicate
+   */
+  private static void updateMetrics(
+      final DuplicationMetrics metrics, final SAMRecord r, final boolean duplicate) {
+
+    if (r.getReadUnmappedFlag()) {
+      metrics.UNMAPPED_READS++;
+    } else if (r.isSecondaryOrSupplementary()) {
+      metrics.SECONDARY_OR_SUPPLEMENTARY_RDS++;
+    } else if (!r.getReadPairedFlag() || r.getMateUnmappedFlag()) {
+      metrics.UNPAIRED_READS_EXAMINED++;
+      if (duplicate) {
+        metrics.UNPAIRED_READ_DUPLICATES++;
+      }
+    } else {
+      metrics.READ_PAIRS_EXAMINED++;
+      if (duplicate) {
+        metrics.READ_PAIR_DUPLICATES++;
+      }
+    }
+  }
+
+  /**
+   * Write the metrics file.
+   *
+   * @param metrics the metrics of each library
+   * @param metricsFile the metrics file
+   * @throws IOException if an error occurs while writing the file
+   */
+  private static void writeMetrics(
+      final Map<String, DuplicationMetrics> metrics, final DataFile metricsFile)
+      throws IOException {
+
+    final MetricsFile<DuplicationMetrics, Double> file = new MetricsFile<>();
+
+    for (DuplicationMetrics m : metrics.values()) {
+      m.READ_PAIRS_EXAMINED /= 2;
+      m.READ_PAIR_DUPLICATES /= 2;
+      m.calculateDerivedFields();
+      file.addMetric(m);
+    }
+
+    try (Writer writer = new OutputStreamWriter(metricsFile.create(), StandardCharsets.UTF_8)) {
+      file.write(writer);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static SamReader openReader(final DataFile file) throws IOException {
+
+    return SamReaderFactory.makeDefault().open(SamInputResource.of(file.open()));
+  }
+
+  /**
+   * Test if the alignments of a SAM file are grouped by query name.
+   *
+   * @param header the SAM header
+   * @return true if the alignments are grouped by query name
+   */
+  private static boolean isQueryNameMode(final SAMFileHeader header) {
+
+    return header.getSortOrder() == SAMFileHeader.SortOrder.queryname
+        || header.getGroupOrder() == SAMFileHeader.GroupOrder.query;
+  }
+
+  /**
+   * Get the ids of the libraries.
+   *
+   * @param header the SAM header
+   * @return a map with the ids of the libraries
+   */
+  private static Map<String, Integer> libraryIds(final SAMFileHeader header) {
+
+    final Map<String, Integer> result = new HashMap<>();
+    result.put(UNKNOWN_LIBRARY, 0);
+
+    for (SAMReadGroupRecord rg : header.getReadGroups()) {
+      if (rg.getLibrary() != null) {
+        result.putIfAbsent(rg.getLibrary(), result.size());
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Get the library name of a SAM record.
+   *
+   * @param r the SAM record
+   * @return the library name of the record
+   */
+  private static String libraryName(final SAMRecord r) {
+
+    final SAMReadGroupRecord rg = r.getReadGroup();
+
+    return rg == null || rg.getLibrary() == null ? UNKNOWN_LIBRARY : rg.getLibrary();
+  }
+
+  private static void checkIndex(final long index) throws IOException {
+
+    if (index > Integer.MAX_VALUE) {
+      throw new IOException("Too many alignments in the SAM file to mark the duplicates");
+    }
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param threads number of threads to use
+   * @param removeDuplicates true if the duplicates must be removed instead of marked
+   * @param sort true if the output file must be sorted by coordinate
+   * @param tmpDir temporary directory used to sort the output file
+   */
+  public DuplicateMarker(
+      final int threads, final boolean removeDuplicates, final boolean sort, final File tmpDir) {
+
+    this.threads = threads;
+    this.removeDuplicates = removeDuplicates;
+    this.sort = sort;
+    this.tmpDir = tmpDir;
+  }
+}
@@ -16,6 +16,7 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskResult;
 import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
@@ -24,11 +25,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import picard.sam.MergeSamFiles;
 
 /**
- * This class merges SAM files of input of the same experiment. It uses Picard's MergeSamFiles to
- * merge SAM files from inputs of the same experiment.
+ * This class merges SAM files of input of the same experiment. The SAM files are merged like
+ * Picard's MergeSamFiles, the input files are parsed concurrently.
  *
  * @author Celine Hernandez - CSB lab - ENS - Paris
  */
@@ -50,7 +50,8 @@ public class MergeInputRepLocalModule extends AbstractModule {
   /** A short description of the tool and what is done in the step. */
   @Override
   public String getDescription() {
-    return "This step merges Input files for each experiment. " + "It uses Picard's MergeSamFiles.";
+    return "This step merges Input files for each experiment. "
+        + "The files are merged like Picard's MergeSamFiles.";
   }
 
   /** Version. */
@@ -189,11 +190,10 @@ public class MergeInputRepLocalModule extends AbstractModule {
         }
       }
 
-      // Use Picard's MegerSamFiles to sort and merge (only if more than one
-      // input exists)
-      if (expData.size() > 2) {
+      // Merge and sort the inputs (only if more than one input exists)
+      if (expData.size() > 1) {
 
-        getLogger().info("Running Picard's MergeSamFiles for experiment  " + experimentName);
+        getLogger().info("Merge the inputs of experiment " + experimentName);
 
         // Get file name created by Eoulsan
         final Data outputData =
@@ -201,17 +201,17 @@ public class MergeInputRepLocalModule extends AbstractModule {
                 expData.get(0).getMetadata().get("Name").replaceAll("[^a-zA-Z0-9]", ""));
         outputData.getMetadata().set(expData.get(0).getMetadata());
 
-        String[] arguments = new String[expData.size() + 2];
-        arguments[0] = "OUTPUT=" + outputData.getDataFile();
-        arguments[1] = "QUIET=true";
-
-        int startPos = 2;
+        final List<DataFile> inputFiles = new ArrayList<>();
         for (Data anInputData : expData) {
-          arguments[startPos++] = "INPUT=" + anInputData.getDataFile();
+          inputFiles.add(anInputData.getDataFile());
         }
 
-        // Start MergeSamFiles
-        new MergeSamFiles().instanceMain(arguments);
+        try {
+          new SAMFilesMerger(context.getLocalTempDirectory())
+              .merge(inputFiles, outputData.getDataFile());
+        } catch (IOException e) {
+          return status.createTaskResult(e);
+        }
       }
     }
 
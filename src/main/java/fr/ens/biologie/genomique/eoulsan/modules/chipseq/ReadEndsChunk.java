@@ -0,0 +1,471 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
+
+import java.util.Arrays;
+
+/**
+ * This class define the read ends of the alignments of a reference sequence that are used to
+ * find the duplicates. The ends are stored in primitive arrays and the duplicates are found the
+ * same way as Picard's MarkDuplicates: the fragments and the pairs with the same library, 5'
+ * unclipped positions and orientations are duplicates, only the end with the best score is kept.
+ * When a group of fragments contains an end of a pair, all the fragments of the group that are
+ * not paired are duplicates.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class ReadEndsChunk {
+
+  /** Orientations of the fragments. */
+  static final int F = 0;
+
+  static final int R = 1;
+
+  /** Orientations of the pairs. */
+  static final int FF = 2;
+
+  static final int FR = 3;
+
+  static final int RF = 4;
+
+  static final int RR = 5;
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final int referenceIndex;
+
+  // Fragments
+  private long[] fragmentKeys = new long[INITIAL_CAPACITY];
+  private long[] fragmentIds = new long[INITIAL_CAPACITY];
+  private short[] fragmentScores = new short[INITIAL_CAPACITY];
+  private boolean[] fragmentPaired = new boolean[INITIAL_CAPACITY];
+  private int fragmentCount;
+
+  // Pairs
+  private long[] pairKeys1 = new long[INITIAL_CAPACITY];
+  private long[] pairKeys2 = new long[INITIAL_CAPACITY];
+  private long[] pairIds1 = new long[INITIAL_CAPACITY];
+  private long[] pairIds2 = new long[INITIAL_CAPACITY];
+  private short[] pairScores = new short[INITIAL_CAPACITY];
+  private int pairCount;
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the index of the reference sequence of the chunk.
+   *
+   * @return the index of the reference sequence
+   */
+  int getReferenceIndex() {
+    return this.referenceIndex;
+  }
+
+  /**
+   * Get the number of ends in the chunk.
+   *
+   * @return the number of ends in the chunk
+   */
+  long size() {
+    return (long) this.fragmentCount + this.pairCount;
+  }
+
+  //
+  // Add methods
+  //
+
+  /**
+   * Add a fragment.
+   *
+   * @param libraryId library id
+   * @param coordinate 5' unclipped coordinate of the read
+   * @param orientation orientation of the read, F or R
+   * @param id id of the read
+   * @param score score of the read
+   * @param paired true if the read is paired and its mate is mapped
+   */
+  void addFragment(
+      final int libraryId,
+      final int coordinate,
+      final int orientation,
+      final long id,
+      final short score,
+      final boolean paired) {
+
+    if (this.fragmentCount == this.fragmentKeys.length) {
+      final int capacity = newCapacity(this.fragmentCount);
+      this.fragmentKeys = Arrays.copyOf(this.fragmentKeys, capacity);
+      this.fragmentIds = Arrays.copyOf(this.fragmentIds, capacity);
+      this.fragmentScores = Arrays.copyOf(this.fragmentScores, capacity);
+      this.fragmentPaired = Arrays.copyOf(this.fragmentPaired, capacity);
+    }
+
+    final int i = this.fragmentCount++;
+    this.fragmentKeys[i] = ((long) libraryId << 35) | (unsigned(coordinate) << 3) | orientation;
+    this.fragmentIds[i] = id;
+    this.fragmentScores[i] = score;
+    this.fragmentPaired[i] = paired;
+  }
+
+  /**
+   * Add a pair. The first read of the pair is the read with the lowest position, the reference of
+   * the first read is the reference of the chunk.
+   *
+   * @param libraryId library id
+   * @param coordinate1 5' unclipped coordinate of the first read
+   * @param referenceIndex2 reference index of the second read
+   * @param coordinate2 5' unclipped coordinate of the second read
+   * @param orientation orientation of the pair, FF, FR, RF or RR
+   * @param id1 id of the first read
+   * @param id2 id of the second read
+   * @param score score of the pair
+   */
+  void addPair(
+      final int libraryId,
+      final int coordinate1,
+      final int referenceIndex2,
+      final int coordinate2,
+      final int orientation,
+      final long id1,
+      final long id2,
+      final short score) {
+
+    if (this.pairCount == this.pairKeys1.length) {
+      final int capacity = newCapacity(this.pairCount);
+      this.pairKeys1 = Arrays.copyOf(this.pairKeys1, capacity);
+      this.pairKeys2 = Arrays.copyOf(this.pairKeys2, capacity);
+      this.pairIds1 = Arrays.copyOf(this.pairIds1, capacity);
+      this.pairIds2 = Arrays.copyOf(this.pairIds2, capacity);
+      this.pairScores = Arrays.copyOf(this.pairScores, capacity);
+    }
+
+    final int i = this.pairCount++;
+    this.pairKeys1[i] = ((long) libraryId << 35) | (unsigned(coordinate1) << 3) | orientation;
+    this.pairKeys2[i] = (unsigned(referenceIndex2) << 32) | unsigned(coordinate2);
+    this.pairIds1[i] = id1;
+    this.pairIds2[i] = id2;
+    this.pairScores[i] = score;
+  }
+
+  //
+  // Duplicates
+  //
+
+  /**
+   * Find the duplicates of the chunk.
+   *
+   * @return an array with the ids of the duplicates
+   */
+  long[] findDuplicates() {
+
+    final LongList result = new LongList();
+
+    findPairDuplicates(result);
+    findFragmentDuplicates(result);
+
+    return result.toArray();
+  }
+
+  /**
+   * Find the duplicates in the pairs.
+   *
+   * @param result the list of the ids of the duplicates
+   */
+  private void findPairDuplicates(final LongList result) {
+
+    final long[][] keys = {this.pairKeys1, this.pairKeys2, this.pairIds1, this.pairIds2};
+    final int[] order = sortedOrder(keys, this.pairCount);
+
+    int start = 0;
+    while (start < this.pairCount) {
+
+      // Find the end of the group of pairs with the same positions
+      final int first = order[start];
+      int end = start + 1;
+      while (end < this.pairCount
+          && this.pairKeys1[order[end]] == this.pairKeys1[first]
+          && this.pairKeys2[order[end]] == this.pairKeys2[first]) {
+        end++;
+      }
+
+      if (end - start > 1) {
+
+        final int best = best(order, start, end, this.pairScores);
+        for (int i = start; i < end; i++) {
+          if (order[i] != best) {
+            result.add(this.pairIds1[order[i]]);
+            result.add(this.pairIds2[order[i]]);
+          }
+        }
+      }
+
+      start = end;
+    }
+  }
+
+  /**
+   * Find the duplicates in the fragments.
+   *
+   * @param result the list of the ids of the duplicates
+   */
+  private void findFragmentDuplicates(final LongList result) {
+
+    final long[][] keys = {this.fragmentKeys, this.fragmentIds};
+    final int[] order = sortedOrder(keys, this.fragmentCount);
+
+    int start = 0;
+    while (start < this.fragmentCount) {
+
+      // Find the end of the group of fragments with the same position
+      final int first = order[start];
+      boolean containsPairs = this.fragmentPaired[first];
+      int end = start + 1;
+      while (end < this.fragmentCount
+          && this.fragmentKeys[order[end]] == this.fragmentKeys[first]) {
+        containsPairs |= this.fragmentPaired[order[end]];
+        end++;
+      }
+
+      if (end - start > 1) {
+
+        if (containsPairs) {
+
+          // The pairs have been processed, the fragments that are not paired are duplicates
+          for (int i = start; i < end; i++) {
+            if (!this.fragmentPaired[order[i]]) {
+              result.add(this.fragmentIds[order[i]]);
+            }
+          }
+        } else {
+
+          final int best = best(order, start, end, this.fragmentScores);
+          for (int i = start; i < end; i++) {
+            if (order[i] != best) {
+              result.add(this.fragmentIds[order[i]]);
+            }
+          }
+        }
+      }
+
+      start = end;
+    }
+  }
+
+  /**
+   * Get the end with the best score in a group. In case of equality, the first end of the group is
+   * kept.
+   *
+   * @param order the sorted order of the ends
+   * @param start start of the group in the order array
+   * @param end end (exclusive) of the group in the order array
+   * @param scores the scores of the ends
+   * @return the index of the best end
+   */
+  private static int best(final int[] order, final int start, final int end, final short[] scores) {
+
+    int result = order[start];
+    for (int i = start + 1; i < end; i++) {
+      if (scores[order[i]] > scores[result]) {
+        result = order[i];
+      }
+    }
+
+    return result;
+  }
+
+  //
+  // Sort methods
+  //
+
+  /**
+   * Get the order of the ends sorted by keys.
+   *
+   * @param keys the keys, compared in the order of the array
+   * @param count number of ends
+   * @return an array with the index of the ends in the sorted order
+   */
+  static int[] sortedOrder(final long[][] keys, final int count) {
+
+    final int[] result = new int[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = i;
+    }
+
+    sort(result, keys, 0, count);
+
+    return result;
+  }
+
+  /**
+   * Sort a range of an array of indexes using a quicksort.
+   *
+   * @param a the array of indexes
+   * @param keys the keys
+   * @param from start of the range
+   * @param to end of the range (exclusive)
+   */
+  private static void sort(final int[] a, final long[][] keys, final int from, final int to) {
+
+    int lo = from;
+    int hi = to;
+
+    while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+      final int pivot = medianOfThree(keys, a[lo], a[(lo + hi) >>> 1], a[hi - 1]);
+
+      int i = lo;
+      int j = hi - 1;
+      while (i <= j) {
+        while (compare(keys, a[i], pivot) < 0) {
+          i++;
+        }
+        while (compare(keys, a[j], pivot) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          final int tmp = a[i];
+          a[i++] = a[j];
+          a[j--] = tmp;
+        }
+      }
+
+      // Recurse on the smallest range to limit the depth of the stack
+      if (j + 1 - lo < hi - i) {
+        sort(a, keys, lo, j + 1);
+        lo = i;
+      } else {
+        sort(a, keys, i, hi);
+        hi = j + 1;
+      }
+    }
+
+    // Insertion sort for the small ranges
+    for (int i = lo + 1; i < hi; i++) {
+      final int value = a[i];
+      int j = i - 1;
+      while (j >= lo && compare(keys, a[j], value) > 0) {
+        a[j + 1] = a[j];
+        j--;
+      }
+      a[j + 1] = value;
+    }
+  }
+
+  private static int medianOfThree(final long[][] keys, final int a, final int b, final int c) {
+
+    if (compare(keys, a, b) < 0) {
+      if (compare(keys, b, c) < 0) {
+        return b;
+      }
+      return compare(keys, a, c) < 0 ? c : a;
+    }
+
+    if (compare(keys, a, c) < 0) {
+      return a;
+    }
+    return compare(keys, b, c) < 0 ? c : b;
+  }
+
+  private static int compare(final long[][] keys, final int a, final int b) {
+
+    for (long[] k : keys) {
+      final int result = Long.compare(k[a], k[b]);
+      if (result != 0) {
+        return result;
+      }
+    }
+
+    return 0;
+  }
+
+  //
+  // Utility methods
+  //
+
+  /**
+   * Get the orientation of a pair.
+   *
+   * @param read1Reverse true if the first read is on the reverse strand
+   * @param read2Reverse true if the second read is on the reverse strand
+   * @return the orientation of the pair
+   */
+  static int pairOrientation(final boolean read1Reverse, final boolean read2Reverse) {
+
+    if (read1Reverse) {
+      return read2Reverse ? RR : RF;
+    }
+
+    return read2Reverse ? FR : FF;
+  }
+
+  private static long unsigned(final int value) {
+    return value & 0xffffffffL;
+  }
+
+  private static int newCapacity(final int size) {
+
+    if (size >= Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Too many read ends for a reference sequence");
+    }
+
+    return (int) Math.min(Integer.MAX_VALUE - 8, size + (size >> 1) + 1L);
+  }
+
+  /** This class define a growable list of long values. */
+  private static final class LongList {
+
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+
+    void add(final long value) {
+
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, newCapacity(this.size));
+      }
+      this.values[this.size++] = value;
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(this.values, this.size);
+    }
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param referenceIndex index of the reference sequence of the chunk
+   */
+  ReadEndsChunk(final int referenceIndex) {
+
+    this.referenceIndex = referenceIndex;
+  }
+}
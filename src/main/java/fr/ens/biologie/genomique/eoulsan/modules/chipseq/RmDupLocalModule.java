@@ -1,8 +1,8 @@
 package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
 
-import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
 import static fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder.singleInputPort;
 import static fr.ens.biologie.genomique.eoulsan.core.OutputPortsBuilder.singleOutputPort;
+import static fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode.OWN_PARALLELIZATION;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Globals;
@@ -10,6 +10,7 @@ import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.Modules;
 import fr.ens.biologie.genomique.eoulsan.core.OutputPorts;
+import fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.core.StepConfigurationContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
@@ -19,16 +20,13 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
-import fr.ens.biologie.genomique.kenetre.io.FileUtils;
 import fr.ens.biologie.genomique.kenetre.util.Version;
-import java.io.File;
 import java.io.IOException;
 import java.util.Set;
-import picard.sam.markduplicates.MarkDuplicates;
 
 /**
- * This class removes PCR duplicates from a SAM file. It uses Picard's MarkDuplicates to either mark
- * or remove PCR duplicates.
+ * This class removes PCR duplicates from a SAM file. It uses a duplicate marker that works like
+ * Picard's MarkDuplicates to either mark or remove PCR duplicates.
  *
  * @author Celine Hernandez - CSB lab - ENS - Paris
  */
@@ -48,7 +46,7 @@ public class RmDupLocalModule extends AbstractModule {
   /** Should duplicates be removed or only annotated? */
   private boolean delete = true;
 
-  /** Should input file be sorted before? */
+  /** Should output file be sorted by coordinate? */
   private boolean sort = true;
 
   //
@@ -65,7 +63,8 @@ public class RmDupLocalModule extends AbstractModule {
   @Override
   public String getDescription() {
     return "This step removes PCR duplicates from a SAM file. "
-        + "It uses Picard's MarkDuplicates to either mark or remove them.";
+        + "It uses a duplicate marker compatible with Picard's MarkDuplicates to either mark or "
+        + "remove them.";
   }
 
   /** Version. */
@@ -114,6 +113,11 @@ public class RmDupLocalModule extends AbstractModule {
     }
   }
 
+  @Override
+  public ParallelizationMode getParallelizationMode() {
+    return OWN_PARALLELIZATION;
+  }
+
   @Override
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
@@ -126,59 +130,42 @@ public class RmDupLocalModule extends AbstractModule {
     final DataFile samFile = inData.getDataFile();
     // Get the output file
     final DataFile outputFile = outData.getDataFile();
-
-    // This will be the input file
-    File inputFile = samFile.toFile();
-
-    // If a sort is necessary
-    if (this.sort) {
-      try {
-
-        // Create a temp file
-        final File tmpSortFile =
-            FileUtils.createTempFile(
-                context.getRuntime().getSettings().getTempDirectoryFile(), "rmdupsort", ".sam");
-
-        getLogger()
-            .info("Running Picard's SortSam on " + inputFile + " with output " + tmpSortFile);
-
-        // Set up arguments
-        String[] sortArguments = new String[4];
-        sortArguments[0] = "INPUT=" + inputFile;
-        sortArguments[1] = "OUTPUT=" + tmpSortFile;
-        sortArguments[2] = "SORT_ORDER=coordinate";
-        sortArguments[3] = "QUIET=true";
-
-        // Start SortSam
-        new picard.sam.SortSam().instanceMain(sortArguments);
-
-        // Set newly created output file as input for next step
-        inputFile = tmpSortFile;
-
-      } catch (IOException ioe) {
-        return status.createTaskResult();
-      }
+    // Get the metrics file
+    final DataFile metricsFile =
+        new DataFile(outputFile.getParent(), outputFile.getName() + ".picard_metrics");
+
+    try {
+
+      // The input file does not need to be sorted, the output file is sorted if required
+      new DuplicateMarker(
+              threadCount(context),
+              this.delete,
+              this.sort,
+              context.getRuntime().getSettings().getTempDirectoryFile())
+          .markDuplicates(samFile, outputFile, metricsFile);
+
+    } catch (IOException e) {
+      return status.createTaskResult(e);
     }
 
-    getLogger()
-        .info("Running Picard's MarkDuplicates on " + inputFile + " with output " + outputFile);
+    return status.createTaskResult();
+  }
 
-    String[] arguments = new String[6];
-    arguments[0] = "INPUT=" + inputFile;
-    arguments[1] = "OUTPUT=" + outputFile;
-    arguments[2] = "REMOVE_DUPLICATES=" + this.delete;
-    arguments[3] = "ASSUME_SORTED=true";
-    arguments[4] = "METRICS_FILE=" + outputFile + ".picard_metrics";
-    arguments[5] = "QUIET=true";
+  /**
+   * Get the number of threads to use for marking the duplicates.
+   *
+   * @param context task context
+   * @return the number of threads to use
+   */
+  private static int threadCount(final TaskContext context) {
 
-    // Execute MarkDuplicates
-    new MarkDuplicates().instanceMain(arguments);
+    // Required processors in step attributes
+    int requiredProcessors = context.getCurrentStep().getRequiredProcessors();
 
-    // If a temp file was created, delete it
-    if (this.sort) {
-      inputFile.delete();
+    if (requiredProcessors > 0) {
+      return requiredProcessors;
     }
 
-    return status.createTaskResult();
+    return context.getSettings().getLocalThreadsNumber();
   }
 }
@@ -0,0 +1,311 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.io.ParallelCompressionCodecs;
+import htsjdk.samtools.MergingSamRecordIterator;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileHeader.SortOrder;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamFileHeaderMerger;
+import htsjdk.samtools.SamInputResource;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.CloseableIterator;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class define a merger of SAM files. The output file is sorted by coordinate and the headers
+ * of the input files are merged like Picard's MergeSamFiles. The input files are parsed
+ * concurrently, each one in its own thread, while the main thread merges the records. When all the
+ * input files are sorted by coordinate, the records are merged with a k-way merge, otherwise the
+ * output file is sorted.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class SAMFilesMerger {
+
+  private static final int BATCH_SIZE = 10_000;
+  private static final int QUEUE_SIZE = 4;
+
+  private final File tmpDir;
+
+  /**
+   * This class define an iterator that parses the records of a SAM file in a background thread.
+   */
+  private static final class PrefetchingIterator implements CloseableIterator<SAMRecord> {
+
+    private static final List<SAMRecord> END = new ArrayList<>(0);
+
+    private final CloseableIterator<SAMRecord> source;
+    private final BlockingQueue<List<SAMRecord>> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final CountDownLatch readDone = new CountDownLatch(1);
+    private volatile Throwable error;
+    private volatile boolean closed;
+
+    private List<SAMRecord> batch = END;
+    private int position;
+    private boolean end;
+
+    @Override
+    public boolean hasNext() {
+
+      while (this.position == this.batch.size()) {
+
+        if (this.end) {
+          return false;
+        }
+
+        try {
+          this.batch = this.queue.take();
+          this.position = 0;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SAMException("Interrupted while reading a SAM file", e);
+        }
+
+        if (this.batch == END) {
+          this.end = true;
+
+          if (this.error instanceof RuntimeException) {
+            throw (RuntimeException) this.error;
+          }
+          if (this.error instanceof Error) {
+            throw (Error) this.error;
+          }
+          if (this.error != null) {
+            throw new SAMException("Error while reading a SAM file", this.error);
+          }
+        }
+      }
+
+      return true;
+    }
+
+    @Override
+    public SAMRecord next() {
+
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return this.batch.get(this.position++);
+    }
+
+    @Override
+    public void close() {
+
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+
+      // The source must not be closed while the reading thread uses it. Emptying the queue
+      // unblocks the reading thread if it waits for free space
+      boolean interrupted = false;
+      while (this.readDone.getCount() > 0) {
+        this.queue.clear();
+        try {
+          this.readDone.await(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+
+      this.source.close();
+    }
+
+    /** Read the records of the source iterator and put them in the queue by batch. */
+    private void read() throws InterruptedException {
+
+      try {
+
+        try {
+
+          List<SAMRecord> records = new ArrayList<>(BATCH_SIZE);
+
+          while (!this.closed && this.source.hasNext()) {
+
+            records.add(this.source.next());
+
+            if (records.size() == BATCH_SIZE) {
+              this.queue.put(records);
+              records = new ArrayList<>(BATCH_SIZE);
+            }
+          }
+
+          if (!records.isEmpty()) {
+            this.queue.put(records);
+          }
+
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Throwable e) {
+          // Errors must also be sent to the consumer, otherwise it would wait forever
+          this.error = e;
+        }
+
+        if (!this.closed) {
+          this.queue.put(END);
+        }
+
+      } finally {
+        this.readDone.countDown();
+      }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param source the source iterator
+     * @param executor the executor that parses the records
+     */
+    PrefetchingIterator(final CloseableIterator<SAMRecord> source, final ExecutorService executor) {
+
+      this.source = source;
+      executor.submit(
+          () -> {
+            read();
+            return null;
+          });
+    }
+  }
+
+  /**
+   * Merge SAM files.
+   *
+   * @param inputFiles the input files
+   * @param outputFile the output file
+   * @throws IOException if an error occurs while merging the files
+   */
+  public void merge(final List<DataFile> inputFiles, final DataFile outputFile) throws IOException {
+
+    requireNonNull(inputFiles, "inputFiles argument cannot be null");
+    requireNonNull(outputFile, "outputFile argument cannot be null");
+
+    if (inputFiles.isEmpty()) {
+      throw new IllegalArgumentException("No file to merge");
+    }
+
+    getLogger().info("Merge " + inputFiles + " in " + outputFile);
+
+    final Map<SamReader, CloseableIterator<SAMRecord>> iterators = new LinkedHashMap<>();
+    final ExecutorService executor = Executors.newFixedThreadPool(inputFiles.size());
+
+    try {
+
+      boolean sorted = true;
+      final List<SAMFileHeader> headers = new ArrayList<>();
+
+      for (DataFile f : inputFiles) {
+
+        final SamReader reader = SamReaderFactory.makeDefault().open(SamInputResource.of(f.open()));
+        iterators.put(reader, new PrefetchingIterator(reader.iterator(), executor));
+
+        headers.add(reader.getFileHeader());
+        sorted &= reader.getFileHeader().getSortOrder() == SortOrder.coordinate;
+      }
+
+      // If all the files are sorted, a k-way merge is enough to create a sorted file
+      final SamFileHeaderMerger headerMerger =
+          new SamFileHeaderMerger(
+              sorted ? SortOrder.coordinate : SortOrder.unsorted, headers, false);
+      final MergingSamRecordIterator it =
+          new MergingSamRecordIterator(headerMerger, iterators, false);
+
+      // The sort order of the output must be set after the creation of the merging iterator
+      final SAMFileHeader header = headerMerger.getMergedHeader();
+      header.setSortOrder(SortOrder.coordinate);
+
+      try (it;
+          SAMFileWriter writer =
+              new SAMFileWriterFactory()
+                  .setTempDirectory(this.tmpDir)
+                  .makeSAMWriter(
+                      header,
+                      sorted,
+                      ParallelCompressionCodecs.createOutputStream(
+                          outputFile.getCompressionType(), outputFile.rawCreate()))) {
+
+        while (it.hasNext()) {
+          writer.addAlignment(it.next());
+        }
+      }
+
+    } catch (SAMException e) {
+      throw new IOException("Error while merging the SAM files: " + e.getMessage(), e);
+    } finally {
+
+      // Wait for the end of the reading threads before closing the readers
+      for (CloseableIterator<SAMRecord> it : iterators.values()) {
+        it.close();
+      }
+
+      executor.shutdownNow();
+
+      for (SamReader reader : iterators.keySet()) {
+        reader.close();
+      }
+    }
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param tmpDir temporary directory used to sort the output file
+   */
+  public SAMFilesMerger(final File tmpDir) {
+
+    this.tmpDir = tmpDir;
+  }
+}
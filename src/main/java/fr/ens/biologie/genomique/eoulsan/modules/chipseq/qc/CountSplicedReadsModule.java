@@ -5,10 +5,12 @@ import static fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder.singleInp
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.MAPPER_RESULTS_SAM;
 import static fr.ens.biologie.genomique.eoulsan.modules.mapping.MappingCounters.INPUT_ALIGNMENTS_COUNTER;
 import static fr.ens.biologie.genomique.eoulsan.modules.mapping.MappingCounters.OUTPUT_FILTERED_ALIGNMENTS_COUNTER;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
+import fr.ens.biologie.genomique.eoulsan.bio.io.ParallelSAMReader;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.core.StepConfigurationContext;
@@ -18,13 +20,12 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
+import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import fr.ens.biologie.genomique.kenetre.util.Version;
-import htsjdk.samtools.SAMRecord;
-import htsjdk.samtools.SamInputResource;
-import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -40,6 +41,8 @@ public class CountSplicedReadsModule extends AbstractModule {
 
   protected static final String COUNTER_GROUP = "sam_stats";
 
+  private static final int PAIRED_FLAG = 0x1;
+
   //
   // Overriden methods.
   //
@@ -102,45 +105,33 @@ public class CountSplicedReadsModule extends AbstractModule {
     getLogger().info("Counting entries in SAM file: " + samFile);
 
     // Create the reporter to collect information about the file content
-    final LocalReporter reporter = new LocalReporter();
+    final Reporter reporter = new LocalCounterReporter();
 
-    try {
-      // Open SAM file
-      final SamReader reader =
-          SamReaderFactory.makeDefault().open(SamInputResource.of(samFile.open()));
+    try (ParallelSAMReader reader =
+        new ParallelSAMReader(samFile.open(), context.getSettings().getLocalThreadsNumber())) {
 
       // To count total number of records
-      int recordCount = 0;
+      long recordCount = 0;
       // To count how many are spliced
-      int splicedRecords = 0;
+      long splicedRecords = 0;
       // Flag whether it's paired end data
       boolean pairedEnd = false;
 
-      for (final SAMRecord record : reader) {
+      // The chunks of the file are scanned concurrently, only the flag and cigar fields are read
+      final List<long[]> counts = new ArrayList<>();
+      reader.process(CountSplicedReadsModule::countChunk, counts::add);
+
+      for (long[] c : counts) {
 
         // single-end or paired-end mode ?
-        if (recordCount == 0) {
-          pairedEnd = record.getReadPairedFlag();
+        if (recordCount == 0 && c[0] > 0) {
+          pairedEnd = (c[2] & PAIRED_FLAG) != 0;
         }
 
-        // Increment total number of records
-        recordCount++;
-
-        // Loop through all characters of the cigar (supposedly faster using
-        // charAt() for short String)
-        String cigar = record.getCigarString();
-        for (int i = 0; i < cigar.length(); i++) {
-
-          // Increment counter if it's an 'N' (spliced read) and stop looping
-          if (cigar.charAt(i) == 'N') {
-            splicedRecords++;
-            break;
-          }
-        }
+        recordCount += c[0];
+        splicedRecords += c[1];
       }
 
-      reader.close();
-
       getLogger().info("Spliced SAM entries : " + splicedRecords);
       getLogger().info("All SAM entries : " + recordCount);
 
@@ -182,4 +173,59 @@ public class CountSplicedReadsModule extends AbstractModule {
 
     return status.createTaskResult();
   }
+
+  /**
+   * Count the records and the spliced records of a chunk of SAM lines.
+   *
+   * @param data the data
+   * @param start start of the chunk
+   * @param end end of the chunk (exclusive)
+   * @return an array with the count of records, the count of spliced records and the flag of the
+   *     first record of the chunk
+   * @throws IOException if a line is invalid
+   */
+  static long[] countChunk(final byte[] data, final int start, final int end)
+      throws IOException {
+
+    final long[] result = new long[3];
+
+    int lineStart = start;
+    while (lineStart < end) {
+
+      final int lineEnd = ParallelSAMReader.endOfLine(data, lineStart, end);
+
+      // Skip empty lines
+      if (lineEnd > lineStart && data[lineStart] != '\r') {
+
+        final int flagStart =
+            ParallelSAMReader.fieldStart(data, lineStart, lineEnd, ParallelSAMReader.FLAG_FIELD);
+        final int cigarStart =
+            ParallelSAMReader.fieldStart(data, lineStart, lineEnd, ParallelSAMReader.CIGAR_FIELD);
+
+        if (flagStart == -1 || cigarStart == -1) {
+          throw new IOException(
+              "Invalid SAM line: " + new String(data, lineStart, lineEnd - lineStart, US_ASCII));
+        }
+
+        if (result[0] == 0) {
+          result[2] = ParallelSAMReader.parseIntField(data, flagStart, lineEnd);
+        }
+
+        result[0]++;
+
+        // Increment counter if the cigar contains an 'N' (spliced read)
+        final int cigarEnd = ParallelSAMReader.fieldEnd(data, cigarStart, lineEnd);
+        for (int i = cigarStart; i < cigarEnd; i++) {
+          if (data[i] == 'N') {
+            result[1]++;
+            break;
+          }
+        }
+      }
+
+      lineStart = lineEnd + 1;
+    }
+
+    return result;
+  }
 } // End of class CountSplicedReadsStep
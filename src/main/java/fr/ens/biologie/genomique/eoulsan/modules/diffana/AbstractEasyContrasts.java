@@ -50,6 +50,7 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -202,6 +203,8 @@ public abstract class AbstractEasyContrasts {
    */
   protected void putSampleFiles() throws IOException {
 
+    final Map<String, DataFile> inputFiles = new LinkedHashMap<>();
+
     for (Sample sample : experiment.getSamples()) {
 
       // Check if the expression file related to the sample exist
@@ -213,9 +216,12 @@ public abstract class AbstractEasyContrasts {
       final DataFile inputFile = new DataFile(this.sampleFiles.get(key).getAbsolutePath());
       final String outputFilename = "expression-" + key + ".tsv";
 
-      this.executor.putInputFile(inputFile, outputFilename);
+      inputFiles.put(outputFilename, inputFile);
       this.sampleFilenames.put(key, outputFilename);
     }
+
+    // Put all the sample files in one operation
+    this.executor.putInputFiles(inputFiles);
   }
 
   /**
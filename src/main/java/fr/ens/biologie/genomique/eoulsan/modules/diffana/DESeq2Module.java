@@ -38,6 +38,7 @@ import fr.ens.biologie.genomique.eoulsan.checkers.Checker;
 import fr.ens.biologie.genomique.eoulsan.checkers.DESeq2DesignChecker;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder;
+import fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.core.StepConfigurationContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
@@ -64,6 +65,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -154,6 +156,13 @@ public class DESeq2Module extends AbstractModule {
     return builder.create();
   }
 
+  @Override
+  public ParallelizationMode getParallelizationMode() {
+
+    // The experiments are analyzed concurrently by the module
+    return ParallelizationMode.OWN_PARALLELIZATION;
+  }
+
   @Override
   public Set<Requirement> getRequirements() {
 
@@ -400,50 +409,61 @@ public class DESeq2Module extends AbstractModule {
       // Check if all the counts of the expression files are not null
       checkIfAllCountAreNullInConditions(design, sampleFiles);
 
+      // Get the experiments to analyze
+      final List<Experiment> experiments = new ArrayList<>();
       for (Experiment e : design.getExperiments()) {
 
         // Do nothing if the experiment is skipped
-        if (DesignUtils.isSkipped(e)) {
-          continue;
+        if (!DesignUtils.isSkipped(e)) {
+          experiments.add(e);
         }
-
-        // Select the version of Easy contrasts
-        AbstractEasyContrasts ec;
-        switch (this.deseq2Parameters.getEasyContrastsVersion()) {
-          case 1:
-            ec =
-                new EasyContrasts1(
-                    this.executor,
-                    stepId,
-                    design,
-                    e,
-                    sampleFiles,
-                    this.deseq2Parameters,
-                    saveScripts);
-            break;
-
-          case 2:
-            ec =
-                new EasyContrasts2(
-                    this.executor,
-                    stepId,
-                    design,
-                    e,
-                    sampleFiles,
-                    this.deseq2Parameters,
-                    annotationFile,
-                    saveScripts);
-            break;
-
-          default:
-            throw new IllegalStateException(
-                "Invalide easy-contrasts-DESeq2 version: "
-                    + this.deseq2Parameters.getEasyContrastsVersion());
-        }
-
-        // Run DEseq2
-        ec.runDEseq2(context.getOutputDirectory());
       }
+
+      final Path experimentAnnotationFile = annotationFile;
+
+      // The experiments are analyzed concurrently
+      new ExperimentExecutor(this.executor, context.getStepOutputDirectory().toFile(), context)
+          .execute(
+              experiments,
+              (e, executor) -> {
+
+                // Select the version of Easy contrasts
+                AbstractEasyContrasts ec;
+                switch (this.deseq2Parameters.getEasyContrastsVersion()) {
+                  case 1:
+                    ec =
+                        new EasyContrasts1(
+                            executor,
+                            stepId,
+                            design,
+                            e,
+                            sampleFiles,
+                            this.deseq2Parameters,
+                            saveScripts);
+                    break;
+
+                  case 2:
+                    ec =
+                        new EasyContrasts2(
+                            executor,
+                            stepId,
+                            design,
+                            e,
+                            sampleFiles,
+                            this.deseq2Parameters,
+                            experimentAnnotationFile,
+                            saveScripts);
+                    break;
+
+                  default:
+                    throw new IllegalStateException(
+                        "Invalide easy-contrasts-DESeq2 version: "
+                            + this.deseq2Parameters.getEasyContrastsVersion());
+                }
+
+                // Run DEseq2
+                ec.runDEseq2(context.getOutputDirectory());
+              });
     } catch (IOException | EoulsanException e) {
       return status.createTaskResult(e, "Error while analysis data: " + e.getMessage());
     }
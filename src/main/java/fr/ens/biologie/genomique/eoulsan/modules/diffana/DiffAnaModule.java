@@ -36,6 +36,7 @@ import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder;
 import fr.ens.biologie.genomique.eoulsan.core.Modules;
+import fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.core.StepConfigurationContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
@@ -105,6 +106,13 @@ public class DiffAnaModule extends AbstractModule {
         .create();
   }
 
+  @Override
+  public ParallelizationMode getParallelizationMode() {
+
+    // The experiments are analyzed concurrently by the module
+    return ParallelizationMode.OWN_PARALLELIZATION;
+  }
+
   @Override
   public Set<Requirement> getRequirements() {
 
@@ -24,13 +24,12 @@
 
 package fr.ens.biologie.genomique.eoulsan.modules.diffana;
 
-import static fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode.OWN_PARALLELIZATION;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ADDITIONAL_ANNOTATION_TSV;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_ODS;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_TSV;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_XLSX;
 import static fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils.getLinksFileFromSettings;
-import static fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils.loadTranslator;
+import static fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils.getSharedTranslator;
 
 import com.google.common.base.Splitter;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
@@ -52,12 +51,12 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
+import fr.ens.biologie.genomique.eoulsan.util.StreamingODSTranslatorOutputFormat;
+import fr.ens.biologie.genomique.eoulsan.util.StreamingXLSXTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.Translator;
 import fr.ens.biologie.genomique.kenetre.translator.TranslatorUtils;
-import fr.ens.biologie.genomique.kenetre.translator.io.ODSTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.io.TSVTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.io.TranslatorOutputFormat;
-import fr.ens.biologie.genomique.kenetre.translator.io.XLSXTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.util.StringUtils;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
@@ -65,7 +64,6 @@ import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -136,16 +134,7 @@ public class DiffanaResultsAnnotationModule extends AbstractModule {
   @Override
   public ParallelizationMode getParallelizationMode() {
 
-    final Collection<DataFormat> formats = this.outputFormats.values();
-
-    // XLSX and ODS file creation require lot of memory so multithreading is
-    // disable to avoid out of memory
-    if (formats.contains(ANNOTATED_EXPRESSION_RESULTS_ODS)
-        || formats.contains(ANNOTATED_EXPRESSION_RESULTS_XLSX)) {
-      return OWN_PARALLELIZATION;
-    }
-
-    // TSV creation can be multithreaded
+    // XLSX and ODS files are streamed, so the memory used does not depend on the size of the files
     return ParallelizationMode.STANDARD;
   }
 
@@ -223,9 +212,6 @@ public class DiffanaResultsAnnotationModule extends AbstractModule {
   @Override
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
-    // Avoid issue with AWT in ODF Toolkit
-    System.setProperty("javax.accessibility.assistive_technologies", "");
-
     // Get hypertext links file
     final DataFile linksFile = getLinksFileFromSettings(context.getSettings());
 
@@ -240,12 +226,12 @@ public class DiffanaResultsAnnotationModule extends AbstractModule {
         Data additionalAnnotationData = context.getInputData(ADDITIONAL_ANNOTATION_TSV);
 
         // Create translator with additional annotation file
-        translator = loadTranslator(additionalAnnotationData.getDataFile(), linksFile);
+        translator = getSharedTranslator(additionalAnnotationData.getDataFile(), linksFile);
 
       } else {
 
         // Create translator without additional annotation file
-        translator = loadTranslator(linksFile);
+        translator = getSharedTranslator(linksFile);
       }
 
     } catch (IOException e) {
@@ -317,7 +303,7 @@ public class DiffanaResultsAnnotationModule extends AbstractModule {
                 new DataFile(
                     outputDir, prefix + ANNOTATED_EXPRESSION_RESULTS_XLSX.getDefaultExtension());
             checkIfFileExists(outFile, context);
-            of = new XLSXTranslatorOutputFormat(outFile.create(), context.getLocalTempDirectory());
+            of = new StreamingXLSXTranslatorOutputFormat(outFile.create());
 
           } else if (format == ANNOTATED_EXPRESSION_RESULTS_ODS) {
 
@@ -326,7 +312,7 @@ public class DiffanaResultsAnnotationModule extends AbstractModule {
                 new DataFile(
                     outputDir, prefix + ANNOTATED_EXPRESSION_RESULTS_ODS.getDefaultExtension());
             checkIfFileExists(outFile, context);
-            of = new ODSTranslatorOutputFormat(outFile.create());
+            of = new StreamingODSTranslatorOutputFormat(outFile.create());
 
           } else {
 
@@ -187,6 +187,12 @@ public class EasyContrasts2 extends AbstractEasyContrasts {
 
     installScripts();
 
+    // Put the annotation file in the working directory of the analysis
+    if (this.annotationFile != null && Files.isRegularFile(this.annotationFile)) {
+      this.executor.putInputFile(
+          new DataFile(this.annotationFile), this.annotationFile.getFileName().toString());
+    }
+
     // Set the description of the analysis
     final String description =
         stepId()
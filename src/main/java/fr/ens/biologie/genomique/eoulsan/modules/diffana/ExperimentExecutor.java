@@ -0,0 +1,304 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.diffana;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanException;
+import fr.ens.biologie.genomique.eoulsan.core.Step;
+import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
+import fr.ens.biologie.genomique.eoulsan.design.Experiment;
+import fr.ens.biologie.genomique.eoulsan.util.r.RExecutor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class define an executor that run the R analyses of the experiments of a design. The
+ * experiments are independent, so they are analyzed concurrently, each one with its own RExecutor
+ * working in a dedicated working directory. Once all the analyses are done, the files of the
+ * working directories are moved in the output directory in the order of the experiments, so the
+ * result is the same as a sequential execution.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ExperimentExecutor {
+
+  private static final String WORKING_DIRECTORY_PREFIX = ".experiment-";
+
+  private final RExecutor executor;
+  private final Path outputDirectory;
+  private final int threads;
+
+  /** This interface define the R analysis of an experiment. */
+  public interface ExperimentAnalysis {
+
+    /**
+     * Analyze an experiment.
+     *
+     * @param experiment the experiment to analyze
+     * @param executor the RExecutor to use for the analysis
+     * @throws IOException if an error occurs while executing the analysis
+     * @throws EoulsanException if an error occurs while executing the analysis
+     */
+    void analyze(Experiment experiment, RExecutor executor) throws IOException, EoulsanException;
+  }
+
+  /**
+   * Analyze experiments.
+   *
+   * @param experiments the experiments to analyze
+   * @param analysis the analysis to perform on each experiment
+   * @throws IOException if an error occurs while executing an analysis
+   * @throws EoulsanException if an error occurs while executing an analysis
+   */
+  public void execute(final List<Experiment> experiments, final ExperimentAnalysis analysis)
+      throws IOException, EoulsanException {
+
+    requireNonNull(experiments, "experiments argument cannot be null");
+    requireNonNull(analysis, "analysis argument cannot be null");
+
+    final int threadCount = Math.min(this.threads, experiments.size());
+
+    // No need of working directories for a sequential execution
+    if (threadCount < 2) {
+      for (Experiment experiment : experiments) {
+        analysis.analyze(experiment, this.executor);
+      }
+      return;
+    }
+
+    getLogger()
+        .info("Analyze " + experiments.size() + " experiments using " + threadCount + " threads");
+
+    final List<Path> workingDirectories = new ArrayList<>();
+    final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    final List<Future<Void>> futures = new ArrayList<>();
+    int merged = 0;
+
+    try {
+
+      // Create the working directories
+      for (Experiment experiment : experiments) {
+        workingDirectories.add(
+            Files.createTempDirectory(
+                this.outputDirectory, WORKING_DIRECTORY_PREFIX + experiment.getId() + "-"));
+      }
+
+      // Submit the analyses
+      for (int i = 0; i < experiments.size(); i++) {
+
+        final Experiment experiment = experiments.get(i);
+        final RExecutor experimentExecutor =
+            this.executor.newInstance(workingDirectories.get(i).toFile());
+
+        futures.add(
+            executorService.submit(
+                () -> {
+                  analysis.analyze(experiment, experimentExecutor);
+                  return null;
+                }));
+      }
+
+      // Wait the end of the analyses and merge the results in the order of the experiments
+      Exception error = null;
+      for (int i = 0; i < experiments.size(); i++) {
+
+        final Experiment experiment = experiments.get(i);
+
+        try {
+          futures.get(i).get();
+          getLogger().info("End of the analysis of experiment: " + experiment.getName());
+        } catch (ExecutionException e) {
+
+          getLogger()
+              .severe(
+                  "Error while analyzing experiment "
+                      + experiment.getName()
+                      + ": "
+                      + e.getCause().getMessage());
+
+          if (error == null) {
+            error = toException(e.getCause());
+          } else {
+            error.addSuppressed(e.getCause());
+          }
+        }
+
+        // The files of a failed analysis are also kept
+        moveFiles(workingDirectories.get(i), this.outputDirectory);
+        Files.delete(workingDirectories.get(i));
+        merged++;
+      }
+
+      if (error instanceof IOException) {
+        throw (IOException) error;
+      }
+      if (error != null) {
+        throw (EoulsanException) error;
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EoulsanException("Analysis of the experiments interrupted", e);
+    } finally {
+      executorService.shutdownNow();
+
+      // The working directories are not left in the output directory on unexpected errors
+      for (int i = merged; i < workingDirectories.size(); i++) {
+        removeWorkingDirectory(workingDirectories.get(i), this.outputDirectory);
+      }
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Convert the cause of an ExecutionException to an IOException or an EoulsanException.
+   *
+   * @param cause the cause of the ExecutionException
+   * @return an IOException or an EoulsanException
+   */
+  private static Exception toException(final Throwable cause) {
+
+    if (cause instanceof IOException || cause instanceof EoulsanException) {
+      return (Exception) cause;
+    }
+
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+
+    return new EoulsanException(cause);
+  }
+
+  /**
+   * Move the content of a directory in another directory. Existing files are replaced and the
+   * content of existing subdirectories is merged.
+   *
+   * @param sourceDirectory the source directory
+   * @param targetDirectory the target directory
+   * @throws IOException if an error occurs while moving the files
+   */
+  private static void moveFiles(final Path sourceDirectory, final Path targetDirectory)
+      throws IOException {
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourceDirectory)) {
+
+      for (Path file : stream) {
+
+        final Path target = targetDirectory.resolve(file.getFileName());
+
+        if (Files.isDirectory(file) && Files.isDirectory(target)) {
+          moveFiles(file, target);
+          Files.delete(file);
+        } else {
+          Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  /**
+   * Move the content of a working directory in the output directory and remove the working
+   * directory. As this method is called after an error, a failure is only logged to not hide the
+   * original error.
+   *
+   * @param workingDirectory the working directory
+   * @param outputDirectory the output directory
+   */
+  private static void removeWorkingDirectory(
+      final Path workingDirectory, final Path outputDirectory) {
+
+    try {
+      moveFiles(workingDirectory, outputDirectory);
+      Files.delete(workingDirectory);
+    } catch (IOException e) {
+      getLogger()
+          .warning(
+              "Unable to remove the working directory " + workingDirectory + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Get the number of experiments to analyze concurrently. The number of experiments is limited by
+   * the processors and by the memory of the step.
+   *
+   * @param context the task context
+   * @return the number of experiments to analyze concurrently
+   */
+  private static int threadCount(final TaskContext context) {
+
+    final Step step = context.getCurrentStep();
+
+    int result =
+        step.getRequiredProcessors() > 0
+            ? step.getRequiredProcessors()
+            : context.getSettings().getLocalThreadsNumber();
+
+    final int experimentMemory = context.getSettings().getRExperimentMemory();
+    if (step.getRequiredMemory() > 0 && experimentMemory > 0) {
+      result = Math.min(result, step.getRequiredMemory() / experimentMemory);
+    }
+
+    return Math.max(1, result);
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param executor the RExecutor to use
+   * @param outputDirectory the output directory of the analyses
+   * @param context the task context
+   */
+  public ExperimentExecutor(
+      final RExecutor executor, final File outputDirectory, final TaskContext context) {
+
+    requireNonNull(executor, "executor argument cannot be null");
+    requireNonNull(outputDirectory, "outputDirectory argument cannot be null");
+    requireNonNull(context, "context argument cannot be null");
+
+    this.executor = executor;
+    this.outputDirectory = outputDirectory.toPath();
+    this.threads = threadCount(context);
+  }
+}
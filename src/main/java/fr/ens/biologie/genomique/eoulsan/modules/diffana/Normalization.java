@@ -48,6 +48,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -110,69 +111,104 @@ public class Normalization {
     final boolean saveRScript = context.getSettings().isSaveRscripts();
     final DataFile workflowOutputDir = context.getOutputDirectory();
 
+    // Get the experiments to analyze
+    final List<Experiment> experiments = new ArrayList<>();
+    for (Experiment experiment : this.design.getExperiments()) {
+
+      // Skip experiment if required in design
+      if (!DesignUtils.isSkipped(experiment)) {
+        experiments.add(experiment);
+      }
+    }
+
     try {
 
-      // create an iterator on the map values
-      for (Experiment experiment : this.design.getExperiments()) {
+      // The experiments are analyzed concurrently
+      new ExperimentExecutor(this.executor, context.getStepOutputDirectory().toFile(), context)
+          .execute(
+              experiments,
+              (experiment, executor) ->
+                  runExperiment(
+                      context, data, experiment, executor, saveRScript, workflowOutputDir));
 
-        // Skip experiment if required in design
-        if (DesignUtils.isSkipped(experiment)) {
-          continue;
-        }
+    } catch (IOException e) {
+      throw new EoulsanException("Error while running differential analysis: " + e.getMessage(), e);
+    }
+  }
 
-        getLogger().info("Experiment : " + experiment.getName());
+  /**
+   * Execute the Rnw script of an experiment.
+   *
+   * @param context Step context
+   * @param data data to process
+   * @param experiment the experiment to analyze
+   * @param executor the RExecutor to use
+   * @param saveRScript true to keep the R script
+   * @param workflowOutputDir workflow output directory
+   * @throws IOException if an error occurs while executing the script
+   * @throws EoulsanException if an error occurs while generating the script
+   */
+  private void runExperiment(
+      final TaskContext context,
+      final Data data,
+      final Experiment experiment,
+      final RExecutor executor,
+      final boolean saveRScript,
+      final DataFile workflowOutputDir)
+      throws IOException, EoulsanException {
 
-        // Open executor connection
-        executor.openConnection();
+    getLogger().info("Experiment : " + experiment.getName());
 
-        // Put input input files
-        for (Data d : data.getListElements()) {
+    // Open executor connection
+    executor.openConnection();
 
-          final int sampleId = d.getMetadata().getSampleNumber();
+    // Put input input files in one operation
+    final Map<String, DataFile> inputFiles = new LinkedHashMap<>();
+    for (Data d : data.getListElements()) {
 
-          // Check if the sample ID exists
-          if (sampleId == -1) {
-            throw new EoulsanException("No sample Id found for input file: " + d.getDataFile());
-          }
+      final int sampleId = d.getMetadata().getSampleNumber();
 
-          final String linkFilename =
-              this.expressionFilesPrefix + sampleId + this.expressionFilesSuffix;
+      // Check if the sample ID exists
+      if (sampleId == -1) {
+        throw new EoulsanException("No sample Id found for input file: " + d.getDataFile());
+      }
 
-          executor.putInputFile(d.getDataFile(), linkFilename);
-        }
+      final String linkFilename =
+          this.expressionFilesPrefix + sampleId + this.expressionFilesSuffix;
 
-        // Generate the R script
-        final String rScript = generateScript(experiment, context);
+      if (inputFiles.put(linkFilename, d.getDataFile()) != null) {
+        throw new EoulsanException("Duplicated sample Id for input file: " + d.getDataFile());
+      }
+    }
+    executor.putInputFiles(inputFiles);
 
-        // Set the description of the analysis
-        final String description =
-            context.getCurrentStep().getId()
-                + '_'
-                + experiment.getId()
-                + '-'
-                + toCompactTime(System.currentTimeMillis());
+    // Generate the R script
+    final String rScript = generateScript(experiment, context);
 
-        // Set the Sweave output
-        final String sweaveOutput =
-            context.getCurrentStep().getId() + '_' + experiment.getId() + ".tex";
+    // Set the description of the analysis
+    final String description =
+        context.getCurrentStep().getId()
+            + '_'
+            + experiment.getId()
+            + '-'
+            + toCompactTime(System.currentTimeMillis());
 
-        // Execute the R script
-        executor.executeRScript(
-            rScript, true, sweaveOutput, saveRScript, description, workflowOutputDir);
+    // Set the Sweave output
+    final String sweaveOutput =
+        context.getCurrentStep().getId() + '_' + experiment.getId() + ".tex";
 
-        // Remove input files
-        executor.removeInputFiles();
+    // Execute the R script
+    executor.executeRScript(
+        rScript, true, sweaveOutput, saveRScript, description, workflowOutputDir);
 
-        // Retrieve output files
-        executor.getOutputFiles();
+    // Remove input files
+    executor.removeInputFiles();
 
-        // Close executor connection
-        executor.closeConnection();
-      }
+    // Retrieve output files
+    executor.getOutputFiles();
 
-    } catch (IOException e) {
-      throw new EoulsanException("Error while running differential analysis: " + e.getMessage(), e);
-    }
+    // Close executor connection
+    executor.closeConnection();
   }
 
   //
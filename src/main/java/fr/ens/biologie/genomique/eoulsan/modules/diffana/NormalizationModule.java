@@ -34,6 +34,7 @@ import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
 import fr.ens.biologie.genomique.eoulsan.core.InputPortsBuilder;
 import fr.ens.biologie.genomique.eoulsan.core.Modules;
+import fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode;
 import fr.ens.biologie.genomique.eoulsan.core.Parameter;
 import fr.ens.biologie.genomique.eoulsan.core.StepConfigurationContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
@@ -92,6 +93,13 @@ public class NormalizationModule extends AbstractModule {
         .create();
   }
 
+  @Override
+  public ParallelizationMode getParallelizationMode() {
+
+    // The experiments are analyzed concurrently by the module
+    return ParallelizationMode.OWN_PARALLELIZATION;
+  }
+
   @Override
   public Set<Requirement> getRequirements() {
 
@@ -0,0 +1,185 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.expression;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.kenetre.io.CompressionType;
+import fr.ens.biologie.genomique.kenetre.util.StringUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class define a cache for the annotation files. The annotation files are read by the
+ * annotation checker and then by the expression counter of each sample. When an annotation file is
+ * compressed or is not a local file, the first reader creates an uncompressed local copy of the
+ * file that is reused by all the next readers of the file instead of downloading and uncompressing
+ * the file again.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class AnnotationFileCache {
+
+  private static AnnotationFileCache singleton;
+
+  private final ConcurrentMap<String, CompletableFuture<File>> copies = new ConcurrentHashMap<>();
+
+  /**
+   * Open an annotation file. If the file is compressed or is not a local file, the returned stream
+   * is an uncompressed local copy of the file.
+   *
+   * @param file the annotation file
+   * @return an InputStream on the uncompressed content of the file
+   * @throws IOException if an error occurs while opening the file or creating its local copy
+   */
+  public InputStream open(final DataFile file) throws IOException {
+
+    requireNonNull(file, "file argument cannot be null");
+
+    if (file.getCompressionType() == CompressionType.NONE && file.isLocalFile()) {
+      return file.open();
+    }
+
+    return Files.newInputStream(getLocalCopy(file).toPath());
+  }
+
+  /**
+   * Get the local copy of a file. The local copy is created if not exists.
+   *
+   * @param file the file
+   * @return the local copy of the file
+   * @throws IOException if an error occurs while creating the local copy
+   */
+  private File getLocalCopy(final DataFile file) throws IOException {
+
+    final String key = file.getSource();
+
+    while (true) {
+
+      final CompletableFuture<File> newFuture = new CompletableFuture<>();
+      final CompletableFuture<File> future = this.copies.putIfAbsent(key, newFuture);
+
+      // The current thread must create the local copy
+      if (future == null) {
+
+        try {
+          final File result = createLocalCopy(file);
+          newFuture.complete(result);
+
+          return result;
+        } catch (IOException | RuntimeException e) {
+          this.copies.remove(key, newFuture);
+          newFuture.completeExceptionally(e);
+          throw e;
+        }
+      }
+
+      // Wait the creation of the local copy by another thread
+      final File result;
+      try {
+        result = future.join();
+      } catch (CompletionException e) {
+        throw new IOException(
+            "Unable to create the local copy of the annotation: " + file, e.getCause());
+      }
+
+      if (result.isFile()) {
+        return result;
+      }
+
+      // The local copy has been removed, create it again
+      this.copies.remove(key, future);
+    }
+  }
+
+  /**
+   * Create the uncompressed local copy of a file.
+   *
+   * @param file the file
+   * @return the local copy of the file
+   * @throws IOException if an error occurs while creating the local copy
+   */
+  private static File createLocalCopy(final DataFile file) throws IOException {
+
+    final File tempDir =
+        EoulsanRuntime.isRuntime() ? EoulsanRuntime.getSettings().getTempDirectoryFile() : null;
+
+    final File result =
+        File.createTempFile(
+            "annotation-",
+            "-" + StringUtils.removeCompressedExtensionFromFilename(file.getName()),
+            tempDir);
+    result.deleteOnExit();
+
+    getLogger().info("Create an uncompressed local copy of " + file + " in " + result);
+
+    try (InputStream in = file.open()) {
+      Files.copy(in, result.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      if (!result.delete()) {
+        getLogger().warning("Unable to remove the incomplete local copy: " + result);
+      }
+      throw e;
+    }
+
+    return result;
+  }
+
+  //
+  // Static method
+  //
+
+  /**
+   * Get the instance of the AnnotationFileCache.
+   *
+   * @return the AnnotationFileCache object
+   */
+  public static synchronized AnnotationFileCache getInstance() {
+
+    if (singleton == null) {
+      singleton = new AnnotationFileCache();
+    }
+
+    return singleton;
+  }
+
+  //
+  // Constructor
+  //
+
+  /** Private constructor. */
+  private AnnotationFileCache() {}
+}
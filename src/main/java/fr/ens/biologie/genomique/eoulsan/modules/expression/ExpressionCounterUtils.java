@@ -38,7 +38,7 @@ public class ExpressionCounterUtils {
     requireNonNull(counter);
     requireNonNull(annotationFile);
 
-    counter.init(genomeDesc, annotationFile.open(), gtfFormat);
+    counter.init(genomeDesc, AnnotationFileCache.getInstance().open(annotationFile), gtfFormat);
   }
 
   /**
@@ -61,7 +61,8 @@ public class ExpressionCounterUtils {
     requireNonNull(counter);
     requireNonNull(annotationFile);
 
-    counter.init(genomeDescFile.open(), annotationFile.open(), gtfFormat);
+    counter.init(
+        genomeDescFile.open(), AnnotationFileCache.getInstance().open(annotationFile), gtfFormat);
   }
 
   /**
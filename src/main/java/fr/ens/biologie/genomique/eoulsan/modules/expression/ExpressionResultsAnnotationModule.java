@@ -24,19 +24,16 @@
 
 package fr.ens.biologie.genomique.eoulsan.modules.expression;
 
-import static fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode.OWN_PARALLELIZATION;
 import static fr.ens.biologie.genomique.eoulsan.core.ParallelizationMode.STANDARD;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ADDITIONAL_ANNOTATION_TSV;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_ODS;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_TSV;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.ANNOTATED_EXPRESSION_RESULTS_XLSX;
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.EXPRESSION_RESULTS_TSV;
-import static fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils.loadTranslator;
+import static fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils.getSharedTranslator;
 
 import com.google.common.base.Splitter;
-import fr.ens.biologie.genomique.eoulsan.AbstractEoulsanRuntime.EoulsanExecMode;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
-import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.annotations.HadoopCompatible;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
@@ -55,15 +52,14 @@ import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
 import fr.ens.biologie.genomique.eoulsan.util.EoulsanTranslatorUtils;
+import fr.ens.biologie.genomique.eoulsan.util.StreamingODSTranslatorOutputFormat;
+import fr.ens.biologie.genomique.eoulsan.util.StreamingXLSXTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.Translator;
 import fr.ens.biologie.genomique.kenetre.translator.TranslatorUtils;
-import fr.ens.biologie.genomique.kenetre.translator.io.ODSTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.io.TSVTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.translator.io.TranslatorOutputFormat;
-import fr.ens.biologie.genomique.kenetre.translator.io.XLSXTranslatorOutputFormat;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -140,18 +136,8 @@ public class ExpressionResultsAnnotationModule extends AbstractModule {
   @Override
   public ParallelizationMode getParallelizationMode() {
 
-    final Collection<DataFormat> formats = this.outputFormats.values();
-
-    // XLSX and ODS file creation require lot of memory so multithreading is
-    // disable in local mode to avoid out of memory when several files are
-    // processing at the same time
-    if (EoulsanRuntime.getRuntime().getMode() == EoulsanExecMode.LOCAL
-        && (formats.contains(ANNOTATED_EXPRESSION_RESULTS_ODS)
-            || formats.contains(ANNOTATED_EXPRESSION_RESULTS_XLSX))) {
-      return OWN_PARALLELIZATION;
-    }
-
-    // TSV creation can be multithreaded
+    // XLSX and ODS files are streamed and the translator is shared between the tasks, so the
+    // memory used by a task does not depend on the size of the files
     return STANDARD;
   }
 
@@ -214,14 +200,11 @@ public class ExpressionResultsAnnotationModule extends AbstractModule {
   @Override
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
-    // Avoid issue with AWT in ODF Toolkit
-    System.setProperty("javax.accessibility.assistive_technologies", "");
-
     // Get hypertext links file
     final DataFile linksFile =
         EoulsanTranslatorUtils.getLinksFileFromSettings(context.getSettings());
 
-    // Load translator
+    // Get the translator shared by all the tasks of the step
     final Translator translator;
     try {
 
@@ -231,10 +214,10 @@ public class ExpressionResultsAnnotationModule extends AbstractModule {
         final Data additionalAnnotationData = context.getInputData(ADDITIONAL_ANNOTATION_TSV);
 
         // Create translator with additional annotation file
-        translator = loadTranslator(additionalAnnotationData.getDataFile(), linksFile);
+        translator = getSharedTranslator(additionalAnnotationData.getDataFile(), linksFile);
       } else {
         // Create translator without additional annotation file
-        translator = loadTranslator(linksFile);
+        translator = getSharedTranslator(linksFile);
       }
 
     } catch (IOException e) {
@@ -264,9 +247,9 @@ public class ExpressionResultsAnnotationModule extends AbstractModule {
         final TranslatorOutputFormat of;
 
         if (format == ANNOTATED_EXPRESSION_RESULTS_XLSX) {
-          of = new XLSXTranslatorOutputFormat(outFile.create(), context.getLocalTempDirectory());
+          of = new StreamingXLSXTranslatorOutputFormat(outFile.create());
         } else if (format == ANNOTATED_EXPRESSION_RESULTS_ODS) {
-          of = new ODSTranslatorOutputFormat(outFile.create());
+          of = new StreamingODSTranslatorOutputFormat(outFile.create());
         } else {
           of = new TSVTranslatorOutputFormat(outFile.create());
         }
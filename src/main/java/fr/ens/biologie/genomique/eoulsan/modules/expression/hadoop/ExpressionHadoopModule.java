@@ -72,6 +72,7 @@ import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.net.InetAddress;
 import java.nio.file.Files;
+import java.util.List;
 import java.util.Set;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -144,12 +145,8 @@ public class ExpressionHadoopModule extends AbstractExpressionModule {
 
       // Paired-end pre-processing
       if (pairedEnd) {
-        MapReduceUtils.submitAndWaitForJob(
-            createPairedEndJob(conf, alignmentsData, genomeDescriptionData),
-            alignmentsData.getName(),
-            CommonHadoop.CHECK_COMPLETION_TIME,
-            status,
-            COUNTER_GROUP);
+        final Job pairedEndJob = createPairedEndJob(conf, alignmentsData, genomeDescriptionData);
+        MapReduceUtils.submitAndWaitForJobs(List.of(pairedEndJob), status, COUNTER_GROUP);
       }
 
       // Create the expression job
@@ -165,8 +162,7 @@ public class ExpressionHadoopModule extends AbstractExpressionModule {
               pairedEnd);
 
       // Compute map-reduce part of the expression computation
-      MapReduceUtils.submitAndWaitForJob(
-          job, alignmentsData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, COUNTER_GROUP);
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, COUNTER_GROUP);
 
       final long mapReduceEndTime = System.currentTimeMillis();
       getLogger()
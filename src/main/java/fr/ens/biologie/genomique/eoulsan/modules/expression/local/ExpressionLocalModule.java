@@ -38,11 +38,11 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.expression.AbstractExpressionModule;
 import fr.ens.biologie.genomique.eoulsan.modules.expression.ExpressionCounterUtils;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.KenetreException;
 import fr.ens.biologie.genomique.kenetre.bio.expressioncounter.ExpressionCounter;
 import fr.ens.biologie.genomique.kenetre.bio.io.CountsWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVCountsWriter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -74,7 +74,7 @@ public class ExpressionLocalModule extends AbstractExpressionModule {
       final ExpressionCounter counter = getExpressionCounter();
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      final Reporter reporter = new LocalCounterReporter();
 
       // Get annotation file
       final DataFile annotationFile = featuresAnnotationData.getDataFile();
@@ -0,0 +1,763 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.mapping;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.Globals;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.data.DataFileMetadata;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * This class define a node-wide cache of unpacked mapper indexes. Each index is unpacked only once
+ * per node in a directory named after its checksum and shared by all the tasks that run on the
+ * node. The processes that use an index hold a lease on it, a lease is a locked file in the
+ * references directory of the index, so the leases of crashed processes are automatically
+ * discarded. Indexes without lease and not used since a given time can be evicted. In local mode,
+ * the cache can be persistent between workflows and limited in size. Only the unpacked files are
+ * shared: each task still starts its own mapper process that loads the index in memory.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class MapperIndexCache {
+
+  static final String MAPPER_INDEX_DIR_PREFIX = Globals.APP_NAME + "-mapper-index-";
+  private static final String LAST_USED_FILENAME =
+      Globals.APP_NAME.toUpperCase(Globals.DEFAULT_LOCALE) + "_LAST_USED";
+  private static final String LOCK_SUFFIX = ".lock";
+  private static final String REFS_SUFFIX = ".refs";
+  private static final String TMP_SUFFIX = ".tmp-";
+  private static final String CHECKSUMS_DIR = "checksums";
+
+  private static final AtomicInteger LEASE_COUNT = new AtomicInteger();
+
+  // File locks are held by the whole JVM, so threads of the same JVM must also be synchronized
+  private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+  // Lease files of the current JVM. File locks are held per process, so closing another channel
+  // on one of these files would release the lease: their lock must never be probed
+  private static final Set<Path> JVM_LEASES = ConcurrentHashMap.newKeySet();
+
+  private final Path cacheDirectory;
+
+  /**
+   * This class define a lease on a mapper index. The index will not be evicted until the lease is
+   * released.
+   */
+  public static final class Lease implements Closeable {
+
+    private final Path indexDirectory;
+    private final Path refFile;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final boolean unpacked;
+
+    /**
+     * Get the directory of the unpacked index.
+     *
+     * @return the directory of the unpacked index
+     */
+    public File getIndexDirectory() {
+      return this.indexDirectory.toFile();
+    }
+
+    /**
+     * Test if the index has been unpacked when acquiring the lease.
+     *
+     * @return true if the index has been unpacked when acquiring the lease
+     */
+    public boolean isUnpacked() {
+      return this.unpacked;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+      if (!this.channel.isOpen()) {
+        return;
+      }
+
+      touch(this.indexDirectory);
+
+      try {
+        this.lock.release();
+      } finally {
+        try {
+          this.channel.close();
+          Files.deleteIfExists(this.refFile);
+        } finally {
+          JVM_LEASES.remove(this.refFile);
+        }
+      }
+    }
+
+    private Lease(
+        final Path indexDirectory,
+        final Path refFile,
+        final FileChannel channel,
+        final FileLock lock,
+        final boolean unpacked) {
+
+      this.indexDirectory = indexDirectory;
+      this.refFile = refFile;
+      this.channel = channel;
+      this.lock = lock;
+      this.unpacked = unpacked;
+    }
+  }
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the cache directory.
+   *
+   * @return the cache directory
+   */
+  public File getCacheDirectory() {
+    return this.cacheDirectory.toFile();
+  }
+
+  /**
+   * Get the directory of an index in the cache.
+   *
+   * @param mapperName the name of the mapper
+   * @param indexChecksum the checksum of the index archive
+   * @return the path of the directory of the index
+   */
+  public File getIndexDirectory(final String mapperName, final String indexChecksum) {
+
+    return indexDirectory(mapperName, indexChecksum).toFile();
+  }
+
+  private Path indexDirectory(final String mapperName, final String indexChecksum) {
+
+    requireNonNull(mapperName, "mapperName argument cannot be null");
+    requireNonNull(indexChecksum, "indexChecksum argument cannot be null");
+
+    return this.cacheDirectory.resolve(
+        MAPPER_INDEX_DIR_PREFIX + mapperName + "-index-" + indexChecksum);
+  }
+
+  //
+  // Lease methods
+  //
+
+  /**
+   * Acquire a lease on a mapper index. If the index is not already in the cache, the archive is
+   * unpacked in a temporary directory that is atomically renamed once the unpacking is done. Only
+   * the processes that require the same index wait during the unpacking.
+   *
+   * @param mapperName the name of the mapper
+   * @param indexChecksum the checksum of the index archive
+   * @param archiveIndexFile the index archive
+   * @return a lease on the unpacked index
+   * @throws IOException if an error occurs while unpacking the index
+   */
+  public Lease acquire(
+      final String mapperName, final String indexChecksum, final DataFile archiveIndexFile)
+      throws IOException {
+
+    requireNonNull(archiveIndexFile, "archiveIndexFile argument cannot be null");
+
+    final Path indexDir = indexDirectory(mapperName, indexChecksum);
+    final Path refsDir = sibling(indexDir, REFS_SUFFIX);
+    boolean unpacked = false;
+
+    final ReentrantLock jvmLock = jvmLock(indexDir);
+    jvmLock.lock();
+
+    try (FileChannel lockChannel = openLockChannel(indexDir);
+        FileLock indexLock = lockChannel.lock()) {
+
+      if (!Files.isDirectory(indexDir)) {
+
+        final long startTime = System.currentTimeMillis();
+        final Path tmpDir = sibling(indexDir, TMP_SUFFIX + processId());
+
+        // Remove the remains of a previous failed unpacking
+        deleteRecursively(tmpDir);
+
+        try (InputStream in = archiveIndexFile.open()) {
+          unzip(in, tmpDir);
+        }
+
+        Files.move(tmpDir, indexDir, StandardCopyOption.ATOMIC_MOVE);
+        unpacked = true;
+
+        getLogger()
+            .info(
+                "Unpack "
+                    + archiveIndexFile
+                    + " mapper index in "
+                    + indexDir
+                    + " in "
+                    + (System.currentTimeMillis() - startTime)
+                    + " ms");
+      }
+
+      // Create the lease while the index lock is held to avoid eviction
+      Files.createDirectories(refsDir);
+      final Path refFile =
+          leasePath(
+              refsDir.resolve(processId() + "-" + LEASE_COUNT.incrementAndGet() + LOCK_SUFFIX));
+
+      // Register the lease before creating its file so it is never probed by this JVM
+      JVM_LEASES.add(refFile);
+
+      try {
+        final FileChannel channel =
+            FileChannel.open(refFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        final FileLock lock;
+        try {
+          lock = channel.lock();
+        } catch (IOException | RuntimeException e) {
+          channel.close();
+          throw e;
+        }
+
+        touch(indexDir);
+
+        return new Lease(indexDir, refFile, channel, lock, unpacked);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(refFile);
+        JVM_LEASES.remove(refFile);
+        throw e;
+      }
+    } finally {
+      jvmLock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of live leases on an index. The index lock is held while counting, as the lease
+   * files of dead processes are removed and a lease may be under creation.
+   *
+   * @param mapperName the name of the mapper
+   * @param indexChecksum the checksum of the index archive
+   * @return the number of live leases on the index
+   * @throws IOException if an error occurs while counting the leases
+   */
+  public int getLeaseCount(final String mapperName, final String indexChecksum)
+      throws IOException {
+
+    final Path indexDir = indexDirectory(mapperName, indexChecksum);
+
+    final ReentrantLock jvmLock = jvmLock(indexDir);
+    jvmLock.lock();
+
+    try (FileChannel lockChannel = openLockChannel(indexDir);
+        FileLock indexLock = lockChannel.lock()) {
+
+      return liveLeaseCount(indexDir);
+    } finally {
+      jvmLock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of leases held by the current JVM on the indexes of the cache.
+   *
+   * @return the number of leases held by the current JVM
+   */
+  public int getJVMLeaseCount() {
+
+    final Path dir = leasePath(this.cacheDirectory);
+    int count = 0;
+
+    for (Path refFile : JVM_LEASES) {
+      if (refFile.startsWith(dir)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  //
+  // Eviction methods
+  //
+
+  /**
+   * Remove the indexes of the cache that have no lease and that have not been used since a given
+   * time.
+   *
+   * @param maxIdleTime maximal idle time in milliseconds
+   * @return the number of removed indexes
+   */
+  public int evictIdle(final long maxIdleTime) {
+
+    int count = 0;
+    final long now = System.currentTimeMillis();
+
+    for (Path indexDir : listIndexDirectories()) {
+
+      if (now - lastUsed(indexDir) > maxIdleTime && evict(indexDir, maxIdleTime)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Remove the least recently used indexes without lease until the size of the cache is lower than
+   * a maximal size.
+   *
+   * @param maxSize maximal size of the cache in bytes
+   * @return the number of removed indexes
+   */
+  public int evictToSize(final long maxSize) {
+
+    final List<Path> indexDirs = listIndexDirectories();
+    final Map<Path, Long> sizes = new HashMap<>();
+    long totalSize = 0;
+
+    for (Path indexDir : indexDirs) {
+      final long size = directorySize(indexDir);
+      sizes.put(indexDir, size);
+      totalSize += size;
+    }
+
+    if (totalSize <= maxSize) {
+      return 0;
+    }
+
+    // Sort the indexes from the least recently used
+    indexDirs.sort(Comparator.comparingLong(MapperIndexCache::lastUsed));
+
+    int count = 0;
+    for (Path indexDir : indexDirs) {
+
+      if (totalSize <= maxSize) {
+        break;
+      }
+
+      if (evict(indexDir, -1)) {
+        totalSize -= sizes.get(indexDir);
+        count++;
+      }
+    }
+
+    if (totalSize > maxSize) {
+      getLogger()
+          .warning(
+              "The mapper index cache ("
+                  + this.cacheDirectory
+                  + ") is larger than its maximal size, all the remaining indexes are in use");
+    }
+
+    return count;
+  }
+
+  /**
+   * Remove an index from the cache if it is idle. The lock of the index is not waited, an index
+   * currently unpacked or leased by another process is never removed.
+   *
+   * @param indexDir the index directory
+   * @param maxIdleTime maximal idle time in milliseconds
+   * @return true if the index has been removed
+   */
+  boolean evict(final Path indexDir, final long maxIdleTime) {
+
+    final ReentrantLock jvmLock = jvmLock(indexDir);
+    if (!jvmLock.tryLock()) {
+      return false;
+    }
+
+    try (FileChannel lockChannel = openLockChannel(indexDir)) {
+
+      final FileLock indexLock;
+      try {
+        indexLock = lockChannel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        return false;
+      }
+
+      if (indexLock == null) {
+        return false;
+      }
+
+      try {
+
+        // Second check with the lock on the index
+        if (System.currentTimeMillis() - lastUsed(indexDir) <= maxIdleTime
+            || liveLeaseCount(indexDir) > 0) {
+          return false;
+        }
+
+        getLogger().info("Remove unused mapper index directory: " + indexDir);
+
+        // Move the directory before removing it to never expose a partial index
+        final Path trashDir = sibling(indexDir, TMP_SUFFIX + "evicted-" + processId());
+        Files.move(indexDir, trashDir, StandardCopyOption.ATOMIC_MOVE);
+        deleteRecursively(trashDir);
+        deleteRecursively(sibling(indexDir, REFS_SUFFIX));
+
+        return true;
+      } finally {
+        indexLock.release();
+      }
+
+    } catch (IOException e) {
+      getLogger()
+          .warning(
+              "Cannot remove unused mapper index directory (" + indexDir + "): " + e.getMessage());
+      return false;
+    } finally {
+      jvmLock.unlock();
+    }
+  }
+
+  /**
+   * List the index directories of the cache.
+   *
+   * @return a list with the index directories of the cache
+   */
+  List<Path> listIndexDirectories() {
+
+    final List<Path> result = new ArrayList<>();
+
+    if (!Files.isDirectory(this.cacheDirectory)) {
+      return result;
+    }
+
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(
+            this.cacheDirectory,
+            p -> {
+              final String name = p.getFileName().toString();
+              return Files.isDirectory(p)
+                  && name.startsWith(MAPPER_INDEX_DIR_PREFIX)
+                  && !name.contains(TMP_SUFFIX)
+                  && !name.endsWith(REFS_SUFFIX);
+            })) {
+
+      for (Path p : stream) {
+        result.add(p);
+      }
+    } catch (IOException e) {
+      getLogger().warning("Cannot list mapper indexes in " + this.cacheDirectory);
+    }
+
+    return result;
+  }
+
+  /**
+   * Get the checksum of an index archive. The checksum is computed from the content of the archive
+   * and saved in the cache, so it is only computed again if the size or the modification time of
+   * the archive change.
+   *
+   * @param archiveIndexFile the index archive
+   * @return the checksum of the archive as an hexadecimal string
+   * @throws IOException if an error occurs while computing the checksum
+   */
+  public String archiveChecksum(final DataFile archiveIndexFile) throws IOException {
+
+    requireNonNull(archiveIndexFile, "archiveIndexFile argument cannot be null");
+
+    final DataFileMetadata md = archiveIndexFile.getMetaData();
+    final String archiveKey =
+        digest(
+            new ByteArrayInputStream(
+                (archiveIndexFile.getSource()
+                        + '\t'
+                        + md.getContentLength()
+                        + '\t'
+                        + md.getLastModified())
+                    .getBytes(StandardCharsets.UTF_8)));
+
+    final Path checksumFile = this.cacheDirectory.resolve(CHECKSUMS_DIR).resolve(archiveKey);
+
+    if (Files.isRegularFile(checksumFile)) {
+      return Files.readString(checksumFile, StandardCharsets.UTF_8).trim();
+    }
+
+    final String result;
+    try (InputStream in = archiveIndexFile.open()) {
+      result = digest(in);
+    }
+
+    // Atomically save the checksum
+    Files.createDirectories(checksumFile.getParent());
+    final Path tmpFile = sibling(checksumFile, TMP_SUFFIX + processId());
+    Files.writeString(tmpFile, result, StandardCharsets.UTF_8);
+    Files.move(
+        tmpFile, checksumFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    return result;
+  }
+
+  /**
+   * Get the last time an index has been used.
+   *
+   * @param indexDir the index directory
+   * @return the last time the index has been used in milliseconds since the epoch
+   */
+  static long lastUsed(final Path indexDir) {
+
+    final File f = indexDir.resolve(LAST_USED_FILENAME).toFile();
+
+    return f.exists() ? f.lastModified() : indexDir.toFile().lastModified();
+  }
+
+  //
+  // Utility methods
+  //
+
+  /**
+   * Count the live leases of an index. The lease files of dead processes are removed. The lease
+   * files of the current JVM are counted without being opened, as closing a channel on a locked
+   * file releases all the locks of the process on the file.
+   *
+   * @param indexDir the index directory
+   * @return the number of live leases
+   * @throws IOException if an error occurs while reading the leases
+   */
+  private static int liveLeaseCount(final Path indexDir) throws IOException {
+
+    final Path refsDir = sibling(indexDir, REFS_SUFFIX);
+
+    if (!Files.isDirectory(refsDir)) {
+      return 0;
+    }
+
+    int count = 0;
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(refsDir)) {
+      for (Path refFile : stream) {
+
+        // The lease is owned by the current JVM
+        if (JVM_LEASES.contains(leasePath(refFile))) {
+          count++;
+          continue;
+        }
+
+        try (FileChannel channel = FileChannel.open(refFile, StandardOpenOption.WRITE)) {
+
+          final FileLock lock = channel.tryLock();
+
+          if (lock == null) {
+            count++;
+          } else {
+
+            // The process that owns the lease is dead
+            lock.release();
+            Files.deleteIfExists(refFile);
+          }
+        } catch (IOException e) {
+          // The lease file has been removed in the meantime
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Update the last used time of an index.
+   *
+   * @param indexDir the index directory
+   */
+  private static void touch(final Path indexDir) {
+
+    final Path f = indexDir.resolve(LAST_USED_FILENAME);
+
+    try {
+      if (!Files.exists(f)) {
+        Files.createFile(f);
+      }
+      if (!f.toFile().setLastModified(System.currentTimeMillis())) {
+        getLogger().warning("Unable to set the modification time of the file: " + f);
+      }
+    } catch (IOException e) {
+      getLogger()
+          .warning(
+              "Cannot update the timestamp of the last usage of the mapper index: "
+                  + e.getMessage());
+    }
+  }
+
+  private static ReentrantLock jvmLock(final Path indexDir) {
+
+    return JVM_LOCKS.computeIfAbsent(
+        indexDir.toAbsolutePath().normalize(), k -> new ReentrantLock());
+  }
+
+  private FileChannel openLockChannel(final Path indexDir) throws IOException {
+
+    Files.createDirectories(this.cacheDirectory);
+
+    return FileChannel.open(
+        sibling(indexDir, LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+  }
+
+  private static Path leasePath(final Path path) {
+
+    return path.toAbsolutePath().normalize();
+  }
+
+  private static Path sibling(final Path indexDir, final String suffix) {
+
+    return indexDir.resolveSibling(indexDir.getFileName() + suffix);
+  }
+
+  private static long directorySize(final Path dir) {
+
+    try (Stream<Path> walk = Files.walk(dir)) {
+      return walk.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+    } catch (IOException | UncheckedIOException e) {
+      return 0;
+    }
+  }
+
+  private static String digest(final InputStream in) throws IOException {
+
+    final MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    final byte[] buffer = new byte[64 * 1024];
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      md.update(buffer, 0, n);
+    }
+
+    return new BigInteger(1, md.digest()).toString(16);
+  }
+
+  private static String processId() {
+
+    return ManagementFactory.getRuntimeMXBean().getName().replace('@', '-');
+  }
+
+  /**
+   * Unzip an archive in a directory.
+   *
+   * @param in the input stream of the archive
+   * @param outputDir output directory
+   * @throws IOException if an error occurs while unzipping the archive
+   */
+  private static void unzip(final InputStream in, final Path outputDir) throws IOException {
+
+    Files.createDirectories(outputDir);
+    final Path normalizedOutputDir = outputDir.normalize();
+
+    try (ZipInputStream zin = new ZipInputStream(in)) {
+
+      ZipEntry entry;
+      while ((entry = zin.getNextEntry()) != null) {
+
+        final Path p = normalizedOutputDir.resolve(entry.getName()).normalize();
+
+        if (!p.startsWith(normalizedOutputDir)) {
+          throw new IOException("Invalid entry in mapper index archive: " + entry.getName());
+        }
+
+        if (entry.isDirectory()) {
+          Files.createDirectories(p);
+        } else {
+          Files.createDirectories(p.getParent());
+          try (OutputStream out = Files.newOutputStream(p)) {
+            zin.transferTo(out);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove a directory and its content.
+   *
+   * @param path the path to remove
+   * @throws IOException if an error occurs while removing the directory
+   */
+  static void deleteRecursively(final Path path) throws IOException {
+
+    if (!Files.exists(path)) {
+      return;
+    }
+
+    try (Stream<Path> walk = Files.walk(path)) {
+      for (Path p : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(p);
+      }
+    }
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param cacheDirectory the cache directory
+   */
+  public MapperIndexCache(final File cacheDirectory) {
+
+    requireNonNull(cacheDirectory, "cacheDirectory argument cannot be null");
+
+    this.cacheDirectory = cacheDirectory.toPath();
+  }
+}
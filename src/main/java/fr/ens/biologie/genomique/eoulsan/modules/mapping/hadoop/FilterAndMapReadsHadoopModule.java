@@ -154,12 +154,9 @@ public class FilterAndMapReadsHadoopModule extends AbstractFilterAndMapReadsModu
                 inFile1.getParent(), inFile1.getBasename() + READS_TFQ.getDefaultExtension());
 
         // Convert FASTQ files to TFQ
-        MapReduceUtils.submitAndWaitForJob(
-            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount()),
-            readsData.getName(),
-            CommonHadoop.CHECK_COMPLETION_TIME,
-            status,
-            getCounterGroup());
+        final Job tfqJob =
+            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount());
+        MapReduceUtils.submitAndWaitForJobs(List.of(tfqJob), status, getCounterGroup());
 
         job =
             createJobConf(
@@ -176,8 +173,7 @@ public class FilterAndMapReadsHadoopModule extends AbstractFilterAndMapReadsModu
       }
 
       // Submit filter and map job
-      MapReduceUtils.submitAndWaitForJob(
-          job, readsData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, getCounterGroup());
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, getCounterGroup());
 
       return status.createTaskResult();
 
@@ -42,6 +42,7 @@ import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /**
@@ -57,6 +58,8 @@ public class PreTreatmentMapper extends Mapper<LongWritable, Text, Text, Text> {
   static final String FASTQ_FORMAT_KEY = Globals.PARAMETER_PREFIX + ".pretreatment.fastq.format";
 
   private String counterGroup;
+  private Counter inputCounter;
+  private Counter outputCounter;
 
   private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults();
   private final List<String> fields = new ArrayList<>();
@@ -95,6 +98,12 @@ public class PreTreatmentMapper extends Mapper<LongWritable, Text, Text, Text> {
       throw new IOException("No counter group defined");
     }
 
+    // Resolve the counters once for all the calls to map()
+    this.inputCounter =
+        context.getCounter(this.counterGroup, INPUT_RAW_READS_COUNTER.counterName());
+    this.outputCounter =
+        context.getCounter(this.counterGroup, OUTPUT_PRETREATMENT_READS_COUNTER.counterName());
+
     getLogger().info("End of setup()");
   }
 
@@ -110,7 +119,7 @@ public class PreTreatmentMapper extends Mapper<LongWritable, Text, Text, Text> {
   protected void map(final LongWritable key, final Text value, final Context context)
       throws IOException, InterruptedException {
 
-    context.getCounter(this.counterGroup, INPUT_RAW_READS_COUNTER.counterName()).increment(1);
+    this.inputCounter.increment(1);
 
     final String line = value.toString();
     this.fields.clear();
@@ -141,9 +150,7 @@ public class PreTreatmentMapper extends Mapper<LongWritable, Text, Text, Text> {
     }
 
     context.write(outKey, outValue);
-    context
-        .getCounter(this.counterGroup, OUTPUT_PRETREATMENT_READS_COUNTER.counterName())
-        .increment(1);
+    this.outputCounter.increment(1);
   }
 
   @Override
@@ -129,12 +129,9 @@ public class ReadsFilterHadoopModule extends AbstractReadsFilterModule {
                 inFile1.getParent(), inFile1.getBasename() + READS_TFQ.getDefaultExtension());
 
         // Convert FASTQ files to TFQ
-        MapReduceUtils.submitAndWaitForJob(
-            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount()),
-            inData.getName(),
-            CommonHadoop.CHECK_COMPLETION_TIME,
-            status,
-            COUNTER_GROUP);
+        final Job tfqJob =
+            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount());
+        MapReduceUtils.submitAndWaitForJobs(List.of(tfqJob), status, COUNTER_GROUP);
 
         job =
             createJobConf(
@@ -142,8 +139,7 @@ public class ReadsFilterHadoopModule extends AbstractReadsFilterModule {
       }
 
       // Submit main job
-      MapReduceUtils.submitAndWaitForJob(
-          job, inData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, COUNTER_GROUP);
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, COUNTER_GROUP);
 
       // Cleanup paired-end
       if (inData.getDataFileCount() > 1) {
@@ -50,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
@@ -72,6 +73,10 @@ public class ReadsFilterMapper extends Mapper<Text, Text, Text, Text> {
   private MultiReadFilter filter;
   private String counterGroup;
 
+  private Counter inputCounter;
+  private Counter outputCounter;
+  private Counter rejectedCounter;
+
   private final ReadSequence read1 = new ReadSequence();
   private final ReadSequence read2 = new ReadSequence();
 
@@ -112,6 +117,14 @@ public class ReadsFilterMapper extends Mapper<Text, Text, Text, Text> {
       throw new IOException("No counter group defined");
     }
 
+    // Resolve the counters once for all the calls to map()
+    this.inputCounter =
+        context.getCounter(this.counterGroup, INPUT_RAW_READS_COUNTER.counterName());
+    this.outputCounter =
+        context.getCounter(this.counterGroup, OUTPUT_FILTERED_READS_COUNTER.counterName());
+    this.rejectedCounter =
+        context.getCounter(this.counterGroup, READS_REJECTED_BY_FILTERS_COUNTER.counterName());
+
     getLogger().info("Fastq format: " + fastqFormat);
 
     // Set the filters
@@ -161,7 +174,7 @@ public class ReadsFilterMapper extends Mapper<Text, Text, Text, Text> {
   protected void map(final Text key, final Text value, final Context context)
       throws IOException, InterruptedException {
 
-    context.getCounter(this.counterGroup, INPUT_RAW_READS_COUNTER.counterName()).increment(1);
+    this.inputCounter.increment(1);
 
     final String line = value.toString();
 
@@ -184,13 +197,9 @@ public class ReadsFilterMapper extends Mapper<Text, Text, Text, Text> {
         this.outValue.set(this.read1.toTFQ());
 
         context.write(key, this.outValue);
-        context
-            .getCounter(this.counterGroup, OUTPUT_FILTERED_READS_COUNTER.counterName())
-            .increment(1);
+        this.outputCounter.increment(1);
       } else {
-        context
-            .getCounter(this.counterGroup, READS_REJECTED_BY_FILTERS_COUNTER.counterName())
-            .increment(1);
+        this.rejectedCounter.increment(1);
       }
 
     } else if (fieldsSize == 6) {
@@ -225,13 +234,9 @@ public class ReadsFilterMapper extends Mapper<Text, Text, Text, Text> {
           this.out.write(key, this.outValue, this.outputFilename2);
         }
 
-        context
-            .getCounter(this.counterGroup, OUTPUT_FILTERED_READS_COUNTER.counterName())
-            .increment(1);
+        this.outputCounter.increment(1);
       } else {
-        context
-            .getCounter(this.counterGroup, READS_REJECTED_BY_FILTERS_COUNTER.counterName())
-            .increment(1);
+        this.rejectedCounter.increment(1);
       }
     }
   }
@@ -59,6 +59,7 @@ import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -167,12 +168,9 @@ public class ReadsMapperHadoopModule extends AbstractReadsMapperModule {
                 inFile1.getParent(), inFile1.getBasename() + READS_TFQ.getDefaultExtension());
 
         // Convert FASTQ files to TFQ
-        MapReduceUtils.submitAndWaitForJob(
-            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount()),
-            readsData.getName(),
-            CommonHadoop.CHECK_COMPLETION_TIME,
-            status,
-            COUNTER_GROUP);
+        final Job tfqJob =
+            PairedEndFastqToTfq.convert(conf, inFile1, inFile2, tfqFile, getReducerTaskCount());
+        MapReduceUtils.submitAndWaitForJobs(List.of(tfqJob), status, COUNTER_GROUP);
 
         job =
             createJobConf(
@@ -188,8 +186,7 @@ public class ReadsMapperHadoopModule extends AbstractReadsMapperModule {
       }
 
       // Launch jobs
-      MapReduceUtils.submitAndWaitForJob(
-          job, readsData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, COUNTER_GROUP);
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, COUNTER_GROUP);
 
       // Cleanup paired-end
       if (tfqFile != null) {
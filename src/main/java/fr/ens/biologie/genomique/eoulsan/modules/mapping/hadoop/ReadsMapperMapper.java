@@ -35,9 +35,10 @@ import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.HadoopEoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.modules.mapping.MapperIndexCache;
 import fr.ens.biologie.genomique.eoulsan.util.ProcessUtils;
 import fr.ens.biologie.genomique.eoulsan.util.hadoop.HadoopReporter;
-import fr.ens.biologie.genomique.eoulsan.util.locker.DistributedLocker;
+import fr.ens.biologie.genomique.eoulsan.util.locker.FileLocker;
 import fr.ens.biologie.genomique.eoulsan.util.locker.Locker;
 import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
 import fr.ens.biologie.genomique.kenetre.bio.readmapper.EntryMapping;
@@ -51,20 +52,15 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.InetAddress;
 import java.net.URI;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.LinkedBlockingDeque;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /**
@@ -90,14 +86,12 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
       Globals.PARAMETER_PREFIX + ".mapper.zookeeper.session.timeout";
 
   private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults();
-  private static final String MAPPER_INDEX_DIR_PREFIX = Globals.APP_NAME + "-mapper-index-";
-  private static final String MAPPER_LAST_USED_FILENAME =
-      Globals.APP_NAME.toUpperCase(Globals.DEFAULT_LOCALE) + "_LAST_USED";
   private static final long DEFAULT_AGE_OF_UNUSED_MAPPER_INDEXES = 7;
-  private static final String LOCK_SUFFIX = ".lock";
 
   private String counterGroup = this.getClass().getName();
+  private Counter outputAlignmentsCounter;
   private java.nio.file.Path mapperIndexDir;
+  private MapperIndexCache.Lease indexLease;
 
   private Locker lock;
 
@@ -204,6 +198,8 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
     if (counterGroup != null) {
       this.counterGroup = counterGroup;
     }
+    this.outputAlignmentsCounter =
+        context.getCounter(this.counterGroup, OUTPUT_MAPPING_ALIGNMENTS_COUNTER.counterName());
 
     final boolean pairedEnd = Boolean.parseBoolean(conf.get(PAIR_END_KEY));
     final FastqFormat fastqFormat =
@@ -229,88 +225,81 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
 
     getLogger().info("Genome index compressed file (from distributed cache): " + archiveIndexFile);
 
-    // Set index directory
-    this.mapperIndexDir =
-        EoulsanRuntime.getRuntime()
-            .getTempDirectory()
-            .toPath()
-            .resolve(
-                MAPPER_INDEX_DIR_PREFIX
-                    + mapper.getName()
-                    + "-index-"
-                    + conf.get(INDEX_CHECKSUM_KEY));
-
-    getLogger().info("Genome index directory where decompressed: " + mapperIndexDir);
-
-    // Create the MapperIndex object
-    final MapperIndex mapperIndex =
-        mapperInstance.newMapperIndex(archiveIndexFile.open(), mapperIndexDir.toFile());
-
-    getLogger().info("Fastq format: " + fastqFormat);
-
-    this.lock =
-        new DistributedLocker(
-            conf.get(ZOOKEEPER_CONNECT_STRING_KEY),
-            Integer.parseInt(conf.get(ZOOKEEPER_SESSION_TIMEOUT_KEY)),
-            "/eoulsan-locks-" + InetAddress.getLocalHost().getHostName(),
-            "eoulsan-mapper-lock");
-
-    // Get Mapper arguments
-    final String mapperArguments = unDoubleQuotes(conf.get(MAPPER_ARGS_KEY));
-
-    // Get the number of threads to use
-    int mapperThreads =
-        Integer.parseInt(
-            conf.get(MAPPER_THREADS_KEY, "" + Runtime.getRuntime().availableProcessors()));
-
-    if (mapperThreads > Runtime.getRuntime().availableProcessors() || mapperThreads < 1) {
-      mapperThreads = Runtime.getRuntime().availableProcessors();
-    }
+    // Get a lease on the mapper index, the index is only unpacked once per node and shared by all
+    // the tasks of the node
+    final MapperIndexCache indexCache = new MapperIndexCache(tempDir);
+    this.indexLease =
+        indexCache.acquire(mapper.getName(), conf.get(INDEX_CHECKSUM_KEY), archiveIndexFile);
 
-    getLogger().info("Use " + mapper.getName() + " with " + mapperThreads + " threads option");
+    // The lease and the lock must be released if the setup fails as cleanup() will not be called
+    try {
+      this.mapperIndexDir = this.indexLease.getIndexDirectory().toPath();
 
-    // Update last used file timestamp for the mapper indexes clean up
-    updateLastUsedMapperIndex(this.mapperIndexDir);
+      getLogger()
+          .info(
+              "Genome index directory where decompressed: "
+                  + mapperIndexDir
+                  + (this.indexLease.isUnpacked() ? "" : " (shared with other tasks of the node)"));
 
-    context.setStatus("Wait lock");
+      // Create the MapperIndex object
+      final MapperIndex mapperIndex =
+          mapperInstance.newMapperIndex(archiveIndexFile.open(), mapperIndexDir.toFile());
 
-    // Lock if mapper
-    ProcessUtils.waitRandom(5000);
-    this.lock.lock();
+      getLogger().info("Fastq format: " + fastqFormat);
 
-    // Initialize mapping
-    this.mapping =
-        mapperIndex.newEntryMapping(
-            fastqFormat,
-            mapperArguments,
-            mapperThreads,
-            true,
-            new HadoopReporter(context),
-            this.counterGroup);
+      // Get Mapper arguments
+      final String mapperArguments = unDoubleQuotes(conf.get(MAPPER_ARGS_KEY));
 
-    // Lock if no multiple instances enabled
-    if (this.mapping.isMultipleInstancesEnabled()) {
+      // Get the number of threads to use
+      int mapperThreads =
+          Integer.parseInt(
+              conf.get(MAPPER_THREADS_KEY, "" + Runtime.getRuntime().availableProcessors()));
 
-      // Unlock
-      this.lock.unlock();
-    } else {
+      if (mapperThreads > Runtime.getRuntime().availableProcessors() || mapperThreads < 1) {
+        mapperThreads = Runtime.getRuntime().availableProcessors();
+      }
 
-      context.setStatus("Wait free JVM for running " + this.mapping.getName());
+      getLogger().info("Use " + mapper.getName() + " with " + mapperThreads + " threads option");
 
-      // Wait free JVM
-      waitFreeJVM(context);
-    }
+      // Initialize mapping, no lock is required as the index has already been unpacked
+      this.mapping =
+          mapperIndex.newEntryMapping(
+              fastqFormat,
+              mapperArguments,
+              mapperThreads,
+              true,
+              new HadoopReporter(context),
+              this.counterGroup);
 
-    if (pairedEnd) {
-      this.process = this.mapping.mapPE();
-    } else {
-      this.process = this.mapping.mapSE();
-    }
+      // Lock only if multiple instances of the mapper cannot run on the same node
+      if (!this.mapping.isMultipleInstancesEnabled()) {
 
-    this.writeHeaders = context.getTaskAttemptID().getTaskID().getId() == 0;
-    this.samResultsParserThread = startParseSAMResultsThread(this.process);
+        // The lock is only shared by the tasks of the node
+        this.lock = new FileLocker(tempDir.toPath(), "eoulsan-mapper-lock");
 
-    context.setStatus("Run " + this.mapping.getName());
+        context.setStatus("Wait lock");
+        this.lock.lock();
+
+        context.setStatus("Wait free JVM for running " + this.mapping.getName());
+
+        // Wait free JVM
+        waitFreeJVM(context);
+      }
+
+      if (pairedEnd) {
+        this.process = this.mapping.mapPE();
+      } else {
+        this.process = this.mapping.mapSE();
+      }
+
+      this.writeHeaders = context.getTaskAttemptID().getTaskID().getId() == 0;
+      this.samResultsParserThread = startParseSAMResultsThread(this.process);
+
+      context.setStatus("Run " + this.mapping.getName());
+    } catch (IOException | RuntimeException e) {
+      releaseOnSetupError(e);
+      throw e;
+    }
 
     getLogger().info("End of setup()");
   }
@@ -339,12 +328,42 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
     getLogger()
         .info(this.entriesParsed + " entries parsed in " + this.mapping.getName() + " output file");
 
+    // Release the lease on the mapper index
+    this.indexLease.close();
+
     // Clear old mapper indexes
-    removeUnusedMapperIndexes(context.getConfiguration());
+    final int evicted =
+        new MapperIndexCache(this.mapperIndexDir.getParent().toFile())
+            .evictIdle(DEFAULT_AGE_OF_UNUSED_MAPPER_INDEXES * 24 * 3600 * 1000);
+    if (evicted > 0) {
+      getLogger().info("Remove " + evicted + " unused mapper index directories");
+    }
 
     getLogger().info("End of close() of the mapper.");
   }
 
+  /**
+   * Release the lock and the lease on the mapper index after an error in setup().
+   *
+   * @param cause the error of the setup
+   */
+  private void releaseOnSetupError(final Exception cause) {
+
+    try {
+      if (this.lock != null) {
+        this.lock.unlock();
+      }
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+
+    try {
+      this.indexLease.close();
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
   //
   // Other mapping methods
   //
@@ -446,9 +465,7 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
 
         // Increment counters if not header
         this.entriesParsed++;
-        context
-            .getCounter(this.counterGroup, OUTPUT_MAPPING_ALIGNMENTS_COUNTER.counterName())
-            .increment(1);
+        this.outputAlignmentsCounter.increment(1);
 
       } else {
 
@@ -468,126 +485,4 @@ public class ReadsMapperMapper extends Mapper<Text, Text, Text, Text> {
       throw this.exception.exception;
     }
   }
-
-  //
-  // Old mappers indexes cleanup methods
-  //
-
-  /**
-   * Update the last usage of the current mapper index.
-   *
-   * @param mapperIndexDir the mapper index directory
-   */
-  private void updateLastUsedMapperIndex(final java.nio.file.Path mapperIndexDir) {
-
-    final java.nio.file.Path lockFile =
-        mapperIndexDir.getParent().resolve(mapperIndexDir.getFileName() + LOCK_SUFFIX);
-
-    try (FileChannel channel =
-        FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-
-      // Lock the mapper directory
-      FileLock lock = channel.lock();
-
-      final File lastMapperUsedFile = mapperIndexDir.resolve(MAPPER_LAST_USED_FILENAME).toFile();
-
-      if (lastMapperUsedFile.exists()) {
-        if (!lastMapperUsedFile.setLastModified(System.currentTimeMillis())) {
-          getLogger()
-              .warning("Unable to set the modification time of the file: " + lastMapperUsedFile);
-        }
-      }
-
-      // Unlock the mapper directory
-      lock.release();
-    } catch (IOException e) {
-      getLogger()
-          .warning(
-              "Cannot update the timestamp of the last usage of the current mapper index: "
-                  + e.getMessage());
-    }
-  }
-
-  /**
-   * Remove unused mapper indexes.
-   *
-   * @param conf Hadoop configuration
-   */
-  private void removeUnusedMapperIndexes(final Configuration conf) {
-
-    final File mapperIndexesDir = this.mapperIndexDir.getParent().toFile();
-
-    for (File dir :
-        mapperIndexesDir.listFiles(
-            (dir, name) -> {
-              final File f = dir.toPath().resolve(name).toFile();
-
-              return f.isDirectory() && name.startsWith(MAPPER_INDEX_DIR_PREFIX);
-            })) {
-
-      // First check without lock on the mapper index directory
-      if (isMapperIndexMustBeRemoved(mapperIndexesDir)) {
-        removeUnusedMapperIndex(dir, conf);
-      }
-    }
-  }
-
-  /**
-   * Check if a mapper index directory must be removed.
-   *
-   * @param mapperIndexDir the mapper index directory
-   * @return true if the mapper index directory must be removed
-   */
-  private boolean isMapperIndexMustBeRemoved(final File mapperIndexDir) {
-
-    final File lastModifiedFile =
-        mapperIndexDir.toPath().resolve(MAPPER_LAST_USED_FILENAME).toFile();
-
-    if (!lastModifiedFile.exists()) return false;
-
-    final long duration = System.currentTimeMillis() - lastModifiedFile.lastModified();
-
-    return duration > (DEFAULT_AGE_OF_UNUSED_MAPPER_INDEXES * 24 * 3600 * 1000);
-  }
-
-  /**
-   * Remove an unused mapper index directory.
-   *
-   * @param mapperIndexDir the mapper index directory to remove
-   * @param conf Hadoop configuration
-   */
-  private void removeUnusedMapperIndex(final File mapperIndexDir, final Configuration conf) {
-
-    final java.nio.file.Path lockFile =
-        mapperIndexDir.toPath().getParent().resolve(mapperIndexDir.getName() + LOCK_SUFFIX);
-
-    try (FileChannel channel =
-        FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-
-      // Lock the mapper directory
-      FileLock lock = channel.lock();
-
-      // Second check with lock on the mapper index directory
-      if (isMapperIndexMustBeRemoved(mapperIndexDir)) {
-
-        getLogger().info("Remove  unused mapper index directory: " + mapperIndexDir);
-
-        // Remove the mapper index
-        // TODO use Datafile.delete(true)
-        final Path mapperIndexPath = new Path(mapperIndexDir.toURI());
-        final FileSystem fs = FileSystem.get(mapperIndexDir.toURI(), conf);
-        fs.delete(mapperIndexPath, true);
-      }
-
-      // Unlock the mapper directory
-      lock.release();
-    } catch (IOException e) {
-      getLogger()
-          .warning(
-              "Cannot remove unused mapper index directory ("
-                  + mapperIndexDir
-                  + "): "
-                  + e.getMessage());
-    }
-  }
 }
@@ -7,7 +7,6 @@ import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.MAPPER_RESULTS_
 import static fr.ens.biologie.genomique.eoulsan.data.DataFormats.MAPPER_RESULTS_SAM;
 
 import com.google.common.base.Splitter;
-import fr.ens.biologie.genomique.eoulsan.CommonHadoop;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.annotations.HadoopOnly;
 import fr.ens.biologie.genomique.eoulsan.core.InputPorts;
@@ -21,7 +20,7 @@ import fr.ens.biologie.genomique.eoulsan.modules.mapping.hadoop.SortRecordReader
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.hadoop.hadoopbamcli.CLIMergingAnySAMOutputFormat;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.hadoop.hadoopbamcli.ContextUtil;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.hadoop.hadoopbamcli.Utils;
-import fr.ens.biologie.genomique.eoulsan.util.hadoop.HadoopJobEmergencyStopTask;
+import fr.ens.biologie.genomique.eoulsan.util.hadoop.HadoopJobMonitor;
 import fr.ens.biologie.genomique.eoulsan.util.hadoop.MapReduceUtils;
 import htsjdk.samtools.BAMIndexer;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
@@ -110,8 +109,7 @@ public class SAM2BAMHadoopModule extends AbstractSAM2BAMModule {
       job = createJobConf(conf, context, samData.getName(), samFile, bamFile, workPath);
 
       // Submit main job
-      MapReduceUtils.submitAndWaitForJob(
-          job, samData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, COUNTER_GROUP);
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, COUNTER_GROUP);
     } catch (IOException | ClassNotFoundException | InterruptedException | EoulsanException e) {
       return status.createTaskResult(e);
     }
@@ -133,18 +131,8 @@ public class SAM2BAMHadoopModule extends AbstractSAM2BAMModule {
       final Job indexingJob =
           createIndexJob(conf, indexerSubmitFile, "Create " + indexFile + " index file");
 
-      // Submit the Hadoop job
-      indexingJob.submit();
-
-      // Add the Hadoop job to the list of job to kill if workflow fails
-      HadoopJobEmergencyStopTask.addHadoopJobEmergencyStopTask(indexingJob);
-
-      // Submit the job to the Hadoop scheduler, and wait the end of the job
-      // in non verbose mode
-      indexingJob.waitForCompletion(false);
-
-      // Removes the Hadoop job to the list of job to kill if workflow fails
-      HadoopJobEmergencyStopTask.removeHadoopJobEmergencyStopTask(indexingJob);
+      // Submit the Hadoop job and wait the end of the job
+      HadoopJobMonitor.waitForJob(HadoopJobMonitor.getInstance().submit(indexingJob));
 
       if (!indexingJob.isSuccessful()) {
         throw new IOException(
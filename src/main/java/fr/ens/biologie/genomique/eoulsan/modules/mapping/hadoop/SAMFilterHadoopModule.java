@@ -43,6 +43,7 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractSAMFilterModule;
 import fr.ens.biologie.genomique.eoulsan.util.hadoop.MapReduceUtils;
 import java.io.IOException;
+import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
@@ -80,8 +81,7 @@ public class SAMFilterHadoopModule extends AbstractSAMFilterModule {
       final Job job = createJob(conf, inData, outData);
 
       // Launch jobs
-      MapReduceUtils.submitAndWaitForJob(
-          job, inData.getName(), CommonHadoop.CHECK_COMPLETION_TIME, status, COUNTER_GROUP);
+      MapReduceUtils.submitAndWaitForJobs(List.of(job), status, COUNTER_GROUP);
 
       return status.createTaskResult();
     } catch (IOException | EoulsanException e) {
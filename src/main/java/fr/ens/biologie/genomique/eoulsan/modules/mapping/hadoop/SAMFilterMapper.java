@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /**
@@ -56,6 +57,7 @@ public class SAMFilterMapper extends Mapper<Text, Text, Text, Text> {
   private final List<String> idFields = new ArrayList<>();
 
   private String counterGroup;
+  private Counter inputCounter;
   private SAMHeaderHadoopUtils.SAMHeaderWriter samHeaderWriter;
 
   private final Text outKey = new Text();
@@ -81,6 +83,10 @@ public class SAMFilterMapper extends Mapper<Text, Text, Text, Text> {
       throw new IOException("No counter group defined");
     }
 
+    // Resolve the counter once for all the calls to map()
+    this.inputCounter =
+        context.getCounter(this.counterGroup, INPUT_ALIGNMENTS_COUNTER.counterName());
+
     // SAM header writer
     this.samHeaderWriter =
         new SAMHeaderHadoopUtils.SAMHeaderWriter(context.getTaskAttemptID().toString());
@@ -103,7 +109,7 @@ public class SAMFilterMapper extends Mapper<Text, Text, Text, Text> {
       return;
     }
 
-    context.getCounter(this.counterGroup, INPUT_ALIGNMENTS_COUNTER.counterName()).increment(1);
+    this.inputCounter.increment(1);
 
     final int indexOfFirstTab = line.indexOf("\t");
     String completeId = line.substring(0, indexOfFirstTab);
@@ -50,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Reducer;
 
 /**
@@ -67,6 +68,8 @@ public class SAMFilterReducer extends Reducer<Text, Text, Text, Text> {
 
   private final SAMLineParser parser = new SAMLineParser(new SAMFileHeader());
   private String counterGroup;
+  private Counter rejectedCounter;
+  private Counter outputCounter;
   private MultiReadAlignmentFilter filter;
 
   private final Text outKey = new Text();
@@ -93,6 +96,12 @@ public class SAMFilterReducer extends Reducer<Text, Text, Text, Text> {
       throw new IOException("No counter group defined");
     }
 
+    // Resolve the counters once for all the calls to reduce()
+    this.rejectedCounter =
+        context.getCounter(this.counterGroup, ALIGNMENTS_REJECTED_BY_FILTERS_COUNTER.counterName());
+    this.outputCounter =
+        context.getCounter(this.counterGroup, OUTPUT_FILTERED_ALIGNMENTS_COUNTER.counterName());
+
     // Set the filters
     try {
       final MultiReadAlignmentFilterBuilder mrafb = new MultiReadAlignmentFilterBuilder();
@@ -151,9 +160,7 @@ public class SAMFilterReducer extends Reducer<Text, Text, Text, Text> {
     }
 
     this.records.addAll(rafb.getFilteredAlignments());
-    context
-        .getCounter(this.counterGroup, ALIGNMENTS_REJECTED_BY_FILTERS_COUNTER.counterName())
-        .increment(cptRecords - this.records.size());
+    this.rejectedCounter.increment(cptRecords - this.records.size());
 
     // sort alignments of the current read
     this.records.sort(new SAMComparator());
@@ -174,9 +181,7 @@ public class SAMFilterReducer extends Reducer<Text, Text, Text, Text> {
       context.write(this.outKey, this.outValue);
 
       // Increment the counter
-      context
-          .getCounter(this.counterGroup, OUTPUT_FILTERED_ALIGNMENTS_COUNTER.counterName())
-          .increment(1);
+      this.outputCounter.increment(1);
     }
   }
 }
@@ -8,7 +8,7 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractBAM2SAMModule;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
@@ -37,7 +37,7 @@ public class BAM2SAMLocalModule extends AbstractBAM2SAMModule {
     try {
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      final Reporter reporter = new LocalCounterReporter();
 
       // Get input SAM data
       final Data inData = context.getInputData(DataFormats.MAPPER_RESULTS_BAM);
@@ -39,6 +39,8 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractReadsFilterModule;
+import fr.ens.biologie.genomique.eoulsan.util.CounterHandle;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
 import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
 import fr.ens.biologie.genomique.kenetre.bio.ReadSequence;
@@ -46,7 +48,6 @@ import fr.ens.biologie.genomique.kenetre.bio.io.FastqReader;
 import fr.ens.biologie.genomique.kenetre.bio.io.FastqWriter;
 import fr.ens.biologie.genomique.kenetre.bio.readfilter.MultiReadFilter;
 import fr.ens.biologie.genomique.kenetre.bio.readfilter.ReadFilter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -65,7 +66,7 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
     // Create the reporter
-    final Reporter reporter = new LocalReporter();
+    final Reporter reporter = new LocalCounterReporter();
 
     try {
 
@@ -199,7 +200,7 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
    * @param fastqFormat FastqFormat
    * @throws IOException if an error occurs while filtering data
    */
-  private static void filterFile(
+  static void filterFile(
       final DataFile inFile,
       final DataFile outFile,
       final Reporter reporter,
@@ -210,6 +211,14 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
     getLogger().info("Filter file: " + inFile);
     getLogger().info("FastqFormat: " + fastqFormat);
 
+    // Resolve the counters before reading the reads
+    final CounterHandle inputCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, INPUT_RAW_READS_COUNTER.counterName());
+    final CounterHandle outputCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, OUTPUT_FILTERED_READS_COUNTER.counterName());
+    final CounterHandle rejectedCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, READS_REJECTED_BY_FILTERS_COUNTER.counterName());
+
     try (FastqReader reader = new FastqReader(inFile.open());
         FastqWriter writer = new FastqWriter(outFile.create())) {
       for (final ReadSequence read : reader) {
@@ -217,14 +226,14 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
         // Set Fastq format
         read.setFastqFormat(fastqFormat);
 
-        reporter.incrCounter(COUNTER_GROUP, INPUT_RAW_READS_COUNTER.counterName(), 1);
+        inputCounter.increment();
 
         if (filter.accept(read)) {
 
           writer.write(read);
-          reporter.incrCounter(COUNTER_GROUP, OUTPUT_FILTERED_READS_COUNTER.counterName(), 1);
+          outputCounter.increment();
         } else {
-          reporter.incrCounter(COUNTER_GROUP, READS_REJECTED_BY_FILTERS_COUNTER.counterName(), 1);
+          rejectedCounter.increment();
         }
       }
       reader.throwException();
@@ -266,6 +275,14 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
     getLogger()
         .info("Filter files: " + inFile1 + ", " + inFile2 + ", Fastq format: " + fastqFormat);
 
+    // Resolve the counters before reading the reads
+    final CounterHandle inputCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, INPUT_RAW_READS_COUNTER.counterName());
+    final CounterHandle outputCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, OUTPUT_FILTERED_READS_COUNTER.counterName());
+    final CounterHandle rejectedCounter =
+        CounterHandle.of(reporter, COUNTER_GROUP, READS_REJECTED_BY_FILTERS_COUNTER.counterName());
+
     try (FastqReader reader2 = new FastqReader(inFile2.open());
         FastqWriter writer1 = new FastqWriter(outFile1.create());
         FastqWriter writer2 = new FastqWriter(outFile2.create());
@@ -290,14 +307,14 @@ public class ReadsFilterLocalModule extends AbstractReadsFilterModule {
         read1.setFastqFormat(fastqFormat);
         read2.setFastqFormat(fastqFormat);
 
-        reporter.incrCounter(COUNTER_GROUP, INPUT_RAW_READS_COUNTER.counterName(), 1);
+        inputCounter.increment();
 
         if (filter.accept(read1, read2)) {
           writer1.write(read1);
           writer2.write(read2);
-          reporter.incrCounter(COUNTER_GROUP, OUTPUT_FILTERED_READS_COUNTER.counterName(), 1);
+          outputCounter.increment();
         } else {
-          reporter.incrCounter(COUNTER_GROUP, READS_REJECTED_BY_FILTERS_COUNTER.counterName(), 1);
+          rejectedCounter.increment();
         }
       }
       reader1.throwException();
@@ -45,7 +45,9 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.MapperIndexDataFormat;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractReadsMapperModule;
+import fr.ens.biologie.genomique.eoulsan.modules.mapping.MapperIndexCache;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.MappingCounters;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.FastqFormat;
 import fr.ens.biologie.genomique.kenetre.bio.readmapper.FileMapping;
 import fr.ens.biologie.genomique.kenetre.bio.readmapper.Mapper;
@@ -58,7 +60,6 @@ import fr.ens.biologie.genomique.kenetre.bio.readmapper.STARMapperProvider;
 import fr.ens.biologie.genomique.kenetre.io.CompressionType;
 import fr.ens.biologie.genomique.kenetre.io.FileUtils;
 import fr.ens.biologie.genomique.kenetre.io.UnSynchronizedBufferedWriter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import fr.ens.biologie.genomique.kenetre.util.StringUtils;
 import java.io.BufferedReader;
@@ -113,17 +114,24 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
   @Override
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
+    MapperIndexCache.Lease indexLease = null;
+
     try {
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      final Reporter reporter = new LocalCounterReporter();
 
       final DataFile archiveIndexFile =
           context.getInputData(new MapperIndexDataFormat(getMapper())).getDataFile();
 
+      // Use the mapper index cache if enabled
+      indexLease = acquireIndexLease(context, archiveIndexFile);
+
       final File indexDir =
-          Path.of(StringUtils.filenameWithoutExtension(archiveIndexFile.toUri().getPath()))
-              .toFile();
+          indexLease != null
+              ? indexLease.getIndexDirectory()
+              : Path.of(StringUtils.filenameWithoutExtension(archiveIndexFile.toUri().getPath()))
+                  .toFile();
 
       // Get input data
       final Data inData = context.getInputData(READS_FASTQ);
@@ -157,7 +165,8 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
 
       // Initialize the mapper
       final FileMapping fileMapping =
-          initMapper(context, fastqFormat, archiveIndexFile, indexDir, reporter);
+          initMapper(
+              context, fastqFormat, archiveIndexFile, indexDir, indexLease == null, reporter);
 
       if (inData.getDataFileCount() < 1) {
         throw new IOException("No reads file found.");
@@ -273,11 +282,82 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
     } catch (IOException e) {
 
       return status.createTaskResult(e, "Error while mapping reads: " + e.getMessage());
+    } finally {
+      releaseIndexLease(context, indexLease);
     }
 
     return status.createTaskResult();
   }
 
+  /**
+   * Get a lease on the mapper index in the mapper index cache.
+   *
+   * @param context Eoulsan context
+   * @param archiveIndexFile genome index for the mapper as a ZIP file
+   * @return a lease on the index or null if the mapper index cache is disabled
+   * @throws IOException if an error occurs while unpacking the index in the cache
+   */
+  private MapperIndexCache.Lease acquireIndexLease(
+      final TaskContext context, final DataFile archiveIndexFile) throws IOException {
+
+    final String cachePath = context.getSettings().getMapperIndexCachePath();
+
+    if (cachePath == null || cachePath.trim().isEmpty()) {
+      return null;
+    }
+
+    final MapperIndexCache cache = new MapperIndexCache(new File(cachePath.trim()));
+
+    // The index is keyed by the checksum of the archive and the mapper version
+    final String version = getMapperVersion();
+    final String checksum = cache.archiveChecksum(archiveIndexFile);
+    final String key =
+        version == null || version.trim().isEmpty() ? checksum : version.trim() + "-" + checksum;
+
+    final MapperIndexCache.Lease lease = cache.acquire(getMapperName(), key, archiveIndexFile);
+
+    getLogger()
+        .info(
+            (lease.isUnpacked() ? "Add mapper index to cache: " : "Use cached mapper index: ")
+                + lease.getIndexDirectory());
+
+    return lease;
+  }
+
+  /**
+   * Release a lease on a mapper index. When the current JVM holds no more lease on the cache, the
+   * least recently used indexes are removed if the cache is too large.
+   *
+   * @param context Eoulsan context
+   * @param lease the lease to release, can be null
+   */
+  private static void releaseIndexLease(
+      final TaskContext context, final MapperIndexCache.Lease lease) {
+
+    if (lease == null) {
+      return;
+    }
+
+    try {
+      lease.close();
+    } catch (IOException e) {
+      getLogger().warning("Error while releasing mapper index lease: " + e.getMessage());
+    }
+
+    final long maxSize = context.getSettings().getMapperIndexCacheMaxSize();
+
+    if (maxSize <= 0) {
+      return;
+    }
+
+    final MapperIndexCache cache = new MapperIndexCache(lease.getIndexDirectory().getParentFile());
+
+    // Only the last task of the JVM that uses the cache evicts the indexes
+    if (cache.getJVMLeaseCount() == 0) {
+      cache.evictToSize(maxSize * 1024 * 1024);
+    }
+  }
+
   /**
    * Initialize the mapper to use.
    *
@@ -285,6 +365,8 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
    * @param format FASTQ format
    * @param archiveIndexFile genome index for the mapper as a ZIP file
    * @param indexDir uncompressed directory for the genome index
+   * @param deleteIndexOnExit true if the uncompressed index must be removed at the end of the
+   *     workflow
    * @param reporter reporter
    * @throws IOException if an error while initializing the mapper
    */
@@ -293,6 +375,7 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
       final FastqFormat format,
       final DataFile archiveIndexFile,
       final File indexDir,
+      final boolean deleteIndexOnExit,
       final Reporter reporter)
       throws IOException {
 
@@ -321,7 +404,9 @@ public class ReadsMapperLocalModule extends AbstractReadsMapperModule {
             format, getMapperArguments(), threadCount(context), false, reporter, COUNTER_GROUP);
 
     // Delete the index directory at the end of the workflow
-    context.getWorkflow().deleteOnExit(new DataFile(mapperIndex.getIndexDirectory()));
+    if (deleteIndexOnExit) {
+      context.getWorkflow().deleteOnExit(new DataFile(mapperIndex.getIndexDirectory()));
+    }
 
     return mapping;
   }
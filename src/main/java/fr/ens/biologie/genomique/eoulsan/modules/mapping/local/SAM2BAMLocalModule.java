@@ -11,7 +11,7 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractSAM2BAMModule;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
@@ -38,7 +38,7 @@ public class SAM2BAMLocalModule extends AbstractSAM2BAMModule {
     try {
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      final Reporter reporter = new LocalCounterReporter();
 
       // Get input SAM data
       final Data inData = context.getInputData(DataFormats.MAPPER_RESULTS_SAM);
@@ -9,9 +9,9 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractSAM2FASTQModule;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.ReadSequence;
 import fr.ens.biologie.genomique.kenetre.bio.io.FastqWriter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import htsjdk.samtools.SAMFileHeader.SortOrder;
 import htsjdk.samtools.SAMFileWriter;
@@ -39,26 +39,41 @@ public class SAM2FASTQLocalModule extends AbstractSAM2FASTQModule {
     try {
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      Reporter reporter = new LocalCounterReporter();
 
       // Get input SAM data
       final Data inData = context.getInputData(DataFormats.MAPPER_RESULTS_SAM);
 
-      // Get input SAM TMP data
-      File samTmpFile = File.createTempFile("samTmp", ".sam", context.getLocalTempDirectory());
-
       // Get output FASTQ data
       final Data outData = context.getOutputData(DataFormats.READS_FASTQ, inData);
 
       final DataFile samFile = inData.getDataFile();
+      final DataFile fastqFile1 = outData.getDataFile(0);
+      final File tmpDir = context.getLocalTempDirectory();
 
-      final int paired =
-          sortConvert(samFile, samTmpFile, reporter, context.getLocalTempDirectory());
+      // Pair the mates in a single pass
+      final boolean converted =
+          new SAMMatePairer(
+                  outData, tmpDir, Runtime.getRuntime().maxMemory() / 4, reporter, COUNTER_GROUP)
+              .convert(samFile);
 
-      final DataFile fastqFile1 = outData.getDataFile(0);
-      final DataFile fastqFile2 = paired == 3 ? outData.getDataFile(1) : null;
+      // Fall back to the pairing of the mates of the file sorted by queryname
+      if (!converted) {
+
+        reporter = new LocalCounterReporter();
 
-      writeConvert(samTmpFile, fastqFile1, fastqFile2, reporter);
+        // Get input SAM TMP data
+        final File samTmpFile = File.createTempFile("samTmp", ".sam", tmpDir);
+
+        try {
+          final int paired = sortConvert(samFile, samTmpFile, reporter, tmpDir);
+          final DataFile fastqFile2 = paired == 3 ? outData.getDataFile(1) : null;
+
+          writeConvert(samTmpFile, fastqFile1, fastqFile2, reporter);
+        } finally {
+          Files.deleteIfExists(samTmpFile.toPath());
+        }
+      }
 
       // Set the description of the context
       status.setDescription(
@@ -40,11 +40,11 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractSAMFilterModule;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.SAMComparator;
 import fr.ens.biologie.genomique.kenetre.bio.alignmentfilter.MultiReadAlignmentFilter;
 import fr.ens.biologie.genomique.kenetre.bio.alignmentfilter.ReadAlignmentFilter;
 import fr.ens.biologie.genomique.kenetre.bio.alignmentfilter.ReadAlignmentFilterBuffer;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import htsjdk.samtools.SAMFileWriter;
 import htsjdk.samtools.SAMFileWriterFactory;
@@ -73,7 +73,7 @@ public class SAMFilterLocalModule extends AbstractSAMFilterModule {
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
     // Create the reporter
-    final Reporter reporter = new LocalReporter();
+    final Reporter reporter = new LocalCounterReporter();
 
     try {
 
@@ -141,7 +141,7 @@ public class SAMFilterLocalModule extends AbstractSAMFilterModule {
    * @param tmpDir temporary directory
    * @throws IOException if an error occurs while filtering data
    */
-  private static void filterFile(
+  static void filterFile(
       final DataFile inFile,
       final DataFile outFile,
       final Reporter reporter,
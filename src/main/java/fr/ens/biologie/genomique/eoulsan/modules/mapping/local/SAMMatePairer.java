@@ -0,0 +1,492 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.mapping.local;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.data.Data;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.kenetre.bio.ReadSequence;
+import fr.ens.biologie.genomique.kenetre.bio.io.FastqWriter;
+import fr.ens.biologie.genomique.kenetre.util.Reporter;
+import htsjdk.samtools.SAMFileHeader.SortOrder;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamInputResource;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class define a converter of SAM files into FASTQ that pairs the mates in a single pass. The
+ * mates that have not yet met their pair are kept in a hash table keyed by read name and the pairs
+ * are written as soon as the two mates meet. When the table grows past a memory limit, its content
+ * is spilled in partition files on disk that are paired once the whole input has been read.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+class SAMMatePairer {
+
+  /** Size of a coordinate-sorted file above which the sort-based conversion is preferred. */
+  static final long HUGE_SORTED_FILE_SIZE = 10L * 1024 * 1024 * 1024;
+
+  private static final int PARTITION_COUNT = 64;
+  private static final long MATE_OVERHEAD_SIZE = 96;
+
+  private final Data fastqData;
+  private final File tmpDir;
+  private final long memoryLimit;
+  private final Reporter reporter;
+  private final String counterGroup;
+
+  private final Map<String, Mate> mates = new HashMap<>();
+  private long matesSize;
+  private File[] partitionFiles;
+  private DataOutputStream[] partitions;
+
+  private FastqWriter writer1;
+  private FastqWriter writer2;
+  private boolean firstOfPairFound;
+  private boolean secondOfPairFound;
+  private long singleReadsWritten;
+
+  /** This class define a mate waiting for its pair. */
+  private static final class Mate {
+
+    final String name;
+    final boolean first;
+    final String sequence;
+    final String quality;
+
+    Mate(final String name, final boolean first, final String sequence, final String quality) {
+
+      this.name = name;
+      this.first = first;
+      this.sequence = sequence;
+      this.quality = quality;
+    }
+
+    long size() {
+
+      return MATE_OVERHEAD_SIZE + 2L * (name.length() + sequence.length() + quality.length());
+    }
+
+    ReadSequence toReadSequence() {
+
+      return new ReadSequence(this.name, this.sequence, this.quality);
+    }
+  }
+
+  //
+  // Conversion
+  //
+
+  /**
+   * Convert a SAM file into FASTQ. The conversion is not performed if the input file is a huge
+   * coordinate-sorted file or if the file mixes single-end reads and paired-end reads that cannot
+   * be written in the order of the input. In this case the sort-based conversion must be used.
+   *
+   * @param samFile the SAM file to convert
+   * @return true if the conversion has been performed
+   * @throws IOException if an error occurs while converting the file
+   */
+  public boolean convert(final DataFile samFile) throws IOException {
+
+    requireNonNull(samFile, "samFile argument cannot be null");
+
+    try (SamReader reader =
+        SamReaderFactory.makeDefault().open(SamInputResource.of(samFile.open()))) {
+
+      final long size = samFile.getMetaData().getContentLength();
+      if (reader.getFileHeader().getSortOrder() == SortOrder.coordinate
+          && size > HUGE_SORTED_FILE_SIZE) {
+        getLogger().info("Use a queryname sort to pair the mates of the huge file: " + samFile);
+        return false;
+      }
+
+      this.writer1 = new FastqWriter(this.fastqData.getDataFile(0).create());
+
+      for (final SAMRecord r : reader) {
+
+        this.reporter.incrCounter(this.counterGroup, "converted records", 1);
+        if (!addRecord(r)) {
+          getLogger().info("Use a queryname sort to pair the mates of the mixed file: " + samFile);
+          return false;
+        }
+      }
+
+      if (this.partitions == null) {
+        writeUnpairedMates(this.mates.values());
+      } else {
+        spill();
+        pairPartitions();
+      }
+
+      return true;
+
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Add a SAM record.
+   *
+   * @param r the SAM record
+   * @return false if the single-end reads already written prevent the conversion
+   * @throws IOException if an error occurs while writing the FASTQ entries
+   */
+  private boolean addRecord(final SAMRecord r) throws IOException {
+
+    if (r.getReadPairedFlag()) {
+      this.firstOfPairFound |= r.getFirstOfPairFlag();
+      this.secondOfPairFound |= r.getSecondOfPairFlag();
+
+      // The second FASTQ file is created even if no pair is found
+      if (isPaired() && this.writer2 == null) {
+        this.writer2 = new FastqWriter(this.fastqData.getDataFile(1).create());
+      }
+    }
+
+    // Single-end reads are only kept when the file does not contain pairs
+    if (isPaired() && this.singleReadsWritten > 0) {
+      return false;
+    }
+
+    // Only the primary alignment of a read is converted
+    if (r.isSecondaryOrSupplementary()) {
+      return true;
+    }
+
+    final String name = readName(r.getReadName());
+
+    if (!r.getReadPairedFlag()) {
+
+      if (!isPaired()) {
+        writeSingle(new ReadSequence(name, r.getReadString(), r.getBaseQualityString()));
+        this.singleReadsWritten++;
+      }
+      return true;
+    }
+
+    final Mate mate =
+        new Mate(name, r.getFirstOfPairFlag(), r.getReadString(), r.getBaseQualityString());
+    this.matesSize += addMate(this.mates, mate);
+
+    if (this.matesSize > this.memoryLimit) {
+      spill();
+    }
+
+    return true;
+  }
+
+  /**
+   * Add a mate to a table of unpaired mates. If the pair of the mate is in the table, the pair is
+   * written and removed from the table.
+   *
+   * @param mates the table of unpaired mates
+   * @param mate the mate to add
+   * @return the variation of the size of the table
+   * @throws IOException if an error occurs while writing the pair
+   */
+  private long addMate(final Map<String, Mate> mates, final Mate mate) throws IOException {
+
+    final Mate other = mates.remove(mate.name);
+    final long removed = other == null ? 0 : other.size();
+
+    if (other != null && other.first != mate.first) {
+      writePair(mate.first ? mate : other, mate.first ? other : mate);
+      return -removed;
+    }
+
+    mates.put(mate.name, mate);
+
+    return mate.size() - removed;
+  }
+
+  /**
+   * Test if the file contains pairs.
+   *
+   * @return true if the file contains first and second reads of pairs
+   */
+  private boolean isPaired() {
+
+    return this.firstOfPairFound && this.secondOfPairFound;
+  }
+
+  //
+  // Spill
+  //
+
+  /**
+   * Spill the unpaired mates in the partition files.
+   *
+   * @throws IOException if an error occurs while writing the partitions
+   */
+  private void spill() throws IOException {
+
+    if (this.partitions == null) {
+
+      getLogger()
+          .info("Spill the unpaired mates on disk (" + this.mates.size() + " mates in memory)");
+
+      this.partitionFiles = new File[PARTITION_COUNT];
+      this.partitions = new DataOutputStream[PARTITION_COUNT];
+
+      for (int i = 0; i < PARTITION_COUNT; i++) {
+        this.partitionFiles[i] = File.createTempFile("sam2fastq-", ".mates", this.tmpDir);
+        this.partitions[i] =
+            new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(this.partitionFiles[i].toPath())));
+      }
+    }
+
+    for (Mate mate : this.mates.values()) {
+
+      final DataOutputStream out =
+          this.partitions[Math.floorMod(mate.name.hashCode(), PARTITION_COUNT)];
+      writeString(out, mate.name);
+      out.writeBoolean(mate.first);
+      writeString(out, mate.sequence);
+      writeString(out, mate.quality);
+    }
+
+    this.mates.clear();
+    this.matesSize = 0;
+  }
+
+  /**
+   * Pair the mates of the partition files.
+   *
+   * @throws IOException if an error occurs while reading the partitions
+   */
+  private void pairPartitions() throws IOException {
+
+    for (DataOutputStream out : this.partitions) {
+      out.close();
+    }
+
+    for (File file : this.partitionFiles) {
+
+      final Map<String, Mate> partitionMates = new HashMap<>();
+
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+
+        String name;
+        while ((name = readString(in)) != null) {
+          final boolean first = in.readBoolean();
+          addMate(partitionMates, new Mate(name, first, readString(in), readString(in)));
+        }
+      }
+
+      writeUnpairedMates(partitionMates.values());
+      deletePartition(file);
+    }
+  }
+
+  /**
+   * Write a string in a partition.
+   *
+   * @param out the output stream
+   * @param s the string to write
+   * @throws IOException if an error occurs while writing the string
+   */
+  private static void writeString(final DataOutputStream out, final String s) throws IOException {
+
+    final byte[] bytes = s.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Read a string from a partition.
+   *
+   * @param in the input stream
+   * @return the string or null if the end of the partition has been reached
+   * @throws IOException if an error occurs while reading the string
+   */
+  private static String readString(final DataInputStream in) throws IOException {
+
+    final int length;
+    try {
+      length = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Delete a partition file.
+   *
+   * @param file the partition file
+   */
+  private static void deletePartition(final File file) {
+
+    if (file.exists() && !file.delete()) {
+      getLogger().warning("Unable to remove the temporary file: " + file);
+    }
+  }
+
+  //
+  // Output
+  //
+
+  /**
+   * Write a pair.
+   *
+   * @param mate1 the first mate
+   * @param mate2 the second mate
+   * @throws IOException if an error occurs while writing the pair
+   */
+  private void writePair(final Mate mate1, final Mate mate2) throws IOException {
+
+    this.reporter.incrCounter(this.counterGroup, "sorted records", 1);
+    this.writer1.write(mate1.toReadSequence());
+    this.writer2.write(mate2.toReadSequence());
+  }
+
+  /**
+   * Write a single-end read.
+   *
+   * @param read the read to write
+   * @throws IOException if an error occurs while writing the read
+   */
+  private void writeSingle(final ReadSequence read) throws IOException {
+
+    this.reporter.incrCounter(this.counterGroup, "sorted records", 1);
+    this.writer1.write(read);
+  }
+
+  /**
+   * Write the mates that have not been paired. These mates are discarded if the file contains
+   * pairs.
+   *
+   * @param mates the unpaired mates
+   * @throws IOException if an error occurs while writing the mates
+   */
+  private void writeUnpairedMates(final Collection<Mate> mates) throws IOException {
+
+    if (isPaired()) {
+      return;
+    }
+
+    for (Mate mate : mates) {
+      writeSingle(mate.toReadSequence());
+    }
+  }
+
+  /**
+   * Close the writers and remove the partition files.
+   *
+   * @throws IOException if an error occurs while closing the writers
+   */
+  private void close() throws IOException {
+
+    if (this.partitions != null) {
+      for (int i = 0; i < PARTITION_COUNT; i++) {
+        if (this.partitions[i] != null) {
+          this.partitions[i].close();
+        }
+        if (this.partitionFiles[i] != null) {
+          deletePartition(this.partitionFiles[i]);
+        }
+      }
+    }
+
+    if (this.writer1 != null) {
+      this.writer1.close();
+    }
+
+    if (this.writer2 != null) {
+      this.writer2.close();
+    }
+  }
+
+  //
+  // Static method
+  //
+
+  /**
+   * Get the name of a read without the comment that follows the first space.
+   *
+   * @param readName the name of the read in the SAM file
+   * @return the name of the read
+   */
+  static String readName(final String readName) {
+
+    final int index = readName.indexOf(' ');
+
+    return index == -1 ? readName : readName.substring(0, index);
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param fastqData the output FASTQ data
+   * @param tmpDir the temporary directory for the spilled mates
+   * @param memoryLimit the size in bytes of the unpaired mates kept in memory
+   * @param reporter the reporter
+   * @param counterGroup the counter group
+   */
+  SAMMatePairer(
+      final Data fastqData,
+      final File tmpDir,
+      final long memoryLimit,
+      final Reporter reporter,
+      final String counterGroup) {
+
+    requireNonNull(fastqData, "fastqData argument cannot be null");
+    requireNonNull(reporter, "reporter argument cannot be null");
+    requireNonNull(counterGroup, "counterGroup argument cannot be null");
+
+    this.fastqData = fastqData;
+    this.tmpDir = tmpDir;
+    this.memoryLimit = memoryLimit;
+    this.reporter = reporter;
+    this.counterGroup = counterGroup;
+  }
+}
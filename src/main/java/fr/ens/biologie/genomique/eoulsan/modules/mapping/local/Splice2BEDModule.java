@@ -1,8 +1,10 @@
 package fr.ens.biologie.genomique.eoulsan.modules.mapping.local;
 
 import static fr.ens.biologie.genomique.kenetre.bio.SAMUtils.parseIntervalsToBEDEntry;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 import fr.ens.biologie.genomique.eoulsan.annotations.HadoopCompatible;
+import fr.ens.biologie.genomique.eoulsan.bio.io.ParallelSAMReader;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
 import fr.ens.biologie.genomique.eoulsan.core.TaskResult;
 import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
@@ -10,17 +12,22 @@ import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormats;
 import fr.ens.biologie.genomique.eoulsan.modules.mapping.AbstractSplice2BEDModule;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.BEDEntry;
 import fr.ens.biologie.genomique.kenetre.bio.EntryMetadata;
 import fr.ens.biologie.genomique.kenetre.bio.io.SortedBEDWriter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMLineParser;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamInputResource;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class define a module for converting SAM files into BED.
@@ -34,13 +41,15 @@ public class Splice2BEDModule extends AbstractSplice2BEDModule {
   private static final String PLUS_COLOR = "255,0,0";
   private static final String MINUS_COLOR = "0,0,255";
 
+  private static final int UNMAPPED_FLAG = 0x4;
+
   @Override
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
     try {
 
       // Create the reporter
-      final Reporter reporter = new LocalReporter();
+      final Reporter reporter = new LocalCounterReporter();
 
       // Get input SAM data
       final Data inData = context.getInputData(DataFormats.MAPPER_RESULTS_SAM);
@@ -62,6 +71,7 @@ public class Splice2BEDModule extends AbstractSplice2BEDModule {
           trackDescription,
           trackColor,
           context.getLocalTempDirectory(),
+          context.getSettings().getLocalThreadsNumber(),
           reporter);
 
       // Set the description of the context
@@ -92,16 +102,19 @@ public class Splice2BEDModule extends AbstractSplice2BEDModule {
       final String trackDescription,
       final String trackColor,
       File temporaryDirectory,
+      final int threads,
       final Reporter reporter)
       throws IOException {
 
-    try (final SamReader samReader =
-            SamReaderFactory.makeDefault().open(SamInputResource.of(samDataFile.open()));
+    try (final ParallelSAMReader samReader = new ParallelSAMReader(samDataFile.open(), threads);
         final SortedBEDWriter bedWriter = new SortedBEDWriter(bedDataFile.create())) {
 
       // Set the temporary directory for sorting data
       bedWriter.setTemporaryDirectory(temporaryDirectory);
 
+      // Parse the header of the SAM file
+      final SAMFileHeader header = parseHeader(samReader.getHeader());
+
       // Define the metadata
       final EntryMetadata metadata = new EntryMetadata();
       metadata.add(
@@ -112,12 +125,91 @@ public class Splice2BEDModule extends AbstractSplice2BEDModule {
               + (trackDescription != null ? "description=\"" + trackDescription + "\"" : "")
               + " itemRgb=\"On\"");
 
-      for (final SAMRecord samRecord : samReader) {
+      // The chunks of the SAM file are converted concurrently, the BED writer sorts the entries
+      samReader.process(
+          (data, start, end) ->
+              convertChunk(data, start, end, new SAMLineParser(header), metadata, trackColor),
+          entries -> {
+            for (BEDEntry entry : entries) {
 
-        // Discard unmapped alignments
-        if (samRecord.getReadUnmappedFlag()) {
-          continue;
-        }
+              // Write BED entry
+              bedWriter.write(entry);
+            }
+
+            reporter.incrCounter(COUNTER_GROUP, "alignments processed", entries.size());
+          });
+    }
+  }
+
+  /**
+   * Parse the header of a SAM file.
+   *
+   * @param header the header as bytes
+   * @return a SAMFileHeader object
+   * @throws IOException if an error occurs while parsing the header
+   */
+  private static SAMFileHeader parseHeader(final byte[] header) throws IOException {
+
+    if (header.length == 0) {
+      return new SAMFileHeader();
+    }
+
+    try (SamReader reader =
+        SamReaderFactory.makeDefault()
+            .open(SamInputResource.of(new ByteArrayInputStream(header)))) {
+      return reader.getFileHeader();
+    }
+  }
+
+  /**
+   * Convert a chunk of SAM lines to BED entries.
+   *
+   * @param data the data
+   * @param start start of the chunk
+   * @param end end of the chunk (exclusive)
+   * @param parser the SAM line parser
+   * @param metadata the metadata of the entries
+   * @param trackColor the track color
+   * @return a list with the BED entries
+   * @throws IOException if a line is invalid
+   */
+  static List<BEDEntry> convertChunk(
+      final byte[] data,
+      final int start,
+      final int end,
+      final SAMLineParser parser,
+      final EntryMetadata metadata,
+      final String trackColor)
+      throws IOException {
+
+    final List<BEDEntry> result = new ArrayList<>();
+
+    int lineStart = start;
+    while (lineStart < end) {
+
+      final int lineEnd = ParallelSAMReader.endOfLine(data, lineStart, end);
+
+      // Skip empty lines
+      if (lineEnd == lineStart || data[lineStart] == '\r') {
+        lineStart = lineEnd + 1;
+        continue;
+      }
+
+      final int flagStart =
+          ParallelSAMReader.fieldStart(data, lineStart, lineEnd, ParallelSAMReader.FLAG_FIELD);
+      if (flagStart == -1) {
+        throw new IOException(
+            "Invalid SAM line: " + new String(data, lineStart, lineEnd - lineStart, US_ASCII));
+      }
+
+      // Discard unmapped alignments without parsing the line
+      if ((ParallelSAMReader.parseIntField(data, flagStart, lineEnd) & UNMAPPED_FLAG) == 0) {
+
+        final int length =
+            lineEnd > lineStart && data[lineEnd - 1] == '\r'
+                ? lineEnd - lineStart - 1
+                : lineEnd - lineStart;
+        final SAMRecord samRecord = parser.parseLine(new String(data, lineStart, length, US_ASCII));
 
         // Parse splice
         BEDEntry entry = parseIntervalsToBEDEntry(samRecord, metadata);
@@ -136,11 +228,12 @@ public class Splice2BEDModule extends AbstractSplice2BEDModule {
           }
         }
 
-        // Write BED entry
-        bedWriter.write(entry);
-
-        reporter.incrCounter(COUNTER_GROUP, "alignments processed", 1);
+        result.add(entry);
       }
+
+      lineStart = lineEnd + 1;
     }
+
+    return result;
   }
 }
@@ -21,11 +21,11 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
 import fr.ens.biologie.genomique.kenetre.bio.BadBioEntryException;
 import fr.ens.biologie.genomique.kenetre.bio.ReadSequence;
 import fr.ens.biologie.genomique.kenetre.bio.io.FastqReader;
 import fr.ens.biologie.genomique.kenetre.bio.io.FastqWriter;
-import fr.ens.biologie.genomique.kenetre.util.LocalReporter;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.FileNotFoundException;
@@ -104,7 +104,7 @@ public class SplitReadsModule extends AbstractModule {
   public TaskResult execute(final TaskContext context, final TaskStatus status) {
 
     // Create the reporter
-    final Reporter reporter = new LocalReporter();
+    final Reporter reporter = new LocalCounterReporter();
 
     try {
 
@@ -28,7 +28,10 @@ import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
 import static fr.ens.biologie.genomique.kenetre.io.CompressionType.BZIP2;
 import static fr.ens.biologie.genomique.kenetre.io.CompressionType.removeCompressionExtension;
 import static fr.ens.biologie.genomique.kenetre.util.StringUtils.compressionExtension;
+import static fr.ens.biologie.genomique.kenetre.util.StringUtils.sizeToHumanReadable;
+import static fr.ens.biologie.genomique.kenetre.util.StringUtils.toTimeHumanReadable;
 
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.annotations.LocalOnly;
 import fr.ens.biologie.genomique.eoulsan.core.Step;
 import fr.ens.biologie.genomique.eoulsan.core.workflow.StepOutputDataFile;
@@ -38,7 +41,14 @@ import fr.ens.biologie.genomique.eoulsan.data.DataFormatConverter;
 import fr.ens.biologie.genomique.eoulsan.design.Sample;
 import fr.ens.biologie.genomique.kenetre.io.CompressionType;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class define a Step for local mode file uploading.
@@ -109,20 +119,102 @@ public class LocalUploadModule extends UploadModule {
       throw new NullPointerException("The files argument is null.");
     }
 
+    final Map<DataFile, DataFile> filesToConvert = new LinkedHashMap<>();
     for (Map.Entry<DataFile, DataFile> e : files.entrySet()) {
+      if (e.getKey() != null && e.getValue() != null) {
+        filesToConvert.put(e.getKey(), e.getValue());
+      }
+    }
+
+    if (filesToConvert.isEmpty()) {
+      return;
+    }
+
+    // The files are converted concurrently, the compression of each file also use the shared
+    // threads of the parallel compression codecs
+    final int threads =
+        Math.min(filesToConvert.size(), EoulsanRuntime.getSettings().getLocalThreadsNumber());
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+    final long startTime = System.currentTimeMillis();
+    final List<Future<Long>> futures = new ArrayList<>();
 
-      final DataFile src = e.getKey();
-      final DataFile dest = e.getValue();
+    try {
 
-      if (src == null || dest == null) {
-        continue;
+      for (Map.Entry<DataFile, DataFile> e : filesToConvert.entrySet()) {
+        futures.add(executor.submit(() -> convert(e.getKey(), e.getValue())));
       }
 
-      getLogger().info("Convert " + src + " to " + dest);
-      new DataFormatConverter(src, dest).convert();
+      long totalSize = 0;
+      for (Future<Long> f : futures) {
+        totalSize += f.get();
+      }
+
+      getLogger()
+          .info(
+              "Convert "
+                  + filesToConvert.size()
+                  + " files: "
+                  + throughput(totalSize, System.currentTimeMillis() - startTime));
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Conversion of the files interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
     }
   }
 
+  /**
+   * Convert a file.
+   *
+   * @param src source file
+   * @param dest destination file
+   * @return the size of the source file
+   * @throws IOException if an error occurs while converting the file
+   */
+  private static long convert(final DataFile src, final DataFile dest) throws IOException {
+
+    getLogger().info("Convert " + src + " to " + dest);
+
+    final long startTime = System.currentTimeMillis();
+    new DataFormatConverter(src, dest).convert();
+
+    final long size = Math.max(0, src.getMetaData().getContentLength());
+    getLogger()
+        .info(
+            "Convert "
+                + src
+                + " to "
+                + dest
+                + ": "
+                + throughput(size, System.currentTimeMillis() - startTime));
+
+    return size;
+  }
+
+  /**
+   * Format the throughput of a conversion.
+   *
+   * @param size the size of the converted data in bytes
+   * @param duration the duration of the conversion in milliseconds
+   * @return a string with the throughput of the conversion
+   */
+  private static String throughput(final long size, final long duration) {
+
+    return sizeToHumanReadable(size)
+        + " in "
+        + toTimeHumanReadable(duration)
+        + " ("
+        + sizeToHumanReadable(size * 1000 / Math.max(1, duration))
+        + "/s)";
+  }
+
   //
   // Constructor
   //
@@ -1,17 +1,19 @@
 package fr.ens.biologie.genomique.eoulsan.modules.multiqc;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
-import fr.ens.biologie.genomique.eoulsan.data.DataFiles;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormatRegistry;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * This class define a preprocessor for Cutadapt reports.
@@ -49,43 +51,40 @@ public class CutAdaptInputPreprocessor implements InputPreprocessor {
     // Define the name of the output file
     DataFile outputFile = new DataFile(multiQCInputDirectory, name + "_trimming_report.txt");
 
-    // Create output file
+    // Create output file with the data name in the report
     if (!outputFile.exists()) {
-      DataFiles.copy(reportFile, outputFile);
+      writeReportFile(reportFile, outputFile.toFile().toPath(), name);
     }
-
-    // Update report with the data name
-    updateReportFile(outputFile.toFile().toPath(), name);
   }
 
   /**
-   * Update Cutadapt report file with the name of sample.
+   * Write a copy of a Cutadapt report file with the name of sample.
    *
-   * @param reportPath the report file
+   * @param reportFile the report file
+   * @param outputPath the output file
    * @param name the name of the sample
-   * @throws IOException if an error occurs while updating the file
+   * @throws IOException if an error occurs while writing the file
    */
-  private static void updateReportFile(Path reportPath, String name) throws IOException {
-
-    List<String> lines = Files.readAllLines(reportPath);
-    List<String> result = new ArrayList<>();
+  private static void writeReportFile(DataFile reportFile, Path outputPath, String name)
+      throws IOException {
 
     String oldFilename = null;
     String newFilename = name + ".fq";
 
-    for (String line : lines) {
+    try (BufferedReader reader =
+            new BufferedReader(new InputStreamReader(reportFile.open(), UTF_8));
+        BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
 
-      if (line.startsWith(INPUT_FILENAME_STRING)) {
-        oldFilename = line.substring(INPUT_FILENAME_STRING.length());
-      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+
+        if (line.startsWith(INPUT_FILENAME_STRING)) {
+          oldFilename = line.substring(INPUT_FILENAME_STRING.length());
+        }
 
-      if (oldFilename == null) {
-        result.add(line);
-      } else {
-        result.add(line.replace(oldFilename, newFilename));
+        writer.write(oldFilename == null ? line : line.replace(oldFilename, newFilename));
+        writer.newLine();
       }
     }
-
-    Files.write(reportPath, result);
   }
 }
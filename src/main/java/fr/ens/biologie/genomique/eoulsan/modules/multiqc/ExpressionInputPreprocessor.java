@@ -48,9 +48,8 @@ public class ExpressionInputPreprocessor implements InputPreprocessor {
       final TaskContext context, final Data data, final File multiQCInputDirectory)
       throws IOException {
 
-    if (this.sampleStats == null) {
-      loadExpressionResultStats(context);
-    }
+    // Get the expression statistics of the samples
+    final Map<String, Map<String, Integer>> sampleStats = getSampleStats(context);
 
     // Get data name
     String name = data.getName();
@@ -64,10 +63,28 @@ public class ExpressionInputPreprocessor implements InputPreprocessor {
     // If expression file exists, create a copy of the expression file enhanced
     // with HTSeq-count statistics entries
     if (expressionFile.exists()) {
-      enhanceExpressionFile(expressionFile.toPath(), newFile.toPath(), this.sampleStats.get(name));
+      enhanceExpressionFile(expressionFile.toPath(), newFile.toPath(), sampleStats.get(name));
     }
   }
 
+  /**
+   * Get the expression step result counters. As the data are preprocessed concurrently, the
+   * counters are only loaded by the first caller.
+   *
+   * @param context the step context
+   * @return a map with the counters of each sample
+   * @throws IOException if an error occurs while reading the expression step result file
+   */
+  private synchronized Map<String, Map<String, Integer>> getSampleStats(final TaskContext context)
+      throws IOException {
+
+    if (this.sampleStats == null) {
+      loadExpressionResultStats(context);
+    }
+
+    return this.sampleStats;
+  }
+
   /**
    * Load expression step result counters.
    *
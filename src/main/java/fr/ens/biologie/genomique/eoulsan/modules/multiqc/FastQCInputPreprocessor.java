@@ -1,5 +1,6 @@
 package fr.ens.biologie.genomique.eoulsan.modules.multiqc;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
@@ -12,12 +13,16 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 
 /**
  * This class define a preprocessor for FastQC reports.
@@ -59,76 +64,116 @@ public class FastQCInputPreprocessor implements InputPreprocessor {
       // Define target log file
       DataFile fastQCReportFile = data.getDataFile(i);
 
-      // Create output file
+      // Create the output file with the data name in the report
       if (!outputFile.exists()) {
-        DataFiles.copy(fastQCReportFile, outputFile);
+        createFastqcResultZip(context, fastQCReportFile, outputFile.toFile(), name);
       }
-
-      // Update report with the data name
-      updateFastqcResultZip(outputFile.toFile().toPath(), name);
     }
   }
 
   /**
-   * Update fastqc_data.txt file inside the zip with the name of sample.
+   * Create a copy of a FastQC zip file where the fastqc_data.txt file contains the name of sample.
    *
-   * @param reportfile the zip file
+   * @param context the step context
+   * @param reportFile the source zip file
+   * @param outputFile the output zip file
    * @param name the name of the sample
-   * @throws IOException if an error occurs while updating the file
+   * @throws IOException if an error occurs while creating the file
    */
-  private static void updateFastqcResultZip(Path reportfile, String name) throws IOException {
+  private static void createFastqcResultZip(
+      final TaskContext context,
+      final DataFile reportFile,
+      final File outputFile,
+      final String name)
+      throws IOException {
 
-    requireNonNull(reportfile);
+    requireNonNull(reportFile);
     requireNonNull(name);
 
-    String pathInZip = dataPathInZip(reportfile);
+    if (reportFile.isLocalFile()) {
+      rewriteFastqcResultZip(reportFile.toFile(), outputFile, name);
+      return;
+    }
 
-    try (FileSystem fs = FileSystems.newFileSystem(reportfile, (ClassLoader) null)) {
-      Path source = fs.getPath(pathInZip);
-      Path temp = fs.getPath("/___fastqc_data___.txt");
-      Files.move(source, temp);
-      updateReport(temp, source, name);
-      Files.delete(temp);
+    // The entries of a zip file can only be copied without decompression from a local file
+    final File localCopy = File.createTempFile("fastqc-", ".zip", context.getLocalTempDirectory());
+    try {
+      DataFiles.copy(reportFile, new DataFile(localCopy));
+      rewriteFastqcResultZip(localCopy, outputFile, name);
+    } finally {
+      if (!localCopy.delete()) {
+        context.getLogger().warning("Unable to remove the temporary file: " + localCopy);
+      }
     }
   }
 
   /**
-   * Look for the path of fastqc_data.txt file inside the zip file
+   * Rewrite a FastQC zip file with the name of sample in the fastqc_data.txt file. Only the
+   * fastqc_data.txt entry is decompressed and compressed again, the other entries are copied as is.
+   * The zip file is written in a temporary file that is renamed only on success, so an invalid
+   * output file is never left for the next executions of the step.
    *
-   * @param reportfile the zip file
-   * @return the path of the fastqc_data.txt file inside the zip file
-   * @throws IOException if an error occurs while opening the zip file
+   * @param inputFile the source zip file
+   * @param outputFile the output zip file
+   * @param name the name of the sample
+   * @throws IOException if an error occurs while rewriting the file
    */
-  private static String dataPathInZip(Path reportfile) throws IOException {
+  static void rewriteFastqcResultZip(
+      final File inputFile, final File outputFile, final String name) throws IOException {
+
+    final File tmpFile = new File(outputFile.getParentFile(), "." + outputFile.getName() + ".tmp");
+    boolean found = false;
+
+    try {
+
+      try (ZipFile zipIn = new ZipFile(inputFile);
+          ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(tmpFile)) {
+
+        for (ZipArchiveEntry entry : Collections.list(zipIn.getEntriesInPhysicalOrder())) {
 
-    try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(reportfile))) {
-      ZipEntry entry = zipIn.getNextEntry();
+          if (!found && entry.getName().endsWith("/fastqc_data.txt")) {
 
-      // iterates over entries in the zip file
-      while (entry != null) {
-        if (entry.getName().endsWith("/fastqc_data.txt")) {
-          return entry.getName();
+            final ZipArchiveEntry newEntry = new ZipArchiveEntry(entry.getName());
+            newEntry.setTime(entry.getTime());
+
+            zipOut.putArchiveEntry(newEntry);
+            updateReport(zipIn.getInputStream(entry), zipOut, name);
+            zipOut.closeArchiveEntry();
+            found = true;
+          } else {
+
+            try (InputStream in = zipIn.getRawInputStream(entry)) {
+              zipOut.addRawArchiveEntry(entry, in);
+            }
+          }
         }
+      }
 
-        zipIn.closeEntry();
-        entry = zipIn.getNextEntry();
+      if (!found) {
+        throw new IOException("No fastqc_data.txt found in " + inputFile);
       }
-    }
 
-    throw new IOException("No fastqc_data.txt found in " + reportfile);
+      Files.move(tmpFile.toPath(), outputFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+    } finally {
+      Files.deleteIfExists(tmpFile.toPath());
+    }
   }
 
   /**
    * Update the fastqc_data.txt file.
    *
-   * @param src input file
-   * @param dst output file
+   * @param in input stream
+   * @param out output stream, not closed by this method
    * @param name name of the report
    * @throws IOException if an error occurs while updating the file
    */
-  private static void updateReport(Path src, Path dst, String name) throws IOException {
-    try (BufferedReader br = Files.newBufferedReader(src);
-        BufferedWriter bw = Files.newBufferedWriter(dst)) {
+  private static void updateReport(final InputStream in, final OutputStream out, final String name)
+      throws IOException {
+
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+
+      final BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
 
       String line;
       while ((line = br.readLine()) != null) {
@@ -140,6 +185,8 @@ public class FastQCInputPreprocessor implements InputPreprocessor {
         bw.write(line);
         bw.newLine();
       }
+
+      bw.flush();
     }
   }
 }
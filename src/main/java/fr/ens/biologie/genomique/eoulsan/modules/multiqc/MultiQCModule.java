@@ -44,6 +44,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class define a module for MultiQC.
@@ -168,11 +172,7 @@ public class MultiQCModule extends AbstractModule {
       Path multiQCInputDir = FileUtils.createTempDir(context.getLocalTempDirectory()).toPath();
 
       // Preprocess input data for MultiQC
-      for (Map.Entry<DataFormat, InputPreprocessor> e : this.formats.entrySet()) {
-        for (Data d : context.getInputData(e.getKey()).getListElements()) {
-          e.getValue().preprocess(context, d, multiQCInputDir.toFile());
-        }
-      }
+      preprocessInputData(context, multiQCInputDir.toFile());
 
       // Create sample names file
       Path sampleNamesFile = multiQCInputDir.resolve("sample-names.tsv");
@@ -218,6 +218,54 @@ public class MultiQCModule extends AbstractModule {
     return status.createTaskResult();
   }
 
+  /**
+   * Preprocess the input data. The data are preprocessed concurrently as each preprocessing writes
+   * its own files in the MultiQC input directory.
+   *
+   * @param context the task context
+   * @param multiQCInputDirectory MultiQC input directory
+   * @throws IOException if an error occurs while preprocessing the data
+   */
+  private void preprocessInputData(final TaskContext context, final File multiQCInputDirectory)
+      throws IOException {
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, context.getSettings().getLocalThreadsNumber()));
+    final List<Future<Void>> futures = new ArrayList<>();
+
+    try {
+
+      for (Map.Entry<DataFormat, InputPreprocessor> e : this.formats.entrySet()) {
+
+        final InputPreprocessor preprocessor = e.getValue();
+
+        for (Data d : context.getInputData(e.getKey()).getListElements()) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    preprocessor.preprocess(context, d, multiQCInputDirectory);
+                    return null;
+                  }));
+        }
+      }
+
+      for (Future<Void> f : futures) {
+        f.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Preprocessing of the MultiQC input data interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   /**
    * Parse the "reports" step parameter.
    *
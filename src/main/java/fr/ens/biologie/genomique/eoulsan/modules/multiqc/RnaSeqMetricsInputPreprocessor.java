@@ -1,19 +1,21 @@
 package fr.ens.biologie.genomique.eoulsan.modules.multiqc;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.core.TaskContext;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
-import fr.ens.biologie.genomique.eoulsan.data.DataFiles;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
 import fr.ens.biologie.genomique.eoulsan.data.DataFormatRegistry;
 import fr.ens.biologie.genomique.kenetre.util.StringUtils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,6 +29,9 @@ public class RnaSeqMetricsInputPreprocessor implements InputPreprocessor {
 
   public static final String REPORT_NAME = "rnaseqmetrics";
 
+  private static final Pattern INPUT_PATTERN =
+      Pattern.compile("INPUT(?:=|\\s+)([^\\s]+)", Pattern.CASE_INSENSITIVE);
+
   @Override
   public String getReportName() {
     return REPORT_NAME;
@@ -51,44 +56,45 @@ public class RnaSeqMetricsInputPreprocessor implements InputPreprocessor {
     // Define the name of the symbolic link
     DataFile outputFile = new DataFile(multiQCInputDirectory, name + ".RNA_Metrics");
 
-    // Create output file
+    // Create output file with the data name in the metrics
     if (!outputFile.exists()) {
-      DataFiles.copy(metricsFile, outputFile);
+      writeMetricsFile(metricsFile, outputFile.toFile().toPath(), name);
     }
-
-    // Update metrics file with the data name
-    updateMetricsFile(outputFile.toFile().toPath(), name);
   }
 
   /**
-   * Update RnaSeqMetrics report file with the name of sample.
+   * Write a copy of a RnaSeqMetrics report file with the name of sample.
    *
-   * @param reportPath the report file
+   * @param metricsFile the report file
+   * @param outputPath the output file
    * @param name the name of the sample
-   * @throws IOException if an error occurs while updating the file
+   * @throws IOException if an error occurs while writing the file
    */
-  private static void updateMetricsFile(Path reportPath, String name) throws IOException {
+  private static void writeMetricsFile(DataFile metricsFile, Path outputPath, String name)
+      throws IOException {
 
-    List<String> lines = Files.readAllLines(reportPath);
-    List<String> result = new ArrayList<>();
+    try (BufferedReader reader =
+            new BufferedReader(new InputStreamReader(metricsFile.open(), UTF_8));
+        BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
 
-    for (String line : lines) {
+      String line;
+      while ((line = reader.readLine()) != null) {
 
-      if (line.contains("INPUT")
-          && line.toLowerCase(Globals.DEFAULT_LOCALE).contains("rnaseqmetrics")) {
+        if (line.contains("INPUT")
+            && line.toLowerCase(Globals.DEFAULT_LOCALE).contains("rnaseqmetrics")) {
 
-        Pattern pattern = Pattern.compile("INPUT(?:=|\\s+)([^\\s]+)", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find()) {
-          String oldPath = matcher.group(1);
-          String extension = StringUtils.extension(oldPath);
-          String newPath = Path.of(oldPath).getParent().resolve(name + extension).toString();
-          line = line.replace(oldPath, newPath);
+          Matcher matcher = INPUT_PATTERN.matcher(line);
+          if (matcher.find()) {
+            String oldPath = matcher.group(1);
+            String extension = StringUtils.extension(oldPath);
+            String newPath = Path.of(oldPath).getParent().resolve(name + extension).toString();
+            line = line.replace(oldPath, newPath);
+          }
         }
+
+        writer.write(line);
+        writer.newLine();
       }
-      result.add(line);
     }
-
-    Files.write(reportPath, result);
   }
 }
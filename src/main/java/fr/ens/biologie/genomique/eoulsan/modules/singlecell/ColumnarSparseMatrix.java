@@ -0,0 +1,593 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.singlecell;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class define a sparse expression matrix stored by columns (compressed sparse column). The
+ * row and column names are interned in dictionaries and the values of each column are stored in
+ * primitive arrays, so the matrix does not box any value. Columns are only appended to the matrix,
+ * which is the way single cell matrices are built from the expression files of the cells.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ColumnarSparseMatrix {
+
+  private final List<String> rowNames = new ArrayList<>();
+  private final Map<String, Integer> rowIndexes = new HashMap<>();
+  private final List<String> columnNames = new ArrayList<>();
+  private final Set<String> columnNameSet = new HashSet<>();
+  private final List<int[]> columnRows = new ArrayList<>();
+  private final List<double[]> columnValues = new ArrayList<>();
+  private long nonZeroCount;
+  private boolean integerValues = true;
+
+  // Row indexes of the last row names added to the matrix
+  private String[] lastRowNames;
+  private int[] lastRowIndexes;
+
+  /**
+   * This class define a column that has been parsed but not yet added to a matrix. The rows of the
+   * column are indexes in the row names of the input, so columns can be parsed concurrently. The
+   * columns of the same input should share the same array of row names, the row names are then
+   * only resolved once by input.
+   */
+  public static final class Column {
+
+    private final String name;
+    private final String[] rowNames;
+    private final int[] rows;
+    private final double[] values;
+
+    /**
+     * Get the name of the column.
+     *
+     * @return the name of the column
+     */
+    public String getName() {
+
+      return this.name;
+    }
+
+    /**
+     * Constructor for a dense column.
+     *
+     * @param name name of the column
+     * @param rowNames names of the rows of the column
+     * @param values values of the column, in the same order as the row names
+     */
+    public Column(final String name, final String[] rowNames, final double[] values) {
+
+      this(name, rowNames, denseRows(rowNames, values), values);
+    }
+
+    /**
+     * Constructor for a sparse column.
+     *
+     * @param name name of the column
+     * @param rowNames names of all the rows of the input, including the rows without value in the
+     *     column
+     * @param rows indexes in the row names of the values of the column
+     * @param values values of the column, in the same order as the rows
+     */
+    public Column(
+        final String name, final String[] rowNames, final int[] rows, final double[] values) {
+
+      requireNonNull(name, "name argument cannot be null");
+      requireNonNull(rowNames, "rowNames argument cannot be null");
+      requireNonNull(rows, "rows argument cannot be null");
+      requireNonNull(values, "values argument cannot be null");
+
+      if (rows.length != values.length) {
+        throw new IllegalArgumentException("rows and values arguments must have the same length");
+      }
+
+      for (int row : rows) {
+        if (row < 0 || row >= rowNames.length) {
+          throw new IllegalArgumentException("Invalid row index in column " + name + ": " + row);
+        }
+      }
+
+      this.name = name;
+      this.rowNames = rowNames;
+      this.rows = rows;
+      this.values = values;
+    }
+
+    private static int[] denseRows(final String[] rowNames, final double[] values) {
+
+      requireNonNull(rowNames, "rowNames argument cannot be null");
+      requireNonNull(values, "values argument cannot be null");
+
+      if (rowNames.length != values.length) {
+        throw new IllegalArgumentException(
+            "rowNames and values arguments must have the same length");
+      }
+
+      final int[] result = new int[rowNames.length];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = i;
+      }
+
+      return result;
+    }
+  }
+
+  /** This class define a builder of sparse columns. Only the non-zero values are kept. */
+  public static final class ColumnBuilder {
+
+    private int[] rows = new int[16];
+    private double[] values = new double[16];
+    private int size;
+
+    /**
+     * Add a value to the column.
+     *
+     * @param row index of the row in the row names of the input
+     * @param value the value
+     */
+    public void add(final int row, final double value) {
+
+      if (value == 0.0) {
+        return;
+      }
+
+      if (this.size == this.rows.length) {
+        this.rows = Arrays.copyOf(this.rows, this.size * 2);
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+
+      this.rows[this.size] = row;
+      this.values[this.size] = value;
+      this.size++;
+    }
+
+    /**
+     * Create the column.
+     *
+     * @param name name of the column
+     * @param rowNames names of all the rows of the input
+     * @return a new Column object
+     */
+    public Column build(final String name, final String[] rowNames) {
+
+      return new Column(
+          name,
+          rowNames,
+          Arrays.copyOf(this.rows, this.size),
+          Arrays.copyOf(this.values, this.size));
+    }
+  }
+
+  /**
+   * This interface define a loader of columns for the concurrent loading of matrices.
+   *
+   * @param <E> type of the inputs
+   */
+  @FunctionalInterface
+  public interface ColumnLoader<E> {
+
+    /**
+     * Load the columns of an input.
+     *
+     * @param input the input
+     * @return a list with the columns of the input
+     * @throws IOException if an error occurs while loading the columns
+     */
+    List<Column> load(E input) throws IOException;
+  }
+
+  /** This interface define a consumer of the non-zero values of the matrix. */
+  @FunctionalInterface
+  public interface ValueConsumer {
+
+    /**
+     * Consume a value.
+     *
+     * @param row index of the row
+     * @param column index of the column
+     * @param value the value
+     * @throws IOException if an error occurs while consuming the value
+     */
+    void accept(int row, int column, double value) throws IOException;
+  }
+
+  //
+  // Getters
+  //
+
+  /**
+   * Get the names of the rows.
+   *
+   * @return an unmodifiable list with the names of the rows
+   */
+  public List<String> getRowNames() {
+
+    return Collections.unmodifiableList(this.rowNames);
+  }
+
+  /**
+   * Get the names of the columns.
+   *
+   * @return an unmodifiable list with the names of the columns
+   */
+  public List<String> getColumnNames() {
+
+    return Collections.unmodifiableList(this.columnNames);
+  }
+
+  /**
+   * Get the number of rows.
+   *
+   * @return the number of rows
+   */
+  public int getRowCount() {
+
+    return this.rowNames.size();
+  }
+
+  /**
+   * Get the number of columns.
+   *
+   * @return the number of columns
+   */
+  public int getColumnCount() {
+
+    return this.columnNames.size();
+  }
+
+  /**
+   * Get the number of non-zero values of the matrix.
+   *
+   * @return the number of non-zero values
+   */
+  public long getNonZeroCount() {
+
+    return this.nonZeroCount;
+  }
+
+  /**
+   * Get the number of non-zero values of a column.
+   *
+   * @param column index of the column
+   * @return the number of non-zero values of the column
+   */
+  public int getColumnNonZeroCount(final int column) {
+
+    return this.columnRows.get(column).length;
+  }
+
+  /**
+   * Test if all the values of the matrix are integers.
+   *
+   * @return true if all the values of the matrix are integers
+   */
+  public boolean isIntegerValues() {
+
+    return this.integerValues;
+  }
+
+  //
+  // Matrix methods
+  //
+
+  /**
+   * Add a row to the matrix if not exists.
+   *
+   * @param rowName the name of the row
+   * @return the index of the row
+   */
+  public int addRow(final String rowName) {
+
+    requireNonNull(rowName, "rowName argument cannot be null");
+
+    final Integer index = this.rowIndexes.get(rowName);
+
+    if (index != null) {
+      return index;
+    }
+
+    final int result = this.rowNames.size();
+    this.rowNames.add(rowName);
+    this.rowIndexes.put(rowName, result);
+
+    return result;
+  }
+
+  /**
+   * Add a column to the matrix. The rows of the column that are not in the matrix are added to the
+   * matrix. Only the non-zero values of the column are stored and the values of the rows that are
+   * repeated in the column are summed.
+   *
+   * @param column the column to add
+   */
+  public void addColumn(final Column column) {
+
+    requireNonNull(column, "column argument cannot be null");
+
+    if (this.columnNameSet.contains(column.name)) {
+      throw new IllegalArgumentException("The column already exists: " + column.name);
+    }
+
+    final int[] rowIndexes = rowIndexes(column.rowNames);
+    final int n = column.rows.length;
+    final int[] rows = new int[n];
+    final double[] values = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      rows[i] = rowIndexes[column.rows[i]];
+      values[i] = column.values[i];
+    }
+
+    sortByRow(rows, values);
+
+    // Merge the values of the repeated rows
+    int merged = 0;
+    for (int i = 0; i < n; i++) {
+
+      if (merged > 0 && rows[merged - 1] == rows[i]) {
+        values[merged - 1] += values[i];
+      } else {
+        rows[merged] = rows[i];
+        values[merged] = values[i];
+        merged++;
+      }
+    }
+
+    // Remove the zero values
+    int count = 0;
+    for (int i = 0; i < merged; i++) {
+
+      final double v = values[i];
+
+      if (v != 0.0) {
+        rows[count] = rows[i];
+        values[count] = v;
+        count++;
+
+        if (this.integerValues && v != Math.rint(v)) {
+          this.integerValues = false;
+        }
+      }
+    }
+
+    this.columnNames.add(column.name);
+    this.columnNameSet.add(column.name);
+    this.columnRows.add(count == n ? rows : Arrays.copyOf(rows, count));
+    this.columnValues.add(count == n ? values : Arrays.copyOf(values, count));
+    this.nonZeroCount += count;
+  }
+
+  /**
+   * Get the indexes in the matrix of row names. The rows that are not in the matrix are added to
+   * the matrix, even if they have no value, to keep all the features in the matrix.
+   *
+   * @param rowNames the row names
+   * @return an array with the indexes of the rows in the matrix
+   */
+  private int[] rowIndexes(final String[] rowNames) {
+
+    // The columns of the same input share the same row names
+    if (rowNames == this.lastRowNames) {
+      return this.lastRowIndexes;
+    }
+
+    final int[] result = new int[rowNames.length];
+    for (int i = 0; i < rowNames.length; i++) {
+      result[i] = addRow(rowNames[i]);
+    }
+
+    this.lastRowNames = rowNames;
+    this.lastRowIndexes = result;
+
+    return result;
+  }
+
+  /**
+   * Iterate over the non-zero values of the matrix, column by column and in the order of the rows
+   * in each column.
+   *
+   * @param consumer the consumer of the values
+   * @throws IOException if an error occurs in the consumer
+   */
+  public void forEachNonZero(final ValueConsumer consumer) throws IOException {
+
+    requireNonNull(consumer, "consumer argument cannot be null");
+
+    for (int col = 0; col < this.columnRows.size(); col++) {
+
+      final int[] rows = this.columnRows.get(col);
+      final double[] values = this.columnValues.get(col);
+
+      for (int i = 0; i < rows.length; i++) {
+        consumer.accept(rows[i], col, values[i]);
+      }
+    }
+  }
+
+  /**
+   * Iterate over the non-zero values of the matrix, row by row and in the order of the columns in
+   * each row. This method transposes the matrix, so it temporary requires the same amount of
+   * memory as the matrix.
+   *
+   * @param consumer the consumer of the values
+   * @throws IOException if an error occurs in the consumer
+   */
+  public void forEachNonZeroByRow(final ValueConsumer consumer) throws IOException {
+
+    requireNonNull(consumer, "consumer argument cannot be null");
+
+    if (this.nonZeroCount > Integer.MAX_VALUE - 8) {
+      throw new IOException("Too many values in the matrix to be transposed");
+    }
+
+    final int rowCount = getRowCount();
+    final int[] rowStarts = new int[rowCount + 1];
+
+    // Count the values of each row
+    for (int[] rows : this.columnRows) {
+      for (int row : rows) {
+        rowStarts[row + 1]++;
+      }
+    }
+    for (int i = 0; i < rowCount; i++) {
+      rowStarts[i + 1] += rowStarts[i];
+    }
+
+    // Fill the transposed matrix, columns are added in increasing order
+    final int[] positions = Arrays.copyOf(rowStarts, rowCount);
+    final int[] cols = new int[(int) this.nonZeroCount];
+    final double[] values = new double[(int) this.nonZeroCount];
+
+    for (int col = 0; col < this.columnRows.size(); col++) {
+
+      final int[] rows = this.columnRows.get(col);
+      final double[] colValues = this.columnValues.get(col);
+
+      for (int i = 0; i < rows.length; i++) {
+        final int pos = positions[rows[i]]++;
+        cols[pos] = col;
+        values[pos] = colValues[i];
+      }
+    }
+
+    for (int row = 0; row < rowCount; row++) {
+      for (int i = rowStarts[row]; i < rowStarts[row + 1]; i++) {
+        consumer.accept(row, cols[i], values[i]);
+      }
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Sort the values of a column by row index. The rows are usually already sorted, so the values
+   * are only sorted if required.
+   *
+   * @param rows the rows
+   * @param values the values
+   */
+  static void sortByRow(final int[] rows, final double[] values) {
+
+    boolean sorted = true;
+    for (int i = 1; i < rows.length && sorted; i++) {
+      sorted = rows[i - 1] <= rows[i];
+    }
+
+    if (sorted) {
+      return;
+    }
+
+    // Sort the rows with their original positions
+    final long[] keys = new long[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      keys[i] = ((long) rows[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    final double[] sortedValues = new double[values.length];
+    for (int i = 0; i < keys.length; i++) {
+      rows[i] = (int) (keys[i] >>> 32);
+      sortedValues[i] = values[(int) keys[i]];
+    }
+    System.arraycopy(sortedValues, 0, values, 0, values.length);
+  }
+
+  //
+  // Static methods
+  //
+
+  /**
+   * Load a matrix from several inputs. The inputs are parsed concurrently and their columns are
+   * added to the matrix in the order of the inputs.
+   *
+   * @param inputs the inputs
+   * @param threads the number of threads to use
+   * @param loader the loader of the inputs
+   * @param <E> type of the inputs
+   * @return a new ColumnarSparseMatrix object
+   * @throws IOException if an error occurs while loading an input
+   */
+  public static <E> ColumnarSparseMatrix load(
+      final List<E> inputs, final int threads, final ColumnLoader<E> loader) throws IOException {
+
+    requireNonNull(inputs, "inputs argument cannot be null");
+    requireNonNull(loader, "loader argument cannot be null");
+
+    final ColumnarSparseMatrix result = new ColumnarSparseMatrix();
+
+    if (inputs.isEmpty()) {
+      return result;
+    }
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())));
+
+    try {
+
+      final List<Future<List<Column>>> futures = new ArrayList<>(inputs.size());
+      for (E input : inputs) {
+        futures.add(executor.submit(() -> loader.load(input)));
+      }
+
+      for (Future<List<Column>> future : futures) {
+        for (Column column : future.get()) {
+          result.addColumn(column);
+        }
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading the matrix", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,529 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.singlecell;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.Column;
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.ColumnBuilder;
+import fr.ens.biologie.genomique.kenetre.bio.AnnotationMatrix;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class define methods to read and write ColumnarSparseMatrix objects. The matrices are read
+ * and written in one streaming pass, without creating any intermediate representation of the
+ * matrix.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ColumnarSparseMatrixUtils {
+
+  private static final String MATRIX_MARKET_HEADER = "%%MatrixMarket matrix coordinate ";
+
+  /** Magic number of the binary matrix format. */
+  private static final byte[] BINARY_MAGIC = {'E', 'S', 'M', 'B'};
+
+  /** Version of the binary matrix format. */
+  private static final int BINARY_VERSION = 1;
+
+  //
+  // MatrixMarket
+  //
+
+  /**
+   * Write a matrix in MatrixMarket coordinate format. The output stream is closed at the end of the
+   * method.
+   *
+   * @param matrix the matrix to write
+   * @param os the output stream
+   * @throws IOException if an error occurs while writing the matrix
+   */
+  public static void writeMatrixMarket(final ColumnarSparseMatrix matrix, final OutputStream os)
+      throws IOException {
+
+    requireNonNull(matrix, "matrix argument cannot be null");
+    requireNonNull(os, "os argument cannot be null");
+
+    final boolean integerValues = matrix.isIntegerValues();
+
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(os, UTF_8))) {
+
+      writer.write(MATRIX_MARKET_HEADER + (integerValues ? "integer" : "real") + " general\n");
+      writer.write(
+          matrix.getRowCount()
+              + " "
+              + matrix.getColumnCount()
+              + " "
+              + matrix.getNonZeroCount()
+              + "\n");
+
+      matrix.forEachNonZero(
+          (row, col, value) -> {
+            writer.write(Integer.toString(row + 1));
+            writer.write(' ');
+            writer.write(Integer.toString(col + 1));
+            writer.write(' ');
+            writer.write(toString(value, integerValues));
+            writer.write('\n');
+          });
+    }
+  }
+
+  /**
+   * Write a list of names, one name per line. The output stream is closed at the end of the
+   * method.
+   *
+   * @param names the names to write
+   * @param os the output stream
+   * @throws IOException if an error occurs while writing the names
+   */
+  public static void writeNames(final List<String> names, final OutputStream os)
+      throws IOException {
+
+    requireNonNull(names, "names argument cannot be null");
+    requireNonNull(os, "os argument cannot be null");
+
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(os, UTF_8))) {
+      for (String name : names) {
+        writer.write(name);
+        writer.write('\n');
+      }
+    }
+  }
+
+  //
+  // Binary
+  //
+
+  /**
+   * Write a matrix in the Eoulsan binary sparse matrix format. This format can be read by R with
+   * the readBin() function without any parsing of text. All the numbers are stored in little
+   * endian:
+   *
+   * <ul>
+   *   <li>the magic number "ESMB" and the version of the format (int32)
+   *   <li>the number of rows, the number of columns and the number of non-zero values (int32)
+   *   <li>the column pointers of the compressed sparse column matrix (ncol+1 int32)
+   *   <li>the 0-based row indexes of the non-zero values (nnz int32)
+   *   <li>the non-zero values (nnz float64)
+   *   <li>the names of the rows and then the names of the columns (NUL terminated UTF-8 strings)
+   * </ul>
+   *
+   * The output stream is closed at the end of the method.
+   *
+   * @param matrix the matrix to write
+   * @param os the output stream
+   * @throws IOException if an error occurs while writing the matrix
+   */
+  public static void writeBinary(final ColumnarSparseMatrix matrix, final OutputStream os)
+      throws IOException {
+
+    requireNonNull(matrix, "matrix argument cannot be null");
+    requireNonNull(os, "os argument cannot be null");
+
+    if (matrix.getNonZeroCount() > Integer.MAX_VALUE) {
+      throw new IOException("Too many values in the matrix for the binary format");
+    }
+
+    final int columnCount = matrix.getColumnCount();
+    final byte[] buffer = new byte[Long.BYTES];
+
+    try (OutputStream out = new BufferedOutputStream(os, 1 << 16)) {
+
+      // Header
+      out.write(BINARY_MAGIC);
+      writeInt(out, buffer, BINARY_VERSION);
+      writeInt(out, buffer, matrix.getRowCount());
+      writeInt(out, buffer, columnCount);
+      writeInt(out, buffer, (int) matrix.getNonZeroCount());
+
+      // Column pointers
+      int pointer = 0;
+      writeInt(out, buffer, pointer);
+      for (int col = 0; col < columnCount; col++) {
+        pointer += matrix.getColumnNonZeroCount(col);
+        writeInt(out, buffer, pointer);
+      }
+
+      // Row indexes and values
+      matrix.forEachNonZero((row, col, value) -> writeInt(out, buffer, row));
+      matrix.forEachNonZero((row, col, value) -> writeDouble(out, buffer, value));
+
+      // Names
+      for (String name : matrix.getRowNames()) {
+        writeString(out, name);
+      }
+      for (String name : matrix.getColumnNames()) {
+        writeString(out, name);
+      }
+    }
+  }
+
+  private static void writeInt(final OutputStream out, final byte[] buffer, final int value)
+      throws IOException {
+
+    buffer[0] = (byte) value;
+    buffer[1] = (byte) (value >>> 8);
+    buffer[2] = (byte) (value >>> 16);
+    buffer[3] = (byte) (value >>> 24);
+    out.write(buffer, 0, Integer.BYTES);
+  }
+
+  private static void writeDouble(final OutputStream out, final byte[] buffer, final double value)
+      throws IOException {
+
+    final long bits = Double.doubleToLongBits(value);
+
+    for (int i = 0; i < Long.BYTES; i++) {
+      buffer[i] = (byte) (bits >>> (8 * i));
+    }
+    out.write(buffer, 0, Long.BYTES);
+  }
+
+  private static void writeString(final OutputStream out, final String s) throws IOException {
+
+    if (s.indexOf('\0') != -1) {
+      throw new IOException("Invalid name in the matrix: " + s);
+    }
+
+    out.write(s.getBytes(UTF_8));
+    out.write(0);
+  }
+
+  //
+  // Cell Ranger
+  //
+
+  /**
+   * Write a matrix in the Cell Ranger matrix format.
+   *
+   * @param matrix the matrix to write
+   * @param outputDir the output directory
+   * @param geneAnnotation gene annotation, can be null
+   * @param featureAnnotationFieldName the annotation field to use for the feature names
+   * @param cellRangerFormat Cell Ranger matrix format (1 for Cell Ranger 2, 2 for Cell Ranger 3)
+   * @param featureType the type of the features
+   * @throws IOException if an error occurs while writing the matrix
+   */
+  public static void writeCellRangerMatrix(
+      final ColumnarSparseMatrix matrix,
+      final File outputDir,
+      final AnnotationMatrix geneAnnotation,
+      final String featureAnnotationFieldName,
+      final int cellRangerFormat,
+      final String featureType)
+      throws IOException {
+
+    requireNonNull(matrix, "matrix argument cannot be null");
+    requireNonNull(outputDir, "outputDir argument cannot be null");
+
+    if (cellRangerFormat != 1 && cellRangerFormat != 2) {
+      throw new IllegalArgumentException("Invalid Cell Ranger matrix format: " + cellRangerFormat);
+    }
+
+    // Cell Ranger 3 files are compressed
+    final boolean v3 = cellRangerFormat == 2;
+    final String extension = v3 ? ".gz" : "";
+
+    // Write features
+    final boolean useAnnotation =
+        geneAnnotation != null
+            && featureAnnotationFieldName != null
+            && geneAnnotation.getColumnNames().contains(featureAnnotationFieldName);
+
+    try (Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(
+                create(new File(outputDir, (v3 ? "features.tsv" : "genes.tsv") + extension), v3),
+                UTF_8))) {
+
+      for (String id : matrix.getRowNames()) {
+
+        String name = null;
+        if (useAnnotation && geneAnnotation.containsRow(id)) {
+          name = geneAnnotation.getValue(id, featureAnnotationFieldName);
+        }
+        if (name == null || name.trim().isEmpty()) {
+          name = id;
+        }
+
+        writer.write(id);
+        writer.write('\t');
+        writer.write(name);
+        if (v3) {
+          writer.write('\t');
+          writer.write(featureType);
+        }
+        writer.write('\n');
+      }
+    }
+
+    // Write barcodes
+    writeNames(
+        matrix.getColumnNames(), create(new File(outputDir, "barcodes.tsv" + extension), v3));
+
+    // Write matrix
+    writeMatrixMarket(matrix, create(new File(outputDir, "matrix.mtx" + extension), v3));
+  }
+
+  //
+  // TSV
+  //
+
+  /**
+   * Write a matrix as a dense TSV file. The output stream is closed at the end of the method.
+   *
+   * @param matrix the matrix to write
+   * @param os the output stream
+   * @throws IOException if an error occurs while writing the matrix
+   */
+  public static void writeDenseTSV(final ColumnarSparseMatrix matrix, final OutputStream os)
+      throws IOException {
+
+    requireNonNull(matrix, "matrix argument cannot be null");
+    requireNonNull(os, "os argument cannot be null");
+
+    final boolean integerValues = matrix.isIntegerValues();
+    final List<String> rowNames = matrix.getRowNames();
+    final int rowCount = matrix.getRowCount();
+    final double[] rowValues = new double[matrix.getColumnCount()];
+
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(os, UTF_8))) {
+
+      // Write header
+      writer.write("Id");
+      for (String colName : matrix.getColumnNames()) {
+        writer.write('\t');
+        writer.write(colName);
+      }
+      writer.write('\n');
+
+      // Rows are filled one by one from the transposed matrix
+      final int[] currentRow = {0};
+      final RowWriter rowWriter = new RowWriter(writer, rowNames, rowValues, integerValues);
+
+      matrix.forEachNonZeroByRow(
+          (row, col, value) -> {
+            while (currentRow[0] < row) {
+              rowWriter.write(currentRow[0]++);
+            }
+            rowValues[col] = value;
+          });
+
+      while (currentRow[0] < rowCount) {
+        rowWriter.write(currentRow[0]++);
+      }
+    }
+  }
+
+  /**
+   * Read the columns of a dense TSV matrix, like the matrices written by {@link
+   * #writeDenseTSV(ColumnarSparseMatrix, OutputStream)}. The first line contains the names of the
+   * columns and each following line the name of a row followed by its values. Only the non-zero
+   * values are kept. The content is not read as a dense TSV matrix if the first row contains
+   * another number of fields than the header or if its values are not numbers.
+   *
+   * @param reader the reader of the matrix
+   * @param columnPrefix the prefix to add to the names of the columns
+   * @return a list with the columns of the matrix or null if the content is not a dense TSV matrix
+   * @throws IOException if an error occurs while reading the matrix
+   */
+  public static List<Column> readDenseTSV(final BufferedReader reader, final String columnPrefix)
+      throws IOException {
+
+    requireNonNull(reader, "reader argument cannot be null");
+    requireNonNull(columnPrefix, "columnPrefix argument cannot be null");
+
+    final String header = reader.readLine();
+    if (header == null || header.startsWith("%")) {
+      return null;
+    }
+
+    final String[] columnNames = header.split("\\t", -1);
+    final int fieldCount = columnNames.length;
+    final ColumnBuilder[] builders = new ColumnBuilder[fieldCount];
+    for (int i = 1; i < fieldCount; i++) {
+      builders[i] = new ColumnBuilder();
+    }
+
+    final List<String> rowNames = new ArrayList<>();
+    final double[] values = new double[fieldCount];
+    String line;
+    int lineNumber = 1;
+
+    while ((line = reader.readLine()) != null) {
+
+      lineNumber++;
+
+      if (line.isEmpty()) {
+        continue;
+      }
+
+      final String[] fields = line.split("\\t", -1);
+      final boolean valid = fields.length == fieldCount && parseValues(fields, values);
+
+      if (!valid) {
+
+        // The content is not a dense TSV matrix
+        if (rowNames.isEmpty()) {
+          return null;
+        }
+
+        throw new IOException("Invalid line " + lineNumber + " in dense TSV matrix: " + line);
+      }
+
+      final int row = rowNames.size();
+      rowNames.add(unquote(fields[0]));
+
+      for (int i = 1; i < fieldCount; i++) {
+        builders[i].add(row, values[i]);
+      }
+    }
+
+    if (rowNames.isEmpty()) {
+      return null;
+    }
+
+    // All the columns share the same row names
+    final String[] rowNameArray = rowNames.toArray(new String[0]);
+    final List<Column> result = new ArrayList<>(fieldCount - 1);
+    for (int i = 1; i < fieldCount; i++) {
+      result.add(builders[i].build(columnPrefix + unquote(columnNames[i]), rowNameArray));
+    }
+
+    return result;
+  }
+
+  /**
+   * Parse the values of a line of a dense TSV matrix.
+   *
+   * @param fields the fields of the line
+   * @param values the array for the values of the line
+   * @return false if a value is not a number
+   */
+  private static boolean parseValues(final String[] fields, final double[] values) {
+
+    try {
+      for (int i = 1; i < fields.length; i++) {
+        values[i] = Double.parseDouble(fields[i]);
+      }
+    } catch (NumberFormatException e) {
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Remove the quotes around a name.
+   *
+   * @param s the name
+   * @return the name without quotes
+   */
+  private static String unquote(final String s) {
+
+    if (s.length() > 1 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"') {
+      return s.substring(1, s.length() - 1);
+    }
+
+    return s;
+  }
+
+  /** This class write the rows of a dense TSV file. */
+  private static final class RowWriter {
+
+    private final Writer writer;
+    private final List<String> rowNames;
+    private final double[] rowValues;
+    private final boolean integerValues;
+
+    void write(final int row) throws IOException {
+
+      this.writer.write(this.rowNames.get(row));
+      for (double v : this.rowValues) {
+        this.writer.write('\t');
+        this.writer.write(ColumnarSparseMatrixUtils.toString(v, this.integerValues));
+      }
+      this.writer.write('\n');
+
+      Arrays.fill(this.rowValues, 0.0);
+    }
+
+    RowWriter(
+        final Writer writer,
+        final List<String> rowNames,
+        final double[] rowValues,
+        final boolean integerValues) {
+
+      this.writer = writer;
+      this.rowNames = rowNames;
+      this.rowValues = rowValues;
+      this.integerValues = integerValues;
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  private static String toString(final double value, final boolean integerValue) {
+
+    if (integerValue) {
+      return Long.toString((long) value);
+    }
+
+    return Double.toString(value);
+  }
+
+  private static OutputStream create(final File file, final boolean compress) throws IOException {
+
+    final OutputStream os = Files.newOutputStream(file.toPath());
+
+    return compress ? new GZIPOutputStream(os) : os;
+  }
+
+  //
+  // Constructor
+  //
+
+  private ColumnarSparseMatrixUtils() {
+
+    throw new IllegalStateException();
+  }
+}
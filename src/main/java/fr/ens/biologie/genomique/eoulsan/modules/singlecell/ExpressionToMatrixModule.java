@@ -20,11 +20,13 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
 import fr.ens.biologie.genomique.kenetre.bio.ExpressionMatrix;
+import fr.ens.biologie.genomique.kenetre.bio.SparseExpressionMatrix;
 import fr.ens.biologie.genomique.kenetre.bio.io.ExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.SparseExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -91,7 +93,9 @@ public class ExpressionToMatrixModule extends AbstractModule {
       Data outputData = context.getOutputData(EXPRESSION_MATRIX_TSV, inputData);
 
       // Create matrix
-      final ExpressionMatrix matrix = mergeExpressionResults(inputData);
+      final ExpressionMatrix matrix =
+          toExpressionMatrix(
+              mergeExpressionResults(inputData, context.getSettings().getLocalThreadsNumber()));
 
       // Write matrix
       try (ExpressionMatrixWriter writer =
@@ -107,4 +111,36 @@ public class ExpressionToMatrixModule extends AbstractModule {
 
     return status.createTaskResult();
   }
+
+  /**
+   * Convert a ColumnarSparseMatrix to an ExpressionMatrix for the matrix writers.
+   *
+   * @param matrix the matrix to convert
+   * @return a new ExpressionMatrix object
+   * @throws IOException if an error occurs while converting the matrix
+   */
+  private static ExpressionMatrix toExpressionMatrix(final ColumnarSparseMatrix matrix)
+      throws IOException {
+
+    final ExpressionMatrix result = new SparseExpressionMatrix();
+
+    if (matrix.getColumnCount() == 0) {
+      return result;
+    }
+
+    final List<String> rowNames = matrix.getRowNames();
+    final List<String> columnNames = matrix.getColumnNames();
+
+    // Add all the rows, including the rows without any non-zero value
+    final String firstColumnName = columnNames.get(0);
+    for (String rowName : rowNames) {
+      result.setValue(rowName, firstColumnName, 0);
+    }
+
+    // Expression results only contains counts
+    matrix.forEachNonZero(
+        (row, col, value) -> result.setValue(rowNames.get(row), columnNames.get(col), (int) value));
+
+    return result;
+  }
 }
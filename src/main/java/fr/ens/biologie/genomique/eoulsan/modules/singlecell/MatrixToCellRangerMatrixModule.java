@@ -23,9 +23,7 @@ import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import fr.ens.biologie.genomique.eoulsan.data.Data;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
 import fr.ens.biologie.genomique.kenetre.bio.AnnotationMatrix;
-import fr.ens.biologie.genomique.kenetre.bio.ExpressionMatrix;
 import fr.ens.biologie.genomique.kenetre.bio.io.AnnotationMatrixReader;
-import fr.ens.biologie.genomique.kenetre.bio.io.CellRangerExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVAnnotationMatrixReader;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.IOException;
@@ -141,19 +139,20 @@ public class MatrixToCellRangerMatrixModule extends AbstractModule {
       }
 
       // Load matrix
-      final ExpressionMatrix matrix =
-          this.inputMatrices ? mergeMatrices(matrices) : mergeExpressionResults(matrices);
+      final int threads = context.getSettings().getLocalThreadsNumber();
+      final ColumnarSparseMatrix matrix =
+          this.inputMatrices
+              ? mergeMatrices(matrices, threads)
+              : mergeExpressionResults(matrices, threads);
 
       // Write the matrix
-      try (CellRangerExpressionMatrixWriter writer =
-          new CellRangerExpressionMatrixWriter(
-              context.getStepOutputDirectory().toFile(),
-              geneAnnotation,
-              this.featureAnnotationFieldName,
-              this.cellRangerMatrixFormat,
-              this.featureAnnotationType)) {
-        writer.write(matrix);
-      }
+      ColumnarSparseMatrixUtils.writeCellRangerMatrix(
+          matrix,
+          context.getStepOutputDirectory().toFile(),
+          geneAnnotation,
+          this.featureAnnotationFieldName,
+          this.cellRangerMatrixFormat,
+          this.featureAnnotationType);
 
     } catch (IOException e) {
       return status.createTaskResult(e);
@@ -27,6 +27,8 @@ import fr.ens.biologie.genomique.eoulsan.design.Design;
 import fr.ens.biologie.genomique.eoulsan.design.Sample;
 import fr.ens.biologie.genomique.eoulsan.modules.AbstractModule;
 import fr.ens.biologie.genomique.eoulsan.modules.diffana.RModuleCommonConfiguration;
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.Column;
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.ColumnBuilder;
 import fr.ens.biologie.genomique.eoulsan.requirements.Requirement;
 import fr.ens.biologie.genomique.eoulsan.util.r.RExecutor;
 import fr.ens.biologie.genomique.kenetre.bio.AnnotationMatrix;
@@ -38,21 +40,22 @@ import fr.ens.biologie.genomique.kenetre.bio.io.AnnotationMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.CountsReader;
 import fr.ens.biologie.genomique.kenetre.bio.io.ExpressionMatrixFormatFinderInputStream;
 import fr.ens.biologie.genomique.kenetre.bio.io.ExpressionMatrixReader;
-import fr.ens.biologie.genomique.kenetre.bio.io.ExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVAnnotationMatrixReader;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVAnnotationMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVCountsReader;
-import fr.ens.biologie.genomique.kenetre.bio.io.TSVExpressionMatrixWriter;
 import fr.ens.biologie.genomique.kenetre.util.Version;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -81,10 +84,14 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
 
   private static final char CELL_SEPARATOR = '_';
 
+  /** Extension of the matrix files in the Eoulsan binary sparse matrix format. */
+  private static final String BINARY_EXTENSION = ".esmb";
+
   private boolean inputMatrices = true;
   private boolean mergeMatrices = true;
   private String designPrefix = "Cell.";
   private boolean useAdditionalAnnotation = true;
+  private boolean binaryMatrix = true;
 
   //
   // Module methods
@@ -169,6 +176,21 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
           this.useAdditionalAnnotation = p.getBooleanValue();
           break;
 
+        case "matrix.exchange.format":
+          switch (p.getLowerStringValue()) {
+            case "binary":
+              this.binaryMatrix = true;
+              break;
+
+            case "tsv":
+              this.binaryMatrix = false;
+              break;
+
+            default:
+              Modules.badParameterValue(context, p, "Unknown matrix exchange format");
+          }
+          break;
+
         default:
           Modules.unknownParameter(context, p);
           break;
@@ -198,7 +220,9 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
 
       // Define R script input files
       Path outputDir = context.getStepOutputDirectory().toPath();
-      Path matrixFile = outputDir.resolve("matrix-" + rdsData.getName() + ".tsv");
+      Path matrixFile =
+          outputDir.resolve(
+              "matrix-" + rdsData.getName() + (this.binaryMatrix ? BINARY_EXTENSION : ".tsv"));
       Path featuresFile =
           this.useAdditionalAnnotation
               ? outputDir.resolve("features-" + rdsData.getName() + ".tsv")
@@ -244,7 +268,8 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
 
     // Create final matrix
     context.getLogger().fine("Load matrix");
-    final ExpressionMatrix matrix = createMatrix(matrices);
+    final ColumnarSparseMatrix matrix =
+        createMatrix(matrices, context.getSettings().getLocalThreadsNumber());
 
     // Load feature annotations from additional annotation
 
@@ -278,8 +303,10 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
 
     // Save matrix data
     context.getLogger().fine("Save matrix");
-    try (ExpressionMatrixWriter writer = new TSVExpressionMatrixWriter(matrixFile.toFile())) {
-      writer.write(matrix);
+    if (this.binaryMatrix) {
+      ColumnarSparseMatrixUtils.writeBinary(matrix, Files.newOutputStream(matrixFile));
+    } else {
+      ColumnarSparseMatrixUtils.writeDenseTSV(matrix, Files.newOutputStream(matrixFile));
     }
 
     // Save feature annotations
@@ -307,122 +334,128 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
    * Create the matrix object.
    *
    * @param matrices matrices data
-   * @return an ExpressionMatrix object
+   * @param threads number of threads to use to load the matrix
+   * @return a ColumnarSparseMatrix object
    */
-  private ExpressionMatrix createMatrix(final Data matrices) throws IOException {
+  private ColumnarSparseMatrix createMatrix(final Data matrices, final int threads)
+      throws IOException {
 
     if (this.inputMatrices) {
 
       if (this.mergeMatrices) {
-        return mergeMatrices(matrices);
+        return mergeMatrices(matrices, threads);
       } else {
-        return loadMatrix(matrices, null);
+        return ColumnarSparseMatrix.load(
+            Collections.singletonList(matrices), 1, RSingleCellExperimentCreatorModule::loadMatrix);
       }
     } else {
-      return mergeExpressionResults(matrices);
+      return mergeExpressionResults(matrices, threads);
     }
   }
 
   /**
-   * Merge the matrices in one matrix
+   * Merge the matrices in one matrix. The matrices are loaded concurrently.
    *
    * @param matrices the input data matrices
-   * @return an Expression matrix object
+   * @param threads number of threads to use
+   * @return a ColumnarSparseMatrix object
    * @throws IOException if an error occurs while reading the input files
    */
-  static ExpressionMatrix mergeMatrices(final Data matrices) throws IOException {
+  static ColumnarSparseMatrix mergeMatrices(final Data matrices, final int threads)
+      throws IOException {
 
     requireNonNull(matrices, "matrices argument cannot be null");
 
-    final ExpressionMatrix result = new SparseExpressionMatrix();
-
-    for (Data matrixData : matrices.getListElements()) {
-      loadMatrix(matrixData, result);
-    }
-
-    return result;
+    return ColumnarSparseMatrix.load(
+        matrices.getListElements(), threads, RSingleCellExperimentCreatorModule::loadMatrix);
   }
 
   /**
-   * Load a matrix.
+   * Load the columns of a matrix. The columns are renamed with the name of the sample. The dense
+   * TSV matrices are directly parsed in sparse columns, the other formats are read with the
+   * Kenetre matrix readers.
    *
    * @param matrixData matrix data
-   * @param resultMatrix result matrix
-   * @return the result matrix
+   * @return a list with the columns of the matrix
    * @throws IOException if an error occurs while reading the matrix
    */
-  private static ExpressionMatrix loadMatrix(
-      final Data matrixData, final ExpressionMatrix resultMatrix) throws IOException {
+  private static List<Column> loadMatrix(final Data matrixData) throws IOException {
+
+    // Get sample name
+    final String prefix = matrixData.getName() + CELL_SEPARATOR;
+
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(matrixData.getDataFile().open(), UTF_8))) {
+
+      final List<Column> result = ColumnarSparseMatrixUtils.readDenseTSV(reader, prefix);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    final ExpressionMatrix matrix;
 
     // Determine the format of the input expression matrix
     try (ExpressionMatrixFormatFinderInputStream in =
         new ExpressionMatrixFormatFinderInputStream(matrixData.getDataFile().open())) {
 
-      // Create reader
+      // Read matrix
       try (ExpressionMatrixReader reader = in.getExpressionMatrixReader()) {
+        matrix = reader.read(new SparseExpressionMatrix());
+      }
+    }
 
-        // Get sample name
-        String sampleName = matrixData.getName();
-
-        // Get existing column names
-        Set<String> existingColumnNames =
-            resultMatrix == null
-                ? Collections.emptySet()
-                : new HashSet<>(resultMatrix.getColumnNames());
-
-        // Read matrix
-        ExpressionMatrix loadedMatrix =
-            reader.read(resultMatrix == null ? new SparseExpressionMatrix() : resultMatrix);
-
-        // Rename the column with sample name
-        for (String colName : loadedMatrix.getColumnNames()) {
+    final String[] rowNames = matrix.getRowNames().toArray(new String[0]);
+    final List<Column> result = new ArrayList<>();
 
-          // Do not rename already renamed columns
-          if (!existingColumnNames.contains(colName)) {
-            String newColName = sampleName + CELL_SEPARATOR + colName;
-            loadedMatrix.renameColumn(colName, newColName);
-          }
-        }
+    // Convert the columns of the matrix and rename them with the sample name
+    for (String colName : matrix.getColumnNames()) {
 
-        // Add loaded matrix to the final matrix
-        if (resultMatrix == null) {
-          return loadedMatrix;
-        }
+      final ColumnBuilder builder = new ColumnBuilder();
+      for (int i = 0; i < rowNames.length; i++) {
+        builder.add(i, matrix.getValue(rowNames[i], colName));
       }
+
+      result.add(builder.build(prefix + colName, rowNames));
     }
 
-    return resultMatrix;
+    return result;
   }
 
   /**
-   * Merge the matrices in one matrix
+   * Merge the expression results in one matrix. The expression files are loaded concurrently.
    *
    * @param matrices the input data matrices
-   * @return an Expression matrix object
+   * @param threads number of threads to use
+   * @return a ColumnarSparseMatrix object
    * @throws IOException if an error occurs while reading the input files
    */
-  static ExpressionMatrix mergeExpressionResults(final Data matrices) throws IOException {
+  static ColumnarSparseMatrix mergeExpressionResults(final Data matrices, final int threads)
+      throws IOException {
 
     requireNonNull(matrices, "matrices argument cannot be null");
 
-    final ExpressionMatrix result = new SparseExpressionMatrix();
-
-    for (Data matrixData : matrices.getListElements()) {
-
-      // Get the sample name
-      String sampleName = matrixData.getName();
-
-      try (CountsReader reader = new TSVCountsReader(matrixData.getDataFile().open())) {
-
-        // Put the expression results in the matrix
-        for (Map.Entry<String, Integer> e : reader.read().entrySet()) {
-
-          result.setValue(e.getKey(), sampleName, e.getValue());
-        }
-      }
-    }
-
-    return result;
+    return ColumnarSparseMatrix.load(
+        matrices.getListElements(),
+        threads,
+        matrixData -> {
+          try (CountsReader reader = new TSVCountsReader(matrixData.getDataFile().open())) {
+
+            final Map<String, Integer> counts = reader.read();
+            final String[] rowNames = new String[counts.size()];
+            final double[] values = new double[counts.size()];
+
+            int i = 0;
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+              rowNames[i] = e.getKey();
+              values[i] = e.getValue();
+              i++;
+            }
+
+            // The sample name is the name of the column
+            return Collections.singletonList(new Column(matrixData.getName(), rowNames, values));
+          }
+        });
   }
 
   /**
@@ -523,14 +556,14 @@ public class RSingleCellExperimentCreatorModule extends AbstractModule {
     // Open executor connection
     this.executor.openConnection();
 
-    // Put input files
-    this.executor.putInputFile(new DataFile(matrixFile));
-    if (cellsFile != null) {
-      this.executor.putInputFile(new DataFile(cellsFile));
-    }
-    if (featuresFile != null) {
-      this.executor.putInputFile(new DataFile(featuresFile));
+    // Put input files in one operation
+    final Map<String, DataFile> inputFiles = new LinkedHashMap<>();
+    for (Path file : Arrays.asList(matrixFile, cellsFile, featuresFile)) {
+      if (file != null) {
+        inputFiles.put(file.getFileName().toString(), new DataFile(file));
+      }
     }
+    this.executor.putInputFiles(inputFiles);
 
     // Read the R script to execute
     final String rScriptSource = readFromJar(R_SCRIPT_PATH);
@@ -28,6 +28,7 @@ import static java.util.Objects.requireNonNull;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -46,6 +47,7 @@ import java.util.ServiceConfigurationError;
 public abstract class AbstractResourceLoader<S> implements ResourceLoader<S> {
 
   private final Multimap<String, String> resources = ArrayListMultimap.create();
+  private ResourceIndex resourceIndex;
 
   //
   // Abstract methods
@@ -97,6 +99,41 @@ public abstract class AbstractResourceLoader<S> implements ResourceLoader<S> {
     this.resources.put(resourceName, resourcePath);
   }
 
+  /**
+   * Get the paths of the available resources, without loading them.
+   *
+   * @return a multimap with the names of the resources as keys and their paths as values
+   */
+  public Multimap<String, String> getResourcePaths() {
+
+    return Multimaps.unmodifiableMultimap(ArrayListMultimap.create(this.resources));
+  }
+
+  //
+  // Resource index
+  //
+
+  /**
+   * Get the index of the resources.
+   *
+   * @return the index of the resources or null if no index has been set
+   */
+  protected ResourceIndex getResourceIndex() {
+
+    return this.resourceIndex;
+  }
+
+  /**
+   * Set the index of the resources. When an index is set, the names of the resources are read from
+   * the index as long as the resources have not been modified.
+   *
+   * @param resourceIndex the index of the resources, can be null
+   */
+  public void setResourceIndex(final ResourceIndex resourceIndex) {
+
+    this.resourceIndex = resourceIndex;
+  }
+
   @Override
   public List<S> loadAllResources() {
 
@@ -0,0 +1,425 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.kenetre.translator.io.TranslatorOutputFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * This class define an abstract translator output format that write a spreadsheet file as a zip
+ * archive of XML documents. Unlike a workbook built in memory, the rows of the sheet are written in
+ * the archive as soon as they are complete, so the memory used by the output format does not depend
+ * on the number of rows.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public abstract class AbstractStreamingTranslatorOutputFormat implements TranslatorOutputFormat {
+
+  private final ZipOutputStream zos;
+  private final Writer writer;
+
+  private boolean sheetStarted;
+  private boolean rowStarted;
+  private boolean closed;
+  private int rowCount;
+  private int colCount;
+
+  //
+  // Abstract methods
+  //
+
+  /**
+   * Write the entries of the archive that must be written before the sheet entry.
+   *
+   * @throws IOException if an error occurs while writing the entries
+   */
+  protected abstract void writeHeaderEntries() throws IOException;
+
+  /**
+   * Get the name of the sheet entry in the archive.
+   *
+   * @return the name of the sheet entry
+   */
+  protected abstract String getSheetEntryName();
+
+  /**
+   * Write the start of the sheet entry.
+   *
+   * @param writer the writer of the sheet entry
+   * @throws IOException if an error occurs while writing the start of the sheet
+   */
+  protected abstract void writeSheetStart(Writer writer) throws IOException;
+
+  /**
+   * Write the end of the sheet entry.
+   *
+   * @param writer the writer of the sheet entry
+   * @throws IOException if an error occurs while writing the end of the sheet
+   */
+  protected abstract void writeSheetEnd(Writer writer) throws IOException;
+
+  /**
+   * Write the entries of the archive that must be written after the sheet entry.
+   *
+   * @throws IOException if an error occurs while writing the entries
+   */
+  protected abstract void writeFooterEntries() throws IOException;
+
+  /**
+   * Write the start of a row.
+   *
+   * @param writer the writer of the sheet entry
+   * @param row the index of the row, starting at 0
+   * @throws IOException if an error occurs while writing the row
+   */
+  protected abstract void writeRowStart(Writer writer, int row) throws IOException;
+
+  /**
+   * Write the end of a row.
+   *
+   * @param writer the writer of the sheet entry
+   * @throws IOException if an error occurs while writing the row
+   */
+  protected abstract void writeRowEnd(Writer writer) throws IOException;
+
+  /**
+   * Write an empty cell.
+   *
+   * @param writer the writer of the sheet entry
+   * @param row the index of the row, starting at 0
+   * @param col the index of the column, starting at 0
+   * @throws IOException if an error occurs while writing the cell
+   */
+  protected abstract void writeEmptyCell(Writer writer, int row, int col) throws IOException;
+
+  /**
+   * Write a numeric cell.
+   *
+   * @param writer the writer of the sheet entry
+   * @param row the index of the row, starting at 0
+   * @param col the index of the column, starting at 0
+   * @param value the string representation of the number
+   * @throws IOException if an error occurs while writing the cell
+   */
+  protected abstract void writeNumberCell(Writer writer, int row, int col, String value)
+      throws IOException;
+
+  /**
+   * Write a text cell.
+   *
+   * @param writer the writer of the sheet entry
+   * @param row the index of the row, starting at 0
+   * @param col the index of the column, starting at 0
+   * @param text the text of the cell
+   * @param header true if the cell is a header cell
+   * @throws IOException if an error occurs while writing the cell
+   */
+  protected abstract void writeTextCell(
+      Writer writer, int row, int col, String text, boolean header) throws IOException;
+
+  /**
+   * Write a cell with an hypertext link.
+   *
+   * @param writer the writer of the sheet entry
+   * @param row the index of the row, starting at 0
+   * @param col the index of the column, starting at 0
+   * @param text the text of the cell
+   * @param link the target of the link
+   * @throws IOException if an error occurs while writing the cell
+   */
+  protected abstract void writeLinkCell(Writer writer, int row, int col, String text, String link)
+      throws IOException;
+
+  /**
+   * Get the maximal number of rows of the sheet.
+   *
+   * @return the maximal number of rows of the sheet
+   */
+  protected int getMaxRows() {
+
+    return Integer.MAX_VALUE;
+  }
+
+  //
+  // TranslatorOutputFormat methods
+  //
+
+  @Override
+  public void addHeaderField(final String fieldName) throws IOException {
+
+    startCell();
+    writeTextCell(this.writer, this.rowCount, this.colCount++, nullToEmpty(fieldName), true);
+  }
+
+  @Override
+  public void newLine() throws IOException {
+
+    checkNotClosed();
+    endRow();
+
+    this.rowCount++;
+    this.colCount = 0;
+  }
+
+  @Override
+  public void writeEmpty() throws IOException {
+
+    startCell();
+    writeEmptyCell(this.writer, this.rowCount, this.colCount++);
+  }
+
+  @Override
+  public void writeLong(final long l) throws IOException {
+
+    startCell();
+    writeNumberCell(this.writer, this.rowCount, this.colCount++, Long.toString(l));
+  }
+
+  @Override
+  public void writeDouble(final double d) throws IOException {
+
+    // NaN and infinite values cannot be stored as numbers in spreadsheets
+    if (Double.isNaN(d) || Double.isInfinite(d)) {
+      writeText(Double.toString(d));
+      return;
+    }
+
+    startCell();
+    writeNumberCell(this.writer, this.rowCount, this.colCount++, Double.toString(d));
+  }
+
+  @Override
+  public void writeText(final String text) throws IOException {
+
+    if (text == null) {
+      writeEmpty();
+      return;
+    }
+
+    startCell();
+    writeTextCell(this.writer, this.rowCount, this.colCount++, text, false);
+  }
+
+  @Override
+  public void writeLink(final String text, final String link) throws IOException {
+
+    if (link == null) {
+      writeText(text);
+      return;
+    }
+
+    startCell();
+    writeLinkCell(this.writer, this.rowCount, this.colCount++, nullToEmpty(text), link);
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+
+    try {
+      startSheet();
+      endRow();
+      writeSheetEnd(this.writer);
+      this.writer.flush();
+      this.zos.closeEntry();
+
+      writeFooterEntries();
+      this.zos.finish();
+    } finally {
+      this.zos.close();
+    }
+  }
+
+  //
+  // Archive methods
+  //
+
+  /**
+   * Write a compressed entry in the archive.
+   *
+   * @param name name of the entry
+   * @param content content of the entry
+   * @throws IOException if an error occurs while writing the entry
+   */
+  protected void writeEntry(final String name, final String content) throws IOException {
+
+    this.zos.putNextEntry(new ZipEntry(name));
+    this.writer.write(content);
+    this.writer.flush();
+    this.zos.closeEntry();
+  }
+
+  /**
+   * Write an uncompressed entry in the archive.
+   *
+   * @param name name of the entry
+   * @param content content of the entry
+   * @throws IOException if an error occurs while writing the entry
+   */
+  protected void writeStoredEntry(final String name, final String content) throws IOException {
+
+    final byte[] bytes = content.getBytes(UTF_8);
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    final ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(bytes.length);
+    entry.setCompressedSize(bytes.length);
+    entry.setCrc(crc.getValue());
+
+    this.zos.putNextEntry(entry);
+    this.zos.write(bytes);
+    this.zos.closeEntry();
+  }
+
+  //
+  // Other methods
+  //
+
+  private void startSheet() throws IOException {
+
+    if (this.sheetStarted) {
+      return;
+    }
+    this.sheetStarted = true;
+
+    writeHeaderEntries();
+    this.zos.putNextEntry(new ZipEntry(getSheetEntryName()));
+    writeSheetStart(this.writer);
+  }
+
+  private void startCell() throws IOException {
+
+    checkNotClosed();
+
+    // The limit is only checked when a cell is written, so a final new line is allowed
+    if (this.rowCount >= getMaxRows()) {
+      throw new IOException("Too many rows for the output format: " + getMaxRows());
+    }
+
+    startSheet();
+
+    if (!this.rowStarted) {
+      writeRowStart(this.writer, this.rowCount);
+      this.rowStarted = true;
+    }
+  }
+
+  private void endRow() throws IOException {
+
+    if (this.rowStarted) {
+      writeRowEnd(this.writer);
+      this.rowStarted = false;
+    }
+  }
+
+  private void checkNotClosed() throws IOException {
+
+    if (this.closed) {
+      throw new IOException("The output format has been closed");
+    }
+  }
+
+  private static String nullToEmpty(final String s) {
+
+    return s == null ? "" : s;
+  }
+
+  /**
+   * Escape a string for XML content and attribute values. The characters that are not allowed in
+   * XML documents are removed.
+   *
+   * @param s the string to escape
+   * @return the escaped string
+   */
+  protected static String escapeXml(final String s) {
+
+    final StringBuilder sb = new StringBuilder(s.length() + 16);
+
+    for (int i = 0; i < s.length(); i++) {
+
+      final char c = s.charAt(i);
+
+      switch (c) {
+        case '<':
+          sb.append("&lt;");
+          break;
+        case '>':
+          sb.append("&gt;");
+          break;
+        case '&':
+          sb.append("&amp;");
+          break;
+        case '"':
+          sb.append("&quot;");
+          break;
+        case '\t':
+        case '\n':
+        case '\r':
+          sb.append(c);
+          break;
+        default:
+          if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+            sb.append(c);
+          }
+      }
+    }
+
+    return sb.toString();
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param os the output stream of the file
+   */
+  protected AbstractStreamingTranslatorOutputFormat(final OutputStream os) {
+
+    requireNonNull(os, "os argument cannot be null");
+
+    this.zos = new ZipOutputStream(os);
+    this.writer = new BufferedWriter(new OutputStreamWriter(this.zos, UTF_8));
+  }
+}
@@ -31,6 +31,12 @@ import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.kenetre.util.ServiceListLoader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceConfigurationError;
 
 /**
@@ -65,7 +71,26 @@ public abstract class ClassPathResourceLoader<S> extends AbstractResourceLoader<
 
     try {
 
-      for (String filename : ServiceListLoader.load(this.clazz.getName())) {
+      final List<String> filenames = ServiceListLoader.load(this.clazz.getName());
+
+      // Use the index of the resources if the resources has not been modified
+      final String fingerprint = fingerprint(filenames);
+      final Map<String, String> indexedResources =
+          fingerprint == null
+              ? null
+              : getResourceIndex().load(fingerprint, resourcePaths(filenames));
+
+      if (indexedResources != null) {
+
+        for (Map.Entry<String, String> e : indexedResources.entrySet()) {
+          addResource(e.getValue(), e.getKey());
+        }
+        return;
+      }
+
+      final Map<String, String> loadedResources = new LinkedHashMap<>();
+
+      for (String filename : filenames) {
 
         final String resourcePath = this.resourceBasePath + filename;
         getLogger()
@@ -84,12 +109,72 @@ public abstract class ClassPathResourceLoader<S> extends AbstractResourceLoader<
         }
 
         addResource(resourceName, resourcePath);
+        loadedResources.put(resourcePath, resourceName);
+      }
+
+      // Save the index of the resources
+      if (fingerprint != null) {
+        getResourceIndex().save(fingerprint, loadedResources);
       }
+
     } catch (IOException | EoulsanException e) {
       throw new ServiceConfigurationError("Unable to load resource", e);
     }
   }
 
+  /**
+   * Get the paths of the resources.
+   *
+   * @param filenames the filenames of the resources
+   * @return a list with the paths of the resources
+   */
+  private List<String> resourcePaths(final List<String> filenames) {
+
+    final List<String> result = new ArrayList<>();
+
+    for (String filename : filenames) {
+      result.add(this.resourceBasePath + filename);
+    }
+
+    return result;
+  }
+
+  /**
+   * Compute the fingerprint of the resources.
+   *
+   * @param filenames the filenames of the resources
+   * @return the fingerprint of the resources or null if no index has been set or if the
+   *     fingerprint cannot be computed
+   */
+  private String fingerprint(final List<String> filenames) {
+
+    if (getResourceIndex() == null) {
+      return null;
+    }
+
+    final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    final List<String> entries = new ArrayList<>();
+
+    try {
+      for (String filename : filenames) {
+
+        final URL url = loader.getResource(this.resourceBasePath + filename);
+        if (url == null) {
+          return null;
+        }
+
+        // The URL of a resource contains the path of its jar file
+        final URLConnection connection = url.openConnection();
+        entries.add(
+            url + "\t" + connection.getContentLengthLong() + "\t" + connection.getLastModified());
+      }
+    } catch (IOException e) {
+      return null;
+    }
+
+    return ResourceIndex.fingerprint(entries);
+  }
+
   //
   // Constructor
   //
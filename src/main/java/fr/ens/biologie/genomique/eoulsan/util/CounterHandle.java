@@ -0,0 +1,109 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.kenetre.util.ReporterIncrementer;
+import java.util.function.Supplier;
+
+/**
+ * This interface define a handle on a counter. The counter is resolved once, on the first increment
+ * of the handle, so incrementing the counter in a loop only costs the increment of the counter and
+ * not the lookup of the counter by its group and its name. A counter that is never incremented is
+ * never created and does not appear in the counters of the reporter.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+@FunctionalInterface
+public interface CounterHandle {
+
+  /**
+   * Increment the counter.
+   *
+   * @param amount the amount to add to the counter
+   */
+  void increment(long amount);
+
+  /** Increment the counter by one. */
+  default void increment() {
+
+    increment(1);
+  }
+
+  /**
+   * Get a handle on a counter of a reporter incrementer. If the incrementer does not provide
+   * handles, the handle calls the incrCounter() method of the incrementer.
+   *
+   * @param incrementer the reporter incrementer
+   * @param counterGroup the group of the counter
+   * @param counterName the name of the counter
+   * @return a CounterHandle object
+   */
+  static CounterHandle of(
+      final ReporterIncrementer incrementer, final String counterGroup, final String counterName) {
+
+    requireNonNull(incrementer, "incrementer argument cannot be null");
+    requireNonNull(counterGroup, "counterGroup argument cannot be null");
+    requireNonNull(counterName, "counterName argument cannot be null");
+
+    if (incrementer instanceof CounterHandleProvider) {
+      return ((CounterHandleProvider) incrementer).getCounterHandle(counterGroup, counterName);
+    }
+
+    return amount -> incrementer.incrCounter(counterGroup, counterName, amount);
+  }
+
+  /**
+   * Get a handle that resolves the counter on its first increment.
+   *
+   * @param resolver the function that resolves the counter and returns a handle on it
+   * @return a CounterHandle object
+   */
+  static CounterHandle lazy(final Supplier<CounterHandle> resolver) {
+
+    requireNonNull(resolver, "resolver argument cannot be null");
+
+    return new CounterHandle() {
+
+      private volatile CounterHandle handle;
+
+      @Override
+      public void increment(final long amount) {
+
+        CounterHandle h = this.handle;
+
+        // Concurrent resolutions of the counter return the same counter
+        if (h == null) {
+          h = resolver.get();
+          this.handle = h;
+        }
+
+        h.increment(amount);
+      }
+    };
+  }
+}
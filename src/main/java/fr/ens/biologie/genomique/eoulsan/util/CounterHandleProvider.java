@@ -0,0 +1,44 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+/**
+ * This interface define an object that provides handles on its counters.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public interface CounterHandleProvider {
+
+  /**
+   * Get a handle on a counter. The counter is not created by this method, but on the first
+   * increment of the handle.
+   *
+   * @param counterGroup the group of the counter
+   * @param counterName the name of the counter
+   * @return a CounterHandle object
+   */
+  CounterHandle getCounterHandle(String counterGroup, String counterName);
+}
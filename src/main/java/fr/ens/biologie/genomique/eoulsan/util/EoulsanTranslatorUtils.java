@@ -27,8 +27,11 @@ package fr.ens.biologie.genomique.eoulsan.util;
 import static fr.ens.biologie.genomique.kenetre.translator.TranslatorUtils.createDuplicatedEnsemblIdTranslator;
 import static java.util.Objects.requireNonNull;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import fr.ens.biologie.genomique.eoulsan.Settings;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.data.DataFileMetadata;
 import fr.ens.biologie.genomique.kenetre.bio.AnnotationMatrix;
 import fr.ens.biologie.genomique.kenetre.bio.io.TSVAnnotationMatrixReader;
 import fr.ens.biologie.genomique.kenetre.translator.AnnotationMatrixTranslator;
@@ -36,6 +39,7 @@ import fr.ens.biologie.genomique.kenetre.translator.CommonLinksInfoTranslator;
 import fr.ens.biologie.genomique.kenetre.translator.ConcatTranslator;
 import fr.ens.biologie.genomique.kenetre.translator.Translator;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This class define Kenetre translator utility glue methods for Eoulsan.
@@ -45,6 +49,46 @@ import java.io.IOException;
  */
 public class EoulsanTranslatorUtils {
 
+  /** Maximal number of translators kept in the cache. */
+  private static final int MAX_SHARED_TRANSLATORS = 4;
+
+  private static final Cache<String, Translator> SHARED_TRANSLATORS =
+      CacheBuilder.newBuilder().maximumSize(MAX_SHARED_TRANSLATORS).softValues().build();
+
+  /**
+   * Get a shared translator annotation from an additional annotation file and a link file. The
+   * translator is only loaded once for all the tasks that use the same files and must not be
+   * modified.
+   *
+   * @param annotationFile the annotation file to use
+   * @param linksFile the additional annotation hypertext links file
+   * @return a Translator object with the additional annotation
+   * @throws IOException if an error occurs while reading additional annotation
+   */
+  public static Translator getSharedTranslator(
+      final DataFile annotationFile, final DataFile linksFile) throws IOException {
+
+    requireNonNull(annotationFile, "annotationFile argument cannot be null");
+
+    return getSharedTranslator(
+        cacheKey(annotationFile) + '\n' + cacheKey(linksFile),
+        () -> loadTranslator(annotationFile, linksFile));
+  }
+
+  /**
+   * Get a shared translator annotation from a link file. The translator is only loaded once for
+   * all the tasks that use the same file and must not be modified.
+   *
+   * @param linksFile the additional annotation hypertext links file
+   * @return a Translator object with the additional annotation
+   * @throws IOException if an error occurs while reading additional annotation
+   */
+  public static Translator getSharedTranslator(final DataFile linksFile) throws IOException {
+
+    return getSharedTranslator(
+        cacheKey(null) + '\n' + cacheKey(linksFile), () -> loadTranslator(linksFile));
+  }
+
   /**
    * Create a translator annotation from an additional annotation file and a link file.
    *
@@ -138,6 +182,62 @@ public class EoulsanTranslatorUtils {
     }
   }
 
+  /**
+   * Get a translator from the cache or load it if not in the cache. If several threads request
+   * the same translator at the same time, the translator is only loaded once.
+   *
+   * @param key key of the translator
+   * @param loader the loader of the translator
+   * @return a Translator object
+   * @throws IOException if an error occurs while loading the translator
+   */
+  private static Translator getSharedTranslator(final String key, final TranslatorLoader loader)
+      throws IOException {
+
+    try {
+      return SHARED_TRANSLATORS.get(key, loader::load);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Get the cache key of a file. The key contains the length and the date of the last
+   * modification of the file to avoid using an outdated translator.
+   *
+   * @param file the file, can be null
+   * @return the key of the file
+   */
+  private static String cacheKey(final DataFile file) {
+
+    if (file == null) {
+      return "";
+    }
+
+    long length = -1;
+    long lastModified = -1;
+
+    try {
+      final DataFileMetadata md = file.getMetaData();
+      length = md.getContentLength();
+      lastModified = md.getLastModified();
+    } catch (IOException e) {
+      // Only use the source of the file as key
+    }
+
+    return file.getSource() + '\t' + length + '\t' + lastModified;
+  }
+
+  /** Functional interface for the loading of translators. */
+  @FunctionalInterface
+  private interface TranslatorLoader {
+
+    Translator load() throws IOException;
+  }
+
   //
   // Constructor
   //
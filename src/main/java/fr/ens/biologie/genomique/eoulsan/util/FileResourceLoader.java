@@ -6,13 +6,16 @@ import static java.util.Objects.requireNonNull;
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
 import fr.ens.biologie.genomique.eoulsan.Globals;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.data.DataFileMetadata;
 import fr.ens.biologie.genomique.kenetre.io.FileUtils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceConfigurationError;
 
 /**
@@ -62,7 +65,26 @@ public abstract class FileResourceLoader<S> extends AbstractResourceLoader<S> {
     try {
       for (DataFile directory : this.directories) {
 
-        for (String filename : findResourcePaths(directory)) {
+        final List<String> filenames = findResourcePaths(directory);
+
+        // Use the index of the resources if the directory has not been modified
+        final String fingerprint = fingerprint(directory, filenames);
+        final Map<String, String> indexedResources =
+            fingerprint == null
+                ? null
+                : getResourceIndex().load(fingerprint, resourcePaths(directory, filenames));
+
+        if (indexedResources != null) {
+
+          for (Map.Entry<String, String> e : indexedResources.entrySet()) {
+            addResource(e.getValue(), e.getKey());
+          }
+          continue;
+        }
+
+        final Map<String, String> loadedResources = new LinkedHashMap<>();
+
+        for (String filename : filenames) {
 
           getLogger()
               .fine(
@@ -90,6 +112,12 @@ public abstract class FileResourceLoader<S> extends AbstractResourceLoader<S> {
           }
 
           addResource(resourceName, file.getSource());
+          loadedResources.put(file.getSource(), resourceName);
+        }
+
+        // Save the index of the directory
+        if (fingerprint != null) {
+          getResourceIndex().save(fingerprint, loadedResources);
         }
       }
     } catch (IOException | EoulsanException e) {
@@ -97,6 +125,55 @@ public abstract class FileResourceLoader<S> extends AbstractResourceLoader<S> {
     }
   }
 
+  /**
+   * Get the paths of the resources of a directory.
+   *
+   * @param directory the directory of the resources
+   * @param filenames the filenames of the resources
+   * @return a list with the paths of the resources
+   */
+  private static List<String> resourcePaths(
+      final DataFile directory, final List<String> filenames) {
+
+    final List<String> result = new ArrayList<>();
+
+    for (String filename : filenames) {
+      result.add(new DataFile(directory, filename).getSource());
+    }
+
+    return result;
+  }
+
+  /**
+   * Compute the fingerprint of the resources of a directory.
+   *
+   * @param directory the directory of the resources
+   * @param filenames the filenames of the resources
+   * @return the fingerprint of the resources or null if no index has been set or if the
+   *     fingerprint cannot be computed
+   */
+  private String fingerprint(final DataFile directory, final List<String> filenames) {
+
+    if (getResourceIndex() == null) {
+      return null;
+    }
+
+    final List<String> entries = new ArrayList<>();
+    entries.add(directory.getSource());
+
+    try {
+      for (String filename : filenames) {
+
+        final DataFileMetadata md = new DataFile(directory, filename).getMetaData();
+        entries.add(filename + "\t" + md.getContentLength() + "\t" + md.getLastModified());
+      }
+    } catch (IOException e) {
+      return null;
+    }
+
+    return ResourceIndex.fingerprint(entries);
+  }
+
   /**
    * Find the resource to load.
    *
@@ -0,0 +1,161 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.kenetre.util.Reporter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class define a reporter for the local mode where the counters are stored in LongAdder
+ * objects. The incrementation of a counter does not require any lock and the handles returned by
+ * getCounterHandle() directly increment the LongAdder of the counter once it has been created by
+ * their first increment. This class can replace the LocalReporter class of Kenetre.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class LocalCounterReporter implements Reporter, CounterHandleProvider {
+
+  private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> counters =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Get the LongAdder of a counter. The counter is created if it does not exist.
+   *
+   * @param counterGroup the group of the counter
+   * @param counterName the name of the counter
+   * @return the LongAdder of the counter
+   */
+  private LongAdder getAdder(final String counterGroup, final String counterName) {
+
+    requireNonNull(counterGroup, "counterGroup argument cannot be null");
+    requireNonNull(counterName, "counterName argument cannot be null");
+
+    ConcurrentMap<String, LongAdder> group = this.counters.get(counterGroup);
+    if (group == null) {
+      group = this.counters.computeIfAbsent(counterGroup, k -> new ConcurrentHashMap<>());
+    }
+
+    LongAdder adder = group.get(counterName);
+    if (adder == null) {
+      adder = group.computeIfAbsent(counterName, k -> new LongAdder());
+    }
+
+    return adder;
+  }
+
+  //
+  // Reporter methods
+  //
+
+  @Override
+  public void incrCounter(final String counterGroup, final String counterName, final long amount) {
+
+    getAdder(counterGroup, counterName).add(amount);
+  }
+
+  @Override
+  public void setCounter(final String counterGroup, final String counterName, final long value) {
+
+    final LongAdder adder = getAdder(counterGroup, counterName);
+    adder.reset();
+    adder.add(value);
+  }
+
+  @Override
+  public long getCounterValue(final String counterGroup, final String counterName) {
+
+    final Map<String, LongAdder> group = this.counters.get(counterGroup);
+
+    if (group == null) {
+      return -1;
+    }
+
+    final LongAdder adder = group.get(counterName);
+
+    return adder == null ? 0 : adder.sum();
+  }
+
+  @Override
+  public Set<String> getCounterGroups() {
+
+    return Collections.unmodifiableSet(new HashSet<>(this.counters.keySet()));
+  }
+
+  @Override
+  public Set<String> getCounterNames(final String counterGroup) {
+
+    final Map<String, LongAdder> group = this.counters.get(counterGroup);
+
+    if (group == null) {
+      return Collections.emptySet();
+    }
+
+    return Collections.unmodifiableSet(new HashSet<>(group.keySet()));
+  }
+
+  //
+  // CounterHandleProvider method
+  //
+
+  @Override
+  public CounterHandle getCounterHandle(final String counterGroup, final String counterName) {
+
+    requireNonNull(counterGroup, "counterGroup argument cannot be null");
+    requireNonNull(counterName, "counterName argument cannot be null");
+
+    return CounterHandle.lazy(() -> getAdder(counterGroup, counterName)::add);
+  }
+
+  //
+  // Object method
+  //
+
+  @Override
+  public String toString() {
+
+    final Map<String, Map<String, Long>> result = new TreeMap<>();
+
+    for (Map.Entry<String, ConcurrentMap<String, LongAdder>> e : this.counters.entrySet()) {
+
+      final Map<String, Long> group = new TreeMap<>();
+      for (Map.Entry<String, LongAdder> e2 : e.getValue().entrySet()) {
+        group.put(e2.getKey(), e2.getValue().sum());
+      }
+      result.put(e.getKey(), group);
+    }
+
+    return this.getClass().getSimpleName() + result;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class define a persistent index of resources. An index associates the path of each resource
+ * to its name, and is identified by a fingerprint of the content of the resources. When the
+ * fingerprint of the resources has not changed, a resource loader can use the index instead of
+ * parsing again all the resources to get their names.
+ *
+ * <p>An index file that does not match the resources (unknown path, missing resource or empty name)
+ * is removed, and saving an index removes the index files of the previous fingerprints.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class ResourceIndex {
+
+  private static final String INDEX_EXTENSION = ".index";
+  private static final char SEPARATOR = '\t';
+
+  private final Path directory;
+  private final String name;
+
+  /**
+   * Load an index.
+   *
+   * @param fingerprint the fingerprint of the resources
+   * @param paths the paths of the resources
+   * @return a map with the path of the resources as keys and the name of the resources as values or
+   *     null if no valid index exists for the fingerprint
+   */
+  public Map<String, String> load(final String fingerprint, final Collection<String> paths) {
+
+    requireNonNull(fingerprint, "fingerprint argument cannot be null");
+    requireNonNull(paths, "paths argument cannot be null");
+
+    final Path file = indexFile(fingerprint);
+
+    if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+      return null;
+    }
+
+    final Set<String> expectedPaths = new HashSet<>(paths);
+    final Map<String, String> result = new LinkedHashMap<>();
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+
+        final int pos = line.indexOf(SEPARATOR);
+        final String path = pos == -1 ? null : line.substring(0, pos);
+        final String name = pos == -1 ? null : line.substring(pos + 1);
+
+        if (path == null
+            || name.isEmpty()
+            || !expectedPaths.contains(path)
+            || result.put(path, name) != null) {
+          getLogger().warning("Remove invalid resource index " + file + ": " + line);
+          delete(file);
+          return null;
+        }
+      }
+
+    } catch (IOException e) {
+      getLogger().warning("Cannot read resource index " + file + ": " + e.getMessage());
+      delete(file);
+      return null;
+    }
+
+    // All the resources must be in the index
+    if (result.size() != expectedPaths.size()) {
+      getLogger().warning("Remove incomplete resource index " + file);
+      delete(file);
+      return null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Save an index.
+   *
+   * @param fingerprint the fingerprint of the resources
+   * @param resources a map with the path of the resources as keys and the name of the resources as
+   *     values
+   */
+  public void save(final String fingerprint, final Map<String, String> resources) {
+
+    requireNonNull(fingerprint, "fingerprint argument cannot be null");
+    requireNonNull(resources, "resources argument cannot be null");
+
+    final Path file = indexFile(fingerprint);
+
+    try {
+
+      createDirectory(this.directory);
+
+      // Write a temporary file to never expose a partial index to other JVMs
+      final Path tmpFile = Files.createTempFile(this.directory, this.name, ".tmp");
+
+      try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, String> e : resources.entrySet()) {
+          writer.write(e.getKey() + SEPARATOR + e.getValue());
+          writer.newLine();
+        }
+      }
+
+      Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+
+    } catch (IOException e) {
+      getLogger().warning("Cannot write resource index " + file + ": " + e.getMessage());
+      return;
+    }
+
+    removeStaleIndexes(file);
+  }
+
+  /**
+   * Remove the index files of the other fingerprints.
+   *
+   * @param currentFile the index file to keep
+   */
+  private void removeStaleIndexes(final Path currentFile) {
+
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(this.directory, this.name + "-*" + INDEX_EXTENSION)) {
+
+      for (Path file : stream) {
+        if (!file.equals(currentFile)) {
+          delete(file);
+        }
+      }
+
+    } catch (IOException e) {
+      getLogger().warning("Cannot list resource indexes in " + this.directory + ": " + e);
+    }
+  }
+
+  /**
+   * Create the directory of the indexes. On POSIX file systems, the directory is only accessible to
+   * its owner.
+   *
+   * @param directory the directory to create
+   * @throws IOException if an error occurs while creating the directory
+   */
+  private static void createDirectory(final Path directory) throws IOException {
+
+    if (Files.isDirectory(directory)) {
+      return;
+    }
+
+    if (directory.getParent() != null) {
+      Files.createDirectories(directory.getParent());
+    }
+
+    try {
+      if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+        Files.createDirectory(
+            directory,
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      } else {
+        Files.createDirectory(directory);
+      }
+    } catch (FileAlreadyExistsException e) {
+      // The directory has been created by another JVM
+    }
+  }
+
+  /**
+   * Delete an index file.
+   *
+   * @param file the file to delete
+   */
+  private static void delete(final Path file) {
+
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      getLogger().warning("Cannot remove resource index " + file + ": " + e.getMessage());
+    }
+  }
+
+  private Path indexFile(final String fingerprint) {
+
+    return this.directory.resolve(this.name + "-" + fingerprint + INDEX_EXTENSION);
+  }
+
+  //
+  // Static methods
+  //
+
+  /**
+   * Compute the fingerprint of a list of resources.
+   *
+   * @param entries for each resource, a string that changes when the resource is modified (e.g.
+   *     the path, the size and the modification time of the resource)
+   * @return the fingerprint of the resources
+   */
+  public static String fingerprint(final List<String> entries) {
+
+    requireNonNull(entries, "entries argument cannot be null");
+
+    final Hasher hasher = Hashing.sha256().newHasher();
+
+    for (String e : entries) {
+      hasher.putString(e, StandardCharsets.UTF_8);
+      hasher.putChar('\n');
+    }
+
+    return hasher.hash().toString();
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param directory directory of the index files
+   * @param name name of the index
+   */
+  public ResourceIndex(final Path directory, final String name) {
+
+    requireNonNull(directory, "directory argument cannot be null");
+    requireNonNull(name, "name argument cannot be null");
+
+    this.directory = directory;
+    this.name = name;
+  }
+}
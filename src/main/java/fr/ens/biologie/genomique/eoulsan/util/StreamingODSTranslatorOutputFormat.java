@@ -0,0 +1,266 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * This class define a translator output format that write ODS files. The table is streamed in the
+ * content of the document, so the memory used does not depend on the number of rows of the file.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class StreamingODSTranslatorOutputFormat extends AbstractStreamingTranslatorOutputFormat {
+
+  private static final String MIME_TYPE = "application/vnd.oasis.opendocument.spreadsheet";
+
+  private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+  private static final String HEADER_STYLE = "ce1";
+
+  private final String sheetName;
+
+  //
+  // AbstractStreamingTranslatorOutputFormat methods
+  //
+
+  @Override
+  protected void writeHeaderEntries() throws IOException {
+
+    // The mimetype entry must be the first entry of the archive and must not be compressed
+    writeStoredEntry("mimetype", MIME_TYPE);
+
+    writeEntry(
+        "META-INF/manifest.xml",
+        XML_DECLARATION
+            + "<manifest:manifest "
+            + "xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\" "
+            + "manifest:version=\"1.2\">"
+            + "<manifest:file-entry manifest:full-path=\"/\" manifest:version=\"1.2\" "
+            + "manifest:media-type=\""
+            + MIME_TYPE
+            + "\"/>"
+            + "<manifest:file-entry manifest:full-path=\"content.xml\" "
+            + "manifest:media-type=\"text/xml\"/>"
+            + "</manifest:manifest>");
+  }
+
+  @Override
+  protected String getSheetEntryName() {
+
+    return "content.xml";
+  }
+
+  @Override
+  protected void writeSheetStart(final Writer writer) throws IOException {
+
+    writer.write(XML_DECLARATION);
+    writer.write(
+        "<office:document-content "
+            + "xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\" "
+            + "xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\" "
+            + "xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\" "
+            + "xmlns:table=\"urn:oasis:names:tc:opendocument:xmlns:table:1.0\" "
+            + "xmlns:fo=\"urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0\" "
+            + "xmlns:xlink=\"http://www.w3.org/1999/xlink\" "
+            + "office:version=\"1.2\">");
+    writer.write(
+        "<office:automatic-styles><style:style style:name=\""
+            + HEADER_STYLE
+            + "\" style:family=\"table-cell\">"
+            + "<style:text-properties fo:font-weight=\"bold\"/></style:style>"
+            + "</office:automatic-styles>");
+    writer.write("<office:body><office:spreadsheet><table:table table:name=\"");
+    writer.write(escapeXml(this.sheetName));
+    writer.write("\">");
+  }
+
+  @Override
+  protected void writeSheetEnd(final Writer writer) throws IOException {
+
+    writer.write("</table:table></office:spreadsheet></office:body></office:document-content>");
+  }
+
+  @Override
+  protected void writeFooterEntries() {
+    // Nothing to do
+  }
+
+  @Override
+  protected void writeRowStart(final Writer writer, final int row) throws IOException {
+
+    writer.write("<table:table-row>");
+  }
+
+  @Override
+  protected void writeRowEnd(final Writer writer) throws IOException {
+
+    writer.write("</table:table-row>\n");
+  }
+
+  @Override
+  protected void writeEmptyCell(final Writer writer, final int row, final int col)
+      throws IOException {
+
+    writer.write("<table:table-cell/>");
+  }
+
+  @Override
+  protected void writeNumberCell(
+      final Writer writer, final int row, final int col, final String value) throws IOException {
+
+    writer.write("<table:table-cell office:value-type=\"float\" office:value=\"");
+    writer.write(value);
+    writer.write("\"><text:p>");
+    writer.write(value);
+    writer.write("</text:p></table:table-cell>");
+  }
+
+  @Override
+  protected void writeTextCell(
+      final Writer writer, final int row, final int col, final String text, final boolean header)
+      throws IOException {
+
+    writer.write("<table:table-cell office:value-type=\"string\"");
+    if (header) {
+      writer.write(" table:style-name=\"" + HEADER_STYLE + "\"");
+    }
+    writer.write("><text:p>");
+    writer.write(escapeText(text));
+    writer.write("</text:p></table:table-cell>");
+  }
+
+  @Override
+  protected void writeLinkCell(
+      final Writer writer, final int row, final int col, final String text, final String link)
+      throws IOException {
+
+    writer.write("<table:table-cell office:value-type=\"string\"><text:p>");
+    writer.write("<text:a xlink:type=\"simple\" xlink:href=\"");
+    writer.write(escapeXml(link));
+    writer.write("\">");
+    writer.write(escapeText(text));
+    writer.write("</text:a></text:p></table:table-cell>");
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Escape the text of a paragraph. Tabs and line breaks are encoded as elements and the spaces
+   * that would be collapsed by the white space processing of ODF are encoded as space elements.
+   *
+   * @param s the text to escape
+   * @return the escaped text
+   */
+  static String escapeText(final String s) {
+
+    final StringBuilder sb = new StringBuilder(s.length() + 16);
+    int start = 0;
+
+    for (int i = 0; i < s.length(); i++) {
+
+      final char c = s.charAt(i);
+      if (!isWhitespace(c)) {
+        continue;
+      }
+
+      sb.append(escapeXml(s.substring(start, i)));
+
+      if (c == ' ') {
+
+        // Count the spaces of the sequence
+        int end = i;
+        while (end < s.length() && s.charAt(end) == ' ') {
+          end++;
+        }
+
+        // Only the first space of a sequence between two words is kept by the ODF readers
+        final int count = end - i;
+        final boolean keepFirst =
+            i > 0
+                && end < s.length()
+                && !isWhitespace(s.charAt(i - 1))
+                && !isWhitespace(s.charAt(end));
+
+        if (keepFirst) {
+          sb.append(' ');
+        }
+        if (count > 1 || !keepFirst) {
+          sb.append("<text:s text:c=\"").append(keepFirst ? count - 1 : count).append("\"/>");
+        }
+        i = end - 1;
+
+      } else if (c == '\t') {
+        sb.append("<text:tab/>");
+      } else if (c == '\n' || i + 1 == s.length() || s.charAt(i + 1) != '\n') {
+
+        // A CRLF sequence is a single line break
+        sb.append("<text:line-break/>");
+      }
+
+      start = i + 1;
+    }
+
+    sb.append(escapeXml(s.substring(start)));
+
+    return sb.toString();
+  }
+
+  private static boolean isWhitespace(final char c) {
+
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  //
+  // Constructors
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param os the output stream of the file
+   */
+  public StreamingODSTranslatorOutputFormat(final OutputStream os) {
+
+    this(os, "Sheet1");
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param os the output stream of the file
+   * @param sheetName the name of the sheet
+   */
+  public StreamingODSTranslatorOutputFormat(final OutputStream os, final String sheetName) {
+
+    super(os);
+    this.sheetName = sheetName == null ? "Sheet1" : sheetName;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.kenetre.translator.io.TranslatorOutputFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.poi.common.usermodel.HyperlinkType;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * This class define a translator output format that write XLSX files. The sheet is streamed using
+ * the SXSSF API of POI: only a small window of rows is kept in memory, the other rows are flushed
+ * in a temporary file. Only the hyperlinks are kept in memory until the end of the sheet.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class StreamingXLSXTranslatorOutputFormat implements TranslatorOutputFormat {
+
+  /** Maximal number of rows of a XLSX sheet. */
+  static final int MAX_ROWS = 1_048_576;
+
+  /** Number of rows kept in memory before flushing them in the temporary file. */
+  private static final int ROW_ACCESS_WINDOW_SIZE = 100;
+
+  private final OutputStream os;
+  private final SXSSFWorkbook workbook;
+  private final Sheet sheet;
+  private final CellStyle headerStyle;
+  private final CellStyle linkStyle;
+
+  private Row row;
+  private boolean closed;
+  private int rowCount;
+  private int colCount;
+
+  //
+  // TranslatorOutputFormat methods
+  //
+
+  @Override
+  public void addHeaderField(final String fieldName) throws IOException {
+
+    final Cell cell = newCell();
+    cell.setCellValue(fieldName == null ? "" : fieldName);
+    cell.setCellStyle(this.headerStyle);
+  }
+
+  @Override
+  public void newLine() throws IOException {
+
+    checkNotClosed();
+
+    this.row = null;
+    this.rowCount++;
+    this.colCount = 0;
+  }
+
+  @Override
+  public void writeEmpty() throws IOException {
+
+    checkNotClosed();
+
+    // Empty cells are not stored in XLSX files
+    this.colCount++;
+  }
+
+  @Override
+  public void writeLong(final long l) throws IOException {
+
+    newCell().setCellValue(l);
+  }
+
+  @Override
+  public void writeDouble(final double d) throws IOException {
+
+    // NaN and infinite values cannot be stored as numbers in spreadsheets
+    if (Double.isNaN(d) || Double.isInfinite(d)) {
+      writeText(Double.toString(d));
+      return;
+    }
+
+    newCell().setCellValue(d);
+  }
+
+  @Override
+  public void writeText(final String text) throws IOException {
+
+    if (text == null) {
+      writeEmpty();
+      return;
+    }
+
+    newCell().setCellValue(text);
+  }
+
+  @Override
+  public void writeLink(final String text, final String link) throws IOException {
+
+    if (link == null) {
+      writeText(text);
+      return;
+    }
+
+    final Hyperlink hyperlink =
+        this.workbook.getCreationHelper().createHyperlink(HyperlinkType.URL);
+
+    try {
+      hyperlink.setAddress(link);
+    } catch (IllegalArgumentException e) {
+
+      // The link is not a valid URI
+      writeText(text);
+      return;
+    }
+
+    final Cell cell = newCell();
+    cell.setCellValue(text == null ? "" : text);
+    cell.setHyperlink(hyperlink);
+    cell.setCellStyle(this.linkStyle);
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+
+    try {
+      this.workbook.write(this.os);
+    } finally {
+
+      // Remove the temporary file of the sheet
+      this.workbook.dispose();
+      this.workbook.close();
+      this.os.close();
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  /**
+   * Create a new cell in the current row. The limit of rows is only checked when a cell is
+   * written, so a final new line is allowed.
+   *
+   * @return a new cell
+   * @throws IOException if the output format is closed or if the sheet has too many rows
+   */
+  private Cell newCell() throws IOException {
+
+    checkNotClosed();
+
+    if (this.rowCount >= MAX_ROWS) {
+      throw new IOException("Too many rows for the output format: " + MAX_ROWS);
+    }
+
+    if (this.row == null) {
+      this.row = this.sheet.createRow(this.rowCount);
+    }
+
+    return this.row.createCell(this.colCount++);
+  }
+
+  private void checkNotClosed() throws IOException {
+
+    if (this.closed) {
+      throw new IOException("The output format has been closed");
+    }
+  }
+
+  //
+  // Constructors
+  //
+
+  /**
+   * Constructor.
+   *
+   * @param os the output stream of the file
+   */
+  public StreamingXLSXTranslatorOutputFormat(final OutputStream os) {
+
+    this(os, "Sheet1");
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param os the output stream of the file
+   * @param sheetName the name of the sheet
+   */
+  public StreamingXLSXTranslatorOutputFormat(final OutputStream os, final String sheetName) {
+
+    requireNonNull(os, "os argument cannot be null");
+
+    this.os = os;
+    this.workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
+    this.workbook.setCompressTempFiles(true);
+    this.sheet = this.workbook.createSheet(sheetName == null ? "Sheet1" : sheetName);
+
+    // Freeze the header row
+    this.sheet.createFreezePane(0, 1);
+
+    final Font headerFont = this.workbook.createFont();
+    headerFont.setBold(true);
+    this.headerStyle = this.workbook.createCellStyle();
+    this.headerStyle.setFont(headerFont);
+
+    final Font linkFont = this.workbook.createFont();
+    linkFont.setUnderline(Font.U_SINGLE);
+    linkFont.setColor(IndexedColors.BLUE.getIndex());
+    this.linkStyle = this.workbook.createCellStyle();
+    this.linkStyle.setFont(linkFont);
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.hadoop;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.CommonHadoop;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+
+/**
+ * This class allow to monitor the completion of many Hadoop jobs with a single polling thread.
+ * Each monitored job is associated to a future that is completed at the end of the job.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public final class HadoopJobMonitor implements Runnable {
+
+  private static final int MAX_FAILED_CHECKS = 12;
+
+  private static HadoopJobMonitor instance;
+
+  private final int pollInterval;
+  private final Map<Job, MonitoredJob> jobs = new LinkedHashMap<>();
+  private Thread thread;
+
+  /** This class define a job monitored by the monitor. */
+  private static final class MonitoredJob {
+
+    private final Job job;
+    private final boolean emergencyStopTask;
+    private final CompletableFuture<Job> future = new CompletableFuture<>();
+    private int failedChecks;
+
+    MonitoredJob(final Job job, final boolean emergencyStopTask) {
+
+      this.job = job;
+      this.emergencyStopTask = emergencyStopTask;
+    }
+  }
+
+  //
+  // Job submission methods
+  //
+
+  /**
+   * Submit a job and monitor its completion. The job is added to the list of the job to kill if
+   * the workflow fails.
+   *
+   * @param job the job to submit
+   * @return a future on the job that is completed at the end of the job
+   * @throws IOException if an error occurs while submitting the job
+   * @throws InterruptedException if an error occurs while submitting the job
+   * @throws ClassNotFoundException if an error occurs while submitting the job
+   */
+  public CompletableFuture<Job> submit(final Job job)
+      throws IOException, InterruptedException, ClassNotFoundException {
+
+    requireNonNull(job, "job argument cannot be null");
+
+    // Submit the job
+    job.submit();
+
+    // Add the Hadoop job to the list of job to kill if workflow fails
+    HadoopJobEmergencyStopTask.addHadoopJobEmergencyStopTask(job);
+
+    return monitor(new MonitoredJob(job, true));
+  }
+
+  /**
+   * Monitor the completion of an already submitted job.
+   *
+   * @param job the job to monitor
+   * @return a future on the job that is completed at the end of the job
+   */
+  public CompletableFuture<Job> watch(final Job job) {
+
+    requireNonNull(job, "job argument cannot be null");
+
+    return monitor(new MonitoredJob(job, false));
+  }
+
+  /**
+   * Get the number of monitored jobs.
+   *
+   * @return the number of monitored jobs
+   */
+  public synchronized int getMonitoredJobCount() {
+
+    return this.jobs.size();
+  }
+
+  /**
+   * Add a job to the monitored jobs.
+   *
+   * @param monitoredJob the job to monitor
+   * @return the future of the job
+   */
+  private synchronized CompletableFuture<Job> monitor(final MonitoredJob monitoredJob) {
+
+    final MonitoredJob previous = this.jobs.get(monitoredJob.job);
+    if (previous != null) {
+      return previous.future;
+    }
+
+    this.jobs.put(monitoredJob.job, monitoredJob);
+
+    // Start the polling thread if required
+    if (this.thread == null) {
+      this.thread = new Thread(this, "HadoopJobMonitor");
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    notifyAll();
+
+    return monitoredJob.future;
+  }
+
+  //
+  // Polling methods
+  //
+
+  /**
+   * Check the completion of all the monitored jobs.
+   *
+   * @param jobsToCheck the jobs to check
+   */
+  private void checkJobs(final List<MonitoredJob> jobsToCheck) {
+
+    for (MonitoredJob mj : jobsToCheck) {
+
+      try {
+
+        if (mj.job.isComplete()) {
+          endOfJob(mj, null);
+        } else {
+          mj.failedChecks = 0;
+        }
+
+      } catch (IOException | RuntimeException e) {
+
+        // A runtime exception must not stop the polling thread, otherwise the futures of all the
+        // monitored jobs would never be completed
+        mj.failedChecks++;
+
+        getLogger()
+            .severe(
+                "Fail to check if Hadoop Job ("
+                    + mj.job.getJobName()
+                    + ") is completed, "
+                    + mj.failedChecks
+                    + "/"
+                    + MAX_FAILED_CHECKS
+                    + " trys: "
+                    + e.getMessage());
+
+        if (mj.failedChecks >= MAX_FAILED_CHECKS) {
+          endOfJob(mj, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remove a job from the monitored jobs and complete its future.
+   *
+   * @param mj the monitored job
+   * @param exception the exception that occurs while monitoring the job, can be null
+   */
+  private void endOfJob(final MonitoredJob mj, final Exception exception) {
+
+    synchronized (this) {
+      this.jobs.remove(mj.job);
+    }
+
+    try {
+
+      // Remove the Hadoop job to the list of job to kill if workflow fails
+      if (mj.emergencyStopTask) {
+        HadoopJobEmergencyStopTask.removeHadoopJobEmergencyStopTask(mj.job);
+      }
+
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      getLogger()
+          .warning(
+              "Unable to remove emergency stop task for Hadoop job ("
+                  + mj.job.getJobName()
+                  + "): "
+                  + e.getMessage());
+    } finally {
+
+      if (exception == null) {
+        mj.future.complete(mj.job);
+      } else {
+        mj.future.completeExceptionally(exception);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+
+    while (true) {
+
+      final List<MonitoredJob> jobsToCheck;
+
+      synchronized (this) {
+
+        // Wait new jobs to monitor
+        while (this.jobs.isEmpty()) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            this.thread = null;
+            return;
+          }
+        }
+
+        jobsToCheck = new ArrayList<>(this.jobs.values());
+      }
+
+      checkJobs(jobsToCheck);
+
+      try {
+        Thread.sleep(this.pollInterval);
+      } catch (InterruptedException e) {
+        synchronized (this) {
+          this.thread = null;
+        }
+        return;
+      }
+    }
+  }
+
+  //
+  // Static methods
+  //
+
+  /**
+   * Wait the end of several jobs.
+   *
+   * @param futures the futures of the jobs
+   * @return a list with the completed jobs in the same order as the futures
+   * @throws IOException if an error occurs while monitoring a job
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  public static List<Job> waitForJobs(final Collection<? extends Future<Job>> futures)
+      throws IOException, InterruptedException {
+
+    requireNonNull(futures, "futures argument cannot be null");
+
+    final List<Job> result = new ArrayList<>(futures.size());
+
+    for (Future<Job> future : futures) {
+      result.add(waitForJob(future));
+    }
+
+    return result;
+  }
+
+  /**
+   * Wait the end of a job.
+   *
+   * @param future the future of the job
+   * @return the completed job
+   * @throws IOException if an error occurs while monitoring the job
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  public static Job waitForJob(final Future<Job> future) throws IOException, InterruptedException {
+
+    requireNonNull(future, "future argument cannot be null");
+
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Aggregate the counters of several jobs.
+   *
+   * @param jobs the jobs
+   * @return a Counters object with the sum of the counters of the jobs
+   * @throws IOException if an error occurs while getting the counters of a job
+   */
+  public static Counters aggregateCounters(final Collection<Job> jobs) throws IOException {
+
+    requireNonNull(jobs, "jobs argument cannot be null");
+
+    final Counters result = new Counters();
+
+    for (Job job : jobs) {
+
+      final Counters counters = job.getCounters();
+      if (counters != null) {
+        result.incrAllCounters(counters);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Get the singleton instance of the monitor.
+   *
+   * @return the singleton instance of the monitor
+   */
+  public static synchronized HadoopJobMonitor getInstance() {
+
+    if (instance == null) {
+      instance = new HadoopJobMonitor(CommonHadoop.CHECK_COMPLETION_TIME);
+    }
+
+    return instance;
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Private constructor.
+   *
+   * @param pollInterval the interval between two checks of the completion of the jobs
+   */
+  private HadoopJobMonitor(final int pollInterval) {
+
+    this.pollInterval = pollInterval;
+  }
+}
@@ -27,6 +27,8 @@ package fr.ens.biologie.genomique.eoulsan.util.hadoop;
 import static java.util.Objects.requireNonNull;
 
 import com.google.common.collect.Sets;
+import fr.ens.biologie.genomique.eoulsan.util.CounterHandle;
+import fr.ens.biologie.genomique.eoulsan.util.CounterHandleProvider;
 import fr.ens.biologie.genomique.kenetre.util.Reporter;
 import java.util.HashSet;
 import java.util.Set;
@@ -41,7 +43,7 @@ import org.apache.hadoop.mapreduce.TaskInputOutputContext;
  * @author Laurent Jourdren
  */
 @SuppressWarnings("rawtypes")
-public class HadoopReporter implements Reporter {
+public class HadoopReporter implements Reporter, CounterHandleProvider {
 
   private final TaskInputOutputContext context;
   private final Counters counters;
@@ -97,6 +99,25 @@ public class HadoopReporter implements Reporter {
     return result;
   }
 
+  @Override
+  public CounterHandle getCounterHandle(final String counterGroup, final String counterName) {
+
+    return CounterHandle.lazy(
+        () -> {
+          final Counter counter;
+
+          if (this.context != null) {
+            // Use in mappers and reducers
+            counter = this.context.getCounter(counterGroup, counterName);
+          } else {
+            // Use in other cases
+            counter = this.counters.getGroup(counterGroup).findCounter(counterName);
+          }
+
+          return counter::increment;
+        });
+  }
+
   //
   // Constructors
   //
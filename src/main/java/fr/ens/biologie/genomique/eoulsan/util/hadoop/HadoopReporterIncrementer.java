@@ -26,6 +26,8 @@ package fr.ens.biologie.genomique.eoulsan.util.hadoop;
 
 import static java.util.Objects.requireNonNull;
 
+import fr.ens.biologie.genomique.eoulsan.util.CounterHandle;
+import fr.ens.biologie.genomique.eoulsan.util.CounterHandleProvider;
 import fr.ens.biologie.genomique.kenetre.util.ReporterIncrementer;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
@@ -35,7 +37,7 @@ import org.apache.hadoop.mapreduce.TaskInputOutputContext;
  * @since 1.0
  * @author Laurent Jourdren
  */
-public class HadoopReporterIncrementer implements ReporterIncrementer {
+public class HadoopReporterIncrementer implements ReporterIncrementer, CounterHandleProvider {
 
   private final TaskInputOutputContext<?, ?, ?, ?> context;
 
@@ -45,6 +47,12 @@ public class HadoopReporterIncrementer implements ReporterIncrementer {
     this.context.getCounter(counterGroup, counterName).increment(amount);
   }
 
+  @Override
+  public CounterHandle getCounterHandle(final String counterGroup, final String counterName) {
+
+    return CounterHandle.lazy(() -> this.context.getCounter(counterGroup, counterName)::increment);
+  }
+
   //
   // Constructor
   //
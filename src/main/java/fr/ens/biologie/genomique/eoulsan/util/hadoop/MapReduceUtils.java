@@ -24,12 +24,16 @@
 
 package fr.ens.biologie.genomique.eoulsan.util.hadoop;
 
-import static fr.ens.biologie.genomique.kenetre.util.Utils.silentSleep;
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanException;
-import fr.ens.biologie.genomique.eoulsan.EoulsanLogger;
 import fr.ens.biologie.genomique.eoulsan.core.TaskStatus;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
 import org.apache.hadoop.mapreduce.Job;
 
 /**
@@ -40,63 +44,73 @@ import org.apache.hadoop.mapreduce.Job;
  */
 public final class MapReduceUtils {
 
-  private static final int COMPLETION_POLL_INTERVAL = 5000;
-  private static final int MAX_CONNECTION_TRY_TO_JOB_TRACK = 12;
-
   /**
-   * Wait the completion of a job.
+   * Submit several jobs at once and wait the completion of all of them. The jobs are executed
+   * concurrently by the cluster and their counters are aggregated in the task status. If the
+   * submission of a job fails, the jobs already submitted are killed.
    *
-   * @param job the job to submit
-   * @param jobDescription the description of the job
-   * @param waitTimeInMillis waiting time between 2 checks of the completion of jobs
+   * @param jobs the jobs to submit
    * @param status step status
    * @param counterGroup group of the counter to log
-   * @throws EoulsanException if the job fail or if an exception occurs while submitting or waiting
-   *     the end of the job
+   * @throws EoulsanException if one of the jobs fail or if an exception occurs while submitting or
+   *     waiting the end of the jobs
    */
-  public static void submitAndWaitForJob(
-      final Job job,
-      final String jobDescription,
-      final int waitTimeInMillis,
-      final TaskStatus status,
-      final String counterGroup)
+  public static void submitAndWaitForJobs(
+      final Collection<Job> jobs, final TaskStatus status, final String counterGroup)
       throws EoulsanException {
 
-    if (job == null) {
-      throw new NullPointerException("The job is null");
-    }
+    requireNonNull(jobs, "jobs argument cannot be null");
+    requireNonNull(status, "status argument cannot be null");
+
+    final HadoopJobMonitor monitor = HadoopJobMonitor.getInstance();
 
-    if (jobDescription == null) {
-      throw new NullPointerException("The jobDescription is null");
+    // Set the description of the context
+    final List<String> jobNames = new ArrayList<>();
+    for (Job job : jobs) {
+      jobNames.add(job.getJobName());
     }
+    status.setDescription(String.join(", ", jobNames));
 
     try {
 
-      // Set the description of the context
-      status.setDescription(job.getJobName());
-
-      // Submit the job
-      job.submit();
-
-      // Add the Hadoop job to the list of job to kill if workflow fails
-      HadoopJobEmergencyStopTask.addHadoopJobEmergencyStopTask(job);
+      // Submit all the jobs
+      final List<Job> submittedJobs = new ArrayList<>();
+      final List<Future<Job>> futures = new ArrayList<>();
+      try {
+        for (Job job : jobs) {
+          futures.add(monitor.submit(job));
+          submittedJobs.add(job);
+        }
+      } catch (ClassNotFoundException | InterruptedException | IOException | RuntimeException e) {
+        killJobs(submittedJobs);
+        throw e;
+      }
 
-      // Job the completion of the job (non verbose mode)
-      waitForCompletion(job, MAX_CONNECTION_TRY_TO_JOB_TRACK);
+      // Wait the end of the jobs
+      final List<Job> completedJobs = HadoopJobMonitor.waitForJobs(futures);
 
-      // Remove the Hadoop job to the list of job to kill if workflow fails
-      HadoopJobEmergencyStopTask.removeHadoopJobEmergencyStopTask(job);
+      // Check if the jobs has been successfully executed
+      final List<String> failedJobs = new ArrayList<>();
+      for (Job job : completedJobs) {
+        if (!job.isSuccessful()) {
+          failedJobs.add(job.getJobFile());
+        }
+      }
 
-      // Check if the job has been successfully executed
-      if (!job.isSuccessful()) {
+      if (!failedJobs.isEmpty()) {
 
         status.setProgressMessage("FAILED");
 
-        throw new EoulsanException("Fail of the Hadoop job: " + job.getJobFile());
+        throw new EoulsanException(
+            "Fail of the Hadoop job"
+                + (failedJobs.size() > 1 ? "s" : "")
+                + ": "
+                + String.join(", ", failedJobs));
       }
 
       // Set the counters
-      status.setCounters(new HadoopReporter(job.getCounters()), counterGroup);
+      status.setCounters(
+          new HadoopReporter(HadoopJobMonitor.aggregateCounters(completedJobs)), counterGroup);
 
     } catch (ClassNotFoundException | InterruptedException | IOException e) {
       throw new EoulsanException(e);
@@ -104,56 +118,38 @@ public final class MapReduceUtils {
   }
 
   /**
-   * Wait for job completion.
+   * Kill jobs. The errors that occur while killing the jobs are logged.
    *
-   * @param job job to submit
-   * @param maxTry number of try to connect to JobTracker before throwing an exception
-   * @throws IOException thrown if the communication with the JobTracker is lost
+   * @param jobs the jobs to kill
    */
-  public static void waitForCompletion(final Job job, final int maxTry) throws IOException {
-
-    if (job == null) {
-      throw new NullPointerException("The job is null");
+  private static void killJobs(final Collection<Job> jobs) {
+
+    for (Job job : jobs) {
+      try {
+        job.killJob();
+      } catch (IOException e) {
+        getLogger()
+            .warning("Unable to kill Hadoop job (" + job.getJobName() + "): " + e.getMessage());
+      }
     }
-
-    waitForCompletion(job, maxTry, 0);
   }
 
   /**
    * Wait for job completion.
    *
    * @param job job to submit
-   * @param maxTry number of try to connect to JobTracker before throwing an exception
    * @throws IOException thrown if the communication with the JobTracker is lost
    */
-  private static void waitForCompletion(final Job job, final int maxTry, int failedTry)
-      throws IOException {
+  public static void waitForCompletion(final Job job) throws IOException {
 
-    try {
-      while (!job.isComplete()) {
-        failedTry = 0;
-        silentSleep(COMPLETION_POLL_INTERVAL);
-      }
-    } catch (IOException e) {
-
-      failedTry += 1;
-
-      EoulsanLogger.getLogger()
-          .severe(
-              "Fail to check if Hadoop Job ("
-                  + job.getJobName()
-                  + ") is completed, "
-                  + failedTry
-                  + "/"
-                  + maxTry
-                  + " trys: "
-                  + e.getMessage());
-
-      if (failedTry >= maxTry) {
-        throw new IOException(e);
-      }
+    if (job == null) {
+      throw new NullPointerException("The job is null");
+    }
 
-      waitForCompletion(job, maxTry, failedTry);
+    try {
+      HadoopJobMonitor.waitForJob(HadoopJobMonitor.getInstance().watch(job));
+    } catch (InterruptedException e) {
+      throw new IOException(e);
     }
   }
 
@@ -41,7 +41,9 @@ import java.util.Set;
  *
  * @since 1.1
  * @author Laurent Jourdren
+ * @deprecated this locker polls the lock files, use {@link FileLocker} instead
  */
+@Deprecated
 public class ExecLock implements Locker {
 
   private static final String LOCK_EXTENSION = ".lock";
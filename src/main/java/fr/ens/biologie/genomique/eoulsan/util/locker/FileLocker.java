@@ -0,0 +1,311 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.locker;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class implements a locker based on operating system file locks. Unlike {@link ExecLock},
+ * this locker never polls: the waiting processes form a queue of ticket files ordered by a sequence
+ * number, and each process waits on the file lock of the ticket of its predecessor. The operating
+ * system wakes up the next process as soon as its predecessor releases the lock or dies, so the
+ * hand-off is immediate, fair and crash-safe. Threads of the same JVM are queued in a fair local
+ * lock before entering the process queue.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class FileLocker implements Locker {
+
+  private static final String QUEUE_EXTENSION = ".queue";
+  private static final String SEQUENCE_EXTENSION = ".seq";
+  private static final String TICKET_EXTENSION = ".ticket";
+  private static final int TICKET_DIGITS = 19;
+
+  private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path queueDir;
+  private final Path sequenceFile;
+  private final ReentrantLock jvmLock;
+
+  private Path ticketFile;
+  private FileChannel ticketChannel;
+  private FileLock ticketLock;
+
+  @Override
+  public void lock() throws IOException {
+
+    // Wait the other threads of the JVM
+    try {
+      this.jvmLock.lockInterruptibly();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+
+    try {
+
+      Files.createDirectories(this.queueDir);
+
+      // Take a ticket in the queue
+      createTicket(nextSequenceNumber());
+
+      // Wait the end of the predecessors
+      Path predecessor;
+      while ((predecessor = predecessor()) != null) {
+        waitEndOfTicket(predecessor);
+      }
+
+    } catch (IOException | RuntimeException e) {
+      releaseTicket();
+      this.jvmLock.unlock();
+      throw e;
+    }
+  }
+
+  @Override
+  public void unlock() throws IOException {
+
+    if (!this.jvmLock.isHeldByCurrentThread()) {
+      return;
+    }
+
+    try {
+      releaseTicket();
+    } finally {
+      this.jvmLock.unlock();
+    }
+  }
+
+  //
+  // Queue management
+  //
+
+  /**
+   * Get the next sequence number of the queue.
+   *
+   * @return the next sequence number
+   * @throws IOException if an error occurs while reading or writing the sequence file
+   */
+  private long nextSequenceNumber() throws IOException {
+
+    try (FileChannel channel =
+            FileChannel.open(
+                this.sequenceFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileLock lock = channel.lock()) {
+
+      final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+      long value = 0;
+
+      if (channel.read(buffer, 0) == Long.BYTES) {
+        buffer.flip();
+        value = buffer.getLong();
+      }
+
+      buffer.clear();
+      buffer.putLong(value + 1);
+      buffer.flip();
+      channel.write(buffer, 0);
+
+      return value;
+    }
+  }
+
+  /**
+   * Create the ticket of the current process in the queue. The ticket is locked before being
+   * visible in the queue, so a waiting process can never consider a new ticket as stale.
+   *
+   * @param sequenceNumber the sequence number of the ticket
+   * @throws IOException if an error occurs while creating the ticket
+   */
+  private void createTicket(final long sequenceNumber) throws IOException {
+
+    final String name = String.format("%0" + TICKET_DIGITS + "d", sequenceNumber);
+    final Path tmpFile = this.queueDir.resolve(name + ".tmp");
+    final Path file = this.queueDir.resolve(name + TICKET_EXTENSION);
+
+    final FileChannel channel =
+        FileChannel.open(tmpFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+    try {
+      final FileLock lock = channel.lock();
+      channel.write(ByteBuffer.wrap(processName().getBytes(StandardCharsets.UTF_8)));
+      Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+
+      this.ticketFile = file;
+      this.ticketChannel = channel;
+      this.ticketLock = lock;
+
+    } catch (IOException e) {
+      channel.close();
+      Files.deleteIfExists(tmpFile);
+      throw e;
+    }
+  }
+
+  /** Release the ticket of the current process. */
+  private void releaseTicket() throws IOException {
+
+    if (this.ticketChannel == null) {
+      return;
+    }
+
+    try {
+
+      // Remove the ticket before releasing the lock, so the next process cannot see it again
+      Files.deleteIfExists(this.ticketFile);
+
+      if (this.ticketLock != null && this.ticketLock.isValid()) {
+        this.ticketLock.release();
+      }
+
+    } finally {
+      this.ticketChannel.close();
+      this.ticketChannel = null;
+      this.ticketLock = null;
+      this.ticketFile = null;
+    }
+  }
+
+  /**
+   * Get the ticket that precedes the ticket of the current process.
+   *
+   * @return the path of the ticket that precedes the ticket of the current process or null if the
+   *     current process is the first of the queue
+   * @throws IOException if an error occurs while listing the queue
+   */
+  private Path predecessor() throws IOException {
+
+    final String ticketName = this.ticketFile.getFileName().toString();
+    final List<String> names = new ArrayList<>();
+
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(this.queueDir, "*" + TICKET_EXTENSION)) {
+      for (Path p : stream) {
+        names.add(p.getFileName().toString());
+      }
+    }
+
+    Collections.sort(names);
+
+    final int index = names.indexOf(ticketName);
+    if (index == -1) {
+      throw new IOException("The ticket of the lock has been removed: " + this.ticketFile);
+    }
+
+    return index == 0 ? null : this.queueDir.resolve(names.get(index - 1));
+  }
+
+  /**
+   * Wait the release of a ticket. The file lock of the ticket is only available when its owner has
+   * released it or is dead, in this case the ticket is removed.
+   *
+   * @param ticket the ticket to wait
+   * @throws IOException if an error occurs while waiting the ticket
+   */
+  private static void waitEndOfTicket(final Path ticket) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(ticket, StandardOpenOption.WRITE);
+        FileLock lock = channel.lock()) {
+
+      // The owner of the ticket has released it or is dead
+      Files.deleteIfExists(ticket);
+
+    } catch (NoSuchFileException e) {
+      // The ticket has already been released
+    }
+  }
+
+  /**
+   * Get the number of processes in the queue of the lock, including the owner of the lock.
+   *
+   * @return the number of processes in the queue
+   * @throws IOException if an error occurs while listing the queue
+   */
+  public int getQueueLength() throws IOException {
+
+    if (!Files.isDirectory(this.queueDir)) {
+      return 0;
+    }
+
+    int count = 0;
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(this.queueDir, "*" + TICKET_EXTENSION)) {
+      for (Path ignored : stream) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  private static String processName() {
+
+    return ManagementFactory.getRuntimeMXBean().getName() + " " + Thread.currentThread().getName();
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Public constructor.
+   *
+   * @param directory directory where to create the lock files
+   * @param lockName the name of the lock
+   */
+  public FileLocker(final Path directory, final String lockName) {
+
+    requireNonNull(directory, "directory argument cannot be null");
+    requireNonNull(lockName, "lockName argument cannot be null");
+
+    this.queueDir = directory.resolve(lockName + QUEUE_EXTENSION);
+    this.sequenceFile = directory.resolve(lockName + SEQUENCE_EXTENSION);
+    this.jvmLock =
+        JVM_LOCKS.computeIfAbsent(
+            this.queueDir.toAbsolutePath().normalize(), k -> new ReentrantLock(true));
+  }
+}
@@ -27,6 +27,8 @@ package fr.ens.biologie.genomique.eoulsan.util.locker;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.WatchedEvent;
@@ -49,8 +51,11 @@ public class ZooKeeperLocker implements Locker, Watcher {
   private final String lockName;
   private final boolean sequentialLockName;
 
+  private static final int CONNECTION_TIMEOUT_SECONDS = 30;
+
+  private final CountDownLatch connectSignal = new CountDownLatch(1);
   private String lockPath;
-  private boolean response;
+  private volatile boolean response;
 
   @Override
   public void lock() throws IOException {
@@ -126,6 +131,7 @@ public class ZooKeeperLocker implements Locker, Watcher {
 
     if (event.getState() == KeeperState.SyncConnected) {
       this.response = true;
+      this.connectSignal.countDown();
     }
   }
 
@@ -177,20 +183,12 @@ public class ZooKeeperLocker implements Locker, Watcher {
     this.zk = new ZooKeeper(connectString, sessionTimeout, this);
 
     // Try to connect to ZooKeeper server in the next 30 seconds
-    int count = 0;
-    while (!this.response) {
-
-      if (count > 30) {
+    try {
+      if (!this.connectSignal.await(CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
         throw new IOException("Unable to connect to Zookeeper");
       }
-
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException e) {
-        throw new IOException(e);
-      }
-
-      count++;
+    } catch (InterruptedException e) {
+      throw new IOException(e);
     }
   }
 }
@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class define an abstract RExecutor.
@@ -37,6 +38,19 @@ public abstract class AbstractRExecutor implements RExecutor {
    */
   protected abstract void putFile(DataFile inputFile, String outputFilename) throws IOException;
 
+  /**
+   * Put several files for the analysis. The default implementation put the files one by one.
+   *
+   * @param inputFiles a map with the output filenames as keys and the files to put as values
+   * @throws IOException if an error occurs while putting the files
+   */
+  protected void putFiles(final Map<String, DataFile> inputFiles) throws IOException {
+
+    for (Map.Entry<String, DataFile> e : inputFiles.entrySet()) {
+      putFile(e.getValue(), e.getKey());
+    }
+  }
+
   /**
    * Remove a file of the analysis.
    *
@@ -45,6 +59,19 @@ public abstract class AbstractRExecutor implements RExecutor {
    */
   protected abstract void removeFile(String filename) throws IOException;
 
+  /**
+   * Remove several files of the analysis. The default implementation remove the files one by one.
+   *
+   * @param filenames the filenames of the files to remove
+   * @throws IOException if the removing of the files fails
+   */
+  protected void removeFiles(final List<String> filenames) throws IOException {
+
+    for (String filename : filenames) {
+      removeFile(filename);
+    }
+  }
+
   /**
    * Execute a R script.
    *
@@ -153,11 +180,34 @@ public abstract class AbstractRExecutor implements RExecutor {
   }
 
   @Override
-  public void removeInputFiles() throws IOException {
+  public void putInputFiles(final Map<String, DataFile> inputFiles) throws IOException {
+
+    if (inputFiles == null) {
+      throw new NullPointerException("inputFiles argument cannot be null");
+    }
+
+    for (Map.Entry<String, DataFile> e : inputFiles.entrySet()) {
 
-    for (String inputFilename : inputFilenames) {
-      removeFile(inputFilename);
+      if (e.getValue() == null) {
+        throw new NullPointerException("inputFile cannot be null");
+      }
+
+      // Check if try to overwrite an existing output file
+      if (this.inputFilenames.contains(e.getKey())) {
+        throw new IOException("Cannot overwrite input file on Rserve: " + e.getKey());
+      }
     }
+
+    this.inputFilenames.addAll(inputFiles.keySet());
+
+    // Put the files
+    putFiles(inputFiles);
+  }
+
+  @Override
+  public void removeInputFiles() throws IOException {
+
+    removeFiles(new ArrayList<>(this.inputFilenames));
   }
 
   @Override
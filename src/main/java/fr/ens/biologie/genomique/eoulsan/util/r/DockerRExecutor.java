@@ -41,13 +41,9 @@ public class DockerRExecutor extends ProcessRExecutor {
 
     final DataFile outputFile = new DataFile(getOutputDirectory(), outputFilename);
 
-    // Check if the input and output file are the same
-    if (isSameLocalPath(inputFile, outputFile)) {
-      return;
-    }
-
-    // If input file is not local file use the super implementation
-    if (!inputFile.isLocalFile()) {
+    // If the input and output file are the same or if input file is not local file use the super
+    // implementation
+    if (isSameLocalPath(inputFile, outputFile) || !inputFile.isLocalFile()) {
       super.putFile(inputFile, outputFilename);
       return;
     }
@@ -106,6 +102,12 @@ public class DockerRExecutor extends ProcessRExecutor {
     }
   }
 
+  @Override
+  public RExecutor newInstance(final File outputDirectory) throws IOException {
+
+    return new DockerRExecutor(outputDirectory, getTemporaryDirectory().toFile(), this.dockerImage);
+  }
+
   @Override
   protected SimpleProcess createSimpleProcess() throws IOException {
 
@@ -53,6 +53,7 @@ public class ProcessRExecutor extends AbstractRExecutor {
 
     // Check if the input and output file are the same
     if (isSameLocalPath(inputFile, outputFile)) {
+      this.filenamesToKeep.add(outputFilename);
       return;
     }
 
@@ -251,6 +252,12 @@ public class ProcessRExecutor extends AbstractRExecutor {
     return file.getParent().resolve(newFilename);
   }
 
+  @Override
+  public RExecutor newInstance(final File outputDirectory) throws IOException {
+
+    return new ProcessRExecutor(outputDirectory, getTemporaryDirectory().toFile());
+  }
+
   @Override
   public void closeConnection() throws IOException {
 
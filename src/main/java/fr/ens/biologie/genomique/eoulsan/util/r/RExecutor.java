@@ -1,7 +1,9 @@
 package fr.ens.biologie.genomique.eoulsan.util.r;
 
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * This interface define how to prepare, launch and retrieve data of a R analysis.
@@ -49,6 +51,14 @@ public interface RExecutor {
    */
   void putInputFile(DataFile inputFile, String outputFilename) throws IOException;
 
+  /**
+   * Put several files for the analysis in one operation.
+   *
+   * @param inputFiles a map with the output filenames as keys and the files to put as values
+   * @throws IOException if an exception occurs while putting the files
+   */
+  void putInputFiles(Map<String, DataFile> inputFiles) throws IOException;
+
   /**
    * Write a file.
    *
@@ -104,4 +114,14 @@ public interface RExecutor {
    * @throws IOException if an error occurs while getting the output files
    */
   void getOutputFiles() throws IOException;
+
+  /**
+   * Create a new RExecutor with the same configuration as this executor but that use another
+   * output directory. The new executor can be used concurrently with this executor.
+   *
+   * @param outputDirectory the output directory of the new executor
+   * @return a new RExecutor object
+   * @throws IOException if an error occurs while creating the executor
+   */
+  RExecutor newInstance(File outputDirectory) throws IOException;
 }
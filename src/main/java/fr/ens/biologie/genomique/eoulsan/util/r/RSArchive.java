@@ -0,0 +1,324 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.r;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.util.r.RSConnection.InputStreamSupplier;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class define the archive format used to transfer several files in one operation between
+ * Eoulsan and a Rserve server. The format can be read and written by base R with the readBin() and
+ * writeBin() functions. For each file, the archive contains the NUL terminated name of the file
+ * followed by chunks of data. Each chunk starts with its length as a little endian int32 and the
+ * list of the chunks of a file ends with an empty chunk.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+final class RSArchive {
+
+  /** Size of the chunks of data. */
+  static final int CHUNK_SIZE = 1024 * 1024;
+
+  //
+  // Java side
+  //
+
+  /**
+   * Write an archive. The output stream is not closed by this method.
+   *
+   * @param os the output stream of the archive
+   * @param files a map with the names of the files as keys and the suppliers of the content of the
+   *     files as values
+   * @throws IOException if an error occurs while writing the archive
+   */
+  static void write(final OutputStream os, final Map<String, InputStreamSupplier> files)
+      throws IOException {
+
+    requireNonNull(os, "os argument cannot be null");
+    requireNonNull(files, "files argument cannot be null");
+
+    final byte[] buffer = new byte[CHUNK_SIZE];
+    final byte[] length = new byte[Integer.BYTES];
+
+    for (Map.Entry<String, InputStreamSupplier> e : files.entrySet()) {
+
+      writeName(os, e.getKey());
+
+      try (InputStream is = e.getValue().open()) {
+
+        int n;
+        while ((n = readFully(is, buffer)) > 0) {
+          writeInt(os, length, n);
+          os.write(buffer, 0, n);
+        }
+      }
+
+      // End of the file
+      writeInt(os, length, 0);
+    }
+  }
+
+  /**
+   * Extract an archive in a directory.
+   *
+   * @param is the input stream of the archive
+   * @param outputDir the output directory
+   * @return a list with the names of the extracted files
+   * @throws IOException if an error occurs while reading the archive
+   */
+  static List<String> read(final InputStream is, final Path outputDir) throws IOException {
+
+    requireNonNull(is, "is argument cannot be null");
+    requireNonNull(outputDir, "outputDir argument cannot be null");
+
+    final List<String> result = new ArrayList<>();
+    final Path dir = outputDir.toAbsolutePath().normalize();
+    final byte[] buffer = new byte[CHUNK_SIZE];
+    final byte[] length = new byte[Integer.BYTES];
+
+    String name;
+    while ((name = readName(is)) != null) {
+
+      final Path file = dir.resolve(name).normalize();
+      if (!file.getParent().equals(dir)) {
+        throw new IOException("Invalid file name in archive: " + name);
+      }
+
+      try (OutputStream os = Files.newOutputStream(file)) {
+
+        int n;
+        while ((n = readInt(is, length)) > 0) {
+
+          while (n > 0) {
+            final int count = is.read(buffer, 0, Math.min(n, buffer.length));
+            if (count == -1) {
+              throw new EOFException("Unexpected end of archive in file: " + name);
+            }
+            os.write(buffer, 0, count);
+            n -= count;
+          }
+        }
+      }
+
+      result.add(name);
+    }
+
+    return result;
+  }
+
+  //
+  // R side
+  //
+
+  /**
+   * Get the R code that extract an archive in the working directory and then remove it.
+   *
+   * @param archive the name of the archive
+   * @return a String with R code
+   */
+  static String extractCode(final String archive) {
+
+    final String a = toRString(archive);
+
+    return "local({\n"
+        + "  con <- file("
+        + a
+        + ", \"rb\")\n"
+        + "  on.exit(close(con))\n"
+        + "  repeat {\n"
+        + "    name <- readBin(con, \"character\", 1)\n"
+        + "    if (length(name) == 0) break\n"
+        + "    out <- file(name, \"wb\")\n"
+        + "    repeat {\n"
+        + "      n <- readBin(con, \"integer\", 1, size=4, endian=\"little\")\n"
+        + "      if (n == 0) break\n"
+        + "      writeBin(readBin(con, \"raw\", n), out)\n"
+        + "    }\n"
+        + "    close(out)\n"
+        + "  }\n"
+        + "})\n"
+        + "invisible(file.remove("
+        + a
+        + "))\n";
+  }
+
+  /**
+   * Get the R code that create an archive in the working directory.
+   *
+   * @param archive the name of the archive
+   * @param files the names of the files to add to the archive
+   * @return a String with R code
+   */
+  static String createCode(final String archive, final List<String> files) {
+
+    return "local({\n"
+        + "  con <- file("
+        + toRString(archive)
+        + ", \"wb\")\n"
+        + "  on.exit(close(con))\n"
+        + "  for (f in "
+        + toRVector(files)
+        + ") {\n"
+        + "    writeBin(f, con)\n"
+        + "    src <- file(f, \"rb\")\n"
+        + "    repeat {\n"
+        + "      b <- readBin(src, \"raw\", "
+        + CHUNK_SIZE
+        + ")\n"
+        + "      if (length(b) == 0) break\n"
+        + "      writeBin(length(b), con, size=4, endian=\"little\")\n"
+        + "      writeBin(b, con)\n"
+        + "    }\n"
+        + "    close(src)\n"
+        + "    writeBin(0L, con, size=4, endian=\"little\")\n"
+        + "  }\n"
+        + "})\n";
+  }
+
+  /**
+   * Convert a Java string to a R string literal.
+   *
+   * @param s the string to convert
+   * @return a R string literal
+   */
+  static String toRString(final String s) {
+
+    return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+  }
+
+  /**
+   * Convert a list of Java strings to a R character vector.
+   *
+   * @param list the list to convert
+   * @return a R character vector
+   */
+  static String toRVector(final List<String> list) {
+
+    final StringBuilder sb = new StringBuilder("c(");
+
+    boolean first = true;
+    for (String s : list) {
+      if (!first) {
+        sb.append(", ");
+      }
+      sb.append(toRString(s));
+      first = false;
+    }
+    sb.append(')');
+
+    return sb.toString();
+  }
+
+  //
+  // Other methods
+  //
+
+  private static void writeName(final OutputStream os, final String name) throws IOException {
+
+    if (name.isEmpty() || name.indexOf('\0') != -1) {
+      throw new IOException("Invalid file name: " + name);
+    }
+
+    os.write(name.getBytes(UTF_8));
+    os.write(0);
+  }
+
+  private static String readName(final InputStream is) throws IOException {
+
+    final ByteArrayOutputStream name = new ByteArrayOutputStream();
+
+    int b;
+    while ((b = is.read()) > 0) {
+      name.write(b);
+    }
+
+    if (b == -1) {
+      if (name.size() == 0) {
+        return null;
+      }
+      throw new EOFException("Unexpected end of archive");
+    }
+
+    return new String(name.toByteArray(), UTF_8);
+  }
+
+  private static void writeInt(final OutputStream os, final byte[] buffer, final int value)
+      throws IOException {
+
+    buffer[0] = (byte) value;
+    buffer[1] = (byte) (value >>> 8);
+    buffer[2] = (byte) (value >>> 16);
+    buffer[3] = (byte) (value >>> 24);
+    os.write(buffer, 0, Integer.BYTES);
+  }
+
+  private static int readInt(final InputStream is, final byte[] buffer) throws IOException {
+
+    if (readFully(is, buffer) != Integer.BYTES) {
+      throw new EOFException("Unexpected end of archive");
+    }
+
+    return (buffer[0] & 0xff)
+        | (buffer[1] & 0xff) << 8
+        | (buffer[2] & 0xff) << 16
+        | (buffer[3] & 0xff) << 24;
+  }
+
+  private static int readFully(final InputStream is, final byte[] buffer) throws IOException {
+
+    int total = 0;
+    while (total < buffer.length) {
+      final int n = is.read(buffer, total, buffer.length - total);
+      if (n == -1) {
+        break;
+      }
+      total += n;
+    }
+
+    return total;
+  }
+
+  //
+  // Constructor
+  //
+
+  private RSArchive() {
+
+    throw new IllegalStateException();
+  }
+}
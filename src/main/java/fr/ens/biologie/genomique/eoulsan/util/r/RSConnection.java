@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.rosuda.REngine.REXP;
@@ -60,8 +61,23 @@ public class RSConnection {
 
   private final String serverName;
   private RConnection rconnection;
-
-  private static final int BUFFER_SIZE = 32 * 1024;
+  private String workingDirectory;
+  private int archiveCount;
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /** This interface define a supplier of input streams that can throw IOException. */
+  @FunctionalInterface
+  public interface InputStreamSupplier {
+
+    /**
+     * Open the input stream.
+     *
+     * @return an input stream
+     * @throws IOException if an error occurs while opening the stream
+     */
+    InputStream open() throws IOException;
+  }
 
   //
   // Getters
@@ -220,7 +236,7 @@ public class RSConnection {
    */
   public void getFile(final String rServeFilename, final Path outputFile) throws REngineException {
 
-    try (InputStream is = Files.newInputStream(Path.of(rServeFilename));
+    try (InputStream is = getFileInputStream(rServeFilename);
         OutputStream os = Files.newOutputStream(outputFile)) {
 
       byte[] buf = new byte[BUFFER_SIZE];
@@ -237,6 +253,63 @@ public class RSConnection {
     }
   }
 
+  /**
+   * Put several files on the RServer in one transfer. The files are sent in one archive that is
+   * extracted on the server.
+   *
+   * @param files a map with the filenames on the server as keys and the suppliers of the content of
+   *     the files as values
+   * @throws REngineException if an error occurs while putting the files
+   */
+  public void putFiles(final Map<String, InputStreamSupplier> files) throws REngineException {
+
+    requireNonNull(files, "files argument cannot be null");
+
+    if (files.isEmpty()) {
+      return;
+    }
+
+    final String archive = newArchiveName();
+
+    try (OutputStream os = getFileOutputStream(archive)) {
+      RSArchive.write(os, files);
+    } catch (IOException e) {
+      throw new REngineException(getRConnection(), "Unable to put files: " + e.getMessage());
+    }
+
+    executeR(RSArchive.extractCode(archive));
+  }
+
+  /**
+   * Get several files from the RServer in one transfer. The files are gathered in one archive on
+   * the server that is extracted in the output directory.
+   *
+   * @param rServeFilenames filenames of the files to retrieve
+   * @param outputDir output directory
+   * @throws REngineException if an error occurs while getting the files
+   */
+  public void getFiles(final List<String> rServeFilenames, final Path outputDir)
+      throws REngineException {
+
+    requireNonNull(rServeFilenames, "rServeFilenames argument cannot be null");
+    requireNonNull(outputDir, "outputDir argument cannot be null");
+
+    if (rServeFilenames.isEmpty()) {
+      return;
+    }
+
+    final String archive = newArchiveName();
+    executeR(RSArchive.createCode(archive, rServeFilenames));
+
+    try (InputStream is = getFileInputStream(archive)) {
+      RSArchive.read(is, outputDir);
+    } catch (IOException e) {
+      throw new REngineException(getRConnection(), "Unable to get files: " + e.getMessage());
+    } finally {
+      removeFiles(Collections.singletonList(archive));
+    }
+  }
+
   /**
    * Get a list of files from the RServer.
    *
@@ -303,6 +376,24 @@ public class RSConnection {
     }
   }
 
+  /**
+   * Remove several files on the RServer in one operation.
+   *
+   * @param filenames the files to remove
+   * @throws REngineException if an error occurs while removing the files
+   */
+  public void removeFiles(final List<String> filenames) throws REngineException {
+
+    requireNonNull(filenames, "filenames argument cannot be null");
+
+    if (filenames.isEmpty()) {
+      return;
+    }
+
+    final String files = RSArchive.toRVector(filenames);
+    executeR("invisible(file.remove(Filter(file.exists, " + files + ")))");
+  }
+
   /**
    * Remove all the files of the working directory.
    *
@@ -311,9 +402,7 @@ public class RSConnection {
    */
   public void removeAllFiles() throws REngineException, REXPMismatchException {
 
-    for (String file : listFiles()) {
-      removeFile(file);
-    }
+    removeFiles(listFiles());
   }
 
   /**
@@ -635,6 +724,60 @@ public class RSConnection {
     return Arrays.asList(files);
   }
 
+  /**
+   * Test if the connection is opened and if the R session answers to a simple request.
+   *
+   * @return true if the connection can be used
+   */
+  public boolean isHealthy() {
+
+    if (this.rconnection == null || !this.rconnection.isConnected()) {
+      return false;
+    }
+
+    try {
+      return this.rconnection.eval("1L").asInteger() == 1;
+    } catch (RserveException | REXPMismatchException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reset the R session to reuse it for another analysis. The objects of the global environment,
+   * the graphic devices and the files of the working directory are removed, but the loaded
+   * libraries are kept.
+   *
+   * @throws REngineException if an error occurs while resetting the session
+   */
+  public void resetSession() throws REngineException {
+
+    final RConnection c = getRConnection();
+
+    try {
+      c.voidEval("graphics.off()");
+      c.voidEval("rm(list = ls(envir = globalenv(), all.names = TRUE), envir = globalenv())");
+
+      if (this.workingDirectory != null) {
+        c.voidEval("setwd(" + RSArchive.toRString(this.workingDirectory) + ")");
+      }
+
+      c.voidEval(
+          "invisible(unlink(list.files(all.files = TRUE, no.. = TRUE), recursive = TRUE))");
+    } catch (RserveException e) {
+      throw new REngineException(c, "RServe exception: " + e);
+    }
+  }
+
+  /**
+   * Create a new name for an archive used for the transfer of files.
+   *
+   * @return a new name for an archive
+   */
+  private String newArchiveName() {
+
+    return ".eoulsan-transfer-" + (++this.archiveCount) + ".bin";
+  }
+
   /**
    * Connect to the Rserve server.
    *
@@ -644,7 +787,8 @@ public class RSConnection {
 
     try {
       this.rconnection = new RConnection(this.serverName);
-    } catch (RserveException e) {
+      this.workingDirectory = this.rconnection.eval("getwd()").asString();
+    } catch (RserveException | REXPMismatchException e) {
       throw new REngineException(
           this.rconnection, "Unable to connect to the server: " + e.getMessage());
     }
@@ -0,0 +1,197 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.r;
+
+import static fr.ens.biologie.genomique.eoulsan.EoulsanLogger.getLogger;
+import static java.util.Objects.requireNonNull;
+
+import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.rosuda.REngine.REngineException;
+
+/**
+ * This class define a pool of Rserve sessions. Opening a Rserve connection starts a new R process
+ * and the first analysis of a session must load the R libraries, so the sessions are reused by the
+ * next analyses on the same server instead of being closed. The sessions are reset before being
+ * reused and are checked before being returned by the pool.
+ *
+ * @author Laurent Jourdren
+ * @since 2.9
+ */
+public class RSConnectionPool {
+
+  /** Default maximal number of idle sessions by server. */
+  private static final int DEFAULT_MAX_IDLE_SESSIONS = 4;
+
+  private static RSConnectionPool singleton;
+
+  private final Map<String, Deque<RSConnection>> idleSessions = new HashMap<>();
+  private final int maxIdleSessions;
+
+  /**
+   * Get a session on a Rserve server. An idle session is returned if available, otherwise a new
+   * connection is opened.
+   *
+   * @param serverName the name of the Rserve server
+   * @return a RSConnection object
+   * @throws REngineException if an error occurs while connecting to the server
+   */
+  public RSConnection acquire(final String serverName) throws REngineException {
+
+    final String server = new RSConnection(serverName).getServerName();
+
+    RSConnection connection;
+    while ((connection = pollIdleSession(server)) != null) {
+
+      // Check the session before reusing it
+      if (connection.isHealthy()) {
+        getLogger().fine("Reuse Rserve session on " + server);
+        return connection;
+      }
+
+      getLogger().fine("Discard unhealthy Rserve session on " + server);
+      connection.disConnect();
+    }
+
+    // Create a new session
+    connection = new RSConnection(server);
+    connection.getRConnection();
+
+    return connection;
+  }
+
+  /**
+   * Release a session. The session is reset and kept in the pool for the next analyses or closed
+   * if the pool is full or if the session cannot be reset.
+   *
+   * @param connection the session to release
+   */
+  public void release(final RSConnection connection) {
+
+    requireNonNull(connection, "connection argument cannot be null");
+
+    // The files of the session must be kept, the session cannot be reused
+    if (this.maxIdleSessions < 1 || isKeepRServeFiles() || !connection.isHealthy()) {
+      connection.disConnect();
+      return;
+    }
+
+    try {
+      connection.resetSession();
+    } catch (REngineException e) {
+      getLogger().warning("Unable to reset Rserve session: " + e.getMessage());
+      connection.disConnect();
+      return;
+    }
+
+    synchronized (this.idleSessions) {
+
+      final Deque<RSConnection> sessions =
+          this.idleSessions.computeIfAbsent(connection.getServerName(), k -> new ArrayDeque<>());
+
+      if (sessions.size() < this.maxIdleSessions) {
+        sessions.push(connection);
+        return;
+      }
+    }
+
+    connection.disConnect();
+  }
+
+  /** Close all the idle sessions of the pool. */
+  public void closeAll() {
+
+    synchronized (this.idleSessions) {
+
+      for (Deque<RSConnection> sessions : this.idleSessions.values()) {
+        for (RSConnection connection : sessions) {
+          connection.disConnect();
+        }
+      }
+      this.idleSessions.clear();
+    }
+  }
+
+  //
+  // Other methods
+  //
+
+  private RSConnection pollIdleSession(final String serverName) {
+
+    synchronized (this.idleSessions) {
+
+      final Deque<RSConnection> sessions = this.idleSessions.get(serverName);
+
+      return sessions == null ? null : sessions.poll();
+    }
+  }
+
+  private static boolean isKeepRServeFiles() {
+
+    return EoulsanRuntime.isRuntime() && EoulsanRuntime.getSettings().isKeepRServeFiles();
+  }
+
+  //
+  // Static method
+  //
+
+  /**
+   * Get the instance of the RSConnectionPool.
+   *
+   * @return the RSConnectionPool object
+   */
+  public static synchronized RSConnectionPool getInstance() {
+
+    if (singleton == null) {
+
+      final int maxIdleSessions =
+          EoulsanRuntime.isRuntime()
+              ? EoulsanRuntime.getSettings().getRServePoolSize()
+              : DEFAULT_MAX_IDLE_SESSIONS;
+
+      singleton = new RSConnectionPool(maxIdleSessions);
+      Runtime.getRuntime().addShutdownHook(new Thread(singleton::closeAll));
+    }
+
+    return singleton;
+  }
+
+  //
+  // Constructor
+  //
+
+  /**
+   * Private constructor.
+   *
+   * @param maxIdleSessions maximal number of idle sessions by server
+   */
+  private RSConnectionPool(final int maxIdleSessions) {
+
+    this.maxIdleSessions = maxIdleSessions;
+  }
+}
@@ -5,13 +5,16 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import fr.ens.biologie.genomique.eoulsan.EoulsanRuntime;
 import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.util.r.RSConnection.InputStreamSupplier;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.rosuda.REngine.REXPMismatchException;
 import org.rosuda.REngine.REngineException;
 
@@ -44,14 +47,11 @@ public class RserveRExecutor extends AbstractRExecutor {
       // Get all the filenames
       final List<String> filenames = this.rConnection.listFiles();
 
-      for (String filename : filenames) {
+      // Retrieve the files in one transfer
+      this.rConnection.getFiles(filenames, getOutputDirectory());
 
-        // Retrieve the file
-        this.rConnection.getFile(filename, getOutputDirectory().resolve(filename));
-
-        // Delete the file
-        removeFile(filename);
-      }
+      // Delete the files
+      removeFiles(filenames);
 
     } catch (REngineException | REXPMismatchException e) {
       throw new IOException(e);
@@ -68,13 +68,27 @@ public class RserveRExecutor extends AbstractRExecutor {
     // Check if temporary and output directories exists
     super.openConnection();
 
-    this.rConnection = new RSConnection(serverName);
+    // Reuse an existing session on the server if possible
+    try {
+      this.rConnection = RSConnectionPool.getInstance().acquire(this.serverName);
+    } catch (REngineException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public RExecutor newInstance(final File outputDirectory) throws IOException {
+
+    return new RserveRExecutor(outputDirectory, getTemporaryDirectory().toFile(), this.serverName);
   }
 
   @Override
   public void closeConnection() throws IOException {
 
-    this.rConnection.disConnect();
+    super.closeConnection();
+
+    // Keep the session for the next analyses
+    RSConnectionPool.getInstance().release(this.rConnection);
     this.rConnection = null;
   }
 
@@ -96,6 +110,48 @@ public class RserveRExecutor extends AbstractRExecutor {
     }
   }
 
+  @Override
+  protected void removeFiles(final List<String> filenames) throws IOException {
+
+    checkConnection();
+
+    // Check if Rserve files can be removed
+    if (EoulsanRuntime.getSettings().isKeepRServeFiles()) {
+      return;
+    }
+
+    // Remove files from Rserve server
+    try {
+      this.rConnection.removeFiles(filenames);
+    } catch (REngineException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected void putFiles(final Map<String, DataFile> inputFiles) throws IOException {
+
+    checkConnection();
+
+    if (inputFiles.size() < 2) {
+      super.putFiles(inputFiles);
+      return;
+    }
+
+    getLogger().info("Put " + inputFiles.size() + " files on RServe in one transfer");
+
+    final Map<String, InputStreamSupplier> files = new LinkedHashMap<>();
+    for (Map.Entry<String, DataFile> e : inputFiles.entrySet()) {
+      files.put(e.getKey(), e.getValue()::open);
+    }
+
+    try {
+      this.rConnection.putFiles(files);
+    } catch (REngineException e) {
+      throw new IOException(e);
+    }
+  }
+
   @Override
   protected void putFile(final DataFile inputFile, final String inputFilename) throws IOException {
 
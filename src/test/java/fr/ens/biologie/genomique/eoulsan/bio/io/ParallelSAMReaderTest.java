@@ -0,0 +1,118 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.bio.io;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ParallelSAMReaderTest {
+
+  private static final String HEADER_LINE = "@SQ\tSN:chr1\tLN:1000\n";
+
+  @Test
+  public void testProcess() throws IOException {
+
+    final Random random = new Random(3);
+
+    for (int trial = 0; trial < 200; trial++) {
+
+      final int headerLines = random.nextInt(3);
+      final int lines = random.nextInt(50);
+      final StringBuilder header = new StringBuilder();
+      final StringBuilder body = new StringBuilder();
+
+      for (int i = 0; i < headerLines; i++) {
+        header.append(HEADER_LINE);
+      }
+
+      for (int i = 0; i < lines; i++) {
+
+        body.append("read" + i + '\t' + random.nextInt(4096) + "\tchr1\t" + i + "\t60\t50M");
+        body.append("\t*\t0\t0\t");
+        for (int j = random.nextInt(30); j >= 0; j--) {
+          body.append('A');
+        }
+        body.append("\t*");
+
+        // The last line may not end with a new line
+        if (i < lines - 1 || random.nextBoolean()) {
+          body.append(random.nextInt(5) == 0 ? "\r\n" : "\n");
+        }
+      }
+
+      final List<String> chunks = new ArrayList<>();
+
+      try (ParallelSAMReader reader =
+          new ParallelSAMReader(
+              new ByteArrayInputStream((header.toString() + body).getBytes(US_ASCII)),
+              1 + random.nextInt(4),
+              1 + random.nextInt(100))) {
+
+        assertEquals(header.toString(), new String(reader.getHeader(), US_ASCII));
+
+        reader.process(
+            (data, start, end) -> new String(data, start, end - start, US_ASCII), chunks::add);
+      }
+
+      // The chunks must only contain full lines and must be consumed in the order of the file
+      for (int i = 0; i < chunks.size() - 1; i++) {
+        assertTrue(chunks.get(i).endsWith("\n"));
+      }
+      assertEquals(body.toString(), String.join("", chunks));
+    }
+  }
+
+  @Test
+  public void testFields() throws IOException {
+
+    final byte[] data =
+        "r1\t99\tchr1\t5\t60\t10M100N5M\t*\t0\t0\tACGT\t*\r\nr2".getBytes(US_ASCII);
+
+    final int lineEnd = ParallelSAMReader.endOfLine(data, 0, data.length);
+    assertEquals(data.length - 3, lineEnd);
+    assertEquals(data.length, ParallelSAMReader.endOfLine(data, lineEnd + 1, data.length));
+
+    final int flagStart =
+        ParallelSAMReader.fieldStart(data, 0, lineEnd, ParallelSAMReader.FLAG_FIELD);
+    assertEquals(3, flagStart);
+    assertEquals(99, ParallelSAMReader.parseIntField(data, flagStart, lineEnd));
+
+    final int cigarStart =
+        ParallelSAMReader.fieldStart(data, 0, lineEnd, ParallelSAMReader.CIGAR_FIELD);
+    final int cigarEnd = ParallelSAMReader.fieldEnd(data, cigarStart, lineEnd);
+    assertEquals("10M100N5M", new String(data, cigarStart, cigarEnd - cigarStart, US_ASCII));
+
+    // Missing field
+    assertEquals(-1, ParallelSAMReader.fieldStart(data, lineEnd + 1, data.length, 1));
+  }
+}
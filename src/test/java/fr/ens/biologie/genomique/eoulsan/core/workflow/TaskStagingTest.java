@@ -0,0 +1,138 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.core.workflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+public class TaskStagingTest {
+
+  @Test
+  public void testUnstageFile() throws IOException {
+
+    final Path dir = Files.createTempDirectory("taskstaging");
+    try {
+
+      final Path local = write(dir.resolve("local.txt"), "new");
+      final Path target = write(dir.resolve("out/result.txt"), "old");
+
+      // Stale temporary file of a previous failed copy
+      write(dir.resolve("out/.result.txt.staging.tmp"), "partial");
+
+      TaskStaging.unstageOutput(local, target);
+
+      assertEquals("new", read(target));
+      assertFalse(Files.exists(dir.resolve("out/.result.txt.staging.tmp")));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testUnstageDirectory() throws IOException {
+
+    final Path dir = Files.createTempDirectory("taskstaging");
+    try {
+
+      final Path local = dir.resolve("local");
+      write(local.resolve("a.txt"), "new a");
+      write(local.resolve("sub/b.txt"), "new b");
+
+      // Output directory of a previous attempt of the task
+      final Path target = dir.resolve("out/result");
+      write(target.resolve("a.txt"), "old a");
+      write(target.resolve("c.txt"), "old c");
+
+      // Stale temporary directory of a previous failed copy
+      write(dir.resolve("out/.result.staging.tmp/d.txt"), "partial");
+
+      TaskStaging.unstageOutput(local, target);
+
+      assertEquals("new a", read(target.resolve("a.txt")));
+      assertEquals("new b", read(target.resolve("sub/b.txt")));
+      assertFalse(Files.exists(target.resolve("c.txt")));
+      assertFalse(Files.exists(target.resolve("d.txt")));
+      assertFalse(Files.exists(dir.resolve("out/.result.staging.tmp")));
+      assertFalse(Files.exists(dir.resolve("out/.result.staging.old")));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testUnstageError() throws IOException {
+
+    final Path dir = Files.createTempDirectory("taskstaging");
+    try {
+
+      // The local directory contains a file that cannot be copied
+      final Path local = dir.resolve("local");
+      write(local.resolve("a.txt"), "new a");
+      Files.createSymbolicLink(local.resolve("b.txt"), dir.resolve("missing"));
+
+      final Path target = dir.resolve("out/result");
+      write(target.resolve("a.txt"), "old a");
+
+      try {
+        TaskStaging.unstageOutput(local, target);
+        throw new AssertionError("An IOException was expected");
+      } catch (IOException e) {
+
+        // The output of the previous attempt is kept and the temporary directory is removed
+        assertEquals("old a", read(target.resolve("a.txt")));
+        assertFalse(Files.exists(dir.resolve("out/.result.staging.tmp")));
+      }
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static Path write(final Path file, final String content) throws IOException {
+
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(UTF_8));
+
+    return file;
+  }
+
+  private static String read(final Path file) throws IOException {
+
+    return new String(Files.readAllBytes(file), UTF_8);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.io;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelCompressionOutputStreamTest {
+
+  private static final int THREADS = 3;
+  private static final int[] SIZES = {0, 1, 1000, 700_000, 700_001, 1024 * 1024 + 1, 3_000_000};
+
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void setUp() {
+
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGZip() throws IOException {
+
+    for (int size : SIZES) {
+
+      final byte[] data = createData(size);
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+      try (OutputStream os = new ParallelGZipOutputStream(baos, executor, THREADS)) {
+        write(os, data);
+      }
+
+      // The output must be a single gzip member
+      try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+        assertArrayEquals(data, is.readAllBytes());
+      }
+    }
+  }
+
+  @Test
+  public void testBZip2() throws IOException {
+
+    for (int size : SIZES) {
+
+      final byte[] data = createData(size);
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+      try (OutputStream os = new ParallelBZip2OutputStream(baos, executor, THREADS)) {
+        write(os, data);
+      }
+
+      // The output must be a single bzip2 stream
+      try (InputStream is =
+          new BZip2CompressorInputStream(new ByteArrayInputStream(baos.toByteArray()), false)) {
+        assertArrayEquals(data, is.readAllBytes());
+      }
+    }
+  }
+
+  @Test
+  public void testBZip2RunLengthExpansion() throws IOException {
+
+    // Runs of 4 identical bytes are the worst case of the bzip2 initial run length encoding
+    final byte[] data = new byte[2_100_000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ((i / 4) % 2 == 0 ? 'A' : 'C');
+    }
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (OutputStream os = new ParallelBZip2OutputStream(baos, executor, THREADS)) {
+      os.write(data);
+    }
+
+    try (InputStream is =
+        new BZip2CompressorInputStream(new ByteArrayInputStream(baos.toByteArray()), false)) {
+      assertArrayEquals(data, is.readAllBytes());
+    }
+  }
+
+  private static byte[] createData(final int size) {
+
+    final Random random = new Random(size);
+    final byte[] result = new byte[size];
+    final String alphabet = "ACGTN\n@+I";
+
+    for (int i = 0; i < size; i++) {
+      result[i] = (byte) alphabet.charAt(random.nextInt(alphabet.length()));
+    }
+
+    // Add some long runs
+    for (int i = 0; i + 2000 < size; i += 100_000) {
+      Arrays.fill(result, i, i + 2000, (byte) 'N');
+    }
+
+    return result;
+  }
+
+  private static void write(final OutputStream os, final byte[] data) throws IOException {
+
+    // Write the data in several chunks of various lengths
+    for (int i = 0; i < data.length; i += 7777) {
+      os.write(data, i, Math.min(7777, data.length - i));
+    }
+  }
+}
@@ -0,0 +1,387 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import picard.sam.markduplicates.MarkDuplicates;
+
+public class DuplicateMarkerTest {
+
+  private static final int READ_LENGTH = 50;
+  private static final String[] CIGARS = {"50M", "5S45M", "45M5S", "2S46M2S", "20M100N30M"};
+
+  @Test
+  public void testCoordinateSorted() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+      final File input = new File(dir, "input.sam");
+      createTestFile(input, new Random(1), SAMFileHeader.SortOrder.coordinate);
+
+      final Map<String, Boolean> picard = markWithPicard(input, new File(dir, "picard.sam"));
+      final Map<String, Boolean> marker = markWithMarker(input, new File(dir, "marker.sam"), dir);
+
+      assertEquals(picard.size(), marker.size());
+      assertTrue(picard.containsValue(true));
+      assertEquals(picard, marker);
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testRemoveDuplicates() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+      final File input = new File(dir, "input.sam");
+      createTestFile(input, new Random(2), SAMFileHeader.SortOrder.coordinate);
+
+      final Map<String, Boolean> picard = markWithPicard(input, new File(dir, "picard.sam"));
+      final File output = new File(dir, "marker.sam");
+
+      new DuplicateMarker(2, true, true, dir)
+          .markDuplicates(new DataFile(input), new DataFile(output), null);
+
+      final Map<String, Boolean> marker = readFlags(output);
+
+      int kept = 0;
+      for (boolean duplicate : picard.values()) {
+        if (!duplicate) {
+          kept++;
+        }
+      }
+
+      assertEquals(kept, marker.size());
+      assertTrue(!marker.containsValue(true));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testQueryNameSorted() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+      final File input = new File(dir, "input.sam");
+      createTestFile(input, new Random(3), SAMFileHeader.SortOrder.queryname);
+
+      final Map<String, Boolean> picard = markWithPicard(input, new File(dir, "picard.sam"));
+      final Map<String, Boolean> marker = markWithMarker(input, new File(dir, "marker.sam"), dir);
+
+      assertEquals(picard.size(), marker.size());
+      assertTrue(picard.containsValue(true));
+      assertEquals(picard, marker);
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testSameFivePrimeEnds() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+
+      // In a file sorted by query name, the forward read comes first in the first pair and the
+      // reverse read comes first in the second pair
+      final File input = new File(dir, "input.sam");
+      final SAMFileHeader header = new SAMFileHeader();
+      header.addSequence(new SAMSequenceRecord("chr1", 10_000));
+      header.setSortOrder(SAMFileHeader.SortOrder.queryname);
+
+      final SAMReadGroupRecord rg = new SAMReadGroupRecord("rg1");
+      rg.setLibrary("lib1");
+      rg.setSample("sample1");
+      header.addReadGroup(rg);
+
+      final Random random = new Random(4);
+
+      try (SAMFileWriter writer = new SAMFileWriterFactory().makeSAMWriter(header, false, input)) {
+
+        for (int i = 0; i < 2; i++) {
+          for (SAMRecord r : createSameFivePrimeEndsPair(header, "pair" + i, i == 0, random)) {
+            writer.addAlignment(r);
+          }
+        }
+      }
+
+      final Map<String, Boolean> picard = markWithPicard(input, new File(dir, "picard.sam"));
+      final Map<String, Boolean> marker = markWithMarker(input, new File(dir, "marker.sam"), dir);
+
+      // One of the pairs is a duplicate of the other
+      assertEquals(4, picard.size());
+      assertTrue(picard.containsValue(true));
+      assertEquals(picard, marker);
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static Map<String, Boolean> markWithPicard(final File input, final File output) {
+
+    final String[] arguments = {
+      "INPUT=" + input,
+      "OUTPUT=" + output,
+      "METRICS_FILE=" + output + ".metrics",
+      "REMOVE_DUPLICATES=false",
+      "ASSUME_SORTED=true",
+      "QUIET=true"
+    };
+
+    assertEquals(0, new MarkDuplicates().instanceMain(arguments));
+
+    return readFlags(output);
+  }
+
+  private static Map<String, Boolean> markWithMarker(
+      final File input, final File output, final File tmpDir) throws IOException {
+
+    new DuplicateMarker(3, false, false, tmpDir)
+        .markDuplicates(
+            new DataFile(input), new DataFile(output), new DataFile(output + ".metrics"));
+
+    return readFlags(output);
+  }
+
+  /**
+   * Read the duplicate flags of a SAM file.
+   *
+   * @param file the SAM file
+   * @return a map with the duplicate flag of each alignment
+   */
+  private static Map<String, Boolean> readFlags(final File file) {
+
+    final Map<String, Boolean> result = new HashMap<>();
+
+    try (SamReader reader = SamReaderFactory.makeDefault().open(file)) {
+
+      for (SAMRecord r : reader) {
+
+        final String key =
+            r.getReadName()
+                + '\t'
+                + (r.getFlags() & ~0x400)
+                + '\t'
+                + r.getReferenceIndex()
+                + '\t'
+                + r.getAlignmentStart();
+
+        result.put(key, r.getDuplicateReadFlag());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Create a SAM file with single-end and paired-end reads that contains many duplicates.
+   *
+   * @param file the output file
+   * @param random the random generator
+   * @param sortOrder the sort order of the file
+   */
+  private static void createTestFile(
+      final File file, final Random random, final SAMFileHeader.SortOrder sortOrder) {
+
+    final SAMFileHeader header = new SAMFileHeader();
+    header.addSequence(new SAMSequenceRecord("chr1", 10_000));
+    header.addSequence(new SAMSequenceRecord("chr2", 10_000));
+    header.setSortOrder(sortOrder);
+
+    final SAMReadGroupRecord rg = new SAMReadGroupRecord("rg1");
+    rg.setLibrary("lib1");
+    rg.setSample("sample1");
+    header.addReadGroup(rg);
+
+    try (SAMFileWriter writer = new SAMFileWriterFactory().makeSAMWriter(header, false, file)) {
+
+      // Single-end reads
+      for (int i = 0; i < 300; i++) {
+        final SAMRecord r = createRecord(header, "single" + i, random);
+        if (random.nextInt(20) == 0) {
+          setUnmapped(r);
+        }
+        writer.addAlignment(r);
+
+        // Secondary alignment
+        if (random.nextInt(10) == 0) {
+          final SAMRecord s = createRecord(header, "single" + i, random);
+          s.setNotPrimaryAlignmentFlag(true);
+          writer.addAlignment(s);
+        }
+      }
+
+      // Paired-end reads
+      for (int i = 0; i < 300; i++) {
+
+        final SAMRecord r1 = createRecord(header, "pair" + i, random);
+        final SAMRecord r2 = createRecord(header, "pair" + i, random);
+        final boolean mateUnmapped = random.nextInt(20) == 0;
+
+        if (mateUnmapped) {
+          r2.setReferenceIndex(r1.getReferenceIndex());
+          r2.setAlignmentStart(r1.getAlignmentStart());
+          setUnmapped(r2);
+        }
+
+        setMate(r1, r2, true);
+        setMate(r2, r1, false);
+
+        writer.addAlignment(r1);
+        writer.addAlignment(r2);
+      }
+
+      // Pairs with the two 5' ends at the same position on opposite strands
+      for (int i = 0; i < 20; i++) {
+        for (SAMRecord r :
+            createSameFivePrimeEndsPair(header, "samepos" + i, random.nextBoolean(), random)) {
+          writer.addAlignment(r);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a pair with the two 5' unclipped ends at the same position on opposite strands.
+   *
+   * @param header the SAM header
+   * @param name the name of the pair
+   * @param forwardFirst true if the forward read is the first read of the pair
+   * @param random the random generator
+   * @return an array with the two reads of the pair
+   */
+  private static SAMRecord[] createSameFivePrimeEndsPair(
+      final SAMFileHeader header,
+      final String name,
+      final boolean forwardFirst,
+      final Random random) {
+
+    final SAMRecord forward = createRecord(header, name, random);
+    forward.setReferenceIndex(0);
+    forward.setAlignmentStart(2000);
+    forward.setCigarString("50M");
+    forward.setReadNegativeStrandFlag(false);
+
+    // The unclipped end of the reverse read is the unclipped start of the forward read
+    final SAMRecord reverse = createRecord(header, name, random);
+    reverse.setReferenceIndex(0);
+    reverse.setAlignmentStart(2000 - READ_LENGTH + 1);
+    reverse.setCigarString("50M");
+    reverse.setReadNegativeStrandFlag(true);
+
+    setMate(forward, reverse, forwardFirst);
+    setMate(reverse, forward, !forwardFirst);
+
+    return forwardFirst ? new SAMRecord[] {forward, reverse} : new SAMRecord[] {reverse, forward};
+  }
+
+  private static SAMRecord createRecord(
+      final SAMFileHeader header, final String name, final Random random) {
+
+    final SAMRecord r = new SAMRecord(header);
+    r.setReadName(name);
+    r.setReferenceIndex(random.nextInt(2));
+
+    // Few positions to get many duplicates
+    r.setAlignmentStart(1000 + random.nextInt(8) * 10);
+    r.setCigarString(CIGARS[random.nextInt(CIGARS.length)]);
+    r.setReadNegativeStrandFlag(random.nextBoolean());
+    r.setMappingQuality(60);
+    r.setAttribute(SAMRecord.READ_GROUP_TAG_NAME, "rg1");
+
+    final byte[] bases = new byte[READ_LENGTH];
+    final byte[] qualities = new byte[READ_LENGTH];
+    for (int i = 0; i < READ_LENGTH; i++) {
+      bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+
+      // Few quality values to get score ties
+      qualities[i] = (byte) (10 + random.nextInt(3) * 10);
+    }
+    r.setReadBases(bases);
+    r.setBaseQualities(qualities);
+
+    return r;
+  }
+
+  private static void setUnmapped(final SAMRecord r) {
+
+    r.setReadUnmappedFlag(true);
+    r.setCigarString("*");
+    r.setMappingQuality(0);
+    r.setReadNegativeStrandFlag(false);
+  }
+
+  private static void setMate(final SAMRecord r, final SAMRecord mate, final boolean first) {
+
+    r.setReadPairedFlag(true);
+    r.setFirstOfPairFlag(first);
+    r.setSecondOfPairFlag(!first);
+    r.setMateUnmappedFlag(mate.getReadUnmappedFlag());
+    r.setMateReferenceIndex(mate.getReferenceIndex());
+    r.setMateAlignmentStart(mate.getAlignmentStart());
+    r.setMateNegativeStrandFlag(mate.getReadNegativeStrandFlag());
+  }
+
+  private static File createTempDirectory() throws IOException {
+
+    final File result = File.createTempFile("duplicatemarker-", "");
+    assertTrue(result.delete() && result.mkdir());
+
+    return result;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileHeader.SortOrder;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import picard.sam.MergeSamFiles;
+
+public class SAMFilesMergerTest {
+
+  private static final int READ_LENGTH = 50;
+  private static final int FILE_COUNT = 3;
+
+  @Test
+  public void testSortedInputs() throws IOException {
+
+    testMerge(SortOrder.coordinate, 1);
+  }
+
+  @Test
+  public void testUnsortedInputs() throws IOException {
+
+    testMerge(SortOrder.unsorted, 2);
+  }
+
+  /**
+   * Compare the output of the merger with the output of Picard's MergeSamFiles.
+   *
+   * @param sortOrder the sort order of the input files
+   * @param seed seed of the random generator
+   */
+  private static void testMerge(final SortOrder sortOrder, final long seed) throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+
+      final Random random = new Random(seed);
+      final List<File> inputs = new ArrayList<>();
+      final List<DataFile> inputDataFiles = new ArrayList<>();
+
+      for (int i = 0; i < FILE_COUNT; i++) {
+
+        final File input = new File(dir, "input" + i + ".sam");
+
+        // The first file contains more records than a batch of the prefetching iterators
+        createTestFile(input, i, i == 0 ? 25_000 : 1_000, sortOrder, random);
+        inputs.add(input);
+        inputDataFiles.add(new DataFile(input));
+      }
+
+      final File picardOutput = new File(dir, "picard.sam");
+      final File mergerOutput = new File(dir, "merger.sam");
+
+      final List<String> arguments = new ArrayList<>();
+      for (File input : inputs) {
+        arguments.add("INPUT=" + input);
+      }
+      arguments.add("OUTPUT=" + picardOutput);
+      arguments.add("SORT_ORDER=coordinate");
+      arguments.add("TMP_DIR=" + dir);
+      arguments.add("QUIET=true");
+
+      assertEquals(0, new MergeSamFiles().instanceMain(arguments.toArray(new String[0])));
+
+      new SAMFilesMerger(dir).merge(inputDataFiles, new DataFile(mergerOutput));
+
+      final SAMFileHeader picardHeader = readHeader(picardOutput);
+      final SAMFileHeader mergerHeader = readHeader(mergerOutput);
+
+      assertEquals(SortOrder.coordinate, mergerHeader.getSortOrder());
+      assertEquals(picardHeader.getSequenceDictionary(), mergerHeader.getSequenceDictionary());
+      assertEquals(picardHeader.getReadGroups(), mergerHeader.getReadGroups());
+
+      final List<String> picardRecords = readRecords(picardOutput);
+      final List<String> mergerRecords = readRecords(mergerOutput);
+
+      assertEquals(25_000 + (FILE_COUNT - 1) * 1_000, picardRecords.size());
+      assertEquals(picardRecords, mergerRecords);
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static SAMFileHeader readHeader(final File file) throws IOException {
+
+    try (SamReader reader = SamReaderFactory.makeDefault().open(file)) {
+      return reader.getFileHeader();
+    }
+  }
+
+  private static List<String> readRecords(final File file) throws IOException {
+
+    final List<String> result = new ArrayList<>();
+
+    try (SamReader reader = SamReaderFactory.makeDefault().open(file)) {
+      for (SAMRecord r : reader) {
+        result.add(r.getSAMString());
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Create a SAM file with mapped and unmapped single-end reads.
+   *
+   * @param file the output file
+   * @param index index of the file
+   * @param count number of records
+   * @param sortOrder the sort order of the file
+   * @param random the random generator
+   */
+  private static void createTestFile(
+      final File file,
+      final int index,
+      final int count,
+      final SortOrder sortOrder,
+      final Random random) {
+
+    final SAMFileHeader header = new SAMFileHeader();
+    header.addSequence(new SAMSequenceRecord("chr1", 100_000));
+    header.addSequence(new SAMSequenceRecord("chr2", 100_000));
+    header.setSortOrder(sortOrder);
+
+    final String readGroup = "rg" + index;
+    final SAMReadGroupRecord rg = new SAMReadGroupRecord(readGroup);
+    rg.setLibrary("lib" + index);
+    rg.setSample("sample" + index);
+    header.addReadGroup(rg);
+
+    // The writer sorts the records if the sort order of the header is coordinate
+    try (SAMFileWriter writer = new SAMFileWriterFactory().makeSAMWriter(header, false, file)) {
+
+      for (int i = 0; i < count; i++) {
+
+        final SAMRecord r = new SAMRecord(header);
+
+        // Read names are unique among all the files to get a deterministic order
+        r.setReadName("file" + index + "-read" + i);
+
+        if (random.nextInt(50) == 0) {
+          r.setReadUnmappedFlag(true);
+          r.setCigarString("*");
+        } else {
+          r.setReferenceIndex(random.nextInt(2));
+          r.setAlignmentStart(1 + random.nextInt(1_000));
+          r.setCigarString(READ_LENGTH + "M");
+          r.setReadNegativeStrandFlag(random.nextBoolean());
+          r.setMappingQuality(60);
+        }
+        r.setAttribute(SAMRecord.READ_GROUP_TAG_NAME, readGroup);
+
+        final byte[] bases = new byte[READ_LENGTH];
+        final byte[] qualities = new byte[READ_LENGTH];
+        for (int j = 0; j < READ_LENGTH; j++) {
+          bases[j] = (byte) "ACGT".charAt(random.nextInt(4));
+          qualities[j] = (byte) (10 + random.nextInt(30));
+        }
+        r.setReadBases(bases);
+        r.setBaseQualities(qualities);
+
+        writer.addAlignment(r);
+      }
+    }
+  }
+
+  private static File createTempDirectory() throws IOException {
+
+    final File result = File.createTempFile("samfilesmerger-", "");
+    assertTrue(result.delete() && result.mkdir());
+
+    return result;
+  }
+}
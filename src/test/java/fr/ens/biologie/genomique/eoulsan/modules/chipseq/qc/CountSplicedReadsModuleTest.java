@@ -0,0 +1,136 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.chipseq.qc;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import fr.ens.biologie.genomique.eoulsan.bio.io.ParallelSAMReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class CountSplicedReadsModuleTest {
+
+  @Test
+  public void testCountChunk() throws IOException {
+
+    final byte[] data =
+        ("r1\t99\tchr1\t5\t60\t10M100N5M\t*\t0\t0\tACGT\t*\n"
+                + "\n"
+                + "r2\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\t*\r\n"
+                + "\r\n"
+                + "r3\t16\tchr1\t8\t60\t4M\t*\t0\t0\tACGT\t*\r\n"
+                + "r4\t0\tchr1\t9\t60\t2M10N2M\t*\t0\t0\tACGT\t*")
+            .getBytes(US_ASCII);
+
+    // Empty lines are skipped, the flag of the first record is returned
+    assertArrayEquals(
+        new long[] {4, 2, 99}, CountSplicedReadsModule.countChunk(data, 0, data.length));
+
+    // Chunk that starts at the third line
+    final int thirdLine = new String(data, US_ASCII).indexOf("r2");
+    assertArrayEquals(
+        new long[] {3, 1, 4}, CountSplicedReadsModule.countChunk(data, thirdLine, data.length));
+
+    // Empty chunk
+    assertArrayEquals(new long[] {0, 0, 0}, CountSplicedReadsModule.countChunk(data, 0, 0));
+  }
+
+  @Test
+  public void testInvalidLine() {
+
+    final byte[] data = "r1\t99\tchr1\n".getBytes(US_ASCII);
+
+    try {
+      CountSplicedReadsModule.countChunk(data, 0, data.length);
+      throw new AssertionError("An IOException was expected");
+    } catch (IOException e) {
+      // Expected exception
+    }
+  }
+
+  @Test
+  public void testParallelCount() throws IOException {
+
+    final Random random = new Random(5);
+
+    for (int trial = 0; trial < 100; trial++) {
+
+      final int lines = 1 + random.nextInt(200);
+      final StringBuilder sb = new StringBuilder("@SQ\tSN:chr1\tLN:1000\n");
+      int firstFlag = -1;
+      long splicedCount = 0;
+
+      for (int i = 0; i < lines; i++) {
+
+        final int flag = random.nextInt(4096);
+        final String cigar =
+            random.nextBoolean() ? "10M100N5M" : random.nextBoolean() ? "*" : "50M";
+
+        if (firstFlag == -1) {
+          firstFlag = flag;
+        }
+        if (cigar.indexOf('N') != -1) {
+          splicedCount++;
+        }
+
+        sb.append("read" + i + '\t' + flag + "\tchr1\t" + i + "\t60\t" + cigar + "\t*\t0\t0\tA\t*");
+        sb.append(random.nextBoolean() ? "\r\n" : "\n");
+      }
+
+      final List<long[]> counts = new ArrayList<>();
+
+      try (ParallelSAMReader reader =
+          new ParallelSAMReader(
+              new ByteArrayInputStream(sb.toString().getBytes(US_ASCII)),
+              1 + random.nextInt(4),
+              1 + random.nextInt(500))) {
+
+        reader.process(CountSplicedReadsModule::countChunk, counts::add);
+      }
+
+      // Sum the counts of the chunks like the module
+      long recordCount = 0;
+      long spliced = 0;
+      long flag = -1;
+      for (long[] c : counts) {
+        if (recordCount == 0 && c[0] > 0) {
+          flag = c[2];
+        }
+        recordCount += c[0];
+        spliced += c[1];
+      }
+
+      assertEquals(lines, recordCount);
+      assertEquals(splicedCount, spliced);
+      assertEquals(firstFlag, flag);
+    }
+  }
+}
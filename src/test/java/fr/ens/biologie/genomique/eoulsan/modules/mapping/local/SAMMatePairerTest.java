@@ -0,0 +1,381 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.mapping.local;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import fr.ens.biologie.genomique.eoulsan.data.Data;
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import fr.ens.biologie.genomique.eoulsan.data.DataFormat;
+import fr.ens.biologie.genomique.eoulsan.data.DataMetadata;
+import fr.ens.biologie.genomique.eoulsan.util.LocalCounterReporter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class SAMMatePairerTest {
+
+  private static final String COUNTER_GROUP = "sam2fastq";
+  private static final int PAIR_COUNT = 500;
+
+  @Test
+  public void testPairInMemory() throws IOException {
+
+    testPairs(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testPairSpilledMates() throws IOException {
+
+    // All the mates are spilled and paired from the partitions
+    testPairs(1);
+
+    // The mates are paired both in memory and from the partitions
+    testPairs(2000);
+  }
+
+  @Test
+  public void testSingleEnd() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+      final List<String> lines = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        lines.add(single("read" + i, sequence(i), 0));
+      }
+      final FastqData data = new FastqData(dir);
+
+      assertTrue(convert(lines, data, dir, 1));
+
+      final List<String[]> reads = readFastq(data.getDataFile(0));
+      assertEquals(100, reads.size());
+      for (int i = 0; i < 100; i++) {
+        assertEquals("read" + i, reads.get(i)[0]);
+        assertEquals(sequence(i), reads.get(i)[1]);
+      }
+
+      // Only the first FASTQ file has been created
+      assertEquals(1, data.getDataFileCount());
+
+      // Mates without pair in a file without pairs are written as single-end reads
+      final FastqData data2 = new FastqData(dir);
+      assertTrue(convert(List.of(mate("mate1", sequence(0), true)), data2, dir, 1));
+      assertEquals(1, readFastq(data2.getDataFile(0)).size());
+      assertEquals(1, data2.getDataFileCount());
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testMixed() throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+
+      // Single-end reads followed by pairs require the sort-based conversion
+      final List<String> lines = new ArrayList<>();
+      lines.add(single("read1", sequence(1), 0));
+      lines.add(mate("pair1", sequence(2), true));
+      lines.add(mate("pair1", sequence(3), false));
+      lines.add(single("read2", sequence(4), 0));
+
+      assertFalse(convert(lines, new FastqData(dir), dir, Long.MAX_VALUE));
+      assertEquals(0, countPartitions(dir));
+
+      // Single-end reads after the first pair are discarded
+      lines.remove(0);
+      final FastqData data = new FastqData(dir);
+
+      assertTrue(convert(lines, data, dir, Long.MAX_VALUE));
+      assertEquals(1, readFastq(data.getDataFile(0)).size());
+      assertEquals(1, readFastq(data.getDataFile(1)).size());
+
+      // The second FASTQ file is created even if no pair has been found
+      final FastqData data2 = new FastqData(dir);
+      assertTrue(
+          convert(
+              List.of(mate("pair1", sequence(1), true), mate("pair2", sequence(2), false)),
+              data2,
+              dir,
+              1));
+      assertEquals(2, data2.getDataFileCount());
+      assertEquals(0, readFastq(data2.getDataFile(0)).size());
+      assertEquals(0, readFastq(data2.getDataFile(1)).size());
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  /**
+   * Convert a file with shuffled mates and check the output pairs.
+   *
+   * @param memoryLimit the memory limit of the unpaired mates
+   * @throws IOException if an error occurs while converting the file
+   */
+  private static void testPairs(final long memoryLimit) throws IOException {
+
+    final File dir = createTempDirectory();
+
+    try {
+
+      final Random random = new Random(memoryLimit);
+      final List<String> lines = new ArrayList<>();
+
+      for (int i = 0; i < PAIR_COUNT; i++) {
+
+        lines.add(mate("pair" + i, sequence(2 * i), true));
+        lines.add(mate("pair" + i, sequence(2 * i + 1), false));
+
+        // Secondary alignment
+        if (i % 10 == 0) {
+          lines.add(mate("pair" + i, sequence(2 * i), true).replace("\t73\t", "\t329\t"));
+        }
+      }
+
+      // Mates without pair are discarded
+      lines.add(mate("orphan1", sequence(0), true));
+      lines.add(mate("orphan2", sequence(1), false));
+
+      Collections.shuffle(lines, random);
+
+      final FastqData data = new FastqData(dir);
+      assertTrue(convert(lines, data, dir, memoryLimit));
+
+      final List<String[]> reads1 = readFastq(data.getDataFile(0));
+      final List<String[]> reads2 = readFastq(data.getDataFile(1));
+
+      assertEquals(PAIR_COUNT, reads1.size());
+      assertEquals(PAIR_COUNT, reads2.size());
+
+      final Map<String, Integer> pairs = new HashMap<>();
+      for (int i = 0; i < PAIR_COUNT; i++) {
+
+        final String name = reads1.get(i)[0];
+        assertEquals(name, reads2.get(i)[0]);
+
+        final int index = Integer.parseInt(name.substring("pair".length()));
+        assertEquals(sequence(2 * index), reads1.get(i)[1]);
+        assertEquals(sequence(2 * index + 1), reads2.get(i)[1]);
+        assertNull(pairs.put(name, i));
+      }
+
+      // The partition files have been removed
+      assertEquals(0, countPartitions(dir));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  private static boolean convert(
+      final List<String> lines, final FastqData data, final File dir, final long memoryLimit)
+      throws IOException {
+
+    final File samFile = File.createTempFile("input-", ".sam", dir);
+
+    try (Writer writer = Files.newBufferedWriter(samFile.toPath(), UTF_8)) {
+      writer.write("@HD\tVN:1.6\tSO:unsorted\n@SQ\tSN:chr1\tLN:1000\n");
+      for (String line : lines) {
+        writer.write(line);
+        writer.write('\n');
+      }
+    }
+
+    return new SAMMatePairer(data, dir, memoryLimit, new LocalCounterReporter(), COUNTER_GROUP)
+        .convert(new DataFile(samFile));
+  }
+
+  private static String mate(final String name, final String sequence, final boolean first) {
+
+    return single(name, sequence, first ? 73 : 137);
+  }
+
+  private static String single(final String name, final String sequence, final int flags) {
+
+    return name
+        + '\t'
+        + flags
+        + "\tchr1\t100\t60\t20M\t*\t0\t0\t"
+        + sequence
+        + '\t'
+        + "I".repeat(sequence.length());
+  }
+
+  private static String sequence(final int index) {
+
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0, n = index; i < 20; i++, n /= 4) {
+      sb.append("ACGT".charAt(n % 4));
+    }
+
+    return sb.toString();
+  }
+
+  private static List<String[]> readFastq(final DataFile file) throws IOException {
+
+    final List<String> lines = Files.readAllLines(file.toFile().toPath(), UTF_8);
+    final List<String[]> result = new ArrayList<>();
+
+    assertEquals(0, lines.size() % 4);
+    for (int i = 0; i < lines.size(); i += 4) {
+      assertTrue(lines.get(i).startsWith("@"));
+      result.add(new String[] {lines.get(i).substring(1), lines.get(i + 1)});
+    }
+
+    return result;
+  }
+
+  private static int countPartitions(final File dir) {
+
+    final File[] files = dir.listFiles((d, name) -> name.startsWith("sam2fastq-"));
+
+    return files == null ? 0 : files.length;
+  }
+
+  private static File createTempDirectory() throws IOException {
+
+    final File result = File.createTempFile("sammatepairer-", "");
+    assertTrue(result.delete() && result.mkdir());
+
+    return result;
+  }
+
+  /** This class define a FASTQ data that records the files requested by the converter. */
+  private static final class FastqData implements Data {
+
+    private final File dir;
+    private final String prefix;
+    private int fileCount;
+
+    @Override
+    public DataFile getDataFile(final int fileIndex) {
+
+      this.fileCount = Math.max(this.fileCount, fileIndex + 1);
+
+      return new DataFile(this.dir, this.prefix + fileIndex + ".fq");
+    }
+
+    @Override
+    public int getDataFileCount() {
+      return this.fileCount;
+    }
+
+    @Override
+    public String getName() {
+      return "fastq";
+    }
+
+    @Override
+    public DataFormat getFormat() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getPart() {
+      return -1;
+    }
+
+    @Override
+    public DataMetadata getMetadata() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isList() {
+      return false;
+    }
+
+    @Override
+    public List<Data> getListElements() {
+      return Collections.singletonList(this);
+    }
+
+    @Override
+    public int size() {
+      return 1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return false;
+    }
+
+    @Override
+    public Data addDataToList(final String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Data addDataToList(final String name, final int part) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getDataFilename() {
+      return getDataFilename(0);
+    }
+
+    @Override
+    public String getDataFilename(final int fileIndex) {
+      return getDataFile(fileIndex).getName();
+    }
+
+    @Override
+    public DataFile getDataFile() {
+      return getDataFile(0);
+    }
+
+    @Override
+    public int getDataFileCount(final boolean existingFiles) {
+      return getDataFileCount();
+    }
+
+    FastqData(final File dir) throws IOException {
+      this.dir = dir;
+      this.prefix = File.createTempFile("reads-", "_", dir).getName();
+    }
+  }
+}
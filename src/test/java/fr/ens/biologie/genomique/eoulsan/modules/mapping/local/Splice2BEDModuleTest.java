@@ -0,0 +1,120 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.mapping.local;
+
+import static fr.ens.biologie.genomique.kenetre.bio.SAMUtils.parseIntervalsToBEDEntry;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+import fr.ens.biologie.genomique.kenetre.bio.BEDEntry;
+import fr.ens.biologie.genomique.kenetre.bio.EntryMetadata;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMLineParser;
+import htsjdk.samtools.SAMSequenceRecord;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class Splice2BEDModuleTest {
+
+  private static final String SPLICED_LINE = "r1\t0\tchr1\t100\t60\t10M100N5M\t*\t0\t0\t*\t*";
+  private static final String UNMAPPED_LINE = "r2\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\tIIII";
+  private static final String REVERSE_LINE = "r3\t16\tchr1\t300\t60\t20M\t*\t0\t0\t*\t*";
+  private static final String UNMAPPED_PLACED_LINE = "r4\t4\tchr1\t400\t0\t*\t*\t0\t0\tACGT\tIIII";
+
+  @Test
+  public void testConvertChunk() throws IOException {
+
+    final SAMFileHeader header = new SAMFileHeader();
+    header.addSequence(new SAMSequenceRecord("chr1", 10_000));
+
+    final EntryMetadata metadata = new EntryMetadata();
+
+    // CRLF lines, empty lines and unmapped alignments
+    final byte[] data =
+        (SPLICED_LINE
+                + "\r\n"
+                + UNMAPPED_LINE
+                + "\r\n"
+                + "\r\n"
+                + "\n"
+                + UNMAPPED_PLACED_LINE
+                + "\n"
+                + REVERSE_LINE
+                + "\r\n")
+            .getBytes(US_ASCII);
+
+    final List<BEDEntry> entries =
+        Splice2BEDModule.convertChunk(
+            data, 0, data.length, new SAMLineParser(header), metadata, null);
+
+    assertEquals(2, entries.size());
+
+    assertEquals("r1", entries.get(0).getName());
+    assertEquals('+', entries.get(0).getStrand());
+    assertEquals("255,0,0", entries.get(0).getRgbItem());
+
+    assertEquals("r3", entries.get(1).getName());
+    assertEquals('-', entries.get(1).getStrand());
+    assertEquals("0,0,255", entries.get(1).getRgbItem());
+
+    // The entries must be the same as the entries of the lines without carriage return
+    final SAMLineParser parser = new SAMLineParser(header);
+    final List<BEDEntry> expected = new ArrayList<>();
+    for (String line : new String[] {SPLICED_LINE, REVERSE_LINE}) {
+      final BEDEntry e = parseIntervalsToBEDEntry(parser.parseLine(line), metadata);
+      e.setScore(1000);
+      e.setRgbItem(e.getStrand() == '+' ? "255,0,0" : "0,0,255");
+      expected.add(e);
+    }
+    assertEquals(expected, entries);
+
+    // Track color
+    final List<BEDEntry> coloredEntries =
+        Splice2BEDModule.convertChunk(
+            data, 0, data.length, new SAMLineParser(header), metadata, " 1,2,3 ");
+
+    assertEquals(2, coloredEntries.size());
+    for (BEDEntry e : coloredEntries) {
+      assertEquals("1,2,3", e.getRgbItem());
+    }
+  }
+
+  @Test
+  public void testInvalidLine() {
+
+    final SAMFileHeader header = new SAMFileHeader();
+    final byte[] data = "r1\r\n".getBytes(US_ASCII);
+
+    try {
+      Splice2BEDModule.convertChunk(
+          data, 0, data.length, new SAMLineParser(header), new EntryMetadata(), null);
+      throw new AssertionError("An IOException was expected");
+    } catch (IOException e) {
+      // Expected exception
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.multiqc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Test;
+
+public class FastQCInputPreprocessorTest {
+
+  private static final String DATA_ENTRY = "sample_fastqc/fastqc_data.txt";
+  private static final String DATA =
+      "##FastQC\t0.11.9\n>>Basic Statistics\tpass\nFilename\treads.fq\nTotal Sequences\t100\n";
+
+  @Test
+  public void testRewrite() throws IOException {
+
+    final File dir = Files.createTempDirectory("fastqcpreprocessor").toFile();
+
+    try {
+      final File input = new File(dir, "input.zip");
+      final File output = new File(dir, "output.zip");
+
+      createZip(input, "sample_fastqc/fastqc_report.html", "<html/>", DATA_ENTRY, DATA);
+
+      FastQCInputPreprocessor.rewriteFastqcResultZip(input, output, "sample1");
+
+      try (ZipFile zip = new ZipFile(output)) {
+
+        final List<String> names = new ArrayList<>();
+        for (ZipEntry e : Collections.list(zip.entries())) {
+          names.add(e.getName());
+        }
+        assertEquals(List.of("sample_fastqc/fastqc_report.html", DATA_ENTRY), names);
+
+        assertEquals("<html/>", read(zip, "sample_fastqc/fastqc_report.html"));
+        assertEquals(
+            DATA.replace("Filename\treads.fq", "Filename\tsample1.fastq.gz")
+                .replace("\n", System.lineSeparator()),
+            read(zip, DATA_ENTRY));
+      }
+
+      assertEquals(List.of("input.zip", "output.zip"), list(dir));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testMissingData() throws IOException {
+
+    final File dir = Files.createTempDirectory("fastqcpreprocessor").toFile();
+
+    try {
+      final File input = new File(dir, "input.zip");
+      final File output = new File(dir, "output.zip");
+
+      createZip(input, "sample_fastqc/fastqc_report.html", "<html/>");
+
+      try {
+        FastQCInputPreprocessor.rewriteFastqcResultZip(input, output, "sample1");
+        throw new AssertionError("An IOException was expected");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("fastqc_data.txt"));
+      }
+
+      // No output file must be left, otherwise the next execution would skip the file
+      assertFalse(output.exists());
+      assertEquals(List.of("input.zip"), list(dir));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static void createZip(final File file, final String... entries) throws IOException {
+
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+
+      for (int i = 0; i < entries.length; i += 2) {
+        out.putNextEntry(new ZipEntry(entries[i]));
+        out.write(entries[i + 1].getBytes(UTF_8));
+        out.closeEntry();
+      }
+    }
+  }
+
+  private static String read(final ZipFile zip, final String entryName) throws IOException {
+
+    try (InputStream in = zip.getInputStream(zip.getEntry(entryName))) {
+      return new String(in.readAllBytes(), UTF_8);
+    }
+  }
+
+  private static List<String> list(final File dir) {
+
+    final List<String> result = new ArrayList<>(List.of(dir.list()));
+    Collections.sort(result);
+
+    return result;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.singlecell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.Column;
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.ColumnBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class ColumnarSparseMatrixTest {
+
+  @Test
+  public void testAddColumn() {
+
+    final ColumnarSparseMatrix matrix = new ColumnarSparseMatrix();
+    final String[] rowNames = {"g1", "g2", "g3"};
+
+    matrix.addColumn(new Column("c1", rowNames, new double[] {1, 0, 2}));
+    matrix.addColumn(new Column("c2", new String[] {"g4", "g2"}, new double[] {3, 4}));
+
+    assertEquals(Arrays.asList("g1", "g2", "g3", "g4"), matrix.getRowNames());
+    assertEquals(Arrays.asList("c1", "c2"), matrix.getColumnNames());
+    assertEquals(4, matrix.getRowCount());
+    assertEquals(2, matrix.getColumnCount());
+    assertEquals(4, matrix.getNonZeroCount());
+    assertEquals(2, matrix.getColumnNonZeroCount(0));
+    assertEquals(2, matrix.getColumnNonZeroCount(1));
+    assertTrue(matrix.isIntegerValues());
+
+    // The values of a column are sorted by row
+    assertEquals("0:0=1.0 2:0=2.0 1:1=4.0 3:1=3.0 ", nonZero(matrix, false));
+
+    matrix.addColumn(new Column("c3", rowNames, new double[] {0.5, 0, 0}));
+    assertFalse(matrix.isIntegerValues());
+
+    try {
+      matrix.addColumn(new Column("c1", rowNames, new double[3]));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // The column already exists
+    }
+  }
+
+  @Test
+  public void testRepeatedRows() {
+
+    final ColumnarSparseMatrix matrix = new ColumnarSparseMatrix();
+
+    // The values of the repeated rows are summed and the resulting zero values removed
+    matrix.addColumn(
+        new Column(
+            "c1", new String[] {"g1", "g2", "g1", "g3", "g3"}, new double[] {1, 2, 3, 4, -4}));
+
+    assertEquals(Arrays.asList("g1", "g2", "g3"), matrix.getRowNames());
+    assertEquals(2, matrix.getNonZeroCount());
+    assertEquals("0:0=4.0 1:0=2.0 ", nonZero(matrix, false));
+
+    // Repeated rows in a sparse column
+    final ColumnBuilder builder = new ColumnBuilder();
+    builder.add(2, 1);
+    builder.add(0, 5);
+    builder.add(2, 2);
+    builder.add(1, 0);
+    matrix.addColumn(builder.build("c2", new String[] {"g3", "g4", "g1"}));
+
+    assertEquals(Arrays.asList("g1", "g2", "g3", "g4"), matrix.getRowNames());
+    assertEquals(4, matrix.getNonZeroCount());
+    assertEquals("0:0=4.0 1:0=2.0 0:1=3.0 2:1=5.0 ", nonZero(matrix, false));
+  }
+
+  @Test
+  public void testForEachNonZeroByRow() throws IOException {
+
+    final ColumnarSparseMatrix matrix = new ColumnarSparseMatrix();
+    final String[] rowNames = {"g1", "g2", "g3", "g4"};
+
+    matrix.addColumn(new Column("c1", rowNames, new double[] {1, 0, 2, 0}));
+    matrix.addColumn(new Column("c2", rowNames, new double[] {0, 0, 3, 0}));
+    matrix.addColumn(new Column("c3", rowNames, new double[] {4, 0, 0, 5}));
+
+    assertEquals("0:0=1.0 0:2=4.0 2:0=2.0 2:1=3.0 3:2=5.0 ", nonZero(matrix, true));
+
+    // Empty matrix
+    assertEquals("", nonZero(new ColumnarSparseMatrix(), true));
+  }
+
+  @Test
+  public void testLoad() throws IOException {
+
+    final List<Integer> inputs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      inputs.add(i);
+    }
+
+    // The columns are added in the order of the inputs whatever the number of threads
+    for (int threads : new int[] {1, 4}) {
+
+      final ColumnarSparseMatrix matrix =
+          ColumnarSparseMatrix.load(
+              inputs,
+              threads,
+              i ->
+                  Collections.singletonList(
+                      new Column(
+                          "c" + i,
+                          new String[] {"g" + (i % 3), "g" + (i % 5)},
+                          new double[] {i, 1})));
+
+      assertEquals(20, matrix.getColumnCount());
+      assertEquals("c0", matrix.getColumnNames().get(0));
+      assertEquals("c19", matrix.getColumnNames().get(19));
+      assertEquals(Arrays.asList("g0", "g1", "g2", "g3", "g4"), matrix.getRowNames());
+
+      // c0 contains twice the row g0 with the values 0 and 1
+      assertEquals(1, matrix.getColumnNonZeroCount(0));
+    }
+
+    // The errors of the loader are thrown
+    try {
+      ColumnarSparseMatrix.load(
+          inputs,
+          4,
+          i -> {
+            throw new IOException("error " + i);
+          });
+      fail();
+    } catch (IOException e) {
+      assertEquals("error 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSortByRow() {
+
+    final int[] rows = {5, 1, 3, 1, 0};
+    final double[] values = {1, 2, 3, 4, 5};
+
+    ColumnarSparseMatrix.sortByRow(rows, values);
+
+    assertEquals("[0, 1, 1, 3, 5]", Arrays.toString(rows));
+    assertEquals("[5.0, 2.0, 4.0, 3.0, 1.0]", Arrays.toString(values));
+  }
+
+  private static String nonZero(final ColumnarSparseMatrix matrix, final boolean byRow) {
+
+    final StringBuilder sb = new StringBuilder();
+
+    try {
+      final ColumnarSparseMatrix.ValueConsumer consumer =
+          (row, col, value) -> sb.append(row + ":" + col + "=" + value + " ");
+
+      if (byRow) {
+        matrix.forEachNonZeroByRow(consumer);
+      } else {
+        matrix.forEachNonZero(consumer);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return sb.toString();
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.modules.singlecell;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import fr.ens.biologie.genomique.eoulsan.modules.singlecell.ColumnarSparseMatrix.Column;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+
+public class ColumnarSparseMatrixUtilsTest {
+
+  private static final String DENSE_TSV =
+      "Id\tc1\tc2\tc3\n" + "g1\t1\t0\t4\n" + "g2\t0\t0\t0\n" + "g3\t2\t3\t0\n";
+
+  @Test
+  public void testReadDenseTSV() throws IOException {
+
+    final List<Column> columns = readDenseTSV(DENSE_TSV, "s1_");
+    assertEquals(3, columns.size());
+    assertEquals("s1_c1", columns.get(0).getName());
+    assertEquals("s1_c3", columns.get(2).getName());
+
+    final ColumnarSparseMatrix matrix = new ColumnarSparseMatrix();
+    for (Column c : columns) {
+      matrix.addColumn(c);
+    }
+
+    // The rows without values are kept
+    assertEquals(Arrays.asList("g1", "g2", "g3"), matrix.getRowNames());
+    assertEquals(4, matrix.getNonZeroCount());
+
+    // Quoted names and repeated rows
+    final List<Column> quoted =
+        readDenseTSV("\"\"\t\"c1\"\n\"g1\"\t1.5\n\"g2\"\t2\n\"g1\"\t1\n", "");
+    final ColumnarSparseMatrix matrix2 = new ColumnarSparseMatrix();
+    matrix2.addColumn(quoted.get(0));
+    assertEquals(Arrays.asList("g1", "g2"), matrix2.getRowNames());
+    assertEquals(Arrays.asList("c1"), matrix2.getColumnNames());
+    assertEquals("0:0=2.5 1:0=2.0 ", toMatrixValues(matrix2));
+
+    // Contents that are not dense TSV matrices
+    assertNull(readDenseTSV("", ""));
+    assertNull(readDenseTSV("%%MatrixMarket matrix coordinate integer general\n1 1 1\n", ""));
+    assertNull(readDenseTSV("gene\tcell\tcount\ng1\tc1\t3\n", ""));
+    assertNull(readDenseTSV("Id\tc1\tc2\ng1\t1\n", ""));
+
+    // An invalid line after the first row is an error
+    try {
+      readDenseTSV("Id\tc1\ng1\t1\ng2\tNA\n", "");
+      throw new AssertionError("The invalid line has not been detected");
+    } catch (IOException e) {
+      // Expected exception
+    }
+  }
+
+  @Test
+  public void testWriteDenseTSV() throws IOException {
+
+    final ColumnarSparseMatrix matrix = createMatrix();
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarSparseMatrixUtils.writeDenseTSV(matrix, out);
+
+    assertEquals(DENSE_TSV, out.toString("UTF-8"));
+
+    // Read the written matrix
+    final ColumnarSparseMatrix matrix2 = new ColumnarSparseMatrix();
+    for (Column c : readDenseTSV(out.toString("UTF-8"), "")) {
+      matrix2.addColumn(c);
+    }
+    assertEquals(matrix.getRowNames(), matrix2.getRowNames());
+    assertEquals(matrix.getColumnNames(), matrix2.getColumnNames());
+    assertEquals(toMatrixValues(matrix), toMatrixValues(matrix2));
+  }
+
+  @Test
+  public void testWriteMatrixMarket() throws IOException {
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarSparseMatrixUtils.writeMatrixMarket(createMatrix(), out);
+
+    assertEquals(
+        "%%MatrixMarket matrix coordinate integer general\n"
+            + "3 3 4\n"
+            + "1 1 1\n"
+            + "3 1 2\n"
+            + "3 2 3\n"
+            + "1 3 4\n",
+        out.toString("UTF-8"));
+
+    // Real values
+    final ColumnarSparseMatrix matrix = new ColumnarSparseMatrix();
+    matrix.addColumn(new Column("c1", new String[] {"g1"}, new double[] {0.5}));
+    out.reset();
+    ColumnarSparseMatrixUtils.writeMatrixMarket(matrix, out);
+
+    assertEquals(
+        "%%MatrixMarket matrix coordinate real general\n1 1 1\n1 1 0.5\n", out.toString("UTF-8"));
+  }
+
+  @Test
+  public void testWriteBinary() throws IOException {
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarSparseMatrixUtils.writeBinary(createMatrix(), out);
+
+    final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+    final byte[] magic = new byte[4];
+    buffer.get(magic);
+    assertEquals("ESMB", new String(magic, UTF_8));
+    assertEquals(1, buffer.getInt());
+
+    // Dimensions
+    assertEquals(3, buffer.getInt());
+    assertEquals(3, buffer.getInt());
+    assertEquals(4, buffer.getInt());
+
+    // Column pointers
+    final int[] pointers = new int[4];
+    for (int i = 0; i < pointers.length; i++) {
+      pointers[i] = buffer.getInt();
+    }
+    assertEquals("[0, 2, 3, 4]", Arrays.toString(pointers));
+
+    // Row indexes and values
+    final int[] rows = new int[4];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = buffer.getInt();
+    }
+    assertEquals("[0, 2, 2, 0]", Arrays.toString(rows));
+
+    final double[] values = new double[4];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = buffer.getDouble();
+    }
+    assertEquals("[1.0, 2.0, 3.0, 4.0]", Arrays.toString(values));
+
+    // Names
+    final byte[] names = new byte[buffer.remaining()];
+    buffer.get(names);
+    assertEquals("g1\0g2\0g3\0c1\0c2\0c3\0", new String(names, UTF_8));
+  }
+
+  @Test
+  public void testWriteCellRangerMatrix() throws IOException {
+
+    final ColumnarSparseMatrix matrix = createMatrix();
+
+    // Cell Ranger 2
+    final File dir2 = Files.createTempDirectory("junit-").toFile();
+    ColumnarSparseMatrixUtils.writeCellRangerMatrix(matrix, dir2, null, null, 1, "Gene");
+
+    assertEquals("g1\tg1\ng2\tg2\ng3\tg3\n", read(new File(dir2, "genes.tsv"), false));
+    assertEquals("c1\nc2\nc3\n", read(new File(dir2, "barcodes.tsv"), false));
+    assertEquals(
+        "%%MatrixMarket matrix coordinate integer general\n3 3 4\n1 1 1\n3 1 2\n3 2 3\n1 3 4\n",
+        read(new File(dir2, "matrix.mtx"), false));
+
+    // Cell Ranger 3
+    final File dir3 = Files.createTempDirectory("junit-").toFile();
+    ColumnarSparseMatrixUtils.writeCellRangerMatrix(
+        matrix, dir3, null, null, 2, "Gene Expression");
+
+    assertEquals(
+        "g1\tg1\tGene Expression\ng2\tg2\tGene Expression\ng3\tg3\tGene Expression\n",
+        read(new File(dir3, "features.tsv.gz"), true));
+    assertEquals("c1\nc2\nc3\n", read(new File(dir3, "barcodes.tsv.gz"), true));
+    assertEquals(
+        read(new File(dir2, "matrix.mtx"), false), read(new File(dir3, "matrix.mtx.gz"), true));
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static ColumnarSparseMatrix createMatrix() {
+
+    final ColumnarSparseMatrix result = new ColumnarSparseMatrix();
+    final String[] rowNames = {"g1", "g2", "g3"};
+
+    result.addColumn(new Column("c1", rowNames, new double[] {1, 0, 2}));
+    result.addColumn(new Column("c2", rowNames, new double[] {0, 0, 3}));
+    result.addColumn(new Column("c3", rowNames, new double[] {4, 0, 0}));
+
+    return result;
+  }
+
+  private static List<Column> readDenseTSV(final String s, final String prefix)
+      throws IOException {
+
+    return ColumnarSparseMatrixUtils.readDenseTSV(
+        new BufferedReader(new StringReader(s)), prefix);
+  }
+
+  private static String toMatrixValues(final ColumnarSparseMatrix matrix) throws IOException {
+
+    final StringBuilder sb = new StringBuilder();
+    matrix.forEachNonZero((row, col, value) -> sb.append(row + ":" + col + "=" + value + " "));
+
+    return sb.toString();
+  }
+
+  private static String read(final File file, final boolean compressed) throws IOException {
+
+    final Path path = file.toPath();
+
+    try (InputStream in =
+        compressed ? new GZIPInputStream(Files.newInputStream(path)) : Files.newInputStream(path)) {
+      return new String(in.readAllBytes(), UTF_8);
+    }
+  }
+}
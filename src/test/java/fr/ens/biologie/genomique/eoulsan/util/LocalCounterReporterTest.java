@@ -0,0 +1,145 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class LocalCounterReporterTest {
+
+  @Test
+  public void testIncrCounter() {
+
+    final LocalCounterReporter reporter = new LocalCounterReporter();
+
+    assertTrue(reporter.getCounterGroups().isEmpty());
+    assertEquals(-1, reporter.getCounterValue("group1", "counter1"));
+
+    reporter.incrCounter("group1", "counter1", 2);
+    reporter.incrCounter("group1", "counter1", 3);
+    reporter.incrCounter("group1", "counter2", 1);
+    reporter.incrCounter("group2", "counter1", 7);
+
+    assertEquals(5, reporter.getCounterValue("group1", "counter1"));
+    assertEquals(1, reporter.getCounterValue("group1", "counter2"));
+    assertEquals(7, reporter.getCounterValue("group2", "counter1"));
+    assertEquals(0, reporter.getCounterValue("group2", "counter2"));
+
+    assertEquals(new HashSet<>(Arrays.asList("group1", "group2")), reporter.getCounterGroups());
+    assertEquals(
+        new HashSet<>(Arrays.asList("counter1", "counter2")), reporter.getCounterNames("group1"));
+    assertEquals(Collections.singleton("counter1"), reporter.getCounterNames("group2"));
+    assertTrue(reporter.getCounterNames("group3").isEmpty());
+  }
+
+  @Test
+  public void testSetCounter() {
+
+    final LocalCounterReporter reporter = new LocalCounterReporter();
+
+    reporter.setCounter("group1", "counter1", 10);
+    assertEquals(10, reporter.getCounterValue("group1", "counter1"));
+
+    reporter.incrCounter("group1", "counter1", 5);
+    reporter.setCounter("group1", "counter1", 3);
+    assertEquals(3, reporter.getCounterValue("group1", "counter1"));
+  }
+
+  @Test
+  public void testCounterHandle() {
+
+    final LocalCounterReporter reporter = new LocalCounterReporter();
+
+    // The counter must not be created before the first increment
+    final CounterHandle handle = reporter.getCounterHandle("group1", "counter1");
+    final CounterHandle unusedHandle = reporter.getCounterHandle("group1", "counter2");
+    assertTrue(reporter.getCounterGroups().isEmpty());
+
+    handle.increment();
+    handle.increment(4);
+    reporter.incrCounter("group1", "counter1", 1);
+
+    assertEquals(6, reporter.getCounterValue("group1", "counter1"));
+    assertEquals(Collections.singleton("group1"), reporter.getCounterGroups());
+    assertEquals(Collections.singleton("counter1"), reporter.getCounterNames("group1"));
+
+    // A handle obtained with CounterHandle.of() is also resolved on the first increment
+    final CounterHandle handle2 = CounterHandle.of(reporter, "group2", "counter1");
+    assertEquals(Collections.singleton("group1"), reporter.getCounterGroups());
+    handle2.increment();
+    assertEquals(1, reporter.getCounterValue("group2", "counter1"));
+
+    assertEquals(0, reporter.getCounterValue("group1", "counter2"));
+    unusedHandle.increment(0);
+    assertEquals(
+        new HashSet<>(Arrays.asList("counter1", "counter2")), reporter.getCounterNames("group1"));
+  }
+
+  @Test
+  public void testConcurrentIncrements() throws Exception {
+
+    final LocalCounterReporter reporter = new LocalCounterReporter();
+    final CounterHandle handle = reporter.getCounterHandle("group1", "counter1");
+
+    final int threads = 8;
+    final int increments = 100_000;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < increments; j++) {
+                    handle.increment();
+                    reporter.incrCounter("group1", "counter2", 2);
+                  }
+                }));
+      }
+
+      for (Future<?> f : futures) {
+        f.get();
+      }
+
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals((long) threads * increments, reporter.getCounterValue("group1", "counter1"));
+    assertEquals(2L * threads * increments, reporter.getCounterValue("group1", "counter2"));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import fr.ens.biologie.genomique.eoulsan.data.DataFile;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ResourceIndexTest {
+
+  private static final String NAME = "test";
+
+  @Test
+  public void testSaveLoad() throws IOException {
+
+    final Path dir = Files.createTempDirectory("resourceindex");
+    try {
+
+      final ResourceIndex index = new ResourceIndex(dir.resolve("index"), NAME);
+      final Map<String, String> resources = resources();
+
+      index.save("fp1", resources);
+      assertEquals(resources, index.load("fp1", resources.keySet()));
+
+      // Unknown fingerprint
+      assertNull(index.load("fp2", resources.keySet()));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testRemoveInvalidIndex() throws IOException {
+
+    final Path dir = Files.createTempDirectory("resourceindex");
+    try {
+
+      final ResourceIndex index = new ResourceIndex(dir, NAME);
+      final Map<String, String> resources = resources();
+
+      // Index with a path that is not a resource
+      final Path file = dir.resolve(NAME + "-fp1.index");
+      Files.write(file, Arrays.asList("/a.xml\tA", "/etc/passwd\tB"), UTF_8);
+      assertNull(index.load("fp1", resources.keySet()));
+      assertFalse(Files.exists(file));
+
+      // Index with a missing resource
+      Files.write(file, Arrays.asList("/a.xml\tA"), UTF_8);
+      assertNull(index.load("fp1", resources.keySet()));
+      assertFalse(Files.exists(file));
+
+      // Index with an empty name
+      Files.write(file, Arrays.asList("/a.xml\tA", "/b.xml\t"), UTF_8);
+      assertNull(index.load("fp1", resources.keySet()));
+      assertFalse(Files.exists(file));
+
+      // Index with an invalid line
+      Files.write(file, Arrays.asList("/a.xml\tA", "/b.xml"), UTF_8);
+      assertNull(index.load("fp1", resources.keySet()));
+      assertFalse(Files.exists(file));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  @Test
+  public void testRemoveStaleIndexes() throws IOException {
+
+    final Path dir = Files.createTempDirectory("resourceindex");
+    try {
+
+      final ResourceIndex index = new ResourceIndex(dir, NAME);
+      final Map<String, String> resources = resources();
+
+      // The index of another loader must be kept
+      final Path otherFile = dir.resolve("other-fp1.index");
+      Files.write(otherFile, Arrays.asList("/a.xml\tA"), UTF_8);
+
+      index.save("fp1", resources);
+      index.save("fp2", resources);
+
+      assertEquals(Arrays.asList("other-fp1.index", NAME + "-fp2.index"), list(dir));
+      assertNull(index.load("fp1", resources.keySet()));
+      assertEquals(resources, index.load("fp2", resources.keySet()));
+
+    } finally {
+      new DataFile(dir).delete(true);
+    }
+  }
+
+  //
+  // Utility methods
+  //
+
+  private static Map<String, String> resources() {
+
+    final Map<String, String> result = new LinkedHashMap<>();
+    result.put("/a.xml", "A");
+    result.put("/b.xml", "B");
+
+    return result;
+  }
+
+  private static List<String> list(final Path dir) throws IOException {
+
+    final List<String> result = new ArrayList<>();
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path p : stream) {
+        result.add(p.getFileName().toString());
+      }
+    }
+    result.sort(null);
+
+    return result;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+public class StreamingODSTranslatorOutputFormatTest {
+
+  @Test
+  public void testArchive() throws IOException, ParserConfigurationException, SAXException {
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    final StreamingODSTranslatorOutputFormat of =
+        new StreamingODSTranslatorOutputFormat(out, "Results");
+
+    of.addHeaderField("Id");
+    of.addHeaderField("Count");
+    of.addHeaderField("Link");
+    of.newLine();
+
+    of.writeText("gene1 <a> & b");
+    of.writeLong(42);
+    of.writeLink("gene1", "http://www.example.com/gene?id=gene1&db=1");
+    of.newLine();
+
+    of.writeEmpty();
+    of.writeDouble(Double.NaN);
+    of.writeText("line1\nline2");
+    of.newLine();
+    of.close();
+
+    final Map<String, byte[]> entries = new HashMap<>();
+
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+
+      // The mimetype entry must be the first entry of the archive and must not be compressed
+      final ZipEntry first = in.getNextEntry();
+      assertNotNull(first);
+      assertEquals("mimetype", first.getName());
+      assertEquals(ZipEntry.STORED, first.getMethod());
+      assertEquals(
+          "application/vnd.oasis.opendocument.spreadsheet", new String(in.readAllBytes(), UTF_8));
+
+      ZipEntry e;
+      while ((e = in.getNextEntry()) != null) {
+        entries.put(e.getName(), in.readAllBytes());
+      }
+    }
+
+    assertTrue(entries.containsKey("META-INF/manifest.xml"));
+    assertTrue(entries.containsKey("content.xml"));
+
+    // The content must be a valid XML document
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final Document doc =
+        factory.newDocumentBuilder().parse(new ByteArrayInputStream(entries.get("content.xml")));
+
+    final NodeList rows = doc.getElementsByTagName("table:table-row");
+    assertEquals(3, rows.getLength());
+    assertEquals("IdCountLink", rows.item(0).getTextContent());
+    assertEquals("gene1 <a> & b42gene1", rows.item(1).getTextContent());
+    assertEquals("NaNline1line2", rows.item(2).getTextContent());
+
+    final NodeList links = doc.getElementsByTagName("text:a");
+    assertEquals(1, links.getLength());
+    assertEquals(
+        "http://www.example.com/gene?id=gene1&db=1",
+        links.item(0).getAttributes().getNamedItem("xlink:href").getNodeValue());
+
+    assertEquals(1, doc.getElementsByTagName("text:line-break").getLength());
+  }
+
+  @Test
+  public void testEscapeText() {
+
+    assertEquals("", StreamingODSTranslatorOutputFormat.escapeText(""));
+    assertEquals("a b", StreamingODSTranslatorOutputFormat.escapeText("a b"));
+    assertEquals("&lt;a&gt; &amp; b", StreamingODSTranslatorOutputFormat.escapeText("<a> & b"));
+    assertEquals(
+        "a<text:tab/>b<text:line-break/>c<text:line-break/>d",
+        StreamingODSTranslatorOutputFormat.escapeText("a\tb\nc\r\nd"));
+    assertEquals(
+        "a <text:s text:c=\"2\"/>b", StreamingODSTranslatorOutputFormat.escapeText("a   b"));
+    assertEquals(
+        "<text:s text:c=\"2\"/>a<text:s text:c=\"1\"/>",
+        StreamingODSTranslatorOutputFormat.escapeText("  a "));
+    assertEquals(
+        "a<text:line-break/><text:s text:c=\"1\"/>b",
+        StreamingODSTranslatorOutputFormat.escapeText("a\n b"));
+  }
+
+  @Test
+  public void testMaxRows() throws IOException {
+
+    final StreamingODSTranslatorOutputFormat of = new LimitedODSOutputFormat(2);
+
+    // The last allowed row can be followed by a new line
+    of.addHeaderField("Id");
+    of.newLine();
+    of.writeText("gene1");
+    of.newLine();
+
+    try {
+      of.writeText("gene2");
+      throw new AssertionError("The limit of rows has not been detected");
+    } catch (IOException e) {
+      // Expected exception
+    }
+  }
+
+  /** This class define an ODS output format with a small limit of rows. */
+  private static final class LimitedODSOutputFormat extends StreamingODSTranslatorOutputFormat {
+
+    private final int maxRows;
+
+    @Override
+    protected int getMaxRows() {
+      return this.maxRows;
+    }
+
+    LimitedODSOutputFormat(final int maxRows) {
+      super(OutputStream.nullOutputStream());
+      this.maxRows = maxRows;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+public class StreamingXLSXTranslatorOutputFormatTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    final StreamingXLSXTranslatorOutputFormat of =
+        new StreamingXLSXTranslatorOutputFormat(out, "Results");
+
+    of.addHeaderField("Id");
+    of.addHeaderField("Count");
+    of.addHeaderField("Ratio");
+    of.addHeaderField("Description");
+    of.addHeaderField("Link");
+    of.newLine();
+
+    of.writeText("gene1");
+    of.writeLong(42);
+    of.writeDouble(0.5);
+    of.writeText("a <description> & \"quotes\"\tand a tab");
+    of.writeLink("gene1", "http://www.example.com/gene?id=gene1&db=1");
+    of.newLine();
+
+    of.writeText("gene2");
+    of.writeEmpty();
+    of.writeDouble(Double.NaN);
+    of.writeText(null);
+    of.writeLink("gene2", null);
+
+    // A final new line must not create an empty row
+    of.newLine();
+    of.close();
+
+    try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+
+      assertEquals(1, workbook.getNumberOfSheets());
+      final Sheet sheet = workbook.getSheet("Results");
+      assertNotNull(sheet);
+      assertEquals(2, sheet.getLastRowNum());
+
+      // Header
+      final Row header = sheet.getRow(0);
+      assertEquals("Id", header.getCell(0).getStringCellValue());
+      assertEquals("Link", header.getCell(4).getStringCellValue());
+      assertTrue(((XSSFCellStyle) header.getCell(0).getCellStyle()).getFont().getBold());
+      assertEquals(1, sheet.getPaneInformation().getHorizontalSplitPosition());
+
+      // First row
+      final Row row1 = sheet.getRow(1);
+      assertEquals("gene1", row1.getCell(0).getStringCellValue());
+      assertEquals(CellType.NUMERIC, row1.getCell(1).getCellType());
+      assertEquals(42.0, row1.getCell(1).getNumericCellValue(), 0.0);
+      assertEquals(0.5, row1.getCell(2).getNumericCellValue(), 0.0);
+      assertEquals(
+          "a <description> & \"quotes\"\tand a tab", row1.getCell(3).getStringCellValue());
+
+      final Cell link = row1.getCell(4);
+      assertEquals("gene1", link.getStringCellValue());
+      assertNotNull(link.getHyperlink());
+      assertEquals("http://www.example.com/gene?id=gene1&db=1", link.getHyperlink().getAddress());
+
+      // Second row
+      final Row row2 = sheet.getRow(2);
+      assertEquals("gene2", row2.getCell(0).getStringCellValue());
+      assertNull(row2.getCell(1));
+      assertEquals("NaN", row2.getCell(2).getStringCellValue());
+      assertNull(row2.getCell(3));
+      assertEquals("gene2", row2.getCell(4).getStringCellValue());
+      assertNull(row2.getCell(4).getHyperlink());
+    }
+  }
+
+  @Test
+  public void testInvalidLink() throws IOException {
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    final StreamingXLSXTranslatorOutputFormat of = new StreamingXLSXTranslatorOutputFormat(out);
+    of.writeLink("text", "not a valid uri");
+    of.close();
+
+    try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+
+      final Cell cell = workbook.getSheetAt(0).getRow(0).getCell(0);
+      assertEquals("text", cell.getStringCellValue());
+      assertNull(cell.getHyperlink());
+    }
+  }
+
+  @Test
+  public void testClosed() throws IOException {
+
+    final StreamingXLSXTranslatorOutputFormat of =
+        new StreamingXLSXTranslatorOutputFormat(new ByteArrayOutputStream());
+    of.close();
+
+    // Closing twice is allowed
+    of.close();
+
+    try {
+      of.writeText("text");
+      throw new AssertionError("No exception thrown after close()");
+    } catch (IOException e) {
+      // Expected exception
+    }
+  }
+}
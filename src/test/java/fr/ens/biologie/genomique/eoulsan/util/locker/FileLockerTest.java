@@ -0,0 +1,150 @@
+/*
+ *                  Eoulsan development code
+ *
+ * This code may be freely distributed and modified under the
+ * terms of the GNU Lesser General Public License version 2.1 or
+ * later and CeCILL-C. This should be distributed with the code.
+ * If you do not have a copy, see:
+ *
+ *      http://www.gnu.org/licenses/lgpl-2.1.txt
+ *      http://www.cecill.info/licences/Licence_CeCILL-C_V1-en.txt
+ *
+ * Copyright for this code is held jointly by the Genomic platform
+ * of the Institut de Biologie de l'École normale supérieure and
+ * the individual authors. These should be listed in @author doc
+ * comments.
+ *
+ * For more information on the Eoulsan project and its aims,
+ * or to join the Eoulsan Google group, visit the home page
+ * at:
+ *
+ *      http://outils.genomique.biologie.ens.fr/eoulsan
+ *
+ */
+
+package fr.ens.biologie.genomique.eoulsan.util.locker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class FileLockerTest {
+
+  @Test
+  public void testLockUnlock() throws IOException {
+
+    final Path dir = Files.createTempDirectory("junit-");
+    final FileLocker locker = new FileLocker(dir, "test");
+
+    assertEquals(0, locker.getQueueLength());
+    locker.lock();
+    assertEquals(1, locker.getQueueLength());
+    locker.unlock();
+    assertEquals(0, locker.getQueueLength());
+
+    // A second lock must not be blocked by the previous one
+    locker.lock();
+    assertEquals(1, locker.getQueueLength());
+    locker.unlock();
+    assertEquals(0, locker.getQueueLength());
+  }
+
+  @Test
+  public void testStaleTicket() throws Exception {
+
+    final Path dir = Files.createTempDirectory("junit-");
+
+    // The next ticket of the queue will have the sequence number 5
+    final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(5);
+    Files.write(dir.resolve("test.seq"), buffer.array());
+
+    // Simulate the ticket of a dead process that precedes the new ticket
+    final Path queueDir = Files.createDirectories(dir.resolve("test.queue"));
+    final Path staleTicket = queueDir.resolve("0000000000000000003.ticket");
+    Files.createFile(staleTicket);
+
+    final FileLocker locker = new FileLocker(dir, "test");
+
+    // The lock must reclaim the stale ticket instead of waiting for it
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor
+          .submit(
+              () -> {
+                locker.lock();
+                return null;
+              })
+          .get(10, TimeUnit.SECONDS);
+
+      assertFalse(Files.exists(staleTicket));
+      assertTrue(Files.exists(queueDir.resolve("0000000000000000005.ticket")));
+      assertEquals(1, locker.getQueueLength());
+
+      executor
+          .submit(
+              () -> {
+                locker.unlock();
+                return null;
+              })
+          .get(10, TimeUnit.SECONDS);
+      assertEquals(0, locker.getQueueLength());
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testMutualExclusion() throws Exception {
+
+    final Path dir = Files.createTempDirectory("junit-");
+    final AtomicBoolean locked = new AtomicBoolean();
+    final AtomicBoolean overlap = new AtomicBoolean();
+    final AtomicInteger count = new AtomicInteger();
+
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+
+      final Thread t =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < 20; j++) {
+                    final FileLocker locker = new FileLocker(dir, "test");
+                    locker.lock();
+                    if (!locked.compareAndSet(false, true)) {
+                      overlap.set(true);
+                    }
+                    count.incrementAndGet();
+                    locked.set(false);
+                    locker.unlock();
+                  }
+                } catch (IOException e) {
+                  overlap.set(true);
+                }
+              });
+      threads.add(t);
+      t.start();
+    }
+
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    assertFalse(overlap.get());
+    assertEquals(80, count.get());
+  }
+}